@@ -18,11 +18,16 @@ package com.gkatzioura.maven.cloud.abs;
 
 import com.azure.identity.ClientSecretCredential;
 import com.azure.identity.ClientSecretCredentialBuilder;
+import com.azure.storage.blob.BlobServiceAsyncClient;
 import com.azure.storage.blob.BlobServiceClient;
+import com.azure.core.util.HttpClientOptions;
 import com.azure.storage.blob.BlobServiceClientBuilder;
+import com.azure.storage.common.policy.RequestRetryOptions;
+import com.azure.storage.common.policy.RetryPolicyType;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 
+import java.time.Duration;
 import java.util.logging.Logger;
 
 public class AzureClientFactory {
@@ -32,6 +37,46 @@ public class AzureClientFactory {
     private static final Logger LOGGER = Logger.getLogger(AzureClientFactory.class.getName());
 
     public BlobServiceClient create(AuthenticationInfo authenticationInfo) throws AuthenticationException {
+        return builder(authenticationInfo).buildClient();
+    }
+
+    /**
+     * @param connectTimeout the connection timeout in milliseconds, 0 for the SDK default
+     * @param readTimeout    the read timeout in milliseconds, also bounding every try, 0 for the SDK default
+     * @param retries        whether the SDK retries failed requests itself
+     */
+    public BlobServiceClient create(AuthenticationInfo authenticationInfo, int connectTimeout, int readTimeout, boolean retries) throws AuthenticationException {
+        return builder(authenticationInfo, connectTimeout, readTimeout, retries).buildClient();
+    }
+
+    /**
+     * @return the non-blocking client, configured as {@link #create(AuthenticationInfo, int, int, boolean)}
+     */
+    public BlobServiceAsyncClient createAsync(AuthenticationInfo authenticationInfo, int connectTimeout, int readTimeout, boolean retries) throws AuthenticationException {
+        return builder(authenticationInfo, connectTimeout, readTimeout, retries).buildAsyncClient();
+    }
+
+    private BlobServiceClientBuilder builder(AuthenticationInfo authenticationInfo, int connectTimeout, int readTimeout, boolean retries) throws AuthenticationException {
+        BlobServiceClientBuilder builder = builder(authenticationInfo);
+
+        HttpClientOptions httpClientOptions = new HttpClientOptions();
+        if (connectTimeout > 0) {
+            httpClientOptions.setConnectTimeout(Duration.ofMillis(connectTimeout));
+        }
+        if (readTimeout > 0) {
+            httpClientOptions.setReadTimeout(Duration.ofMillis(readTimeout));
+            httpClientOptions.setResponseTimeout(Duration.ofMillis(readTimeout));
+        }
+        builder.clientOptions(httpClientOptions);
+
+        if (!retries) {
+            builder.retryOptions(new RequestRetryOptions(RetryPolicyType.EXPONENTIAL, 1, (Integer) null, null, null, null));
+        }
+
+        return builder;
+    }
+
+    private BlobServiceClientBuilder builder(AuthenticationInfo authenticationInfo) throws AuthenticationException {
 
         if (authenticationInfo == null) {
             throw new AuthenticationException("Please provide storage account credentials");
@@ -43,8 +88,7 @@ public class AzureClientFactory {
         if (username == null || username.isEmpty()) {
             // if no username is provided, then we expect that the password is a shared access signature (SAS) URL
             return new BlobServiceClientBuilder()
-                    .endpoint(password)
-                    .buildClient();
+                    .endpoint(password);
 
         } else if (authenticationInfo.getPassphrase() != null && !authenticationInfo.getPassphrase().isEmpty()) {
             // if no password is provided, then we expect that the username is the path to a properties file, which contains
@@ -57,13 +101,11 @@ public class AzureClientFactory {
                     .build();
             return new BlobServiceClientBuilder()
                     .endpoint(authenticationInfo.getPrivateKey())
-                    .credential(credential)
-                    .buildClient();
+                    .credential(credential);
 
         } else {
             return new BlobServiceClientBuilder()
-                    .connectionString(String.format(CONNECTION_STRING_TEMPLATE, username, password))
-                    .buildClient();
+                    .connectionString(String.format(CONNECTION_STRING_TEMPLATE, username, password));
         }
     }
 
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.abs;
+
+import java.time.Duration;
+import java.util.Iterator;
+
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.gkatzioura.maven.cloud.listing.KeyPage;
+import com.gkatzioura.maven.cloud.listing.KeyPageFetcher;
+
+/**
+ * Lists the blobs under a prefix one page at a time, resuming from the continuation token of the previous page.
+ */
+public class AzureKeyPageFetcher implements KeyPageFetcher<BlobItem> {
+
+    private static final Duration PAGE_TIMEOUT = Duration.ofMinutes(1);
+
+    private final BlobContainerClient blobContainer;
+    private final String prefix;
+
+    public AzureKeyPageFetcher(BlobContainerClient blobContainer, String prefix) {
+        this.blobContainer = blobContainer;
+        this.prefix = prefix == null || prefix.isEmpty() ? null : prefix;
+    }
+
+    @Override
+    public KeyPage<BlobItem> fetch(String continuationToken) {
+        Iterable<PagedResponse<BlobItem>> pages = continuationToken == null
+                ? blobContainer.listBlobs(new ListBlobsOptions().setPrefix(prefix), PAGE_TIMEOUT).iterableByPage()
+                : blobContainer.listBlobs(new ListBlobsOptions().setPrefix(prefix), PAGE_TIMEOUT).iterableByPage(continuationToken);
+
+        Iterator<PagedResponse<BlobItem>> iterator = pages.iterator();
+        if (!iterator.hasNext()) {
+            return new KeyPage<>(null, null);
+        }
+
+        PagedResponse<BlobItem> page = iterator.next();
+        return new KeyPage<>(page.getValue(), page.getContinuationToken());
+    }
+
+}
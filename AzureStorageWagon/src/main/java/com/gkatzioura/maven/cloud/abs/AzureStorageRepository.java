@@ -17,13 +17,51 @@
 package com.gkatzioura.maven.cloud.abs;
 
 import com.azure.core.util.Context;
+import com.azure.storage.blob.BlobAsyncClient;
 import com.azure.storage.blob.BlobClient;
+import com.azure.storage.blob.BlobContainerAsyncClient;
 import com.azure.storage.blob.BlobContainerClient;
+import com.azure.storage.blob.BlobServiceAsyncClient;
 import com.azure.storage.blob.BlobServiceClient;
+import com.azure.storage.blob.models.Block;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.models.BlockList;
+import com.azure.storage.blob.models.BlockListType;
+import com.azure.storage.blob.models.BlobDownloadHeaders;
 import com.azure.storage.blob.models.BlobHttpHeaders;
 import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
 import com.azure.storage.blob.models.BlobRequestConditions;
 import com.azure.storage.blob.models.BlobStorageException;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobSimpleUploadOptions;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import com.gkatzioura.maven.cloud.async.AsyncCalls;
+import com.gkatzioura.maven.cloud.client.ClientFactory;
+import com.gkatzioura.maven.cloud.client.ClientKey;
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+import com.gkatzioura.maven.cloud.client.PooledClient;
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+import com.gkatzioura.maven.cloud.transfer.BufferedObject;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.DigestMismatchException;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+import com.gkatzioura.maven.cloud.transfer.PartialDownload;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+import com.gkatzioura.maven.cloud.transfer.RetriedTransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
@@ -32,23 +70,69 @@ import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static com.gkatzioura.maven.cloud.abs.ContentTypeResolver.getContentType;
 
-public class AzureStorageRepository {
+/**
+ * The async methods use the non-blocking client of the SDK. The transfers relying on the ranged downloads, the
+ * resumable transfers or hedging run the blocking methods on an executor instead.
+ */
+public class AzureStorageRepository implements StorageRepository {
 
     private final String container;
     private final AzureClientFactory azureClientFactory;
     private BlobContainerClient blobContainer;
+    private PooledClient<BlobServiceClient> pooledClient;
+    private ClientKey asyncClientKey;
+    private ClientFactory<BlobServiceAsyncClient, AuthenticationException> asyncClientFactory;
+    private PooledClient<BlobServiceAsyncClient> pooledAsyncClient;
+    private BlobContainerAsyncClient asyncBlobContainer;
+    private Executor asyncExecutor = AsyncCalls.defaultExecutor();
+    private ClientPool clientPool = ClientPool.disabled();
+    private ConnectionPrewarmer connectionPrewarmer = ConnectionPrewarmer.disabled();
+    private MetadataCache metadataCache = new MetadataCache(0);
+    private RetryExecutor retryExecutor = RetryExecutor.noRetries();
+    private HedgedExecutor hedgedExecutor = HedgedExecutor.disabled();
+    private RangedDownloader rangedDownloader = RangedDownloader.disabled();
+    private ResumableTransfers resumableTransfers = ResumableTransfers.disabled();
+    private boolean verifyDownloads;
+    private int connectionTimeout;
+    private int readTimeout;
+
+    private static final String UPLOAD_ID = "uploadId";
+    private static final long MAX_SINGLE_UPLOAD_SIZE = 256L * 1024 * 1024;
+    private static final int ASYNC_CHUNK_SIZE = 64 * 1024;
+
+    private static final AzureTransientErrorPredicate TRANSIENT_ERRORS = new AzureTransientErrorPredicate();
 
     private static final Logger LOGGER = Logger.getLogger(AzureStorageRepository.class.getName());
 
@@ -60,97 +144,735 @@ public class AzureStorageRepository {
     public void connect(AuthenticationInfo authenticationInfo) throws AuthenticationException {
 
         try {
-            BlobServiceClient storageClient = azureClientFactory.create(authenticationInfo);
-            blobContainer = storageClient.getBlobContainerClient(container);
+            boolean sdkRetries = retryExecutor.getRetryPolicy().getMaxAttempts() <= 1;
+            ClientKey clientKey = new ClientKey("azure", credentials(authenticationInfo), null, null, false,
+                    connectionTimeout + "/" + readTimeout + "/" + sdkRetries);
+            PooledClient<BlobServiceClient> acquired = clientPool.acquire(clientKey,
+                    () -> azureClientFactory.create(authenticationInfo, connectionTimeout, readTimeout, sdkRetries),
+                    client -> {
+                    });
+            if (pooledClient != null) {
+                pooledClient.release();
+            }
+            releaseAsyncClient();
+            pooledClient = acquired;
+            asyncClientKey = new ClientKey("azure", credentials(authenticationInfo), null, null, false,
+                    connectionTimeout + "/" + readTimeout + "/" + sdkRetries + "/async");
+            asyncClientFactory = () -> azureClientFactory.createAsync(authenticationInfo, connectionTimeout, readTimeout, sdkRetries);
+            blobContainer = pooledClient.get().getBlobContainerClient(container);
+            if (acquired.isCreated()) {
+                BlobContainerClient probe = blobContainer;
+                connectionPrewarmer.prewarm(probe.getBlobContainerUrl(), probe::exists);
+            }
 
         } catch (BlobStorageException e) {
             throw new AuthenticationException("Provide valid credentials");
         }
     }
 
-    public void copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException {
+    private static String credentials(AuthenticationInfo authenticationInfo) {
+        if (authenticationInfo == null) {
+            return null;
+        }
+        return authenticationInfo.getUserName() + '\n' + authenticationInfo.getPassword() + '\n'
+                + authenticationInfo.getPassphrase() + '\n' + authenticationInfo.getPrivateKey();
+    }
+
+    /**
+     * @return the metadata of the blob that was downloaded
+     */
+    @Override
+    public ResourceMetadata copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException {
 
         LOGGER.log(Level.FINER, String.format("Downloading key %s from container %s into %s", resourceName, container, destination.getAbsolutePath()));
 
+        if (metadataCache.isKnownMissing(location(resourceName))) {
+            LOGGER.log(Level.FINER, String.format("Blob %s is known to be missing", resourceName));
+            throw new ResourceDoesNotExistException(resourceName);
+        }
+
+        BlobClient cloudBlob = blobContainer.getBlobClient(resourceName);
+
         try {
+            ResourceMetadata resourceMetadata = isHedged(resourceName)
+                    ? retryExecutor.execute(Operation.GET, () -> hedgedExecutor.execute(Operation.GET, () -> read(cloudBlob))).writeTo(destination, transferProgress)
+                    : download(cloudBlob, destination, transferProgress);
+            metadataCache.put(location(resourceName), resourceMetadata);
+            return resourceMetadata;
+        } catch (BlobStorageException e) {
+            if (!TRANSIENT_ERRORS.test(e)) {
+                if (e.getStatusCode() == 404) {
+                    LOGGER.log(Level.FINER, String.format("Blob %s does not exist", resourceName));
+                    metadataCache.put(location(resourceName), null);
+                }
+                throw new ResourceDoesNotExistException("Could not download file from repo", e);
+            }
+            LOGGER.log(Level.SEVERE, "Could not download cloud blob", e);
+            throw new TransferFailedException("Could not download file from repo", e);
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.log(Level.SEVERE, "Could not download cloud blob", e);
+            throw new TransferFailedException("Could not download file from repo", e);
+        }
+    }
 
-            BlobClient cloudBlob = blobContainer.getBlobClient(resourceName);
+    /**
+     * With ranged downloads enabled the first range of the blob is requested up front, the properties of its
+     * response tell the size of the blob. Blobs fitting in the first range, most poms, checksums and metadata files,
+     * are written from it, large blobs continue with the other ranges.
+     */
+    private ResourceMetadata download(BlobClient cloudBlob, File destination, TransferProgress transferProgress) throws IOException {
+        if (rangedDownloader.isEnabled()) {
+            BlobInputStream firstRange = retryExecutor.execute(Operation.GET, () -> cloudBlob.openInputStream(new BlobRange(0, rangedDownloader.getPartSize()), null));
+            BlobProperties blobProperties = firstRange.getProperties();
+            if (rangedDownloader.isRanged(blobProperties.getBlobSize())) {
+                BlobRequestConditions sameETag = new BlobRequestConditions().setIfMatch(blobProperties.getETag());
+                return rangedDownloader.download(firstRange, (offset, length) -> cloudBlob.openInputStream(new BlobRange(offset, length), sameETag), toResourceMetadata(blobProperties), expectedDigest(blobProperties.getContentMd5()), destination, transferProgress, retryExecutor);
+            }
+            if (blobProperties.getBlobSize() <= rangedDownloader.getPartSize()) {
+                AtomicReference<BlobInputStream> opened = new AtomicReference<>(firstRange);
+                return retryExecutor.execute(Operation.GET, () -> {
+                    BlobInputStream blobInputStream = opened.getAndSet(null);
+                    return blobInputStream != null ? writeTo(blobInputStream, destination, transferProgress) : downloadStream(cloudBlob, destination, transferProgress);
+                });
+            }
+            firstRange.close();
+        }
 
-            if (!cloudBlob.exists()) {
-                LOGGER.log(Level.FINER, "Blob {} does not exist", resourceName);
-                throw new ResourceDoesNotExistException(resourceName);
+        if (resumableTransfers.isEnabled()) {
+            try (PartialDownload partialDownload = resumableTransfers.partialDownload(cloudBlob.getBlobUrl())) {
+                ResourceMetadata resourceMetadata = retryExecutor.execute(Operation.GET, () -> downloadPart(cloudBlob, partialDownload, transferProgress));
+                partialDownload.complete(destination);
+                return resourceMetadata;
             }
+        }
+
+        return retryExecutor.execute(Operation.GET, () -> downloadStream(cloudBlob, destination, transferProgress));
+    }
 
-            try (OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress);
-                 InputStream inputStream = cloudBlob.openInputStream()) {
+    /**
+     * Continues the partial download from its end if the blob still has the same ETag, otherwise downloads the
+     * whole blob again
+     */
+    private ResourceMetadata downloadPart(BlobClient cloudBlob, PartialDownload partialDownload, TransferProgress transferProgress) throws IOException {
+        String eTag = partialDownload.getVersion();
+        long offset = partialDownload.offsetFor(eTag);
+
+        if (offset > 0) {
+            try (BlobInputStream blobInputStream = cloudBlob.openInputStream(new BlobRange(offset), new BlobRequestConditions().setIfMatch(eTag))) {
+                return downloadPart(blobInputStream, partialDownload, eTag, offset, transferProgress);
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() != 412 && e.getStatusCode() != 416) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINER, String.format("Blob %s changed since the partial download, starting over", cloudBlob.getBlobName()));
+            }
+        }
+
+        try (BlobInputStream blobInputStream = cloudBlob.openInputStream()) {
+            return downloadPart(blobInputStream, partialDownload, blobInputStream.getProperties().getETag(), 0, transferProgress);
+        }
+    }
+
+    private ResourceMetadata downloadPart(BlobInputStream blobInputStream, PartialDownload partialDownload, String eTag, long offset, TransferProgress transferProgress) throws IOException {
+        ExpectedDigest expectedDigest = expectedDigest(blobInputStream.getProperties().getContentMd5());
+        MultiDigest multiDigest = expectedDigest.newMultiDigest();
+        try (OutputStream outputStream = partialDownload.open(eTag, offset, transferProgress, multiDigest)) {
+            IOUtils.copy(blobInputStream, outputStream);
+        }
+
+        try {
+            return expectedDigest.verify(toResourceMetadata(blobInputStream.getProperties()), multiDigest);
+        } catch (DigestMismatchException e) {
+            partialDownload.discard();
+            throw e;
+        }
+    }
+
+    private ResourceMetadata downloadStream(BlobClient cloudBlob, File destination, TransferProgress transferProgress) throws IOException {
+        return writeTo(cloudBlob.openInputStream(), destination, transferProgress);
+    }
+
+    private ResourceMetadata writeTo(BlobInputStream blobInputStream, File destination, TransferProgress transferProgress) throws IOException {
+        try (BlobInputStream inputStream = blobInputStream) {
+            ExpectedDigest expectedDigest = expectedDigest(inputStream.getProperties().getContentMd5());
+            MultiDigest multiDigest = expectedDigest.newMultiDigest();
+            try (OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress, multiDigest)) {
                 IOUtils.copy(inputStream, outputStream);
             }
-        } catch (BlobStorageException | IOException e) {
-            throw new ResourceDoesNotExistException("Could not download file from repo", e);
+            return expectedDigest.verify(toResourceMetadata(inputStream.getProperties()), multiDigest, destination);
+        }
+    }
+
+    /**
+     * @return whether the download is hedged, which only applies to blobs small enough to be buffered in memory
+     */
+    private boolean isHedged(String resourceName) throws TransferFailedException {
+        if (!hedgedExecutor.isEnabled()) {
+            return false;
         }
+
+        ResourceMetadata resourceMetadata = metadata(resourceName);
+        return resourceMetadata != null && hedgedExecutor.isHedged(resourceMetadata.getContentLength());
     }
 
+    private BufferedObject read(BlobClient cloudBlob) throws IOException {
+        try (BlobInputStream blobInputStream = cloudBlob.openInputStream()) {
+            BlobProperties blobProperties = blobInputStream.getProperties();
+            return new BufferedObject(BufferedObject.readContent(blobInputStream, hedgedExecutor.getMaxObjectSize()), toResourceMetadata(blobProperties))
+                    .verify(expectedDigest(blobProperties.getContentMd5()));
+        }
+    }
+
+    /**
+     * Blobs committed from blocks only have a Content-MD5 if the uploader set one
+     */
+    private ExpectedDigest expectedDigest(byte[] contentMd5) {
+        return verifyDownloads ? ExpectedDigest.md5(contentMd5) : ExpectedDigest.NONE;
+    }
+
+    /**
+     * @return the metadata of the blob, null if the blob does not exist
+     */
+    @Override
+    public ResourceMetadata metadata(String resourceName) throws TransferFailedException {
+        return metadataCache.get(location(resourceName), () -> {
+            try {
+                return toResourceMetadata(retryExecutor.execute(Operation.EXISTS, () -> hedgedExecutor.execute(Operation.EXISTS, () -> blobContainer.getBlobClient(resourceName).getProperties())));
+            } catch (BlobStorageException e) {
+                if (e.getStatusCode() == 404) {
+                    return null;
+                }
+                LOGGER.log(Level.SEVERE, "Could not fetch cloud blob", e);
+                throw new TransferFailedException(resourceName, e);
+            }
+        });
+    }
+
+    private static ResourceMetadata toResourceMetadata(BlobDownloadHeaders headers, File destination) {
+        long contentLength = headers.getContentLength() == null ? destination.length() : headers.getContentLength();
+        long lastModified = headers.getLastModified() == null ? 0 : headers.getLastModified().toInstant().toEpochMilli();
+        return new ResourceMetadata(contentLength, lastModified, headers.getETag(), ExpectedDigest.md5(headers.getContentMd5()));
+    }
+
+    private static ResourceMetadata toResourceMetadata(BlobProperties blobProperties) {
+        long lastModified = blobProperties.getLastModified() == null ? 0 : blobProperties.getLastModified().toInstant().toEpochMilli();
+        return new ResourceMetadata(blobProperties.getBlobSize(), lastModified, blobProperties.getETag(), ExpectedDigest.md5(blobProperties.getContentMd5()));
+    }
+
+    @Override
     public boolean newResourceAvailable(String resourceName, long timeStamp) throws ResourceDoesNotExistException {
 
         LOGGER.log(Level.FINER, String.format("Checking if new key %s exists", resourceName));
 
         try {
-            BlobClient cloudBlob = blobContainer.getBlobClient(resourceName);
-            if (!cloudBlob.exists()) {
+            ResourceMetadata resourceMetadata = metadata(resourceName);
+            if (resourceMetadata == null) {
                 return false;
             }
 
-            long updated = cloudBlob.getProperties().getLastModified().toInstant().toEpochMilli();
-            return updated > timeStamp;
-        } catch (BlobStorageException e) {
-            LOGGER.log(Level.SEVERE, "Could not fetch cloud blob", e);
-            throw new ResourceDoesNotExistException(resourceName);
+            return resourceMetadata.getLastModified() > timeStamp;
+        } catch (TransferFailedException e) {
+            throw new ResourceDoesNotExistException(resourceName, e);
+        }
+    }
+
+    /**
+     * Compares the file with the object at the destination, using the Content-MD5 of the blob
+     *
+     * @return the digests of the file if the object has the same content, null otherwise
+     */
+    @Override
+    public ContentDigests identical(File file, String destination) throws TransferFailedException {
+        ResourceMetadata resourceMetadata = metadata(destination);
+        if (resourceMetadata == null || resourceMetadata.getContentLength() != file.length() || !resourceMetadata.getChecksum().isPresent()) {
+            return null;
+        }
+
+        try {
+            ContentDigests contentDigests = MultiDigest.digest(file);
+            return resourceMetadata.getChecksum().matches(contentDigests) ? contentDigests : null;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not read " + file, e);
         }
     }
 
-    public void put(File file, String destination, TransferProgress transferProgress) throws TransferFailedException {
+    /**
+     * Files up to the single upload size are uploaded with one request, whose Content-MD5 computed by the service is
+     * compared with the MD5 computed while uploading. Larger files get the computed MD5 set as their Content-MD5
+     * once uploaded.
+     *
+     * @return the digests of the uploaded content
+     */
+    @Override
+    public ContentDigests put(File file, String destination, TransferProgress transferProgress) throws TransferFailedException {
 
         LOGGER.log(Level.FINER, String.format("Uploading key %s ", destination));
         try {
 
             BlobClient blob = blobContainer.getBlobClient(destination);
-            try (InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress)) {
-                BlobHttpHeaders headers = new BlobHttpHeaders();
-                headers.setContentType(getContentType(file));
-                blob.uploadWithResponse(inputStream, file.length(), null, headers, null, null, new BlobRequestConditions(), null, Context.NONE);
+            MultiDigest multiDigest = new MultiDigest();
+            BlobHttpHeaders headers = new BlobHttpHeaders();
+            headers.setContentType(getContentType(file));
+
+            if (resumableTransfers.isResumableUpload(file)) {
+                return putBlocks(file, blob, headers, transferProgress, multiDigest);
+            }
+
+            RetriedTransferProgress retriedTransferProgress = new RetriedTransferProgress(transferProgress);
+            if (file.length() <= MAX_SINGLE_UPLOAD_SIZE) {
+                BlockBlobItem blockBlobItem = retryExecutor.execute(Operation.PUT, () -> {
+                    try (InputStream inputStream = new TransferProgressFileInputStream(file, retriedTransferProgress.attempt(), multiDigest)) {
+                        BlockBlobSimpleUploadOptions uploadOptions = new BlockBlobSimpleUploadOptions(inputStream, file.length())
+                                .setHeaders(headers)
+                                .setRequestConditions(new BlobRequestConditions());
+                        return blob.getBlockBlobClient().uploadWithResponse(uploadOptions, null, Context.NONE).getValue();
+                    }
+                });
+
+                ContentDigests contentDigests = multiDigest.finish();
+                if (blockBlobItem.getContentMd5() != null && !contentDigests.md5Matches(blockBlobItem.getContentMd5())) {
+                    throw new TransferFailedException(String.format("The Content-MD5 of %s does not match the MD5 %s of the uploaded file", destination, contentDigests.getMd5Hex()));
+                }
+                return contentDigests;
             }
-        } catch (BlobStorageException | IOException e) {
+
+            retryExecutor.execute(Operation.PUT, () -> {
+                try (InputStream inputStream = new TransferProgressFileInputStream(file, retriedTransferProgress.attempt(), multiDigest)) {
+                    blob.uploadWithResponse(inputStream, file.length(), null, headers, null, null, new BlobRequestConditions(), null, Context.NONE);
+                }
+                return null;
+            });
+
+            ContentDigests contentDigests = multiDigest.finish();
+            headers.setContentMd5(contentDigests.getMd5());
+            retryExecutor.execute(Operation.PUT, () -> {
+                blob.setHttpHeaders(headers);
+                return null;
+            });
+            return contentDigests;
+        } catch (BlobStorageException | IOException | UncheckedIOException e) {
             LOGGER.log(Level.SEVERE, "Could not fetch cloud blob", e);
             throw new TransferFailedException(destination);
+        } finally {
+            metadataCache.invalidate(location(destination));
         }
     }
 
+    /**
+     * Uploads the file as staged blocks, skipping the blocks an interrupted transfer of the same file staged
+     * already. The block ids carry an id saved for the upload, so blocks staged by other clients are never committed.
+     */
+    private ContentDigests putBlocks(File file, BlobClient blob, BlobHttpHeaders headers, TransferProgress transferProgress, MultiDigest multiDigest) throws IOException {
+        String location = blob.getBlobUrl();
+        long partSize = resumableTransfers.getPartSize();
+        BlockBlobClient blockBlobClient = blob.getBlockBlobClient();
 
-    public boolean exists(String resourceName) throws TransferFailedException {
+        Properties state = resumableTransfers.loadUploadState(location, file);
+        String uploadId = state.getProperty(UPLOAD_ID);
+        Map<String, Long> stagedBlocks = new HashMap<>();
 
+        if (uploadId == null) {
+            uploadId = UUID.randomUUID().toString();
+            state.setProperty(UPLOAD_ID, uploadId);
+            resumableTransfers.saveUploadState(location, file, state);
+        } else {
+            stagedBlocks = stagedBlocks(blockBlobClient);
+            LOGGER.log(Level.FINER, String.format("Resuming the upload of %s with %d blocks staged", blob.getBlobName(), stagedBlocks.size()));
+        }
+
+        List<String> blockIds = new ArrayList<>();
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress, multiDigest)) {
+            byte[] block = new byte[(int) Math.min(partSize, file.length())];
+            int index = 0;
+            for (long offset = 0; offset < file.length(); offset += partSize, index++) {
+                int length = (int) Math.min(partSize, file.length() - offset);
+                IOUtils.readFully(inputStream, block, 0, length);
+
+                String blockId = Base64.getEncoder().encodeToString(String.format("%s-%06d", uploadId, index).getBytes(StandardCharsets.UTF_8));
+                blockIds.add(blockId);
+
+                if (Long.valueOf(length).equals(stagedBlocks.get(blockId))) {
+                    continue;
+                }
+
+                retryExecutor.execute(Operation.PUT, () -> {
+                    blockBlobClient.stageBlock(blockId, new ByteArrayInputStream(block, 0, length), length);
+                    return null;
+                });
+            }
+        }
+
+        ContentDigests contentDigests = multiDigest.finish();
+        headers.setContentMd5(contentDigests.getMd5());
+        retryExecutor.execute(Operation.PUT, () -> blockBlobClient.commitBlockListWithResponse(blockIds, headers, null, null, null, null, Context.NONE));
+        resumableTransfers.deleteUploadState(location, file);
+        return contentDigests;
+    }
+
+    private Map<String, Long> stagedBlocks(BlockBlobClient blockBlobClient) {
+        Map<String, Long> stagedBlocks = new HashMap<>();
         try {
-            BlobContainerClient blob = this.blobContainer;
-            blob.getBlobClient(resourceName);
-            return blob.exists();
+            BlockList blockList = retryExecutor.execute(Operation.LIST, () -> blockBlobClient.listBlocks(BlockListType.UNCOMMITTED));
+            for (Block block : blockList.getUncommittedBlocks()) {
+                stagedBlocks.put(block.getName(), block.getSizeLong());
+            }
         } catch (BlobStorageException e) {
-            LOGGER.log(Level.SEVERE, "Could not fetch cloud blob", e);
-            throw new TransferFailedException(resourceName);
+            if (e.getStatusCode() != 404) {
+                throw e;
+            }
+        }
+        return stagedBlocks;
+    }
+
+    @Override
+    public boolean exists(String resourceName) throws TransferFailedException {
+
+        return metadata(resourceName) != null;
+    }
+
+    private String listingPrefix(String path) {
+        if (path == null || path.equals(".") || path.equals("/")) {
+            return null;
         }
+        return path;
+    }
+
+    /**
+     * Sets the helpers of a new session from the settings of the wagon, before connecting
+     */
+    public void configure(StorageSettings storageSettings) {
+        setMetadataCache(storageSettings.getMetadataCache());
+        setRetryExecutor(storageSettings.createRetryExecutor(TRANSIENT_ERRORS));
+        setHedgedExecutor(storageSettings.createHedgedExecutor());
+        setRangedDownloader(storageSettings.createRangedDownloader());
+        setResumableTransfers(storageSettings.createResumableTransfers());
+        setVerifyDownloads(storageSettings.isVerifyDownloads());
+        setClientPool(storageSettings.createClientPool());
+        setConnectionPrewarmer(storageSettings.createConnectionPrewarmer());
+        setTimeouts(storageSettings.getConnectionTimeout(), storageSettings.getReadTimeout());
+    }
+
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * @param retryExecutor retries the idempotent requests, set before connecting
+     */
+    public void setRetryExecutor(RetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
+
+    /**
+     * @param hedgedExecutor duplicates the slow lookups and downloads of small files
+     */
+    public void setHedgedExecutor(HedgedExecutor hedgedExecutor) {
+        this.hedgedExecutor = hedgedExecutor;
+    }
+
+    /**
+     * @param rangedDownloader downloads the large blobs in concurrent ranges
+     */
+    public void setRangedDownloader(RangedDownloader rangedDownloader) {
+        this.rangedDownloader = rangedDownloader;
+    }
+
+    /**
+     * @param resumableTransfers keeps the state of interrupted downloads and uploads
+     */
+    public void setResumableTransfers(ResumableTransfers resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+    }
+
+    /**
+     * @param verifyDownloads whether downloads are compared with the Content-MD5 of the blob
+     */
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        this.verifyDownloads = verifyDownloads;
+    }
+
+    /**
+     * @param connectionTimeout the connection timeout in milliseconds, 0 for the SDK default, set before connecting
+     * @param readTimeout       the read timeout in milliseconds, 0 for the SDK default, set before connecting
+     */
+    public void setTimeouts(int connectionTimeout, int readTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    private String location(String resourceName) {
+        return blobContainer.getBlobContainerUrl() + "/" + resourceName;
     }
 
+    @Override
     public List<String> list(String path) {
         LOGGER.info(String.format("Listing files for %s", path));
         List<String> blobs = new ArrayList<>();
-        Iterable<BlobItem> blobItems = blobContainer.listBlobs();
-        for (BlobItem blobItem : blobItems) {
-            blobs.add(blobItem.getName());
+        AzureKeyPageFetcher azureKeyPageFetcher = new AzureKeyPageFetcher(blobContainer, listingPrefix(path));
+        Iterator<BlobItem> blobItems = new PagedKeyIterator<>(token -> retryExecutor.execute(Operation.LIST, () -> azureKeyPageFetcher.fetch(token)));
+        while (blobItems.hasNext()) {
+            blobs.add(blobItems.next().getName());
         }
         return blobs;
     }
 
+    @Override
+    public CompletableFuture<ResourceMetadata> getAsync(String resourceName, File destination, TransferProgress transferProgress) {
+        if (hedgedExecutor.isEnabled() || rangedDownloader.isEnabled() || resumableTransfers.isEnabled()) {
+            return AsyncCalls.supply(() -> copy(resourceName, destination, transferProgress), asyncExecutor);
+        }
+
+        LOGGER.log(Level.FINER, String.format("Downloading key %s from container %s into %s", resourceName, container, destination.getAbsolutePath()));
+
+        if (metadataCache.isKnownMissing(location(resourceName))) {
+            LOGGER.log(Level.FINER, String.format("Blob %s is known to be missing", resourceName));
+            return AsyncCalls.failed(new ResourceDoesNotExistException(resourceName));
+        }
+
+        return withAsyncContainer(asyncContainer -> {
+            BlobAsyncClient blob = asyncContainer.getBlobAsyncClient(resourceName);
+            return retryExecutor.executeAsync(Operation.GET, () -> downloadAsync(blob, destination, transferProgress).toFuture());
+        }).handle((resourceMetadata, error) -> {
+            if (error == null) {
+                metadataCache.put(location(resourceName), resourceMetadata);
+                return resourceMetadata;
+            }
+
+            Throwable cause = unwrap(error);
+            if (cause instanceof BlobStorageException && !TRANSIENT_ERRORS.test(cause)) {
+                if (((BlobStorageException) cause).getStatusCode() == 404) {
+                    LOGGER.log(Level.FINER, String.format("Blob %s does not exist", resourceName));
+                    metadataCache.put(location(resourceName), null);
+                }
+                throw new CompletionException(new ResourceDoesNotExistException("Could not download file from repo", cause));
+            }
+            LOGGER.log(Level.SEVERE, "Could not download cloud blob", cause);
+            throw new CompletionException(cause instanceof TransferFailedException ? cause : new TransferFailedException("Could not download file from repo", cause));
+        });
+    }
+
+    private Mono<ResourceMetadata> downloadAsync(BlobAsyncClient blob, File destination, TransferProgress transferProgress) {
+        return blob.downloadStreamWithResponse(null, null, null, false).flatMap(response -> {
+            BlobDownloadHeaders headers = response.getDeserializedHeaders();
+            ExpectedDigest expectedDigest = expectedDigest(headers.getContentMd5());
+            MultiDigest multiDigest = expectedDigest.newMultiDigest();
+            return Flux.using(() -> new TransferProgressFileOutputStream(destination, transferProgress, multiDigest),
+                    outputStream -> response.getValue()
+                            .publishOn(Schedulers.boundedElastic())
+                            .handle((ByteBuffer buffer, SynchronousSink<Void> sink) -> {
+                                try {
+                                    write(outputStream, buffer);
+                                } catch (IOException e) {
+                                    sink.error(e);
+                                }
+                            }),
+                    AzureStorageRepository::close)
+                    .then(Mono.fromCallable(() -> expectedDigest.verify(toResourceMetadata(headers, destination), multiDigest, destination)));
+        });
+    }
+
+    private static void write(OutputStream outputStream, ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * Files up to the single upload size are uploaded with one request, as {@link #put(File, String, TransferProgress)}
+     * does, the larger ones in blocks staged concurrently by the SDK.
+     */
+    @Override
+    public CompletableFuture<ContentDigests> putAsync(File file, String destination, TransferProgress transferProgress) {
+        if (resumableTransfers.isResumableUpload(file)) {
+            return AsyncCalls.supply(() -> put(file, destination, transferProgress), asyncExecutor);
+        }
+
+        LOGGER.log(Level.FINER, String.format("Uploading key %s ", destination));
+
+        BlobHttpHeaders headers = new BlobHttpHeaders();
+        headers.setContentType(getContentType(file));
+        MultiDigest multiDigest = new MultiDigest();
+        RetriedTransferProgress retriedTransferProgress = new RetriedTransferProgress(transferProgress);
+
+        return withAsyncContainer(asyncContainer -> {
+            BlobAsyncClient blob = asyncContainer.getBlobAsyncClient(destination);
+
+            if (file.length() <= MAX_SINGLE_UPLOAD_SIZE) {
+                return retryExecutor.executeAsync(Operation.PUT, () -> blob.getBlockBlobAsyncClient()
+                        .uploadWithResponse(readAsync(file, retriedTransferProgress, multiDigest), file.length(), headers, null, null, null, new BlobRequestConditions())
+                        .toFuture())
+                        .thenApply(response -> {
+                            ContentDigests contentDigests = multiDigest.finish();
+                            byte[] contentMd5 = response.getValue().getContentMd5();
+                            if (contentMd5 != null && !contentDigests.md5Matches(contentMd5)) {
+                                throw new CompletionException(new TransferFailedException(String.format("The Content-MD5 of %s does not match the MD5 %s of the uploaded file", destination, contentDigests.getMd5Hex())));
+                            }
+                            return contentDigests;
+                        });
+            }
+
+            return retryExecutor.executeAsync(Operation.PUT, () -> blob
+                    .uploadWithResponse(new BlobParallelUploadOptions(readAsync(file, retriedTransferProgress, multiDigest))
+                            .setHeaders(headers)
+                            .setRequestConditions(new BlobRequestConditions()))
+                    .toFuture())
+                    .thenCompose(response -> {
+                        ContentDigests contentDigests = multiDigest.finish();
+                        headers.setContentMd5(contentDigests.getMd5());
+                        return retryExecutor.executeAsync(Operation.PUT, () -> blob.setHttpHeaders(headers).toFuture())
+                                .thenApply(ignored -> contentDigests);
+                    });
+        }).handle((contentDigests, error) -> {
+            metadataCache.invalidate(location(destination));
+            if (error == null) {
+                return contentDigests;
+            }
+
+            Throwable cause = unwrap(error);
+            LOGGER.log(Level.SEVERE, "Could not upload cloud blob", cause);
+            throw new CompletionException(cause instanceof TransferFailedException ? cause : new TransferFailedException(destination, cause));
+        });
+    }
+
+    /**
+     * @return the content of the file in chunks, read again for every subscription, as the SDK resubscribes to retry
+     */
+    private static Flux<ByteBuffer> readAsync(File file, RetriedTransferProgress transferProgress, MultiDigest multiDigest) {
+        return Flux.using(() -> new TransferProgressFileInputStream(file, transferProgress.attempt(), multiDigest),
+                inputStream -> Flux.<ByteBuffer>generate(sink -> {
+                    byte[] chunk = new byte[ASYNC_CHUNK_SIZE];
+                    try {
+                        int read = IOUtils.read(inputStream, chunk);
+                        if (read == 0) {
+                            sink.complete();
+                        } else {
+                            sink.next(ByteBuffer.wrap(chunk, 0, read));
+                        }
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+                }),
+                AzureStorageRepository::close)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String resourceName) {
+        if (metadataCache.isKnownMissing(location(resourceName))) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return withAsyncContainer(asyncContainer -> retryExecutor.executeAsync(Operation.EXISTS,
+                () -> asyncContainer.getBlobAsyncClient(resourceName).getProperties().toFuture()))
+                .handle((blobProperties, error) -> {
+                    if (error == null) {
+                        metadataCache.put(location(resourceName), toResourceMetadata(blobProperties));
+                        return true;
+                    }
+
+                    Throwable cause = unwrap(error);
+                    if (cause instanceof BlobStorageException && ((BlobStorageException) cause).getStatusCode() == 404) {
+                        metadataCache.put(location(resourceName), null);
+                        return false;
+                    }
+                    LOGGER.log(Level.SEVERE, "Could not fetch cloud blob", cause);
+                    throw new CompletionException(cause instanceof TransferFailedException ? cause : new TransferFailedException(resourceName, cause));
+                });
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAsync(String path) {
+        LOGGER.info(String.format("Listing files for %s", path));
+        ListBlobsOptions listBlobsOptions = new ListBlobsOptions().setPrefix(listingPrefix(path));
+        return withAsyncContainer(asyncContainer -> retryExecutor.executeAsync(Operation.LIST,
+                () -> asyncContainer.listBlobs(listBlobsOptions).map(BlobItem::getName).collectList().toFuture()));
+    }
+
+    private <T> CompletableFuture<T> withAsyncContainer(Function<BlobContainerAsyncClient, CompletableFuture<T>> call) {
+        try {
+            return call.apply(asyncBlobContainer());
+        } catch (AuthenticationException e) {
+            return AsyncCalls.failed(new TransferFailedException("Could not create the async client", e));
+        }
+    }
+
+    /**
+     * The async client is only created once an async method is called, it shares the configuration of the
+     * blocking one
+     */
+    private synchronized BlobContainerAsyncClient asyncBlobContainer() throws AuthenticationException {
+        if (asyncBlobContainer == null) {
+            if (asyncClientFactory == null) {
+                throw new AuthenticationException("The repository is not connected");
+            }
+            pooledAsyncClient = clientPool.acquire(asyncClientKey, asyncClientFactory, client -> {
+            });
+            asyncBlobContainer = pooledAsyncClient.get().getBlobContainerAsyncClient(container);
+        }
+        return asyncBlobContainer;
+    }
+
+    private synchronized void releaseAsyncClient() {
+        if (pooledAsyncClient != null) {
+            pooledAsyncClient.release();
+            pooledAsyncClient = null;
+        }
+        asyncBlobContainer = null;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * @param clientPool shares the clients with the other wagons, set before connecting
+     */
+    public void setClientPool(ClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * @param connectionPrewarmer opens connections to the endpoint once a new client is connected
+     */
+    public void setConnectionPrewarmer(ConnectionPrewarmer connectionPrewarmer) {
+        this.connectionPrewarmer = connectionPrewarmer;
+    }
+
+    /**
+     * @param asyncExecutor runs the blocking methods behind the async ones that cannot use the non-blocking client
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * The container is kept, as it was before the clients were pooled, only the reference to the pooled client is
+     * released.
+     */
+    @Override
     public void disconnect() {
         // don't disconnect after each module
 //        blobContainer = null;
+        if (pooledClient != null) {
+            pooledClient.release();
+            pooledClient = null;
+        }
+        releaseAsyncClient();
     }
 
 }
@@ -18,7 +18,6 @@ package com.gkatzioura.maven.cloud.abs;
 
 import java.io.File;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,110 +28,26 @@ import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.authorization.AuthorizationException;
-import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
-import org.apache.maven.wagon.resource.Resource;
 
-import com.gkatzioura.maven.cloud.transfer.TransferProgress;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
-import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
+import com.gkatzioura.maven.cloud.wagon.AbstractRepositoryWagon;
 
-public class AzureStorageWagon extends AbstractStorageWagon {
+public class AzureStorageWagon extends AbstractRepositoryWagon {
 
     private AzureStorageRepository azureStorageRepository;
 
     private static final Logger LOGGER = Logger.getLogger(AzureStorageWagon.class.getName());
 
     @Override
-    public void get(String resourceName, File destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        Resource resource = new Resource(resourceName);
-        transferListenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
-        transferListenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, destination);
-
-        final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_GET, transferListenerContainer);
-
-        try {
-            azureStorageRepository.copy(resourceName,destination,transferProgress);
-            transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
-        } catch (Exception e) {
-            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
-            throw e;
-        }
-    }
-
-    @Override
-    public boolean getIfNewer(String resourceName, File file, long l) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        Resource resource = new Resource(resourceName);
-
-        try {
-            if(azureStorageRepository.newResourceAvailable(resourceName, l)) {
-                get(resourceName,file);
-                return true;
-            }
-
-            return false;
-        } catch (TransferFailedException| ResourceDoesNotExistException| AuthorizationException e) {
-            this.transferListenerContainer.fireTransferError(resource, TransferEvent.REQUEST_GET, e);
-            throw e;
-        }
+    protected StorageRepository getStorageRepository() {
+        return azureStorageRepository;
     }
 
     @Override
     public void put(File file, String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        resourceName = Paths.get(resourceName).normalize().toString();
-        Resource resource = new Resource(resourceName);
-
-        LOGGER.log(Level.FINER, String.format("Uploading file %s to %s", file.getAbsolutePath(), resourceName));
-
-        transferListenerContainer.fireTransferInitiated(resource,TransferEvent.REQUEST_PUT);
-        transferListenerContainer.fireTransferStarted(resource,TransferEvent.REQUEST_PUT, file);
-        final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_PUT, transferListenerContainer);
-
-        try {
-            azureStorageRepository.put(file, resourceName,transferProgress);
-            transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
-        } catch (TransferFailedException e) {
-            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
-            throw e;
-        }
-    }
-
-    @Override
-    public void putDirectory(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        File[] files = source.listFiles();
-        if (files != null) {
-            for (File f : files) {
-                if (f.isDirectory()) {
-                    putDirectory(f, destination + "/" + f.getName());
-                } else {
-                    put(f, destination + "/" + f.getName());
-                }
-            }
-        }
-    }
-
-    @Override
-    public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
-        try {
-            return azureStorageRepository.exists(resourceName);
-        } catch (TransferFailedException e) {
-            transferListenerContainer.fireTransferError(new Resource(resourceName), TransferEvent.REQUEST_GET, e);
-            throw e;
-        }
-    }
-
-    @Override
-    public List<String> getFileList(String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        try {
-            return azureStorageRepository.list(resourceName);
-        } catch (Exception e) {
-            transferListenerContainer.fireTransferError(new Resource(resourceName),TransferEvent.REQUEST_GET, e);
-            throw new TransferFailedException("Could not fetch resource");
-        }
+        super.put(file, Paths.get(resourceName).normalize().toString());
     }
 
     @Override
@@ -149,6 +64,7 @@ public class AzureStorageWagon extends AbstractStorageWagon {
             LOGGER.log(Level.FINER,String.format("Opening connection for account %s and container %s",account,container));
 
             azureStorageRepository = new AzureStorageRepository(container);
+            azureStorageRepository.configure(createStorageSettings());
             azureStorageRepository.connect(authenticationInfo);
             sessionListenerContainer.fireSessionLoggedIn();
             sessionListenerContainer.fireSessionOpened();
@@ -158,12 +74,4 @@ public class AzureStorageWagon extends AbstractStorageWagon {
         }
     }
 
-    @Override
-    public void disconnect() throws ConnectionException {
-        sessionListenerContainer.fireSessionDisconnecting();
-        azureStorageRepository.disconnect();
-        sessionListenerContainer.fireSessionLoggedOff();
-        sessionListenerContainer.fireSessionDisconnected();
-    }
-
 }
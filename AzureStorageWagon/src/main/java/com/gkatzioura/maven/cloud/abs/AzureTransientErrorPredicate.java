@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.abs;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.storage.blob.models.BlobErrorCode;
+import com.azure.storage.blob.models.BlobStorageException;
+
+/**
+ * Matches the Azure Blob Storage errors worth retrying: ServerBusy and other throttling, operation timeouts,
+ * server errors and failed connections, including the ones wrapped by the reactive client.
+ */
+public class AzureTransientErrorPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof BlobStorageException) {
+            BlobErrorCode errorCode = ((BlobStorageException) throwable).getErrorCode();
+            if (BlobErrorCode.SERVER_BUSY.equals(errorCode)
+                    || BlobErrorCode.OPERATION_TIMED_OUT.equals(errorCode)
+                    || BlobErrorCode.INTERNAL_ERROR.equals(errorCode)) {
+                return true;
+            }
+        }
+
+        if (throwable instanceof HttpResponseException && ((HttpResponseException) throwable).getResponse() != null) {
+            int statusCode = ((HttpResponseException) throwable).getResponse().getStatusCode();
+            return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+        }
+
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof UncheckedIOException || cause instanceof TimeoutException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -10,6 +10,8 @@ import com.azure.storage.blob.specialized.BlobInputStream;
 import com.gkatzioura.maven.cloud.KeyIteratorConcated;
 import com.gkatzioura.maven.cloud.abs.AzureClientFactory;
 import com.gkatzioura.maven.cloud.abs.plugin.PrefixKeysIterator;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,11 +24,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 @Mojo(name = "abs-download")
 public class ABSDownloadMojo extends AbstractMojo {
@@ -42,6 +44,24 @@ public class ABSDownloadMojo extends AbstractMojo {
     @Parameter(property = "abs-download.downloadPath")
     private String downloadPath;
 
+    /**
+     * The number of listing pages requested ahead while the blobs of the current page are downloaded, 0 lists on demand
+     */
+    @Parameter(property = "abs-download.prefetchPages", defaultValue = "2")
+    private int prefetchPages = 2;
+
+    /**
+     * The number of files downloaded concurrently, 1 downloads them one after the other
+     */
+    @Parameter(property = "abs-download.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "abs-download.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     private static final Logger LOGGER = Logger.getLogger(ABSDownloadMojo.class.getName());
 
     public ABSDownloadMojo(String container, List<String> keys, String downloadPath) throws AuthenticationException {
@@ -74,14 +94,27 @@ public class ABSDownloadMojo extends AbstractMojo {
                 return;
             }
 
-            List<Iterator<BlobItem>> prefixKeysIterators = keys.stream()
-                    .map(pi -> new PrefixKeysIterator(blobContainer, pi))
-                    .collect(Collectors.toList());
+            List<PrefixKeysIterator> openIterators = new ArrayList<>();
+            Iterator<Iterator<BlobItem>> prefixKeysIterators = keys.stream()
+                    .map(pi -> {
+                        PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(blobContainer, pi, prefetchPages);
+                        openIterators.add(prefixKeysIterator);
+                        return (Iterator<BlobItem>) prefixKeysIterator;
+                    })
+                    .iterator();
             Iterator<BlobItem> keyIteratorConcatenated = new KeyIteratorConcated<BlobItem>(prefixKeysIterators);
 
-            while (keyIteratorConcatenated.hasNext()) {
-                BlobItem key = keyIteratorConcatenated.next();
-                downloadFile(blobContainer, key);
+            try (FanOut<MojoExecutionException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "abs-download")) {
+                while (keyIteratorConcatenated.hasNext()) {
+                    BlobItem key = keyIteratorConcatenated.next();
+                    fanOut.submit(() -> downloadFile(blobContainer, key));
+                }
+                fanOut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while downloading from container " + container, e);
+            } finally {
+                openIterators.forEach(PrefixKeysIterator::close);
             }
 
         } catch (BlobStorageException e) {
@@ -118,10 +151,7 @@ public class ABSDownloadMojo extends AbstractMojo {
     }
 
     private void downloadFile(BlobContainerClient cloudBlobContainer, BlobItem listBlobItem) throws MojoExecutionException {
-        // todo
-
-//        String key = listBlobItem.getUri().getPath().replace("/" + container + "/", "");
-        String key = "";
+        String key = listBlobItem.getName();
         File file = new File(createFullFilePath(key));
 
         if (file.getParent() != null) {
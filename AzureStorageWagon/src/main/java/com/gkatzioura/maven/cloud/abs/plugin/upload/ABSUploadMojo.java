@@ -9,6 +9,8 @@ import com.azure.storage.blob.models.BlobHttpHeaders;
 import com.azure.storage.blob.models.BlobRequestConditions;
 import com.azure.storage.blob.models.BlobStorageException;
 import com.gkatzioura.maven.cloud.abs.AzureClientFactory;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -39,6 +41,18 @@ public class ABSUploadMojo extends AbstractMojo {
     @Parameter(property = "abs-upload.key")
     private String key;
 
+    /**
+     * The number of files uploaded concurrently, 1 uploads them one after the other
+     */
+    @Parameter(property = "abs-upload.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "abs-upload.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     public ABSUploadMojo() throws AuthenticationException {
         try {
             String connectionString = new AzureClientFactory().create();
@@ -65,9 +79,15 @@ public class ABSUploadMojo extends AbstractMojo {
             if (isDirectory()) {
                 List<String> filesToUpload = findFilesToUpload(path);
 
-                for (String fileToUpload : filesToUpload) {
-                    String generateKeyName = generateKeyName(fileToUpload);
-                    uploadFileToStorage(blobContainer, generateKeyName, new File(fileToUpload));
+                try (FanOut<MojoExecutionException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "abs-upload")) {
+                    for (String fileToUpload : filesToUpload) {
+                        String generateKeyName = generateKeyName(fileToUpload);
+                        fanOut.submit(() -> uploadFileToStorage(blobContainer, generateKeyName, new File(fileToUpload)));
+                    }
+                    fanOut.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while uploading " + path, e);
                 }
             } else {
                 uploadFileToStorage(blobContainer, keyIfNull(), new File(path));
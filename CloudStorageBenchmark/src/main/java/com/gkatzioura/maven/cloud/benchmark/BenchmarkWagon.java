@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.proxy.ProxyInfoProvider;
+import org.apache.maven.wagon.repository.Repository;
+
+import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
+
+/**
+ * A wagon without storage, only used as the source of the events fired by the benchmarks.
+ */
+class BenchmarkWagon extends AbstractStorageWagon {
+
+    @Override
+    public void get(String resourceName, File destination) {
+    }
+
+    @Override
+    public boolean getIfNewer(String resourceName, File destination, long timestamp) {
+        return false;
+    }
+
+    @Override
+    public void put(File source, String destination) {
+    }
+
+    @Override
+    public boolean resourceExists(String resourceName) {
+        return false;
+    }
+
+    @Override
+    public List<String> getFileList(String destinationDirectory) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void disconnect() {
+    }
+
+}
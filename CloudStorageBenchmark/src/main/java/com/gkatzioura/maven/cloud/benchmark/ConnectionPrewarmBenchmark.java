@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.s3.EndpointProperty;
+import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.s3.S3StorageRepository;
+import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
+
+/**
+ * The time to first byte of the first request of a new S3 client, against a local HTTPS stand-in of S3, with and
+ * without prewarmed connections. Every invocation connects a new client and lets the build do something else for
+ * a while, as Maven does between connecting a wagon and resolving the first artifact, before the first metadata
+ * request is timed. Without prewarming that request pays the TCP and TLS handshakes.
+ * <p>
+ * The stand-in answers every request with the headers of the same object, over connections kept alive. Its
+ * certificate is generated by keytool, and trusted through the trust store system properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(1)
+public class ConnectionPrewarmBenchmark {
+
+    private static final String PASSWORD = "changeit";
+    private static final long BUILD_WORK_MILLIS = 100;
+    private static final byte[] RESPONSE = ("HTTP/1.1 200 OK\r\n"
+            + "ETag: \"9e107d9d372bb6826bd81d3542a419d6\"\r\n"
+            + "Last-Modified: Wed, 01 Jan 2020 00:00:00 GMT\r\n"
+            + "Content-Length: 43\r\n"
+            + "\r\n").getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The connections opened in the background on connect, 0 to disable prewarming
+     */
+    @Param({"0", "4"})
+    private int prewarmConnections;
+
+    private SSLServerSocket serverSocket;
+    private ExecutorService serverExecutor;
+    private S3StorageRepository s3StorageRepository;
+
+    @Setup(Level.Trial)
+    public void startStandIn() throws Exception {
+        File directory = Files.createTempDirectory("prewarm-benchmark").toFile();
+        File keyStoreFile = new File(directory, "stand-in.p12");
+        File trustStoreFile = new File(directory, "trust.p12");
+        generateKeyStore(keyStoreFile);
+
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream inputStream = new FileInputStream(keyStoreFile)) {
+            keyStore.load(inputStream, PASSWORD.toCharArray());
+        }
+        KeyStore trustStore = KeyStore.getInstance("PKCS12");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("stand-in", keyStore.getCertificate("stand-in"));
+        try (OutputStream outputStream = new FileOutputStream(trustStoreFile)) {
+            trustStore.store(outputStream, PASSWORD.toCharArray());
+        }
+        System.setProperty("javax.net.ssl.trustStore", trustStoreFile.getAbsolutePath());
+        System.setProperty("javax.net.ssl.trustStorePassword", PASSWORD);
+        System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        serverExecutor = Executors.newCachedThreadPool();
+        serverExecutor.execute(this::accept);
+    }
+
+    @Setup(Level.Invocation)
+    public void connect() throws Exception {
+        s3StorageRepository = new S3StorageRepository("bucket", "", new PublicReadProperty(false));
+        s3StorageRepository.setClientPool(ClientPool.shared(0));
+        s3StorageRepository.setConnectionPrewarmer(new ConnectionPrewarmer(prewarmConnections));
+
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName("access-key");
+        authenticationInfo.setPassword("secret-key");
+
+        String endpoint = "https://127.0.0.1:" + serverSocket.getLocalPort();
+        s3StorageRepository.connect(authenticationInfo, "us-east-1", new EndpointProperty(endpoint), new PathStyleEnabledProperty("true"));
+        Thread.sleep(BUILD_WORK_MILLIS);
+    }
+
+    @Benchmark
+    public ResourceMetadata firstRequest() throws Exception {
+        return s3StorageRepository.metadata("artifact.jar");
+    }
+
+    @TearDown(Level.Invocation)
+    public void disconnect() {
+        s3StorageRepository.disconnect();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopStandIn() throws IOException {
+        serverSocket.close();
+        serverExecutor.shutdownNow();
+    }
+
+    private static void generateKeyStore(File keyStoreFile) throws IOException, InterruptedException {
+        String keytool = new File(System.getProperty("java.home"), "bin" + File.separator + "keytool").getAbsolutePath();
+        Process process = new ProcessBuilder(keytool, "-genkeypair",
+                "-alias", "stand-in",
+                "-keyalg", "RSA",
+                "-keysize", "2048",
+                "-dname", "CN=127.0.0.1",
+                "-ext", "SAN=ip:127.0.0.1",
+                "-validity", "1",
+                "-storetype", "PKCS12",
+                "-keystore", keyStoreFile.getAbsolutePath(),
+                "-storepass", PASSWORD,
+                "-keypass", PASSWORD)
+                .inheritIO()
+                .start();
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("keytool could not generate the certificate of the stand-in");
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                serverExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Answers every request of the connection, kept alive, with the headers of the same object
+     */
+    private static void serve(Socket socket) {
+        try (Socket connection = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream outputStream = connection.getOutputStream()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    outputStream.write(RESPONSE);
+                    outputStream.flush();
+                }
+            }
+        } catch (IOException e) {
+            // the client closed the connection
+        }
+    }
+
+}
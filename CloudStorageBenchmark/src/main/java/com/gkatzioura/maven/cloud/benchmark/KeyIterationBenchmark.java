@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gkatzioura.maven.cloud.KeyIteratorConcated;
+import com.gkatzioura.maven.cloud.listing.KeyPage;
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
+
+/**
+ * Walks the keys of a bulk download, once through the concatenation of the per prefix iterators and once through
+ * the pages of a single listing. The scores are per key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyIterationBenchmark {
+
+    private static final int KEYS = 10000;
+
+    /**
+     * The number of keys of each prefix, or of each listing page
+     */
+    @Param({"1", "1000"})
+    private int keysPerIterator;
+
+    private List<List<String>> prefixes;
+
+    @Setup
+    public void createKeys() {
+        prefixes = new ArrayList<>();
+        for (int i = 0; i < KEYS / keysPerIterator; i++) {
+            List<String> keys = new ArrayList<>(keysPerIterator);
+            for (int j = 0; j < keysPerIterator; j++) {
+                keys.add("org/example/artifact-" + i + "/" + j);
+            }
+            prefixes.add(keys);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void concatenatedIterators(Blackhole blackhole) {
+        List<Iterator<String>> iterators = new ArrayList<>(prefixes.size());
+        for (List<String> keys : prefixes) {
+            iterators.add(keys.iterator());
+        }
+
+        Iterator<String> iterator = new KeyIteratorConcated<>(iterators);
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(KEYS)
+    public void pagedIterator(Blackhole blackhole) {
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> {
+            int page = token == null ? 0 : Integer.parseInt(token);
+            String next = page + 1 < prefixes.size() ? Integer.toString(page + 1) : null;
+            return new KeyPage<>(prefixes.get(page), next);
+        });
+
+        while (iterator.hasNext()) {
+            blackhole.consume(iterator.next());
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.maven.wagon.repository.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gkatzioura.maven.cloud.repository.InMemoryStorageRepository;
+import com.gkatzioura.maven.cloud.repository.NetworkConditions;
+import com.gkatzioura.maven.cloud.wagon.SimulatedStorageWagon;
+
+/**
+ * Deploys a directory, then checks that its files exist, through a wagon transferring to an in-memory repository
+ * with a simulated latency and bandwidth. The parallel uploads and the metadata cache are measured the same way as
+ * against a provider, without one. The scores are per directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class SimulatedRepositoryBenchmark {
+
+    private static final int FILES = 16;
+    private static final int FILE_SIZE = 64 * 1024;
+    private static final long LATENCY_MILLIS = 20;
+    private static final long BYTES_PER_SECOND = 4L * 1024 * 1024;
+
+    @Param({"1", "8"})
+    private int parallelism;
+
+    /**
+     * The time the metadata of a resource is kept, 0 for no metadata cache
+     */
+    @Param({"0", "60000"})
+    private long metadataCacheTtl;
+
+    private Path directory;
+    private SimulatedStorageWagon wagon;
+
+    @Setup(Level.Trial)
+    public void connect() throws Exception {
+        directory = Files.createTempDirectory("simulated-benchmark");
+        byte[] content = new byte[FILE_SIZE];
+        for (int i = 0; i < FILES; i++) {
+            Files.write(directory.resolve("file-" + i + ".jar"), content);
+        }
+
+        wagon = new SimulatedStorageWagon(new InMemoryStorageRepository(new NetworkConditions(LATENCY_MILLIS, BYTES_PER_SECOND)));
+        wagon.setParallelism(parallelism);
+        wagon.setMetadataCacheTtl(metadataCacheTtl);
+        wagon.connect(new Repository("simulated", "memory://simulated/releases"));
+        wagon.putDirectory(directory.toFile(), "site");
+    }
+
+    @Benchmark
+    public void putDirectory() throws Exception {
+        wagon.putDirectory(directory.toFile(), "site");
+    }
+
+    @Benchmark
+    public void resourceExists(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < FILES; i++) {
+            blackhole.consume(wagon.resourceExists("site/file-" + i + ".jar"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() throws Exception {
+        wagon.disconnect();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+import org.apache.maven.wagon.resource.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gkatzioura.maven.cloud.listener.TransferListenerContainerImpl;
+
+/**
+ * Many transfers reporting progress through the listener container of one wagon at the same time, as happens
+ * with parallel directory uploads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class TransferListenerContainerBenchmark {
+
+    @Param({"0", "1", "4"})
+    private int listeners;
+
+    private TransferListenerContainerImpl transferListenerContainer;
+    private Resource resource;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() {
+        transferListenerContainer = new TransferListenerContainerImpl(new BenchmarkWagon());
+        for (int i = 0; i < listeners; i++) {
+            transferListenerContainer.addTransferListener(new CountingTransferListener());
+        }
+        resource = new Resource("org/example/artifact/1.0/artifact-1.0.jar");
+        buffer = new byte[4096];
+    }
+
+    @Benchmark
+    public void fireTransferProgress() {
+        transferListenerContainer.fireTransferProgress(resource, TransferEvent.REQUEST_GET, buffer, buffer.length);
+    }
+
+    private static final class CountingTransferListener implements TransferListener {
+
+        private long transferred;
+
+        @Override
+        public void transferInitiated(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void transferStarted(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void transferProgress(TransferEvent transferEvent, byte[] buffer, int length) {
+            transferred += length;
+        }
+
+        @Override
+        public void transferCompleted(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void transferError(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void debug(String message) {
+        }
+    }
+
+}
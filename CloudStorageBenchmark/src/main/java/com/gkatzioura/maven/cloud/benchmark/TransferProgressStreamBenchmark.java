@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+
+/**
+ * Measures the per chunk cost of the progress reporting file streams. Run with {@code -prof gc}, the steady state
+ * {@code gc.alloc.rate.norm} of every benchmark is expected to be zero bytes per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferProgressStreamBenchmark {
+
+    private static final int FILE_SIZE = 64 * 1024 * 1024;
+
+    @Param({"4096", "65536"})
+    private int chunkSize;
+
+    /**
+     * Chunks are read and written at a non zero offset, the case that used to copy every chunk.
+     */
+    @Param({"0", "16"})
+    private int offset;
+
+    private File inputFile;
+    private File outputFile;
+    private byte[] buffer;
+
+    private TransferProgressFileInputStream inputStream;
+    private TransferProgressFileOutputStream outputStream;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        inputFile = File.createTempFile("transfer-progress-input", ".bin");
+        outputFile = File.createTempFile("transfer-progress-output", ".bin");
+        Files.write(inputFile.toPath(), new byte[FILE_SIZE]);
+        buffer = new byte[offset + chunkSize];
+    }
+
+    @Setup(Level.Iteration)
+    public void openStreams(Blackhole blackhole) throws IOException {
+        TransferProgress transferProgress = new BlackholeTransferProgress(blackhole);
+        inputStream = new TransferProgressFileInputStream(inputFile, transferProgress);
+        outputStream = new TransferProgressFileOutputStream(outputFile, transferProgress);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeStreams() throws IOException {
+        inputStream.close();
+        outputStream.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        inputFile.delete();
+        outputFile.delete();
+    }
+
+    @Benchmark
+    public int readChunk() throws IOException {
+        int read = inputStream.read(buffer, offset, chunkSize);
+        if (read == -1) {
+            inputStream.getChannel().position(0);
+        }
+        return read;
+    }
+
+    @Benchmark
+    public void writeChunk() throws IOException {
+        outputStream.write(buffer, offset, chunkSize);
+        if (outputStream.getChannel().position() >= FILE_SIZE) {
+            outputStream.getChannel().position(0);
+        }
+    }
+
+    @Benchmark
+    public int readByte() throws IOException {
+        int read = inputStream.read();
+        if (read == -1) {
+            inputStream.getChannel().position(0);
+        }
+        return read;
+    }
+
+    private static final class BlackholeTransferProgress implements TransferProgress {
+
+        private final Blackhole blackhole;
+
+        private BlackholeTransferProgress(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void progress(byte[] buffer, int offset, int length) {
+            blackhole.consume(buffer[offset]);
+            blackhole.consume(length);
+        }
+    }
+
+}
@@ -16,30 +16,39 @@
 
 package com.gkatzioura.maven.cloud;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
 
+/**
+ * Iterates over the keys of several iterators, one after the other. The iterators are taken from the source only
+ * when the previous one is exhausted, so listings that are created on demand start only when they are reached.
+ */
 public class KeyIteratorConcated<T> implements Iterator<T> {
 
-    private final List<Iterator<T>> iterators;
+    private final Iterator<? extends Iterator<T>> iterators;
+
+    private Iterator<T> current = Collections.emptyIterator();
 
     public KeyIteratorConcated(List<Iterator<T>> iterators) {
+        this(iterators.iterator());
+    }
+
+    public KeyIteratorConcated(Iterator<? extends Iterator<T>> iterators) {
         this.iterators = iterators;
     }
 
     @Override
     public boolean hasNext() {
-        if(iterators.size()>0) {
-            if(!iterators.get(0).hasNext()) {
-                iterators.remove(0);
-                return hasNext();
+        while (!current.hasNext()) {
+            if (!iterators.hasNext()) {
+                return false;
             }
-
-            return true;
+            current = iterators.next();
         }
 
-        return false;
+        return true;
     }
 
     @Override
@@ -48,9 +57,7 @@ public class KeyIteratorConcated<T> implements Iterator<T> {
             return null;
         }
 
-        Iterator<T> stringIterator = iterators.get(0);
-
-        return stringIterator.next();
+        return current.next();
     }
 
     @Override
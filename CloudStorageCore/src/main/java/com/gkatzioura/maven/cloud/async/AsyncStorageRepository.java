@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.async;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * The non-blocking counterpart of the copy, put, exists and list methods of a repository, for engines keeping many
+ * requests in flight on a few threads. The futures complete exceptionally with the exceptions the blocking methods
+ * throw, e.g. a {@link org.apache.maven.wagon.ResourceDoesNotExistException} for a missing resource.
+ * <p>
+ * Providers with a non-blocking client use it, the others run the blocking methods on an executor.
+ */
+public interface AsyncStorageRepository {
+
+    /**
+     * @return completes with the metadata of the downloaded resource once it is written to the destination
+     */
+    CompletableFuture<ResourceMetadata> getAsync(String resourceName, File destination, TransferProgress transferProgress);
+
+    /**
+     * @return completes with the digests of the uploaded content
+     */
+    CompletableFuture<ContentDigests> putAsync(File file, String destination, TransferProgress transferProgress);
+
+    CompletableFuture<Boolean> existsAsync(String resourceName);
+
+    CompletableFuture<List<String>> listAsync(String path);
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.transfer.Hashing;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+
+/**
+ * A local cache of downloaded objects shared by every wagon and every Maven process on the host.
+ * <p>
+ * Entries are addressed by the location of the object and the version (ETag or generation) of its content, so a
+ * changed object never matches an older entry. Entries are written once and moved in place atomically, their last
+ * modified time records the last access and the least recently used entries are evicted once the cache grows over
+ * its maximum size. Writers and the eviction hold a lock on the cache directory, which is both a JVM monitor and a
+ * file lock, so concurrent builds on the same host can share the directory.
+ * <p>
+ * The total size of the entries is kept in a file updated under the same lock, so a new entry only walks the cache
+ * when it grows the cache over its maximum size. A missing or unreadable size file is recomputed from the entries.
+ */
+public class ArtifactCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ArtifactCache.class.getName());
+
+    private static final String OBJECTS_DIRECTORY = "objects";
+    private static final String LOCK_FILE = ".lock";
+    private static final String SIZE_FILE = ".size";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ConcurrentMap<Path, Object> DIRECTORY_MONITORS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Path objects;
+    private final long maxSize;
+    private final boolean hardLinks;
+
+    /**
+     * @param directory the directory holding the cache, created if missing
+     * @param maxSize   the size in bytes the cache is trimmed to once a new entry grows it over that size
+     * @param hardLinks whether entries are hard linked to the destination files instead of being copied. Only safe
+     *                  when the destination files are never modified in place
+     */
+    public ArtifactCache(File directory, long maxSize, boolean hardLinks) {
+        this.directory = directory.toPath().toAbsolutePath().normalize();
+        this.objects = this.directory.resolve(OBJECTS_DIRECTORY);
+        this.maxSize = maxSize;
+        this.hardLinks = hardLinks;
+    }
+
+    /**
+     * Materializes the cached content of an object into the destination file
+     *
+     * @param location         the location of the object, including the repository url
+     * @param version          the version of the object content, nothing is cached for a null version
+     * @param destination      the file to write
+     * @param transferProgress notified with the content written to the destination
+     * @return {@code true} if the destination was written from the cache, {@code false} on a cache miss
+     * @throws IOException if the destination could not be written
+     */
+    public boolean fetch(String location, String version, File destination, TransferProgress transferProgress) throws IOException {
+        if (version == null) {
+            return false;
+        }
+
+        Path entry = entry(location, version);
+        if (!Files.isRegularFile(entry)) {
+            return false;
+        }
+
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            materialize(entry, destination, transferProgress);
+        } catch (NoSuchFileException e) {
+            LOGGER.log(Level.FINER, String.format("Cache entry for %s was evicted while being read", location), e);
+            return false;
+        }
+
+        LOGGER.log(Level.FINER, String.format("Fetched %s from the artifact cache", location));
+        return true;
+    }
+
+    /**
+     * Adds the downloaded content of an object to the cache
+     *
+     * @param location the location of the object, including the repository url
+     * @param version  the version of the object content, nothing is cached for a null version
+     * @param source   the downloaded content
+     * @throws IOException if the entry could not be written
+     */
+    public void store(String location, String version, File source) throws IOException {
+        if (version == null) {
+            return;
+        }
+
+        Path entry = entry(location, version);
+        if (Files.exists(entry)) {
+            return;
+        }
+
+        Files.createDirectories(entry.getParent());
+        Path temporary = Files.createTempFile(entry.getParent(), entry.getFileName() + ".", TEMPORARY_SUFFIX);
+
+        try {
+            Files.copy(source.toPath(), temporary, StandardCopyOption.REPLACE_EXISTING);
+
+            synchronized (monitor()) {
+                try (FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                     FileLock ignored = channel.lock()) {
+                    if (!Files.exists(entry)) {
+                        Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+                        long size = storedSize();
+                        long entrySize = Files.size(entry);
+                        writeSize(size < 0 || size + entrySize > maxSize ? evict() : size + entrySize);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void materialize(Path entry, File destination, TransferProgress transferProgress) throws IOException {
+        Path target = destination.toPath();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Files.deleteIfExists(target);
+
+        if (hardLinks && link(entry, target)) {
+            try (InputStream inputStream = new TransferProgressFileInputStream(destination, transferProgress)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (inputStream.read(buffer) != -1) {
+                }
+            }
+            return;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(entry);
+             OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private boolean link(Path entry, Path target) throws IOException {
+        try {
+            Files.createLink(target, entry);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.log(Level.FINER, "Could not hard link the cache entry, copying it instead", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return the total size of the entries recorded by the last writer, -1 if it is unknown
+     */
+    private long storedSize() {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(directory.resolve(SIZE_FILE)), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void writeSize(long size) throws IOException {
+        Files.write(directory.resolve(SIZE_FILE), Long.toString(size).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the total size of the entries once the least recently used were evicted
+     */
+    private long evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        long size = 0;
+
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objects)) {
+            for (Path prefix : prefixes) {
+                try (DirectoryStream<Path> prefixEntries = Files.newDirectoryStream(prefix)) {
+                    for (Path entry : prefixEntries) {
+                        if (!entry.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                            entries.add(entry);
+                            size += Files.size(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (size <= maxSize) {
+            return size;
+        }
+
+        entries.sort(Comparator.comparingLong(this::lastAccess));
+        for (Path entry : entries) {
+            if (size <= maxSize) {
+                break;
+            }
+            long entrySize = Files.size(entry);
+            Files.deleteIfExists(entry);
+            size -= entrySize;
+            LOGGER.log(Level.FINER, String.format("Evicted %s from the artifact cache", entry.getFileName()));
+        }
+        return size;
+    }
+
+    private long lastAccess(Path entry) {
+        try {
+            return Files.getLastModifiedTime(entry).toMillis();
+        } catch (IOException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private Object monitor() {
+        return DIRECTORY_MONITORS.computeIfAbsent(directory, d -> new Object());
+    }
+
+    private Path entry(String location, String version) {
+        String name = Hashing.sha256Hex(location + '\n' + version);
+        return objects.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The files the wagons keep between builds, by default under the local Maven repository.
+ * <p>
+ * A wagon is not told the local repository of the build, so it is taken from the maven.repo.local system property,
+ * or the default ~/.m2/repository. A localRepository configured in settings.xml is ignored: set the file or
+ * directory of each feature explicitly, or pass -Dmaven.repo.local, when using one.
+ */
+public final class LocalRepositoryFiles {
+
+    private static final ConcurrentHashMap<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private LocalRepositoryFiles() {
+    }
+
+    /**
+     * @param path the path relative to the local repository
+     * @return the file under the local repository, as set by maven.repo.local or the default ~/.m2/repository
+     */
+    public static File resolve(String path) {
+        String localRepository = System.getProperty("maven.repo.local");
+
+        File directory = localRepository != null && !localRepository.isEmpty()
+                ? new File(localRepository)
+                : new File(System.getProperty("user.home"), ".m2/repository");
+
+        return new File(directory, path);
+    }
+
+    /**
+     * @return the properties of the file, empty if the file does not exist
+     */
+    public static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                properties.load(inputStream);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Replaces the file with the properties at once, so that readers never see a partially written file
+     */
+    public static void store(Path file, Properties properties, String comments) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                properties.store(outputStream, comments);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Updates the properties other processes saved to the file, while holding a lock on the file against the
+     * threads of this JVM and the other processes
+     *
+     * @param update merges the changes into the properties read from the file
+     */
+    public static void update(Path file, String comments, Consumer<Properties> update) throws IOException {
+        Files.createDirectories(file.getParent());
+
+        synchronized (FILE_MONITORS.computeIfAbsent(file, f -> new Object())) {
+            try (FileChannel channel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+
+                Properties properties = load(file);
+                update.accept(properties);
+                store(file, properties, comments);
+            }
+        }
+    }
+
+}
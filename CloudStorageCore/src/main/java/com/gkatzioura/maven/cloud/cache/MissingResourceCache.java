@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers the resources a repository reported as missing, so that later lookups, including those of later builds,
+ * do not repeat the request until the entry expires.
+ * <p>
+ * The entries are kept in a properties file, by default under the local Maven repository. Saving merges the
+ * entries recorded by this instance with the ones other processes saved in the meantime, while holding a lock on
+ * the file. Snapshot and repository metadata paths change too often to be remembered and are skipped unless
+ * explicitly included.
+ */
+public class MissingResourceCache {
+
+    private static final Logger LOGGER = Logger.getLogger(MissingResourceCache.class.getName());
+
+    private static final String DEFAULT_FILE = ".cloud-storage/missing-resources.properties";
+    private static final String SNAPSHOT_MARKER = "-SNAPSHOT";
+    private static final String METADATA_PREFIX = "maven-metadata";
+
+    private final Path file;
+    private final long ttlMillis;
+    private final boolean includeSnapshots;
+
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> added = new ConcurrentHashMap<>();
+    private final Set<String> removed = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+
+    /**
+     * @param file             the properties file holding the entries
+     * @param ttlMillis        the time a resource is considered missing
+     * @param includeSnapshots whether snapshot and repository metadata paths are remembered as well
+     */
+    public MissingResourceCache(File file, long ttlMillis, boolean includeSnapshots) {
+        this.file = file.toPath().toAbsolutePath().normalize();
+        this.ttlMillis = ttlMillis;
+        this.includeSnapshots = includeSnapshots;
+    }
+
+    /**
+     * @return the file under the local repository, see {@link LocalRepositoryFiles#resolve(String)}
+     */
+    public static File defaultFile() {
+        return LocalRepositoryFiles.resolve(DEFAULT_FILE);
+    }
+
+    public boolean isMissing(String location) {
+        if (!isCacheable(location)) {
+            return false;
+        }
+
+        load();
+        Long expiresAt = entries.get(location);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void markMissing(String location) {
+        if (!isCacheable(location)) {
+            return;
+        }
+
+        load();
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        entries.put(location, expiresAt);
+        added.put(location, expiresAt);
+        removed.remove(location);
+    }
+
+    public void invalidate(String location) {
+        if (!isCacheable(location)) {
+            return;
+        }
+
+        load();
+        entries.remove(location);
+        added.remove(location);
+        removed.add(location);
+    }
+
+    /**
+     * Writes the entries recorded since the last save, keeping the unexpired entries saved by other processes
+     *
+     * @throws IOException if the file could not be written
+     */
+    public void save() throws IOException {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> saved = new ConcurrentHashMap<>(added);
+        Set<String> deleted = ConcurrentHashMap.newKeySet();
+        deleted.addAll(removed);
+
+        LocalRepositoryFiles.update(file, "Resources missing from cloud storage repositories, with their expiry time", properties -> {
+            Map<String, Long> merged = parse(properties);
+            long now = System.currentTimeMillis();
+            merged.values().removeIf(expiresAt -> expiresAt <= now);
+            merged.keySet().removeAll(deleted);
+            merged.putAll(saved);
+
+            properties.clear();
+            merged.forEach((location, expiresAt) -> properties.setProperty(location, Long.toString(expiresAt)));
+        });
+
+        saved.forEach(added::remove);
+        removed.removeAll(deleted);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            try {
+                long now = System.currentTimeMillis();
+                read().forEach((location, expiresAt) -> {
+                    if (expiresAt > now && !removed.contains(location)) {
+                        entries.putIfAbsent(location, expiresAt);
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Could not read the missing resources from %s", file), e);
+            }
+
+            loaded = true;
+        }
+    }
+
+    private Map<String, Long> read() throws IOException {
+        return parse(LocalRepositoryFiles.load(file));
+    }
+
+    private static Map<String, Long> parse(Properties properties) {
+        Map<String, Long> read = new ConcurrentHashMap<>();
+        for (String location : properties.stringPropertyNames()) {
+            try {
+                read.put(location, Long.parseLong(properties.getProperty(location)));
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.FINER, String.format("Ignoring the malformed entry of %s", location), e);
+            }
+        }
+
+        return read;
+    }
+
+    private boolean isCacheable(String location) {
+        if (ttlMillis <= 0) {
+            return false;
+        }
+
+        if (includeSnapshots) {
+            return true;
+        }
+
+        String fileName = location.substring(location.lastIndexOf('/') + 1);
+        return !location.contains(SNAPSHOT_MARKER) && !fileName.startsWith(METADATA_PREFIX);
+    }
+
+}
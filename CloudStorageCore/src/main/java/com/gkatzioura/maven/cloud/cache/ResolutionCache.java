@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers how the environment was resolved, such as the region of the host, the provider of the default
+ * credentials or the default project, so that the slow lookups behind them, often timeouts of an instance metadata
+ * service that does not exist off the cloud, are done once per JVM instead of once per connection.
+ * <p>
+ * The entries are shared by the JVM and can also be persisted, for a short time, to a properties file read by the
+ * next builds. Only the names of what was resolved are kept, never credentials: callers must not resolve secrets
+ * through this cache.
+ */
+public class ResolutionCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ResolutionCache.class.getName());
+
+    private static final String DEFAULT_FILE = ".cloud-storage/resolutions.properties";
+    private static final String EXPIRY_SUFFIX = ".expiresAt";
+
+    private static final Map<String, Entry> JVM_ENTRIES = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry> entries;
+    private final Path file;
+    private final long ttlMillis;
+
+    private volatile boolean loaded;
+
+    ResolutionCache(Map<String, Entry> entries, File file, long ttlMillis) {
+        this.entries = entries;
+        this.file = file == null ? null : file.toPath().toAbsolutePath().normalize();
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @param file      the properties file the entries are persisted to, null to keep them in the JVM only
+     * @param ttlMillis the time a persisted entry is valid, entries kept in the JVM only never expire
+     * @return the cache shared by the JVM
+     */
+    public static ResolutionCache jvmWide(File file, long ttlMillis) {
+        return new ResolutionCache(JVM_ENTRIES, ttlMillis > 0 ? file : null, ttlMillis);
+    }
+
+    /**
+     * @return a cache resolving everything again on every lookup
+     */
+    public static ResolutionCache disabled() {
+        return new ResolutionCache(null, null, 0);
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * @return the file under the local repository, see {@link LocalRepositoryFiles#resolve(String)}
+     */
+    public static File defaultFile() {
+        return LocalRepositoryFiles.resolve(DEFAULT_FILE);
+    }
+
+    /**
+     * @param name     what is resolved, such as s3.region
+     * @param resolver resolves the value when it is not known, a null value is not remembered
+     * @return the value, null if it could not be resolved
+     */
+    public String resolve(String name, Supplier<String> resolver) {
+        if (entries == null) {
+            return resolver.get();
+        }
+
+        load();
+        Entry entry = entries.get(name);
+        if (entry != null && !entry.isExpired()) {
+            return entry.value;
+        }
+
+        String value = resolver.get();
+        if (value != null) {
+            Entry resolved = new Entry(value, file == null ? Long.MAX_VALUE : System.currentTimeMillis() + ttlMillis);
+            entries.put(name, resolved);
+            persist(name, resolved);
+        }
+        return value;
+    }
+
+    /**
+     * Forgets a value that no longer holds, such as a credential provider that stopped providing credentials
+     */
+    public void invalidate(String name) {
+        if (entries == null) {
+            return;
+        }
+
+        entries.remove(name);
+        persist(name, null);
+    }
+
+    private void load() {
+        if (file == null || loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+
+            try {
+                read().forEach((name, entry) -> {
+                    if (!entry.isExpired()) {
+                        entries.putIfAbsent(name, entry);
+                    }
+                });
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Could not read the resolutions from %s", file), e);
+            }
+
+            loaded = true;
+        }
+    }
+
+    /**
+     * Merges the entry with the unexpired entries other processes saved, while holding a lock on the file
+     */
+    private void persist(String name, Entry entry) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            LocalRepositoryFiles.update(file, "Regions, credential providers and projects resolved by cloud storage wagons, with their expiry time", properties -> {
+                Map<String, Entry> merged = parse(properties);
+                merged.values().removeIf(Entry::isExpired);
+                if (entry == null) {
+                    merged.remove(name);
+                } else {
+                    merged.put(name, entry);
+                }
+
+                properties.clear();
+                merged.forEach((mergedName, mergedEntry) -> {
+                    properties.setProperty(mergedName, mergedEntry.value);
+                    properties.setProperty(mergedName + EXPIRY_SUFFIX, Long.toString(mergedEntry.expiresAt));
+                });
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not save the resolutions to %s", file), e);
+        }
+    }
+
+    private Map<String, Entry> read() throws IOException {
+        return parse(LocalRepositoryFiles.load(file));
+    }
+
+    private static Map<String, Entry> parse(Properties properties) {
+        Map<String, Entry> read = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            String expiresAt = properties.getProperty(name + EXPIRY_SUFFIX);
+            if (name.endsWith(EXPIRY_SUFFIX) || expiresAt == null) {
+                continue;
+            }
+            try {
+                read.put(name, new Entry(properties.getProperty(name), Long.parseLong(expiresAt)));
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.FINER, String.format("Ignoring the malformed entry of %s", name), e);
+            }
+        }
+
+        return read;
+    }
+
+    static final class Entry {
+
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+    }
+
+}
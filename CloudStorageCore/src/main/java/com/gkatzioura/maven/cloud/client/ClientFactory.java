@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+/**
+ * Creates a client, when the pool has none for its key
+ *
+ * @param <C> the type of the client
+ * @param <E> the error creating the client
+ */
+@FunctionalInterface
+public interface ClientFactory<C, E extends Exception> {
+
+    C create() throws E;
+
+}
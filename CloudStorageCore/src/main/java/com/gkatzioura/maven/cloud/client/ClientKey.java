@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.Objects;
+
+import com.gkatzioura.maven.cloud.transfer.Hashing;
+
+/**
+ * Identifies the clients that can be shared: the ones of the same provider, created with the same credentials for
+ * the same region and endpoint, and the same client configuration. The credentials are only kept as a SHA-256
+ * hash, so the key never holds a secret.
+ */
+public final class ClientKey {
+
+    private final String provider;
+    private final String credentials;
+    private final String region;
+    private final String endpoint;
+    private final boolean pathStyle;
+    private final String configuration;
+
+    /**
+     * @param provider      the name of the provider
+     * @param credentials   whatever identifies the credentials, null for the default credentials of the environment
+     * @param region        the region, may be null
+     * @param endpoint      the endpoint, may be null
+     * @param pathStyle     whether buckets are addressed in the path of the requests
+     * @param configuration the settings the client is created with, such as its timeouts
+     */
+    public ClientKey(String provider, String credentials, String region, String endpoint, boolean pathStyle, String configuration) {
+        this.provider = provider;
+        this.credentials = credentials == null ? null : Hashing.sha256Hex(credentials);
+        this.region = region;
+        this.endpoint = endpoint;
+        this.pathStyle = pathStyle;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClientKey)) {
+            return false;
+        }
+        ClientKey clientKey = (ClientKey) o;
+        return pathStyle == clientKey.pathStyle
+                && Objects.equals(provider, clientKey.provider)
+                && Objects.equals(credentials, clientKey.credentials)
+                && Objects.equals(region, clientKey.region)
+                && Objects.equals(endpoint, clientKey.endpoint)
+                && Objects.equals(configuration, clientKey.configuration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(provider, credentials, region, endpoint, pathStyle, configuration);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s client for region %s and endpoint %s", provider, region, endpoint);
+    }
+
+}
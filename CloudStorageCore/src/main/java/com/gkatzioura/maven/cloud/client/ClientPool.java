@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shares the clients of the providers, with their connection pools, thread pools and TLS sessions, between the
+ * wagons of the JVM, so that every module of a reactor does not create its own.
+ * <p>
+ * The clients are counted by reference. A client no longer referenced is kept for the idle timeout, in case
+ * another wagon connects with the same key, and closed afterwards. The pools returned by
+ * {@link #shared(long)} all share the same clients, they only differ in the idle timeout applied when they
+ * release a client.
+ * <p>
+ * A client is created outside the lock of the pool: the wagons acquiring the same key wait for the one creation in
+ * progress, while the wagons acquiring other keys go ahead.
+ */
+public class ClientPool {
+
+    private static final Logger LOGGER = Logger.getLogger(ClientPool.class.getName());
+
+    private static final Map<ClientKey, Entry> SHARED_ENTRIES = new HashMap<>();
+
+    private static volatile ScheduledExecutorService evictor;
+
+    private final Map<ClientKey, Entry> entries;
+    private final long idleMillis;
+
+    ClientPool(Map<ClientKey, Entry> entries, long idleMillis) {
+        this.entries = entries;
+        this.idleMillis = idleMillis;
+    }
+
+    /**
+     * @param idleMillis the time a client no longer referenced is kept, 0 to close it at once
+     * @return the pool shared by the whole JVM
+     */
+    public static ClientPool shared(long idleMillis) {
+        return new ClientPool(SHARED_ENTRIES, idleMillis);
+    }
+
+    /**
+     * @return a pool creating a new client on every acquisition and never closing it, as if there was no pool
+     */
+    public static ClientPool disabled() {
+        return new ClientPool(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return entries != null;
+    }
+
+    /**
+     * @param key     identifies the clients that can be shared
+     * @param factory creates the client if the pool has none for the key
+     * @param closer  closes the client once it is evicted
+     * @return a reference to the client, to be released on disconnect
+     * @throws E if the client could not be created
+     */
+    @SuppressWarnings("unchecked")
+    public <C, E extends Exception> PooledClient<C> acquire(ClientKey key, ClientFactory<C, E> factory, Consumer<? super C> closer) throws E {
+        if (entries == null) {
+            return new PooledClient<>(factory.create(), true, () -> {
+            });
+        }
+
+        while (true) {
+            CompletableFuture<Object> creation = new CompletableFuture<>();
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.computeIfAbsent(key, k -> new Entry(creation, (Consumer<Object>) closer));
+                if (entry.eviction != null) {
+                    entry.eviction.cancel(false);
+                    entry.eviction = null;
+                }
+                entry.references++;
+            }
+
+            boolean created = entry.client == creation;
+            if (created) {
+                create(key, entry, factory);
+            }
+
+            Object client;
+            try {
+                client = entry.client.join();
+            } catch (CompletionException e) {
+                LOGGER.log(Level.FINEST, String.format("The concurrent creation of the %s failed, creating it again", key), e);
+                continue;
+            }
+
+            Entry acquired = entry;
+            return new PooledClient<>((C) client, created, () -> release(key, acquired));
+        }
+    }
+
+    private <C, E extends Exception> void create(ClientKey key, Entry entry, ClientFactory<C, E> factory) throws E {
+        try {
+            entry.client.complete(factory.create());
+            LOGGER.log(Level.FINER, String.format("Created the %s", key));
+        } finally {
+            if (!entry.client.isDone()) {
+                synchronized (entries) {
+                    entries.remove(key, entry);
+                }
+                entry.client.completeExceptionally(new IllegalStateException(String.format("Could not create the %s", key)));
+            }
+        }
+    }
+
+    private void release(ClientKey key, Entry entry) {
+        synchronized (entries) {
+            if (--entry.references > 0) {
+                return;
+            }
+
+            if (idleMillis <= 0) {
+                entries.remove(key);
+            } else {
+                entry.eviction = evictor().schedule(() -> evictIfIdle(key, entry), idleMillis, TimeUnit.MILLISECONDS);
+                return;
+            }
+        }
+        close(key, entry);
+    }
+
+    private void evictIfIdle(ClientKey key, Entry entry) {
+        synchronized (entries) {
+            if (entry.references > 0 || entries.get(key) != entry) {
+                return;
+            }
+            entries.remove(key);
+        }
+        close(key, entry);
+    }
+
+    private static void close(ClientKey key, Entry entry) {
+        try {
+            entry.closer.accept(entry.client.join());
+            LOGGER.log(Level.FINER, String.format("Closed the idle %s", key));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not close the %s", key), e);
+        }
+    }
+
+    private static ScheduledExecutorService evictor() {
+        ScheduledExecutorService scheduledExecutorService = evictor;
+        if (scheduledExecutorService == null) {
+            synchronized (ClientPool.class) {
+                if (evictor == null) {
+                    evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "cloud-storage-client-eviction");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                scheduledExecutorService = evictor;
+            }
+        }
+        return scheduledExecutorService;
+    }
+
+    static final class Entry {
+
+        private final CompletableFuture<Object> client;
+        private final Consumer<Object> closer;
+        private int references;
+        private ScheduledFuture<?> eviction;
+
+        private Entry(CompletableFuture<Object> client, Consumer<Object> closer) {
+            this.client = client;
+            this.closer = closer;
+        }
+    }
+
+}
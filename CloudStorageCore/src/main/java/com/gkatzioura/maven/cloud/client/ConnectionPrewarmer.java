@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens connections to the endpoint of a new client in the background, by sending it a few concurrent requests
+ * whose answer does not matter, so that the DNS lookup, the TCP and TLS handshakes are done and the connections
+ * are kept alive in the pool of the client by the time the first artifact is requested.
+ */
+public class ConnectionPrewarmer {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPrewarmer.class.getName());
+
+    private static final ExecutorService PREWARMER = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-storage-prewarm");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int connections;
+
+    /**
+     * @param connections the number of concurrent requests, and thus of connections opened
+     */
+    public ConnectionPrewarmer(int connections) {
+        this.connections = connections;
+    }
+
+    public static ConnectionPrewarmer disabled() {
+        return new ConnectionPrewarmer(0);
+    }
+
+    public boolean isEnabled() {
+        return connections > 0;
+    }
+
+    /**
+     * Sends the probe from as many threads as connections, released together so that their requests overlap and
+     * each needs a connection of its own. The probe should not look up an object, so that no missing resource is
+     * logged or remembered: a bucket existence check or a listing of a single key does. Failures, such as the
+     * probe not being permitted, are ignored since the connection was opened anyway.
+     *
+     * @param endpoint names the endpoint in the logs
+     * @param probe    a cheap request to the endpoint, outside the metadata and missing resource caches
+     * @return completes once every probe is answered
+     */
+    public CompletableFuture<Void> prewarm(String endpoint, Runnable probe) {
+        if (!isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        final long start = System.nanoTime();
+        final CountDownLatch ready = new CountDownLatch(connections);
+        CompletableFuture<?>[] probes = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            probes[i] = CompletableFuture.runAsync(() -> {
+                ready.countDown();
+                try {
+                    ready.await();
+                    probe.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.FINEST, String.format("Prewarming request to %s failed", endpoint), e);
+                }
+            }, PREWARMER);
+        }
+
+        return CompletableFuture.allOf(probes).whenComplete((ignored, e) -> LOGGER.log(Level.FINER,
+                String.format("Opened %d connections to %s in %d ms", connections, endpoint, (System.nanoTime() - start) / 1_000_000)));
+    }
+
+}
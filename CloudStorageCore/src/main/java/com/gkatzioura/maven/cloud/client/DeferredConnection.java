@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.apache.maven.wagon.authentication.AuthenticationException;
+
+/**
+ * The client of a session, either connected on connect or connecting in the background so that connect returns at
+ * once. Region discovery, credential resolution and the validation of the bucket then overlap with the rest of the
+ * build, and their failure surfaces on the first request waiting for the client.
+ *
+ * @param <C> the type of the client
+ */
+public final class DeferredConnection<C> {
+
+    private static final Executor CONNECTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-storage-connect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CompletableFuture<PooledClient<C>> connection;
+
+    private DeferredConnection(CompletableFuture<PooledClient<C>> connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * @return a connection to a client connected already
+     */
+    public static <C> DeferredConnection<C> connected(PooledClient<C> client) {
+        return new DeferredConnection<>(CompletableFuture.completedFuture(client));
+    }
+
+    /**
+     * @param connector creates and validates the client, on a background thread
+     * @return a connection to the client being connected
+     */
+    public static <C> DeferredConnection<C> connecting(ClientFactory<PooledClient<C>, AuthenticationException> connector) {
+        CompletableFuture<PooledClient<C>> connection = new CompletableFuture<>();
+        CONNECTOR.execute(() -> {
+            try {
+                connection.complete(connector.create());
+            } catch (Exception | Error e) {
+                connection.completeExceptionally(e);
+            }
+        });
+        return new DeferredConnection<>(connection);
+    }
+
+    /**
+     * Waits for the connection if it is still in progress
+     *
+     * @return the client
+     * @throws AuthenticationException if the client could not be connected, on every call
+     */
+    public C get() throws AuthenticationException {
+        try {
+            return connection.get().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Interrupted while connecting", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof AuthenticationException) {
+                throw new AuthenticationException(cause.getMessage(), cause);
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AuthenticationException("Could not connect", cause);
+        }
+    }
+
+    /**
+     * Releases the client, once connected if the connection is still in progress
+     */
+    public void release() {
+        connection.whenComplete((client, e) -> {
+            if (client != null) {
+                client.release();
+            }
+        });
+    }
+
+}
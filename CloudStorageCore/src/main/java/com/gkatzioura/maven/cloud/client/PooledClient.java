@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A reference to a client of a {@link ClientPool}, to be released once the client is no longer used
+ *
+ * @param <C> the type of the client
+ */
+public final class PooledClient<C> {
+
+    private final C client;
+    private final boolean created;
+    private final Runnable release;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PooledClient(C client, boolean created, Runnable release) {
+        this.client = client;
+        this.created = created;
+        this.release = release;
+    }
+
+    public C get() {
+        return client;
+    }
+
+    /**
+     * @return whether the client was created for this reference, rather than taken from the pool
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * Gives the reference back to the pool, releasing it again has no effect
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) {
+            release.run();
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrency;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the iterations of a transfer loop concurrently on a {@link TransferExecutor}. With a parallelism of 1 every
+ * task runs on the calling thread as it is submitted, in the order of the loop.
+ * <p>
+ * At most parallelism tasks are in flight, a submit waits until one of them completes. A loop over a paged listing
+ * therefore only holds the tasks running, not one per key of the listing.
+ *
+ * @param <E> the checked exception the tasks throw
+ */
+public class FanOut<E extends Exception> implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final int parallelism;
+    private final Semaphore inFlight;
+    private final Map<Long, Throwable> failures = new TreeMap<>();
+    private long submitted;
+
+    /**
+     * @param transferExecutor the threads the tasks run on
+     * @param parallelism      the maximum number of tasks in flight at the same time
+     * @param threadName       the prefix of the names of the threads
+     */
+    public FanOut(TransferExecutor transferExecutor, int parallelism, String threadName) {
+        this.parallelism = Math.max(parallelism, 1);
+        this.executorService = parallelism > 1 ? transferExecutor.newExecutor(parallelism, threadName) : null;
+        this.inFlight = new Semaphore(this.parallelism);
+    }
+
+    /**
+     * Waits until fewer than parallelism tasks are in flight, then submits the task
+     *
+     * @throws E the failure of the task, when it runs on the calling thread
+     */
+    public void submit(Task<E> task) throws E, InterruptedException {
+        if (executorService == null) {
+            task.run();
+            return;
+        }
+
+        inFlight.acquire();
+        long index = submitted++;
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    failed(index, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for every submitted task
+     *
+     * @throws E the failure of the first failed task in submission order, the later failures are suppressed
+     */
+    public void await() throws E, InterruptedException {
+        if (executorService == null) {
+            return;
+        }
+
+        inFlight.acquire(parallelism);
+        inFlight.release(parallelism);
+
+        Throwable failure = null;
+        synchronized (failures) {
+            for (Throwable next : failures.values()) {
+                if (failure == null) {
+                    failure = next;
+                } else {
+                    failure.addSuppressed(next);
+                }
+            }
+            failures.clear();
+        }
+
+        if (failure != null) {
+            throw rethrow(failure);
+        }
+    }
+
+    private void failed(long index, Throwable failure) {
+        synchronized (failures) {
+            failures.put(index, failure);
+        }
+    }
+
+    /**
+     * A task only throws the checked exception of the fan out
+     */
+    @SuppressWarnings("unchecked")
+    private E rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return (E) failure;
+    }
+
+    /**
+     * Stops the tasks still running
+     */
+    @Override
+    public void close() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Task<E extends Exception> {
+
+        void run() throws E;
+
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrency;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Creates the executors running the concurrent transfers of a directory upload or a mojo. Obtained through
+ * {@link TransferExecutors}.
+ */
+public interface TransferExecutor {
+
+    /**
+     * @param parallelism the maximum number of tasks running at the same time
+     * @param threadName  the prefix of the names of the threads
+     * @return a new executor, shut down by the caller once its tasks are done
+     */
+    ExecutorService newExecutor(int parallelism, String threadName);
+
+    /**
+     * @return the kind of threads the tasks run on
+     */
+    String getName();
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrency;
+
+import java.util.logging.Logger;
+
+/**
+ * Selects the threads the concurrent transfers run on, by the configured kind and the capabilities of the JDK.
+ */
+public final class TransferExecutors {
+
+    /**
+     * Virtual threads when the JDK supports them, platform threads otherwise
+     */
+    public static final String AUTO = "auto";
+    public static final String PLATFORM = PlatformThreadExecutor.NAME;
+    public static final String VIRTUAL = VirtualThreadExecutor.NAME;
+
+    private static final TransferExecutor PLATFORM_THREADS = new PlatformThreadExecutor();
+    private static final TransferExecutor VIRTUAL_THREADS = new VirtualThreadExecutor();
+
+    private static final Logger LOGGER = Logger.getLogger(TransferExecutors.class.getName());
+
+    private TransferExecutors() {
+    }
+
+    public static TransferExecutor platformThreads() {
+        return PLATFORM_THREADS;
+    }
+
+    /**
+     * @throws IllegalStateException if the JDK does not support virtual threads
+     */
+    public static TransferExecutor virtualThreads() {
+        if (!isVirtualThreadsAvailable()) {
+            throw new IllegalStateException("Virtual threads require JDK 21 or later");
+        }
+        return VIRTUAL_THREADS;
+    }
+
+    public static boolean isVirtualThreadsAvailable() {
+        return VirtualThreadExecutor.isAvailable();
+    }
+
+    /**
+     * @param threads {@link #AUTO}, {@link #PLATFORM} or {@link #VIRTUAL}, null for {@link #AUTO}. Virtual threads
+     *                fall back to platform threads on JDKs without them.
+     * @return the executor of the configured kind of threads
+     */
+    public static TransferExecutor select(String threads) {
+        String kind = threads == null || threads.trim().isEmpty() ? AUTO : threads.trim().toLowerCase();
+
+        switch (kind) {
+            case PLATFORM:
+                return PLATFORM_THREADS;
+            case VIRTUAL:
+                if (!isVirtualThreadsAvailable()) {
+                    LOGGER.warning(String.format("Virtual threads require JDK 21 or later, running the transfers on platform threads on Java %s", System.getProperty("java.version")));
+                    return PLATFORM_THREADS;
+                }
+                return VIRTUAL_THREADS;
+            case AUTO:
+                return isVirtualThreadsAvailable() ? VIRTUAL_THREADS : PLATFORM_THREADS;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown kind of threads %s, expected %s, %s or %s", threads, AUTO, PLATFORM, VIRTUAL));
+        }
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.hedging;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gkatzioura.maven.cloud.metrics.LatencyHistogram;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.retry.RetryableCall;
+
+/**
+ * Runs idempotent requests according to a {@link HedgingPolicy}. The request runs on a pooled thread; once it has
+ * been outstanding for the hedging delay an identical request is sent, the first successful answer is returned and
+ * the other request is cancelled by interrupting its thread.
+ * <p>
+ * The delay is derived from the latencies of the requests answered so far, no request is hedged before enough of
+ * them have been observed. Hedged requests and the requests won by the duplicate are recorded in the transfer
+ * metrics.
+ */
+public class HedgedExecutor {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService THREADS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-storage-hedge-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HedgingPolicy hedgingPolicy;
+    private final TransferMetrics transferMetrics;
+    private final Map<Operation, LatencyHistogram> latencies;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    /**
+     * @param hedgingPolicy   when duplicates are sent
+     * @param transferMetrics records the hedged requests, may be null
+     */
+    public HedgedExecutor(HedgingPolicy hedgingPolicy, TransferMetrics transferMetrics) {
+        this.hedgingPolicy = hedgingPolicy;
+        this.transferMetrics = transferMetrics;
+
+        Map<Operation, LatencyHistogram> operationLatencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            operationLatencies.put(operation, new LatencyHistogram());
+        }
+        this.latencies = Collections.unmodifiableMap(operationLatencies);
+    }
+
+    /**
+     * @return an executor running every request once on the calling thread
+     */
+    public static HedgedExecutor disabled() {
+        return new HedgedExecutor(HedgingPolicy.NONE, null);
+    }
+
+    public boolean isEnabled() {
+        return hedgingPolicy.isEnabled();
+    }
+
+    /**
+     * @param contentLength the content length of the object from its metadata, negative if unknown
+     * @return whether the download of the object is hedged
+     */
+    public boolean isHedged(long contentLength) {
+        return hedgingPolicy.isEnabled() && hedgingPolicy.isSmallObject(contentLength);
+    }
+
+    /**
+     * @return the size in bytes of the largest object buffered in memory by a hedged download
+     */
+    public long getMaxObjectSize() {
+        return hedgingPolicy.getMaxObjectSize();
+    }
+
+    /**
+     * @param operation the operation the latencies and hedges are recorded for
+     * @param call      the idempotent request
+     * @return the first successful answer
+     * @throws E the error of the request, or of the duplicate when both failed
+     */
+    public <T, E extends Exception> T execute(Operation operation, RetryableCall<T, E> call) throws E {
+        if (!hedgingPolicy.isEnabled()) {
+            return call.call();
+        }
+
+        requests.incrementAndGet();
+        long delayNanos = hedgingDelayNanos(operation);
+        long start = System.nanoTime();
+
+        CompletionService<T> completionService = new ExecutorCompletionService<>(THREADS);
+        Future<T> primary = completionService.submit(call::call);
+        Future<T> hedge = null;
+
+        try {
+            Future<T> completed = delayNanos < 0 ? completionService.take() : completionService.poll(delayNanos, TimeUnit.NANOSECONDS);
+            if (completed == null) {
+                if (acquireBudget()) {
+                    hedge = completionService.submit(call::call);
+                }
+                completed = completionService.take();
+            }
+
+            try {
+                T result = completed.get();
+                record(operation, start, hedge, completed == hedge);
+                return result;
+            } catch (ExecutionException e) {
+                if (hedge == null) {
+                    throw this.<E>unwrap(e);
+                }
+
+                Future<T> other = completionService.take();
+                try {
+                    T result = other.get();
+                    record(operation, start, hedge, other == hedge);
+                    return result;
+                } catch (ExecutionException otherException) {
+                    throw this.<E>unwrap(otherException);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + operation.getName() + " request", e);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private long hedgingDelayNanos(Operation operation) {
+        LatencyHistogram latencyHistogram = latencies.get(operation);
+        if (latencyHistogram.getCount() < MIN_SAMPLES) {
+            return -1;
+        }
+
+        double delayMillis = Math.max(hedgingPolicy.getMinDelayMillis(), latencyHistogram.getPercentileMillis(hedgingPolicy.getPercentile()));
+        return (long) (delayMillis * 1_000_000);
+    }
+
+    private boolean acquireBudget() {
+        while (true) {
+            long current = hedges.get();
+            if ((current + 1) * 100 > requests.get() * hedgingPolicy.getBudgetPercent()) {
+                return false;
+            }
+            if (hedges.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void record(Operation operation, long start, Future<?> hedge, boolean hedgeWon) {
+        latencies.get(operation).record(System.nanoTime() - start);
+        if (hedge != null && transferMetrics != null) {
+            transferMetrics.get(operation).recordHedge(hedgeWon);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> E unwrap(ExecutionException executionException) {
+        Throwable cause = executionException.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (E) cause;
+    }
+
+}
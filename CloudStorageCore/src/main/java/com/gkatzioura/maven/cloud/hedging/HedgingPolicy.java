@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.hedging;
+
+/**
+ * When a duplicate of a slow request is sent. A request is hedged once it has been outstanding for longer than the
+ * given percentile of the latencies observed so far, but never sooner than the minimum delay, and only while the
+ * duplicates stay within the budget, a percentage of all requests.
+ * <p>
+ * Downloads are only hedged for the objects whose content length, as answered by a metadata lookup, is at most the
+ * maximum object size: typically the POMs, checksums, signatures and repository metadata Maven fetches the most. They
+ * are buffered in memory so that the duplicates never write to the same file.
+ */
+public class HedgingPolicy {
+
+    /**
+     * Never hedges
+     */
+    public static final HedgingPolicy NONE = new HedgingPolicy(0, 0, 0);
+
+    /**
+     * The default maximum size of a hedged download, 1 MiB
+     */
+    public static final long DEFAULT_MAX_OBJECT_SIZE = 1024 * 1024;
+
+    private final int percentile;
+    private final long minDelayMillis;
+    private final int budgetPercent;
+    private final long maxObjectSize;
+
+    /**
+     * @param percentile     the latency percentile after which a duplicate is sent, 0 disables hedging
+     * @param minDelayMillis the minimum time a request is outstanding before a duplicate is sent
+     * @param budgetPercent  the maximum number of duplicates, as a percentage of the requests
+     */
+    public HedgingPolicy(int percentile, long minDelayMillis, int budgetPercent) {
+        this(percentile, minDelayMillis, budgetPercent, DEFAULT_MAX_OBJECT_SIZE);
+    }
+
+    /**
+     * @param maxObjectSize the size in bytes of the largest object whose download is hedged, and buffered in memory
+     */
+    public HedgingPolicy(int percentile, long minDelayMillis, int budgetPercent, long maxObjectSize) {
+        this.percentile = Math.min(100, Math.max(0, percentile));
+        this.minDelayMillis = Math.max(0, minDelayMillis);
+        this.budgetPercent = Math.min(100, Math.max(0, budgetPercent));
+        this.maxObjectSize = Math.max(0, maxObjectSize);
+    }
+
+    public boolean isEnabled() {
+        return percentile > 0 && budgetPercent > 0;
+    }
+
+    public int getPercentile() {
+        return percentile;
+    }
+
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    public int getBudgetPercent() {
+        return budgetPercent;
+    }
+
+    public long getMaxObjectSize() {
+        return maxObjectSize;
+    }
+
+    /**
+     * @param contentLength the content length of the object, negative if unknown
+     * @return whether the object is small enough to be downloaded in memory by concurrent requests
+     */
+    public boolean isSmallObject(long contentLength) {
+        return contentLength >= 0 && contentLength <= maxObjectSize;
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listener;
+
+import java.util.Arrays;
+
+/**
+ * Keeps listeners in an array that is replaced on every change. Notifications iterate over the current array
+ * without taking any lock, registrations are rare and pay for the copy instead.
+ */
+final class ListenerSnapshot<T> {
+
+    private volatile T[] listeners;
+
+    ListenerSnapshot(T[] empty) {
+        this.listeners = empty;
+    }
+
+    /**
+     * @return the listeners registered at the time of the call, the returned array must not be modified
+     */
+    T[] get() {
+        return listeners;
+    }
+
+    synchronized void add(T listener) {
+        if (listener == null) {
+            throw new NullPointerException();
+        }
+        if (contains(listener)) {
+            return;
+        }
+
+        T[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    synchronized void remove(T listener) {
+        T[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].equals(listener)) {
+                T[] updated = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    boolean contains(T listener) {
+        for (T registered : listeners) {
+            if (registered.equals(listener)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -16,8 +16,6 @@
 
 package com.gkatzioura.maven.cloud.listener;
 
-import java.util.Vector;
-
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.events.SessionEvent;
 import org.apache.maven.wagon.events.SessionListener;
@@ -25,21 +23,16 @@ import org.apache.maven.wagon.events.SessionListener;
 public class SessionListenerContainerImpl implements SessionListenerContainer {
 
     private final Wagon wagon;
-    private final Vector<SessionListener> sessionListeners;
+    private final ListenerSnapshot<SessionListener> sessionListeners;
 
     public SessionListenerContainerImpl(Wagon wagon) {
         this.wagon = wagon;
-        sessionListeners = new Vector<>();
+        sessionListeners = new ListenerSnapshot<>(new SessionListener[0]);
     }
 
     @Override
     public void addSessionListener(SessionListener sessionListener) {
-        if(sessionListener==null) {
-            throw new NullPointerException();
-        }
-        if(!sessionListeners.contains(sessionListener)) {
-            sessionListeners.add(sessionListener);
-        }
+        sessionListeners.add(sessionListener);
     }
 
     @Override
@@ -54,49 +47,97 @@ public class SessionListenerContainerImpl implements SessionListenerContainer {
 
     @Override
     public void fireSessionOpening() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_OPENING);
-        sessionListeners.forEach(e->e.sessionOpening(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionOpening(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionOpened() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_OPENED);
-        sessionListeners.forEach(e->e.sessionOpened(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionOpened(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionDisconnecting() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_DISCONNECTING);
-        sessionListeners.forEach(e->e.sessionDisconnecting(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionDisconnecting(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionDisconnected() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_DISCONNECTED);
-        sessionListeners.forEach(se->se.sessionDisconnected(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionDisconnected(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionConnectionRefused() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_CONNECTION_REFUSED);
-        sessionListeners.forEach(se->se.sessionConnectionRefused(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionConnectionRefused(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionLoggedIn() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_LOGGED_IN);
-        sessionListeners.forEach(se->se.sessionLoggedIn(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionLoggedIn(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionLoggedOff() {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, SessionEvent.SESSION_LOGGED_OFF);
-        sessionListeners.forEach(se->se.sessionLoggedOff(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionLoggedOff(sessionEvent);
+        }
     }
 
     @Override
     public void fireSessionError(Exception exception) {
+        SessionListener[] listeners = sessionListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         SessionEvent sessionEvent = new SessionEvent(this.wagon, exception);
-        sessionListeners.forEach(se->se.sessionError(sessionEvent));
+        for (SessionListener listener : listeners) {
+            listener.sessionError(sessionEvent);
+        }
     }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listener;
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.events.TransferListener;
+
+/**
+ * A {@link TransferListener} that is also told about the uploads skipped because the repository already holds the
+ * same content. Every listener is notified of the completion of a skipped upload, without any progress.
+ */
+public interface SkippedTransferListener extends TransferListener {
+
+    /**
+     * @param transferEvent the event of the skipped transfer, notified before its completion
+     */
+    void transferSkipped(TransferEvent transferEvent);
+
+}
@@ -19,6 +19,8 @@ package com.gkatzioura.maven.cloud.listener;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.resource.Resource;
 
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
 import java.io.File;
 
 public interface TransferListenerContainer {
@@ -77,6 +79,23 @@ public interface TransferListenerContainer {
      */
     void fireTransferProgress(Resource resource, int requestType, byte[] buffer, int length);
 
+    /**
+     * Create the {@link TransferProgress} that notifies {@link TransferListener}s about the progress of a transfer
+     *
+     * @param resource    The resource being transfered
+     * @param requestType The type of request being executed
+     * @return a {@link TransferProgress} honouring the configured progress coalescing
+     */
+    TransferProgress createTransferProgress(Resource resource, int requestType);
+
+    /**
+     * Coalesce the progress of a transfer instead of notifying {@link TransferListener}s about every chunk
+     *
+     * @param bytes  The number of bytes gathered before notifying, 0 disables the byte granularity
+     * @param millis The maximum time between two notifications, 0 disables the time granularity
+     */
+    void setProgressCoalescing(int bytes, long millis);
+
     /**
      * Notify {@link TransferListener}s that the transfer was completed successfully
      *
@@ -86,6 +105,16 @@ public interface TransferListenerContainer {
      */
     void fireTransferCompleted(Resource resource, int requestType);
 
+    /**
+     * Notify {@link SkippedTransferListener}s that the transfer was skipped, then every {@link TransferListener}
+     * that it was completed
+     *
+     * @param resource    The resource that was not transfered
+     * @param requestType The type of request skipped
+     * @see SkippedTransferListener#transferSkipped(org.apache.maven.wagon.events.TransferEvent)
+     */
+    void fireTransferSkipped(Resource resource, int requestType);
+
     /**
      * Notify {@link TransferListener}s that an error occurred during the transfer
      *
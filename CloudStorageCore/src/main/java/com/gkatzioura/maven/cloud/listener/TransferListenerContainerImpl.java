@@ -17,31 +17,37 @@
 package com.gkatzioura.maven.cloud.listener;
 
 import java.io.File;
-import java.util.Vector;
 
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.resource.Resource;
 
+import com.gkatzioura.maven.cloud.transfer.CoalescingTransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
+
 public class TransferListenerContainerImpl implements TransferListenerContainer {
 
+    /**
+     * Bytes gathered per notification when progress is only coalesced by time
+     */
+    private static final int DEFAULT_COALESCING_BYTES = 64 * 1024;
+
     private final Wagon wagon;
-    private final Vector<TransferListener> transferListeners;
+    private final ListenerSnapshot<TransferListener> transferListeners;
+
+    private int coalescingBytes = 0;
+    private long coalescingMillis = 0;
 
     public TransferListenerContainerImpl(Wagon wagon) {
         this.wagon = wagon;
-        this.transferListeners = new Vector<>();
+        this.transferListeners = new ListenerSnapshot<>(new TransferListener[0]);
     }
 
     @Override
     public void addTransferListener(TransferListener transferListener) {
-        if(transferListener==null) {
-            throw new NullPointerException();
-        }
-        if(!transferListeners.contains(transferListener)) {
-            transferListeners.add(transferListener);
-        }
+        transferListeners.add(transferListener);
     }
 
     @Override
@@ -56,32 +62,94 @@ public class TransferListenerContainerImpl implements TransferListenerContainer
 
     @Override
     public void fireTransferInitiated(Resource resource, int requestType) {
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon,resource,TransferEvent.TRANSFER_INITIATED,requestType);
-        transferListeners.forEach(tl->tl.transferInitiated(transferEvent));
+        for (TransferListener listener : listeners) {
+            listener.transferInitiated(transferEvent);
+        }
     }
 
     @Override
     public void fireTransferStarted(Resource resource, int requestType, File localFile) {
         resource.setContentLength(localFile.length());
         resource.setLastModified(localFile.lastModified());
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon,resource,TransferEvent.TRANSFER_STARTED,requestType);
         transferEvent.setLocalFile(localFile);
-        transferListeners.forEach(tl->tl.transferStarted(transferEvent));
+        for (TransferListener listener : listeners) {
+            listener.transferStarted(transferEvent);
+        }
     }
 
     @Override
     public void fireTransferProgress(Resource resource, int requestType, byte[] buffer, int length) {
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_PROGRESS, requestType);
-        transferListeners.forEach(tl->tl.transferProgress(transferEvent,buffer,length));
+        for (TransferListener listener : listeners) {
+            listener.transferProgress(transferEvent, buffer, length);
+        }
+    }
+
+    @Override
+    public TransferProgress createTransferProgress(Resource resource, int requestType) {
+        if (coalescingBytes <= 0 && coalescingMillis <= 0) {
+            return new TransferProgressImpl(resource, requestType, this);
+        }
+
+        int bufferSize = coalescingBytes > 0 ? coalescingBytes : DEFAULT_COALESCING_BYTES;
+        return new CoalescingTransferProgress(resource, requestType, this, bufferSize, coalescingMillis);
+    }
+
+    @Override
+    public void setProgressCoalescing(int bytes, long millis) {
+        this.coalescingBytes = bytes;
+        this.coalescingMillis = millis;
     }
 
     @Override public void fireTransferCompleted(Resource resource, int requestType) {
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
+        TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_COMPLETED, requestType);
+        for (TransferListener listener : listeners) {
+            listener.transferCompleted(transferEvent);
+        }
+    }
+
+    @Override public void fireTransferSkipped(Resource resource, int requestType) {
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, TransferEvent.TRANSFER_COMPLETED, requestType);
-        transferListeners.forEach(tl->tl.transferCompleted(transferEvent));
+        for (TransferListener listener : listeners) {
+            if (listener instanceof SkippedTransferListener) {
+                ((SkippedTransferListener) listener).transferSkipped(transferEvent);
+            }
+        }
+        for (TransferListener listener : listeners) {
+            listener.transferCompleted(transferEvent);
+        }
     }
 
     @Override public void fireTransferError(Resource resource, int requestType, Exception exception) {
+        TransferListener[] listeners = transferListeners.get();
+        if (listeners.length == 0) {
+            return;
+        }
         TransferEvent transferEvent = new TransferEvent(this.wagon, resource, exception, requestType);
-        transferListeners.forEach(tl->tl.transferError(transferEvent));
+        for (TransferListener listener : listeners) {
+            listener.transferError(transferEvent);
+        }
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listing;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a listing, together with the token continuing the listing after it.
+ */
+public class KeyPage<T> {
+
+    private final List<T> keys;
+    private final String continuationToken;
+
+    /**
+     * @param keys              the keys of the page
+     * @param continuationToken the token of the next page, null or empty on the last page
+     */
+    public KeyPage(List<T> keys, String continuationToken) {
+        this.keys = keys == null ? Collections.emptyList() : keys;
+        this.continuationToken = continuationToken == null || continuationToken.isEmpty() ? null : continuationToken;
+    }
+
+    public List<T> getKeys() {
+        return keys;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public boolean isLast() {
+        return continuationToken == null;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over a paginated listing, requesting a page only once the previous one has been consumed.
+ * Only the current page is held in memory and the first key is available as soon as the first page arrives.
+ * Closing the iterator closes the page fetcher, which stops any background requests of a
+ * {@link PrefetchingKeyPageFetcher}.
+ */
+public class PagedKeyIterator<T> implements Iterator<T>, Closeable {
+
+    private final KeyPageFetcher<T> keyPageFetcher;
+
+    private List<T> keys = Collections.emptyList();
+    private int position;
+    private String continuationToken;
+    private boolean lastPageFetched;
+
+    public PagedKeyIterator(KeyPageFetcher<T> keyPageFetcher) {
+        this.keyPageFetcher = keyPageFetcher;
+    }
+
+    /**
+     * @param keyPageFetcher requests the pages
+     * @param prefetchPages  the number of pages requested ahead on a background thread, 0 requests them on demand
+     */
+    public PagedKeyIterator(KeyPageFetcher<T> keyPageFetcher, int prefetchPages) {
+        this(prefetchPages > 0 ? new PrefetchingKeyPageFetcher<>(keyPageFetcher, prefetchPages) : keyPageFetcher);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (position >= keys.size()) {
+            if (lastPageFetched) {
+                return false;
+            }
+            fetchPage();
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return keys.get(position++);
+    }
+
+    @Override
+    public void close() {
+        if (keyPageFetcher instanceof Closeable) {
+            try {
+                ((Closeable) keyPageFetcher).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void fetchPage() {
+        KeyPage<T> keyPage = keyPageFetcher.fetch(continuationToken);
+        keys = keyPage.getKeys();
+        position = 0;
+        continuationToken = keyPage.getContinuationToken();
+        lastPageFetched = keyPage.isLast();
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listing;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Requests the pages of a listing on a background thread ahead of the consumer, so the next page is usually
+ * available by the time the current one has been processed. At most the given number of pages wait in memory,
+ * the background thread blocks until the consumer takes one.
+ * <p>
+ * Pages are handed out in listing order, the continuation tokens passed by the consumer are only used to start
+ * the listing. A failure of the background request is thrown to the consumer when it reaches the failed page, and
+ * again on every later fetch; a fetch past the last page returns an empty last page.
+ */
+public class PrefetchingKeyPageFetcher<T> implements KeyPageFetcher<T>, Closeable {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final KeyPageFetcher<T> keyPageFetcher;
+    private final BlockingQueue<Object> pages;
+
+    private Thread thread;
+    private volatile boolean closed;
+    private volatile Object terminal;
+
+    /**
+     * @param keyPageFetcher requests the pages
+     * @param pagesInFlight  the maximum number of pages fetched ahead of the consumer
+     */
+    public PrefetchingKeyPageFetcher(KeyPageFetcher<T> keyPageFetcher, int pagesInFlight) {
+        this.keyPageFetcher = keyPageFetcher;
+        this.pages = new ArrayBlockingQueue<>(Math.max(1, pagesInFlight));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public KeyPage<T> fetch(String continuationToken) {
+        start(continuationToken);
+
+        Object page = terminal;
+        if (page == null) {
+            try {
+                page = pages.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a listing page", e);
+            }
+
+            if (page instanceof Failure) {
+                terminal = page;
+            } else if (((KeyPage<?>) page).isLast()) {
+                terminal = new KeyPage<T>(null, null);
+            }
+        }
+
+        if (page instanceof Failure) {
+            Throwable failure = ((Failure) page).failure;
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+
+        return (KeyPage<T>) page;
+    }
+
+    private synchronized void start(String continuationToken) {
+        if (closed) {
+            throw new IllegalStateException("The listing was closed");
+        }
+
+        if (thread == null) {
+            thread = new Thread(() -> prefetch(continuationToken), "cloud-storage-list-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the background requests and drops the pages that were not consumed
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        pages.clear();
+    }
+
+    private void prefetch(String continuationToken) {
+        String next = continuationToken;
+
+        try {
+            while (!closed) {
+                final Object page;
+                try {
+                    page = keyPageFetcher.fetch(next);
+                } catch (RuntimeException | Error e) {
+                    pages.put(new Failure(e));
+                    return;
+                }
+
+                pages.put(page);
+
+                KeyPage<?> keyPage = (KeyPage<?>) page;
+                if (keyPage.isLast()) {
+                    return;
+                }
+                next = keyPage.getContinuationToken();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Failure {
+
+        private final Throwable failure;
+
+        private Failure(Throwable failure) {
+            this.failure = failure;
+        }
+    }
+
+}
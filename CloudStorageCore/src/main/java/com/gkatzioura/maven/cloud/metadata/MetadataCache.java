@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metadata;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gkatzioura.maven.cloud.cache.MissingResourceCache;
+
+/**
+ * Keeps the metadata of resources, including the fact that a resource does not exist, for a limited time so that
+ * repeated existence and freshness checks of the same resource do not reach the provider.
+ * <p>
+ * A cache either belongs to a single wagon session or shares its entries with every other JVM-wide cache.
+ * Writes through the repositories invalidate the entries of the resources they change. Resources found missing
+ * can additionally be recorded in a {@link MissingResourceCache}, which outlives the session.
+ */
+public class MetadataCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private static final ConcurrentMap<String, Entry> JVM_ENTRIES = new ConcurrentHashMap<>();
+    private static final AtomicLong JVM_INVALIDATIONS = new AtomicLong();
+
+    private final long ttlNanos;
+    private final ConcurrentMap<String, Entry> entries;
+    private final AtomicLong invalidations;
+    private final MissingResourceCache missingResourceCache;
+
+    /**
+     * Creates a cache for a single session
+     *
+     * @param ttlMillis the time entries are kept, 0 disables the cache
+     */
+    public MetadataCache(long ttlMillis) {
+        this(ttlMillis, null);
+    }
+
+    /**
+     * Creates a cache for a single session
+     *
+     * @param ttlMillis            the time entries are kept, 0 disables the cache
+     * @param missingResourceCache records the resources found missing, may be null
+     */
+    public MetadataCache(long ttlMillis, MissingResourceCache missingResourceCache) {
+        this(ttlMillis, new ConcurrentHashMap<>(), new AtomicLong(), missingResourceCache);
+    }
+
+    private MetadataCache(long ttlMillis, ConcurrentMap<String, Entry> entries, AtomicLong invalidations, MissingResourceCache missingResourceCache) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+        this.entries = entries;
+        this.invalidations = invalidations;
+        this.missingResourceCache = missingResourceCache;
+    }
+
+    /**
+     * Creates a cache sharing its entries with every other JVM-wide cache
+     *
+     * @param ttlMillis the time entries are used by this cache, 0 disables the cache
+     */
+    public static MetadataCache jvmWide(long ttlMillis) {
+        return jvmWide(ttlMillis, null);
+    }
+
+    /**
+     * Creates a cache sharing its entries with every other JVM-wide cache
+     *
+     * @param ttlMillis            the time entries are used by this cache, 0 disables the cache
+     * @param missingResourceCache records the resources found missing, may be null
+     */
+    public static MetadataCache jvmWide(long ttlMillis, MissingResourceCache missingResourceCache) {
+        return new MetadataCache(ttlMillis, JVM_ENTRIES, JVM_INVALIDATIONS, missingResourceCache);
+    }
+
+    /**
+     * @param location the provider specific location of the resource
+     * @param loader   retrieves the metadata when no fresh entry exists
+     * @return the metadata of the resource, null if the resource does not exist
+     */
+    public <E extends Exception> ResourceMetadata get(String location, MetadataLoader<E> loader) throws E {
+        if (missingResourceCache != null && missingResourceCache.isMissing(location)) {
+            return null;
+        }
+
+        if (ttlNanos == 0) {
+            return recordMissing(location, loader.load());
+        }
+
+        long now = System.nanoTime();
+        Entry entry = entries.get(location);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            return entry.resourceMetadata;
+        }
+
+        long invalidation = invalidations.get();
+        ResourceMetadata resourceMetadata = loader.load();
+        if (invalidations.get() == invalidation) {
+            store(location, new Entry(resourceMetadata, now));
+            recordMissing(location, resourceMetadata);
+        }
+        return resourceMetadata;
+    }
+
+    /**
+     * @return whether the resource is known not to exist, without contacting the provider
+     */
+    public boolean isKnownMissing(String location) {
+        if (missingResourceCache != null && missingResourceCache.isMissing(location)) {
+            return true;
+        }
+
+        Entry entry = entries.get(location);
+        return ttlNanos > 0 && entry != null && entry.resourceMetadata == null && System.nanoTime() - entry.loadedAt < ttlNanos;
+    }
+
+    /**
+     * Records metadata that was received as part of another request
+     *
+     * @param resourceMetadata the metadata of the resource, null if the resource was found missing
+     */
+    public void put(String location, ResourceMetadata resourceMetadata) {
+        if (ttlNanos > 0) {
+            store(location, new Entry(resourceMetadata, System.nanoTime()));
+        }
+        if (missingResourceCache != null) {
+            if (resourceMetadata == null) {
+                missingResourceCache.markMissing(location);
+            } else {
+                missingResourceCache.invalidate(location);
+            }
+        }
+    }
+
+    /**
+     * Drops the entry of a resource that changed
+     */
+    public void invalidate(String location) {
+        invalidations.incrementAndGet();
+        entries.remove(location);
+        if (missingResourceCache != null) {
+            missingResourceCache.invalidate(location);
+        }
+    }
+
+    private ResourceMetadata recordMissing(String location, ResourceMetadata resourceMetadata) {
+        if (resourceMetadata == null && missingResourceCache != null) {
+            missingResourceCache.markMissing(location);
+        }
+        return resourceMetadata;
+    }
+
+    private void store(String location, Entry entry) {
+        if (entries.size() >= MAX_ENTRIES) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> now - e.loadedAt >= ttlNanos);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        entries.put(location, entry);
+    }
+
+    private static final class Entry {
+
+        private final ResourceMetadata resourceMetadata;
+        private final long loadedAt;
+
+        private Entry(ResourceMetadata resourceMetadata, long loadedAt) {
+            this.resourceMetadata = resourceMetadata;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metadata;
+
+/**
+ * Retrieves the metadata of a resource from the provider.
+ *
+ * @param <E> the exception thrown when the metadata could not be retrieved
+ */
+@FunctionalInterface
+public interface MetadataLoader<E extends Exception> {
+
+    /**
+     * @return the metadata of the resource, null if the resource does not exist
+     */
+    ResourceMetadata load() throws E;
+
+}
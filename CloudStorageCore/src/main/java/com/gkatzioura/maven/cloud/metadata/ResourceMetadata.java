@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metadata;
+
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+
+/**
+ * The properties of a stored object that the wagons need to decide whether it has to be transferred.
+ */
+public class ResourceMetadata {
+
+    private final long contentLength;
+    private final long lastModified;
+    private final String version;
+    private final ExpectedDigest checksum;
+    private final ContentDigests contentDigests;
+
+    /**
+     * @param contentLength the size of the object in bytes
+     * @param lastModified  the time the object was last modified, in milliseconds since the epoch
+     * @param version       identifies the content of the object, the ETag or the generation depending on the provider.
+     *                      May be null
+     */
+    public ResourceMetadata(long contentLength, long lastModified, String version) {
+        this(contentLength, lastModified, version, ExpectedDigest.NONE);
+    }
+
+    /**
+     * @param checksum the checksum the provider keeps for the content of the object
+     */
+    public ResourceMetadata(long contentLength, long lastModified, String version, ExpectedDigest checksum) {
+        this(contentLength, lastModified, version, checksum, null);
+    }
+
+    private ResourceMetadata(long contentLength, long lastModified, String version, ExpectedDigest checksum, ContentDigests contentDigests) {
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+        this.version = version;
+        this.checksum = checksum;
+        this.contentDigests = contentDigests;
+    }
+
+    /**
+     * @param contentDigests the digests of the downloaded content, verified against the checksum of the provider
+     * @return the same metadata along with the digests
+     */
+    public ResourceMetadata withContentDigests(ContentDigests contentDigests) {
+        return new ResourceMetadata(contentLength, lastModified, version, checksum, contentDigests);
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the checksum the provider keeps for the content, {@link ExpectedDigest#NONE} if it has none
+     */
+    public ExpectedDigest getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * @return the digests of the content verified while it was downloaded, null if it was not verified
+     */
+    public ContentDigests getContentDigests() {
+        return contentDigests;
+    }
+
+}
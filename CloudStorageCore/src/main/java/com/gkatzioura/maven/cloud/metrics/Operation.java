@@ -0,0 +1,43 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+/**
+ * The wagon operations metrics are recorded for
+ */
+public enum Operation {
+
+    GET("get"),
+    PUT("put"),
+    EXISTS("exists"),
+    LIST("list"),
+    GET_IF_NEWER("getIfNewer");
+
+    private final String name;
+
+    Operation(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the operation as in the {@link org.apache.maven.wagon.Wagon} method
+     */
+    public String getName() {
+        return name;
+    }
+
+}
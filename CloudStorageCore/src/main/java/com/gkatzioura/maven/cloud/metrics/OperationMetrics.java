@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request, error and byte counts along with the latency histogram of one operation of one wagon. The attempts made
+ * by retried requests are counted separately from the requests.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * @param nanos     the duration of the request
+     * @param byteCount the bytes transferred by the request
+     * @param succeeded whether the request succeeded
+     */
+    public void record(long nanos, long byteCount, boolean succeeded) {
+        requests.increment();
+        if (!succeeded) {
+            errors.increment();
+        }
+        if (byteCount > 0) {
+            bytes.add(byteCount);
+        }
+        latencies.record(nanos);
+    }
+
+    /**
+     * @param retry     whether the attempt repeated a failed one
+     * @param succeeded whether the attempt succeeded
+     */
+    public void recordAttempt(boolean retry, boolean succeeded) {
+        attempts.increment();
+        if (retry) {
+            retries.increment();
+        }
+        if (!succeeded) {
+            failedAttempts.increment();
+        }
+    }
+
+    /**
+     * @param won whether the duplicate answered first
+     */
+    public void recordHedge(boolean won) {
+        hedges.increment();
+        if (won) {
+            hedgeWins.increment();
+        }
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getFailedAttempts() {
+        return failedAttempts.sum();
+    }
+
+    @Override
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    @Override
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    @Override
+    public double getMeanLatencyMillis() {
+        return latencies.getMeanMillis();
+    }
+
+    @Override
+    public double getP50LatencyMillis() {
+        return latencies.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getP90LatencyMillis() {
+        return latencies.getPercentileMillis(90);
+    }
+
+    @Override
+    public double getP99LatencyMillis() {
+        return latencies.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getMaxLatencyMillis() {
+        return latencies.getMaxMillis();
+    }
+
+    @Override
+    public long[] getLatencyBucketUpperBoundsMicros() {
+        return latencies.getBucketUpperBoundsMicros();
+    }
+
+    @Override
+    public long[] getLatencyBucketCounts() {
+        return latencies.getBucketCounts();
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+/**
+ * The metrics of one operation of one wagon, as exposed over JMX. Counters only grow for the lifetime of the JVM.
+ */
+public interface OperationMetricsMXBean {
+
+    long getRequests();
+
+    long getErrors();
+
+    long getBytes();
+
+    long getAttempts();
+
+    long getRetries();
+
+    long getFailedAttempts();
+
+    long getHedges();
+
+    long getHedgeWins();
+
+    double getMeanLatencyMillis();
+
+    double getP50LatencyMillis();
+
+    double getP90LatencyMillis();
+
+    double getP99LatencyMillis();
+
+    double getMaxLatencyMillis();
+
+    long[] getLatencyBucketUpperBoundsMicros();
+
+    long[] getLatencyBucketCounts();
+
+}
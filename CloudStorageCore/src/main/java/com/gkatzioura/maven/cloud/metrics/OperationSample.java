@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+/**
+ * Times one operation. The operation counts as failed unless {@link #succeeded(long)} is called before the sample
+ * is closed, so a try-with-resources block records exceptions as errors without catching them.
+ */
+public class OperationSample implements AutoCloseable {
+
+    private final OperationMetrics operationMetrics;
+    private final long startNanos = System.nanoTime();
+
+    private boolean succeeded;
+    private long bytes;
+    private boolean closed;
+
+    OperationSample(OperationMetrics operationMetrics) {
+        this.operationMetrics = operationMetrics;
+    }
+
+    /**
+     * @param bytes the bytes transferred by the operation
+     */
+    public void succeeded(long bytes) {
+        this.succeeded = true;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        operationMetrics.record(System.nanoTime() - startNanos, bytes, succeeded);
+    }
+
+}
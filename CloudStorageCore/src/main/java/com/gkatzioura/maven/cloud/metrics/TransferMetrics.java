@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The metrics of every operation of one wagon, identified by the wagon type and the repository it connects to
+ */
+public class TransferMetrics {
+
+    private final String wagon;
+    private final String repository;
+    private final Map<Operation, OperationMetrics> operations;
+
+    TransferMetrics(String wagon, String repository) {
+        this.wagon = wagon;
+        this.repository = repository;
+
+        Map<Operation, OperationMetrics> operationMetrics = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            operationMetrics.put(operation, new OperationMetrics());
+        }
+        this.operations = Collections.unmodifiableMap(operationMetrics);
+    }
+
+    public String getWagon() {
+        return wagon;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public OperationMetrics get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    public Map<Operation, OperationMetrics> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Starts timing an operation, the returned sample records it once closed
+     */
+    public OperationSample start(Operation operation) {
+        return new OperationSample(operations.get(operation));
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Holds the transfer metrics of every wagon of the JVM. Wagons connecting to the same repository share their
+ * metrics, so long running processes such as the Maven daemon accumulate them across builds.
+ * <p>
+ * Every operation of every wagon is also registered with the platform MBean server as
+ * {@code com.gkatzioura.maven.cloud:type=TransferMetrics,wagon=<wagon>,repository=<repository>,operation=<operation>}.
+ */
+public class TransferMetricsRegistry {
+
+    public static final String JMX_DOMAIN = "com.gkatzioura.maven.cloud";
+
+    private static final Logger LOGGER = Logger.getLogger(TransferMetricsRegistry.class.getName());
+
+    private static final TransferMetricsRegistry INSTANCE = new TransferMetricsRegistry();
+
+    private final ConcurrentMap<String, TransferMetrics> metrics = new ConcurrentHashMap<>();
+
+    public static TransferMetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param wagon      the type of the wagon, such as s3
+     * @param repository the identity of the repository, such as its url
+     * @return the metrics of the wagon, created and registered over JMX on first use
+     */
+    public TransferMetrics metrics(String wagon, String repository) {
+        return metrics.computeIfAbsent(wagon + '\n' + repository, key -> {
+            TransferMetrics transferMetrics = new TransferMetrics(wagon, repository);
+            register(transferMetrics);
+            return transferMetrics;
+        });
+    }
+
+    /**
+     * @return the metrics of every wagon created so far
+     */
+    public Collection<TransferMetrics> getMetrics() {
+        return Collections.unmodifiableCollection(new ArrayList<>(metrics.values()));
+    }
+
+    public static ObjectName objectName(String wagon, String repository, Operation operation) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=TransferMetrics"
+                + ",wagon=" + ObjectName.quote(wagon)
+                + ",repository=" + ObjectName.quote(repository)
+                + ",operation=" + operation.getName());
+    }
+
+    private static void register(TransferMetrics transferMetrics) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            for (Operation operation : Operation.values()) {
+                ObjectName objectName = objectName(transferMetrics.getWagon(), transferMetrics.getRepository(), operation);
+                try {
+                    mBeanServer.registerMBean(transferMetrics.get(operation), objectName);
+                } catch (InstanceAlreadyExistsException e) {
+                    LOGGER.log(Level.FINER, String.format("%s is already registered by another class loader", objectName), e);
+                }
+            }
+        } catch (JMException | SecurityException e) {
+            LOGGER.log(Level.FINE, "Could not register the transfer metrics over JMX", e);
+        }
+    }
+
+}
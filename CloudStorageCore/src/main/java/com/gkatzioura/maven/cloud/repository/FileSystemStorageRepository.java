@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+
+/**
+ * Keeps the objects as files under a root directory, the keys being their paths relative to the root. An upload is
+ * written to a temporary file first, then moved over the object.
+ * <p>
+ * The files have no checksum, like the objects of a provider without a Content-MD5, so their downloads are not
+ * verified and identical uploads are not found.
+ */
+public class FileSystemStorageRepository extends SimulatedStorageRepository {
+
+    private static final String UPLOAD_SUFFIX = ".upload";
+
+    private final Path root;
+
+    public FileSystemStorageRepository(Path root, NetworkConditions networkConditions) {
+        this(root, "", networkConditions);
+    }
+
+    public FileSystemStorageRepository(Path root, String baseDirectory, NetworkConditions networkConditions) {
+        super(baseDirectory, networkConditions);
+        this.root = root.toAbsolutePath();
+    }
+
+    @Override
+    protected ResourceMetadata stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path(key), BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            return new ResourceMetadata(attributes.size(), lastModified, Long.toHexString(lastModified) + "-" + Long.toHexString(attributes.size()));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected InputStream read(String key) throws IOException {
+        try {
+            return Files.newInputStream(path(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected ContentDigests write(String key, InputStream content, MultiDigest multiDigest) throws IOException {
+        Path target = path(key);
+        Files.createDirectories(target.getParent());
+
+        Path upload = Files.createTempFile(target.getParent(), target.getFileName().toString(), UPLOAD_SUFFIX);
+        try {
+            Files.copy(content, upload, StandardCopyOption.REPLACE_EXISTING);
+            ContentDigests contentDigests = multiDigest.finish();
+            Files.move(upload, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return contentDigests;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    protected List<String> keys(String prefix) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(path -> root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"))
+                    .filter(key -> key.startsWith(prefix) && !key.endsWith(UPLOAD_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    protected String location(String key) {
+        return path(key).toUri().toString();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    private Path path(String key) {
+        return root.resolve(key);
+    }
+
+}
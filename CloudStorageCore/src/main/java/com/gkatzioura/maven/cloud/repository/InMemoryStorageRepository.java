@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+
+/**
+ * Keeps the objects in memory, along with their MD5 as the providers do, for the lifetime of the repository.
+ */
+public class InMemoryStorageRepository extends SimulatedStorageRepository {
+
+    private static final AtomicInteger REPOSITORY_COUNTER = new AtomicInteger();
+
+    private final String name = "repository-" + REPOSITORY_COUNTER.incrementAndGet();
+    private final ConcurrentMap<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+    public InMemoryStorageRepository(NetworkConditions networkConditions) {
+        this("", networkConditions);
+    }
+
+    public InMemoryStorageRepository(String baseDirectory, NetworkConditions networkConditions) {
+        super(baseDirectory, networkConditions);
+    }
+
+    @Override
+    protected ResourceMetadata stat(String key) {
+        StoredObject storedObject = objects.get(key);
+        if (storedObject == null) {
+            return null;
+        }
+
+        return new ResourceMetadata(storedObject.content.length, storedObject.lastModified, storedObject.eTag, ExpectedDigest.md5(storedObject.md5));
+    }
+
+    @Override
+    protected InputStream read(String key) {
+        StoredObject storedObject = objects.get(key);
+        return storedObject == null ? null : new ByteArrayInputStream(storedObject.content);
+    }
+
+    @Override
+    protected ContentDigests write(String key, InputStream content, MultiDigest multiDigest) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+
+        ContentDigests contentDigests = multiDigest.finish();
+        objects.put(key, new StoredObject(outputStream.toByteArray(), System.currentTimeMillis(), contentDigests.getMd5(), contentDigests.getMd5Hex()));
+        return contentDigests;
+    }
+
+    @Override
+    protected List<String> keys(String prefix) {
+        return objects.keySet().stream()
+                .filter(key -> key.startsWith(prefix))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected String location(String key) {
+        return "memory://" + name + "/" + key;
+    }
+
+    /**
+     * @return the number of objects the repository holds
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    private static final class StoredObject {
+
+        private final byte[] content;
+        private final long lastModified;
+        private final byte[] md5;
+        private final String eTag;
+
+        private StoredObject(byte[] content, long lastModified, byte[] md5, String eTag) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+            this.eTag = eTag;
+        }
+
+    }
+
+}
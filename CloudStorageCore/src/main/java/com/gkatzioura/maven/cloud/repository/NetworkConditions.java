@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency and bandwidth of a simulated connection to a repository. Every request waits for the latency before
+ * it is served, and the content of every transfer flows no faster than the bandwidth. Each transfer gets the whole
+ * bandwidth, as if it had its own connection, so that parallel transfers gain over sequential ones as they do against
+ * a provider.
+ */
+public final class NetworkConditions {
+
+    public static final NetworkConditions NONE = new NetworkConditions(0, 0);
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long latencyMillis;
+    private final long bytesPerSecond;
+
+    /**
+     * @param latencyMillis  the time every request waits before it is served
+     * @param bytesPerSecond the bandwidth of every transfer, 0 for an unlimited bandwidth
+     */
+    public NetworkConditions(long latencyMillis, long bytesPerSecond) {
+        if (latencyMillis < 0 || bytesPerSecond < 0) {
+            throw new IllegalArgumentException("The latency and the bandwidth cannot be negative");
+        }
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Waits for the latency of a request
+     */
+    public void request() throws InterruptedIOException {
+        sleep(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+
+    /**
+     * @return the stream, read no faster than the bandwidth
+     */
+    public InputStream throttle(InputStream inputStream) {
+        return bytesPerSecond == 0 ? inputStream : new ThrottledInputStream(inputStream);
+    }
+
+    private static void sleep(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the simulated network");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("latency %d ms, bandwidth %s", latencyMillis, bytesPerSecond == 0 ? "unlimited" : bytesPerSecond + " bytes/s");
+    }
+
+    private final class ThrottledInputStream extends FilterInputStream {
+
+        private final long start = System.nanoTime();
+        private long transferred;
+
+        private ThrottledInputStream(InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                transferred(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                transferred(read);
+            }
+            return read;
+        }
+
+        /**
+         * Waits until the bytes transferred so far are due at the bandwidth
+         */
+        private void transferred(int count) throws InterruptedIOException {
+            transferred += count;
+            long due = start + (long) ((double) transferred * NANOS_PER_SECOND / bytesPerSecond);
+            sleep(due - System.nanoTime());
+        }
+
+    }
+
+}
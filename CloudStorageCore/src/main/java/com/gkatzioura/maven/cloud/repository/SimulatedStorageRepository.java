@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+
+import com.gkatzioura.maven.cloud.async.AsyncCalls;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.resolver.KeyResolver;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
+
+/**
+ * A repository simulating a provider on top of a local store, to run the wagon, its caches and its parallel
+ * transfers offline. Every request waits for the latency of the {@link NetworkConditions} and the content flows at
+ * their bandwidth. Like the providers, the metadata goes through the {@link MetadataCache}, and the checksum the
+ * store keeps for an object verifies its downloads and finds identical uploads.
+ * <p>
+ * The async methods run the blocking methods on an executor.
+ */
+public abstract class SimulatedStorageRepository implements StorageRepository {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(SimulatedStorageRepository.class.getName());
+
+    private final String baseDirectory;
+    private final NetworkConditions networkConditions;
+    private final KeyResolver keyResolver = new KeyResolver();
+
+    private MetadataCache metadataCache = new MetadataCache(0);
+    private boolean verifyDownloads = true;
+    private Executor asyncExecutor = AsyncCalls.defaultExecutor();
+
+    protected SimulatedStorageRepository(String baseDirectory, NetworkConditions networkConditions) {
+        this.baseDirectory = baseDirectory == null ? "" : baseDirectory;
+        this.networkConditions = networkConditions;
+    }
+
+    /**
+     * @return the metadata of the object, null if the object does not exist
+     */
+    protected abstract ResourceMetadata stat(String key) throws IOException;
+
+    /**
+     * @return the content of the object, null if the object does not exist
+     */
+    protected abstract InputStream read(String key) throws IOException;
+
+    /**
+     * Stores the content under the key, replacing the previous object
+     *
+     * @param multiDigest updated with the content as it is read
+     * @return the digests of the stored content, once the content is read to its end
+     */
+    protected abstract ContentDigests write(String key, InputStream content, MultiDigest multiDigest) throws IOException;
+
+    /**
+     * @return the keys of the objects starting with the prefix
+     */
+    protected abstract List<String> keys(String prefix) throws IOException;
+
+    /**
+     * @return identifies the object in the metadata cache
+     */
+    protected abstract String location(String key);
+
+    @Override
+    public ResourceMetadata copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException {
+        String key = resolveKey(resourceName);
+
+        LOGGER.log(Level.FINER, String.format("Downloading key %s into %s", key, destination.getAbsolutePath()));
+
+        if (metadataCache.isKnownMissing(location(key))) {
+            LOGGER.log(Level.FINER, String.format("Key %s is known to be missing", key));
+            throw new ResourceDoesNotExistException(resourceName);
+        }
+
+        try {
+            networkConditions.request();
+            ResourceMetadata resourceMetadata = stat(key);
+            InputStream content = resourceMetadata == null ? null : read(key);
+            if (content == null) {
+                metadataCache.put(location(key), null);
+                throw new ResourceDoesNotExistException(resourceName);
+            }
+
+            ExpectedDigest expectedDigest = verifyDownloads ? resourceMetadata.getChecksum() : ExpectedDigest.NONE;
+            MultiDigest multiDigest = expectedDigest.newMultiDigest();
+            try (InputStream inputStream = networkConditions.throttle(content);
+                 OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress, multiDigest)) {
+                transfer(inputStream, outputStream);
+            }
+
+            resourceMetadata = expectedDigest.verify(resourceMetadata, multiDigest, destination);
+            metadataCache.put(location(key), resourceMetadata);
+            return resourceMetadata;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not download " + resourceName, e);
+        }
+    }
+
+    @Override
+    public ContentDigests put(File file, String destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
+        String key = resolveKey(destination);
+
+        LOGGER.log(Level.FINER, String.format("Uploading key %s", key));
+
+        MultiDigest multiDigest = new MultiDigest();
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress, multiDigest)) {
+            networkConditions.request();
+            return write(key, networkConditions.throttle(inputStream), multiDigest);
+        } catch (FileNotFoundException e) {
+            throw new ResourceDoesNotExistException("Could not find " + file, e);
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not upload " + destination, e);
+        } finally {
+            metadataCache.invalidate(location(key));
+        }
+    }
+
+    @Override
+    public ResourceMetadata metadata(String resourceName) throws TransferFailedException {
+        String key = resolveKey(resourceName);
+
+        return metadataCache.get(location(key), () -> {
+            try {
+                networkConditions.request();
+                return stat(key);
+            } catch (IOException e) {
+                throw new TransferFailedException("Could not fetch the metadata of " + resourceName, e);
+            }
+        });
+    }
+
+    @Override
+    public ContentDigests identical(File file, String destination) throws TransferFailedException {
+        ResourceMetadata resourceMetadata = metadata(destination);
+        if (resourceMetadata == null || resourceMetadata.getContentLength() != file.length() || !resourceMetadata.getChecksum().isPresent()) {
+            return null;
+        }
+
+        try {
+            ContentDigests contentDigests = MultiDigest.digest(file);
+            return resourceMetadata.getChecksum().matches(contentDigests) ? contentDigests : null;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not read " + file, e);
+        }
+    }
+
+    @Override
+    public boolean newResourceAvailable(String resourceName, long timeStamp) throws ResourceDoesNotExistException {
+        try {
+            ResourceMetadata resourceMetadata = metadata(resourceName);
+            return resourceMetadata != null && resourceMetadata.getLastModified() > timeStamp;
+        } catch (TransferFailedException e) {
+            throw new ResourceDoesNotExistException(resourceName, e);
+        }
+    }
+
+    @Override
+    public boolean exists(String resourceName) throws TransferFailedException {
+        return metadata(resourceName) != null;
+    }
+
+    /**
+     * @return the names of the resources under the path, relative to the base directory
+     */
+    @Override
+    public List<String> list(String path) throws TransferFailedException {
+        String root = resolveKey("");
+        String prefix = path == null || path.equals(".") ? root : resolveKey(path);
+        String directoryPrefix = prefix.isEmpty() ? "" : prefix + "/";
+
+        try {
+            networkConditions.request();
+            List<String> resourceNames = new ArrayList<>();
+            for (String key : keys(directoryPrefix)) {
+                resourceNames.add(root.isEmpty() ? key : key.substring(root.length() + 1));
+            }
+            Collections.sort(resourceNames);
+            return resourceNames;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not list " + path, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ResourceMetadata> getAsync(String resourceName, File destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> copy(resourceName, destination, transferProgress), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<ContentDigests> putAsync(File file, String destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> put(file, destination, transferProgress), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String resourceName) {
+        return AsyncCalls.supply(() -> exists(resourceName), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAsync(String path) {
+        return AsyncCalls.supply(() -> list(path), asyncExecutor);
+    }
+
+    /**
+     * The objects are kept once the repository is disconnected, for the next session
+     */
+    @Override
+    public void disconnect() {
+    }
+
+    /**
+     * Sets the caches of a new session from the settings of the wagon
+     */
+    public void configure(StorageSettings storageSettings) {
+        setMetadataCache(storageSettings.getMetadataCache());
+        setVerifyDownloads(storageSettings.isVerifyDownloads());
+    }
+
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        this.verifyDownloads = verifyDownloads;
+    }
+
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public String getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    public NetworkConditions getNetworkConditions() {
+        return networkConditions;
+    }
+
+    private String resolveKey(String path) {
+        return keyResolver.resolve(baseDirectory, path);
+    }
+
+    private static void transfer(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+    }
+
+}
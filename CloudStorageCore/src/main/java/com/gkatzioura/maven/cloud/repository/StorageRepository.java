@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+
+import com.gkatzioura.maven.cloud.async.AsyncStorageRepository;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * The operations the wagons perform against a storage provider, so that their get, put, exists and list flows, and
+ * the engines built on top of them, do not depend on a provider SDK. Resource names are relative to the directory
+ * of the repository.
+ * <p>
+ * Besides the providers, {@link InMemoryStorageRepository} and {@link FileSystemStorageRepository} implement it to
+ * run the wagon offline, with simulated network conditions.
+ */
+public interface StorageRepository extends AsyncStorageRepository {
+
+    /**
+     * Downloads the resource to the destination
+     *
+     * @return the metadata of the downloaded resource
+     * @throws ResourceDoesNotExistException if the resource does not exist
+     */
+    ResourceMetadata copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException;
+
+    /**
+     * Uploads the file, replacing the resource at the destination
+     *
+     * @return the digests of the uploaded content
+     * @throws ResourceDoesNotExistException if the file does not exist
+     */
+    ContentDigests put(File file, String destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException;
+
+    /**
+     * @return the metadata of the resource, null if the resource does not exist
+     */
+    ResourceMetadata metadata(String resourceName) throws TransferFailedException;
+
+    /**
+     * Compares the file with the resource at the destination, using the checksum the provider keeps for it
+     *
+     * @return the digests of the file if the resource has the same content, null otherwise
+     */
+    ContentDigests identical(File file, String destination) throws TransferFailedException;
+
+    /**
+     * @return whether the resource exists and was modified after the timestamp
+     */
+    boolean newResourceAvailable(String resourceName, long timeStamp) throws ResourceDoesNotExistException;
+
+    boolean exists(String resourceName) throws TransferFailedException;
+
+    /**
+     * @return the resources under the path
+     */
+    List<String> list(String path) throws TransferFailedException;
+
+    void disconnect();
+
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.retry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+
+/**
+ * Runs idempotent requests, retrying the ones failing with a transient error according to a {@link RetryPolicy}.
+ * Whether an error is transient is decided by the provider, each attempt is recorded in the transfer metrics.
+ * <p>
+ * A retry is only made if it can start before the deadline of the policy, counted from the start of the first
+ * attempt. The error of the last attempt is thrown as is.
+ * <p>
+ * Asynchronous requests are retried the same way, their backoff is scheduled instead of sleeping on a thread.
+ */
+public class RetryExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(RetryExecutor.class.getName());
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cloud-storage-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RetryPolicy retryPolicy;
+    private final Predicate<Throwable> transientErrors;
+    private final TransferMetrics transferMetrics;
+    private final Sleeper sleeper;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param retryPolicy     the attempts, backoff and deadline of the requests
+     * @param transientErrors whether an error is worth retrying
+     * @param transferMetrics records the attempts, may be null
+     */
+    public RetryExecutor(RetryPolicy retryPolicy, Predicate<Throwable> transientErrors, TransferMetrics transferMetrics) {
+        this(retryPolicy, transientErrors, transferMetrics, Thread::sleep, System::nanoTime);
+    }
+
+    RetryExecutor(RetryPolicy retryPolicy, Predicate<Throwable> transientErrors, TransferMetrics transferMetrics, Sleeper sleeper, LongSupplier nanoClock) {
+        this.retryPolicy = retryPolicy;
+        this.transientErrors = transientErrors;
+        this.transferMetrics = transferMetrics;
+        this.sleeper = sleeper;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return an executor trying every request once
+     */
+    public static RetryExecutor noRetries() {
+        return new RetryExecutor(RetryPolicy.NONE, e -> false, null);
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param operation the operation the attempts are recorded for
+     * @param call      the idempotent request
+     * @return the result of the first successful attempt
+     * @throws E the error of the last attempt
+     */
+    public <T, E extends Exception> T execute(Operation operation, RetryableCall<T, E> call) throws E {
+        long start = nanoClock.getAsLong();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = call.call();
+                recordAttempt(operation, attempt, true);
+                return result;
+            } catch (Exception e) {
+                recordAttempt(operation, attempt, false);
+
+                long backoffMillis = backoffMillis(operation, attempt, start, e);
+                if (backoffMillis < 0) {
+                    throw e;
+                }
+
+                try {
+                    sleeper.sleep(backoffMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interruptedException);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param operation the operation the attempts are recorded for
+     * @param call      starts the idempotent request, called again for every attempt
+     * @return completes with the result of the first successful attempt, or with the error of the last attempt
+     */
+    public <T> CompletableFuture<T> executeAsync(Operation operation, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(operation, call, 1, nanoClock.getAsLong(), result);
+        return result;
+    }
+
+    private <T> void attemptAsync(Operation operation, Supplier<CompletableFuture<T>> call, int attempt, long start, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                recordAttempt(operation, attempt, true);
+                result.complete(value);
+                return;
+            }
+
+            recordAttempt(operation, attempt, false);
+            Throwable cause = unwrap(error);
+            long backoffMillis = backoffMillis(operation, attempt, start, cause);
+            if (backoffMillis < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            SCHEDULER.schedule(() -> attemptAsync(operation, call, attempt + 1, start, result), backoffMillis, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * @return the backoff before the next attempt, negative if the failed attempt is not retried
+     */
+    private long backoffMillis(Operation operation, int attempt, long start, Throwable e) {
+        if (attempt >= retryPolicy.getMaxAttempts() || !transientErrors.test(e)) {
+            return -1;
+        }
+
+        long backoffMillis = retryPolicy.backoffMillis(attempt - 1);
+        long elapsed = nanoClock.getAsLong() - start;
+        long deadlineNanos = TimeUnit.MILLISECONDS.toNanos(retryPolicy.getDeadlineMillis());
+        if (deadlineNanos > 0 && elapsed + TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadlineNanos) {
+            LOGGER.log(Level.FINE, String.format("Not retrying the %s request, its deadline would be exceeded", operation.getName()), e);
+            return -1;
+        }
+
+        LOGGER.log(Level.FINE, String.format("Attempt %d of the %s request failed with a transient error, retrying in %d ms", attempt, operation.getName(), backoffMillis), e);
+        return backoffMillis;
+    }
+
+    private void recordAttempt(Operation operation, int attempt, boolean succeeded) {
+        if (transferMetrics != null) {
+            transferMetrics.get(operation).recordAttempt(attempt > 1, succeeded);
+        }
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+
+        void sleep(long millis) throws InterruptedException;
+
+    }
+
+}
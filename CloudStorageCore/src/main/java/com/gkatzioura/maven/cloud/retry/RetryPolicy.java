@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How often and for how long failed requests are retried. The delay before retry {@code n} is drawn uniformly
+ * between zero and {@code min(maxDelay, baseDelay * 2^n)}, the full jitter variant of exponential backoff, which
+ * spreads the retries of concurrent clients instead of synchronizing them.
+ */
+public class RetryPolicy {
+
+    /**
+     * Tries every request once
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long deadlineMillis;
+
+    /**
+     * @param maxAttempts     the maximum number of attempts of a request, including the first one
+     * @param baseDelayMillis the upper bound of the delay before the first retry
+     * @param maxDelayMillis  the upper bound of the delay before any retry
+     * @param deadlineMillis  the time after the first attempt started past which no retry is made, 0 for no deadline
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long deadlineMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.deadlineMillis = Math.max(0, deadlineMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    /**
+     * @param retry the number of the retry, 0 for the retry following the first attempt
+     * @return the delay in milliseconds before the retry
+     */
+    public long backoffMillis(int retry) {
+        long ceiling = baseDelayMillis << Math.min(retry, 30);
+        if (ceiling < 0 || ceiling > maxDelayMillis) {
+            ceiling = maxDelayMillis;
+        }
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+}
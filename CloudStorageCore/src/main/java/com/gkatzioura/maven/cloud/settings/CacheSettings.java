@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.settings;
+
+import java.io.File;
+
+import com.gkatzioura.maven.cloud.cache.ArtifactCache;
+import com.gkatzioura.maven.cloud.cache.MissingResourceCache;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+
+/**
+ * What is remembered to avoid remote requests: artifacts, metadata, missing resources and environment resolutions.
+ */
+public class CacheSettings {
+
+    private static final long DEFAULT_ARTIFACT_CACHE_MAX_SIZE = 10L * 1024 * 1024 * 1024;
+
+    private String artifactCacheDirectory;
+    private long artifactCacheMaxSize = DEFAULT_ARTIFACT_CACHE_MAX_SIZE;
+    private boolean artifactCacheHardLinks;
+    private volatile ArtifactCache artifactCache;
+
+    private long metadataCacheTtl = 0;
+    private boolean metadataCacheShared;
+
+    private long missingResourceCacheTtl = 0;
+    private boolean missingResourceCacheSnapshots;
+    private String missingResourceCacheFile;
+
+    private boolean resolutionCache = true;
+    private long resolutionCacheTtl = 0;
+    private String resolutionCacheFile;
+
+    public String getArtifactCacheDirectory() {
+        return artifactCacheDirectory;
+    }
+
+    /**
+     * @param artifactCacheDirectory the directory of the artifact cache shared by the builds on this host, no cache is used when unset
+     */
+    public void setArtifactCacheDirectory(String artifactCacheDirectory) {
+        this.artifactCacheDirectory = artifactCacheDirectory;
+        this.artifactCache = null;
+    }
+
+    public long getArtifactCacheMaxSize() {
+        return artifactCacheMaxSize;
+    }
+
+    /**
+     * @param artifactCacheMaxSize the size in bytes the artifact cache is trimmed to, evicting the least recently used entries
+     */
+    public void setArtifactCacheMaxSize(long artifactCacheMaxSize) {
+        this.artifactCacheMaxSize = artifactCacheMaxSize;
+        this.artifactCache = null;
+    }
+
+    public boolean isArtifactCacheHardLinks() {
+        return artifactCacheHardLinks;
+    }
+
+    /**
+     * @param artifactCacheHardLinks whether cached artifacts are hard linked into place instead of being copied
+     */
+    public void setArtifactCacheHardLinks(boolean artifactCacheHardLinks) {
+        this.artifactCacheHardLinks = artifactCacheHardLinks;
+        this.artifactCache = null;
+    }
+
+    public long getMetadataCacheTtl() {
+        return metadataCacheTtl;
+    }
+
+    /**
+     * @param metadataCacheTtl the time in milliseconds the existence, size and version of resources are kept, 0 disables the metadata cache
+     */
+    public void setMetadataCacheTtl(long metadataCacheTtl) {
+        this.metadataCacheTtl = metadataCacheTtl;
+    }
+
+    public boolean isMetadataCacheShared() {
+        return metadataCacheShared;
+    }
+
+    /**
+     * @param metadataCacheShared whether the metadata cache is shared by every wagon of the JVM instead of a single session
+     */
+    public void setMetadataCacheShared(boolean metadataCacheShared) {
+        this.metadataCacheShared = metadataCacheShared;
+    }
+
+    public long getMissingResourceCacheTtl() {
+        return missingResourceCacheTtl;
+    }
+
+    /**
+     * @param missingResourceCacheTtl the time in milliseconds a missing resource is remembered across builds, 0 disables the missing resource cache
+     */
+    public void setMissingResourceCacheTtl(long missingResourceCacheTtl) {
+        this.missingResourceCacheTtl = missingResourceCacheTtl;
+    }
+
+    public boolean isMissingResourceCacheSnapshots() {
+        return missingResourceCacheSnapshots;
+    }
+
+    /**
+     * @param missingResourceCacheSnapshots whether missing snapshots and repository metadata files are remembered as well
+     */
+    public void setMissingResourceCacheSnapshots(boolean missingResourceCacheSnapshots) {
+        this.missingResourceCacheSnapshots = missingResourceCacheSnapshots;
+    }
+
+    public String getMissingResourceCacheFile() {
+        return missingResourceCacheFile;
+    }
+
+    /**
+     * @param missingResourceCacheFile the file keeping the missing resources, defaults to a file under the local repository
+     */
+    public void setMissingResourceCacheFile(String missingResourceCacheFile) {
+        this.missingResourceCacheFile = missingResourceCacheFile;
+    }
+
+    public boolean isResolutionCache() {
+        return resolutionCache;
+    }
+
+    /**
+     * @param resolutionCache whether the region of the host, the provider of the default credentials and the default
+     *                        project are resolved once per JVM instead of on every connect
+     */
+    public void setResolutionCache(boolean resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    public long getResolutionCacheTtl() {
+        return resolutionCacheTtl;
+    }
+
+    /**
+     * @param resolutionCacheTtl the time in milliseconds the resolutions are persisted for the next builds, 0 to keep them in the JVM only
+     */
+    public void setResolutionCacheTtl(long resolutionCacheTtl) {
+        this.resolutionCacheTtl = resolutionCacheTtl;
+    }
+
+    public String getResolutionCacheFile() {
+        return resolutionCacheFile;
+    }
+
+    /**
+     * @param resolutionCacheFile the file persisting the resolutions, defaults to a file under the local repository
+     */
+    public void setResolutionCacheFile(String resolutionCacheFile) {
+        this.resolutionCacheFile = resolutionCacheFile;
+    }
+
+    public boolean isArtifactCacheEnabled() {
+        return artifactCacheDirectory != null && !artifactCacheDirectory.isEmpty();
+    }
+
+    /**
+     * @return the artifact cache in the configured directory, created once
+     */
+    public ArtifactCache artifactCache() {
+        ArtifactCache cache = artifactCache;
+        if (cache == null) {
+            cache = new ArtifactCache(new File(artifactCacheDirectory), artifactCacheMaxSize, artifactCacheHardLinks);
+            artifactCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * @return the missing resources of a new session, null unless a ttl is configured
+     */
+    public MissingResourceCache createMissingResourceCache() {
+        if (missingResourceCacheTtl <= 0) {
+            return null;
+        }
+
+        File file = missingResourceCacheFile == null || missingResourceCacheFile.isEmpty()
+                ? MissingResourceCache.defaultFile()
+                : new File(missingResourceCacheFile);
+        return new MissingResourceCache(file, missingResourceCacheTtl, missingResourceCacheSnapshots);
+    }
+
+    /**
+     * @param missingResourceCache the missing resources of the session, null if they are not remembered
+     * @return the metadata cache for a new session, according to the configured ttl and scope
+     */
+    public MetadataCache createMetadataCache(MissingResourceCache missingResourceCache) {
+        return metadataCacheShared
+                ? MetadataCache.jvmWide(metadataCacheTtl, missingResourceCache)
+                : new MetadataCache(metadataCacheTtl, missingResourceCache);
+    }
+
+    /**
+     * @return the cache of the environment resolutions of a new session, shared by the JVM unless disabled
+     */
+    public ResolutionCache createResolutionCache() {
+        if (!resolutionCache) {
+            return ResolutionCache.disabled();
+        }
+
+        File file = resolutionCacheFile == null || resolutionCacheFile.isEmpty()
+                ? ResolutionCache.defaultFile()
+                : new File(resolutionCacheFile);
+        return ResolutionCache.jvmWide(file, resolutionCacheTtl);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.settings;
+
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+
+/**
+ * How the clients of the providers are created, shared and warmed up.
+ */
+public class ClientSettings {
+
+    private static final long DEFAULT_CLIENT_IDLE_TIMEOUT = 60_000;
+
+    private boolean sharedClients = true;
+    private long clientIdleTimeout = DEFAULT_CLIENT_IDLE_TIMEOUT;
+    private boolean lazyConnect;
+    private int prewarmConnections;
+
+    public boolean isSharedClients() {
+        return sharedClients;
+    }
+
+    /**
+     * @param sharedClients whether the wagons of the JVM connecting with the same credentials and settings share
+     *                      their client, instead of creating one per module
+     */
+    public void setSharedClients(boolean sharedClients) {
+        this.sharedClients = sharedClients;
+    }
+
+    public long getClientIdleTimeout() {
+        return clientIdleTimeout;
+    }
+
+    /**
+     * @param clientIdleTimeout the time in milliseconds a shared client no longer used is kept for the next wagon
+     */
+    public void setClientIdleTimeout(long clientIdleTimeout) {
+        this.clientIdleTimeout = clientIdleTimeout;
+    }
+
+    public boolean isLazyConnect() {
+        return lazyConnect;
+    }
+
+    /**
+     * @param lazyConnect whether connect returns at once, the client being created and validated in the background,
+     *                    with any failure reported by the first request
+     */
+    public void setLazyConnect(boolean lazyConnect) {
+        this.lazyConnect = lazyConnect;
+    }
+
+    public int getPrewarmConnections() {
+        return prewarmConnections;
+    }
+
+    /**
+     * @param prewarmConnections the number of connections opened in the background when a new client connects
+     */
+    public void setPrewarmConnections(int prewarmConnections) {
+        this.prewarmConnections = prewarmConnections;
+    }
+
+    /**
+     * @return the pool of the clients of a new session, creating a client per session unless clients are shared
+     */
+    public ClientPool createClientPool() {
+        return sharedClients ? ClientPool.shared(clientIdleTimeout) : ClientPool.disabled();
+    }
+
+    /**
+     * @return the prewarmer of the connections of a new client, disabled unless a number of connections is configured
+     */
+    public ConnectionPrewarmer createConnectionPrewarmer() {
+        return new ConnectionPrewarmer(prewarmConnections);
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.settings;
+
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.hedging.HedgingPolicy;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+
+/**
+ * How failed requests are retried and slow requests duplicated.
+ */
+public class RequestSettings {
+
+    private static final int DEFAULT_RETRY_ATTEMPTS = 4;
+    private static final long DEFAULT_RETRY_BASE_DELAY = 100;
+    private static final long DEFAULT_RETRY_MAX_DELAY = 20_000;
+    private static final int DEFAULT_HEDGING_PERCENTILE = 95;
+    private static final long DEFAULT_HEDGING_MIN_DELAY = 10;
+    private static final int DEFAULT_HEDGING_BUDGET = 5;
+
+    private int retryAttempts = DEFAULT_RETRY_ATTEMPTS;
+    private long retryBaseDelay = DEFAULT_RETRY_BASE_DELAY;
+    private long retryMaxDelay = DEFAULT_RETRY_MAX_DELAY;
+    private long retryDeadline = 0;
+
+    private boolean hedging;
+    private int hedgingPercentile = DEFAULT_HEDGING_PERCENTILE;
+    private long hedgingMinDelay = DEFAULT_HEDGING_MIN_DELAY;
+    private int hedgingBudget = DEFAULT_HEDGING_BUDGET;
+    private long hedgingMaxSize = HedgingPolicy.DEFAULT_MAX_OBJECT_SIZE;
+
+    public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    /**
+     * @param retryAttempts the maximum number of attempts of an idempotent request failing with a transient error, 1 disables retries
+     */
+    public void setRetryAttempts(int retryAttempts) {
+        this.retryAttempts = retryAttempts;
+    }
+
+    public long getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    /**
+     * @param retryBaseDelay the upper bound in milliseconds of the randomized delay before the first retry, doubled for every further retry
+     */
+    public void setRetryBaseDelay(long retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+    }
+
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    /**
+     * @param retryMaxDelay the upper bound in milliseconds of the randomized delay before any retry
+     */
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    public long getRetryDeadline() {
+        return retryDeadline;
+    }
+
+    /**
+     * @param retryDeadline the time in milliseconds after the first attempt past which a request is not retried, 0 for no deadline
+     */
+    public void setRetryDeadline(long retryDeadline) {
+        this.retryDeadline = retryDeadline;
+    }
+
+    public boolean isHedging() {
+        return hedging;
+    }
+
+    /**
+     * @param hedging whether slow lookups and downloads of small files are duplicated
+     */
+    public void setHedging(boolean hedging) {
+        this.hedging = hedging;
+    }
+
+    public int getHedgingPercentile() {
+        return hedgingPercentile;
+    }
+
+    /**
+     * @param hedgingPercentile the latency percentile after which a request is duplicated
+     */
+    public void setHedgingPercentile(int hedgingPercentile) {
+        this.hedgingPercentile = hedgingPercentile;
+    }
+
+    public long getHedgingMinDelay() {
+        return hedgingMinDelay;
+    }
+
+    /**
+     * @param hedgingMinDelay the minimum time in milliseconds a request is outstanding before it is duplicated
+     */
+    public void setHedgingMinDelay(long hedgingMinDelay) {
+        this.hedgingMinDelay = hedgingMinDelay;
+    }
+
+    public int getHedgingBudget() {
+        return hedgingBudget;
+    }
+
+    /**
+     * @param hedgingBudget the maximum number of duplicated requests, as a percentage of the requests
+     */
+    public void setHedgingBudget(int hedgingBudget) {
+        this.hedgingBudget = hedgingBudget;
+    }
+
+    public long getHedgingMaxSize() {
+        return hedgingMaxSize;
+    }
+
+    /**
+     * @param hedgingMaxSize the size in bytes of the largest object whose download is duplicated, and buffered in memory
+     */
+    public void setHedgingMaxSize(long hedgingMaxSize) {
+        this.hedgingMaxSize = hedgingMaxSize;
+    }
+
+    /**
+     * Requests have no deadline unless one is configured. The deadline covers the whole request, so it cannot be
+     * derived from the timeouts: a large transfer failing after running longer than them would never be retried.
+     * A stalled attempt is already ended by the connection and read timeouts of the wagon, which bounds the time
+     * spent retrying it by the number of attempts.
+     *
+     * @return the retry policy of the requests
+     */
+    public RetryPolicy createRetryPolicy() {
+        return new RetryPolicy(retryAttempts, retryBaseDelay, retryMaxDelay, retryDeadline);
+    }
+
+    /**
+     * @param transferMetrics the metrics the latencies are taken from and the duplicated requests recorded in
+     * @return the executor duplicating the slow requests of a new session, disabled unless hedging is configured
+     */
+    public HedgedExecutor createHedgedExecutor(TransferMetrics transferMetrics) {
+        if (!hedging) {
+            return HedgedExecutor.disabled();
+        }
+        return new HedgedExecutor(new HedgingPolicy(hedgingPercentile, hedgingMinDelay, hedgingBudget, hedgingMaxSize), transferMetrics);
+    }
+
+}
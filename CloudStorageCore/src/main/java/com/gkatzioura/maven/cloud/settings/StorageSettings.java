@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.settings;
+
+import java.util.function.Predicate;
+
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+
+/**
+ * The settings a wagon connects a storage repository with, for a single session: the configured settings of the
+ * wagon, its timeouts and metrics, and the metadata cache of the session.
+ */
+public class StorageSettings {
+
+    private final ClientSettings clientSettings;
+    private final CacheSettings cacheSettings;
+    private final RequestSettings requestSettings;
+    private final TransferSettings transferSettings;
+    private final MetadataCache metadataCache;
+    private final int connectionTimeout;
+    private final int readTimeout;
+    private final TransferMetrics transferMetrics;
+
+    /**
+     * @param metadataCache     the metadata cache of the session
+     * @param connectionTimeout the connection timeout of the wagon in milliseconds
+     * @param readTimeout       the read timeout of the wagon in milliseconds
+     * @param transferMetrics   the metrics the requests of the session are recorded in
+     */
+    public StorageSettings(ClientSettings clientSettings, CacheSettings cacheSettings, RequestSettings requestSettings, TransferSettings transferSettings,
+                           MetadataCache metadataCache, int connectionTimeout, int readTimeout, TransferMetrics transferMetrics) {
+        this.clientSettings = clientSettings;
+        this.cacheSettings = cacheSettings;
+        this.requestSettings = requestSettings;
+        this.transferSettings = transferSettings;
+        this.metadataCache = metadataCache;
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+        this.transferMetrics = transferMetrics;
+    }
+
+    public MetadataCache getMetadataCache() {
+        return metadataCache;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    public boolean isVerifyDownloads() {
+        return transferSettings.isVerifyDownloads();
+    }
+
+    public boolean isLazyConnect() {
+        return clientSettings.isLazyConnect();
+    }
+
+    /**
+     * @param transientErrors whether a provider error is worth retrying
+     * @return the executor of the idempotent requests, recording its attempts in the metrics of the wagon
+     */
+    public RetryExecutor createRetryExecutor(Predicate<Throwable> transientErrors) {
+        return new RetryExecutor(requestSettings.createRetryPolicy(), transientErrors, transferMetrics);
+    }
+
+    public HedgedExecutor createHedgedExecutor() {
+        return requestSettings.createHedgedExecutor(transferMetrics);
+    }
+
+    public RangedDownloader createRangedDownloader() {
+        return transferSettings.createRangedDownloader();
+    }
+
+    public ResumableTransfers createResumableTransfers() {
+        return transferSettings.createResumableTransfers();
+    }
+
+    public ClientPool createClientPool() {
+        return clientSettings.createClientPool();
+    }
+
+    public ConnectionPrewarmer createConnectionPrewarmer() {
+        return clientSettings.createConnectionPrewarmer();
+    }
+
+    public ResolutionCache createResolutionCache() {
+        return cacheSettings.createResolutionCache();
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.settings;
+
+import java.io.File;
+
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutor;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+
+/**
+ * How files are transferred: concurrently, in ranges or resumable parts, verified and reported.
+ */
+public class TransferSettings {
+
+    private static final long DEFAULT_RANGED_DOWNLOAD_PART_SIZE = 16L * 1024 * 1024;
+    private static final int DEFAULT_RANGED_DOWNLOAD_PARALLELISM = 4;
+    private static final long DEFAULT_RESUMABLE_PART_SIZE = 16L * 1024 * 1024;
+
+    private int parallelism = 1;
+    private String transferThreads = TransferExecutors.AUTO;
+    private int progressCoalescingBytes = 0;
+    private long progressCoalescingMillis = 0;
+
+    private long rangedDownloadThreshold = 0;
+    private long rangedDownloadPartSize = DEFAULT_RANGED_DOWNLOAD_PART_SIZE;
+    private int rangedDownloadParallelism = DEFAULT_RANGED_DOWNLOAD_PARALLELISM;
+
+    private boolean resumableTransfers;
+    private long resumablePartSize = DEFAULT_RESUMABLE_PART_SIZE;
+    private String resumableStateDirectory;
+
+    private boolean sha256Sidecars;
+    private boolean verifyDownloads = true;
+    private boolean skipIdenticalUploads;
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism the maximum number of concurrent transfers used by directory uploads, 1 uploads serially
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public String getTransferThreads() {
+        return transferThreads;
+    }
+
+    /**
+     * @param transferThreads the threads the concurrent transfers run on, auto, platform or virtual
+     */
+    public void setTransferThreads(String transferThreads) {
+        this.transferThreads = transferThreads;
+    }
+
+    public int getProgressCoalescingBytes() {
+        return progressCoalescingBytes;
+    }
+
+    /**
+     * @param progressCoalescingBytes the number of bytes gathered before transfer listeners are notified, 0 notifies every chunk
+     */
+    public void setProgressCoalescingBytes(int progressCoalescingBytes) {
+        this.progressCoalescingBytes = progressCoalescingBytes;
+    }
+
+    public long getProgressCoalescingMillis() {
+        return progressCoalescingMillis;
+    }
+
+    /**
+     * @param progressCoalescingMillis the maximum time between two progress notifications, 0 disables the time granularity
+     */
+    public void setProgressCoalescingMillis(long progressCoalescingMillis) {
+        this.progressCoalescingMillis = progressCoalescingMillis;
+    }
+
+    public long getRangedDownloadThreshold() {
+        return rangedDownloadThreshold;
+    }
+
+    /**
+     * @param rangedDownloadThreshold the size in bytes from which objects are downloaded in concurrent ranges, 0 disables ranged downloads
+     */
+    public void setRangedDownloadThreshold(long rangedDownloadThreshold) {
+        this.rangedDownloadThreshold = rangedDownloadThreshold;
+    }
+
+    public long getRangedDownloadPartSize() {
+        return rangedDownloadPartSize;
+    }
+
+    /**
+     * @param rangedDownloadPartSize the size in bytes of a range
+     */
+    public void setRangedDownloadPartSize(long rangedDownloadPartSize) {
+        this.rangedDownloadPartSize = rangedDownloadPartSize;
+    }
+
+    public int getRangedDownloadParallelism() {
+        return rangedDownloadParallelism;
+    }
+
+    /**
+     * @param rangedDownloadParallelism the number of ranges of an object downloaded concurrently
+     */
+    public void setRangedDownloadParallelism(int rangedDownloadParallelism) {
+        this.rangedDownloadParallelism = rangedDownloadParallelism;
+    }
+
+    public boolean isResumableTransfers() {
+        return resumableTransfers;
+    }
+
+    /**
+     * @param resumableTransfers whether interrupted downloads and uploads are continued by the next transfer
+     */
+    public void setResumableTransfers(boolean resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+    }
+
+    public long getResumablePartSize() {
+        return resumablePartSize;
+    }
+
+    /**
+     * @param resumablePartSize the size in bytes of the parts of a resumable upload
+     */
+    public void setResumablePartSize(long resumablePartSize) {
+        this.resumablePartSize = resumablePartSize;
+    }
+
+    public String getResumableStateDirectory() {
+        return resumableStateDirectory;
+    }
+
+    /**
+     * @param resumableStateDirectory the directory keeping the state of interrupted transfers, defaults to a directory under the local repository
+     */
+    public void setResumableStateDirectory(String resumableStateDirectory) {
+        this.resumableStateDirectory = resumableStateDirectory;
+    }
+
+    public boolean isSha256Sidecars() {
+        return sha256Sidecars;
+    }
+
+    /**
+     * @param sha256Sidecars whether a .sha256 file is uploaded next to every uploaded file, from the digest computed during the upload
+     */
+    public void setSha256Sidecars(boolean sha256Sidecars) {
+        this.sha256Sidecars = sha256Sidecars;
+    }
+
+    public boolean isVerifyDownloads() {
+        return verifyDownloads;
+    }
+
+    /**
+     * @param verifyDownloads whether downloads are compared with the MD5 or CRC32C the provider keeps for the object
+     */
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        this.verifyDownloads = verifyDownloads;
+    }
+
+    public boolean isSkipIdenticalUploads() {
+        return skipIdenticalUploads;
+    }
+
+    /**
+     * @param skipIdenticalUploads whether a file is not uploaded when the repository holds an object with the same
+     *                             checksum, as when a failed release is deployed again
+     */
+    public void setSkipIdenticalUploads(boolean skipIdenticalUploads) {
+        this.skipIdenticalUploads = skipIdenticalUploads;
+    }
+
+    /**
+     * @return the executor of the concurrent transfers, on virtual threads when configured or automatic and the JDK supports them
+     */
+    public TransferExecutor createTransferExecutor() {
+        return TransferExecutors.select(transferThreads);
+    }
+
+    /**
+     * @return the downloader of the large objects of a new session, disabled unless a threshold is configured
+     */
+    public RangedDownloader createRangedDownloader() {
+        return new RangedDownloader(rangedDownloadThreshold, rangedDownloadPartSize, rangedDownloadParallelism, createTransferExecutor());
+    }
+
+    /**
+     * @return the state of the interrupted transfers, disabled unless resumable transfers are configured
+     */
+    public ResumableTransfers createResumableTransfers() {
+        if (!resumableTransfers) {
+            return ResumableTransfers.disabled();
+        }
+
+        File directory = resumableStateDirectory == null || resumableStateDirectory.isEmpty()
+                ? ResumableTransfers.defaultDirectory()
+                : new File(resumableStateDirectory);
+        return new ResumableTransfers(directory, resumablePartSize);
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+
+/**
+ * The content of a small object read into memory, along with its metadata
+ */
+public class BufferedObject {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final byte[] content;
+    private final ResourceMetadata resourceMetadata;
+    private ContentDigests contentDigests;
+
+    public BufferedObject(byte[] content, ResourceMetadata resourceMetadata) {
+        this.content = content;
+        this.resourceMetadata = resourceMetadata;
+    }
+
+    /**
+     * Reads the content of an object into memory, refusing an object larger than the given size
+     *
+     * @param maxSize the size in bytes of the largest content read
+     * @throws IOException if the content could not be read or is larger than the given size
+     */
+    public static byte[] readContent(InputStream inputStream, long maxSize) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            if (outputStream.size() + (long) read > maxSize) {
+                throw new IOException(String.format("The object is larger than the %d bytes buffered in memory", maxSize));
+            }
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public ResourceMetadata getResourceMetadata() {
+        return resourceMetadata;
+    }
+
+    /**
+     * Compares the content with the checksum the provider keeps for the object
+     *
+     * @return this object, whose metadata carries the digests of the content if it was verified
+     * @throws DigestMismatchException if the content does not match the checksum
+     */
+    public BufferedObject verify(ExpectedDigest expectedDigest) throws DigestMismatchException {
+        if (!expectedDigest.isPresent()) {
+            return this;
+        }
+
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(content, 0, content.length);
+        ContentDigests digests = multiDigest.finish();
+        expectedDigest.verify(digests);
+        contentDigests = digests;
+        return this;
+    }
+
+    /**
+     * Writes the content to the destination, reporting it to the transfer progress
+     *
+     * @return the metadata of the object, with the digests of the content if it was verified
+     */
+    public ResourceMetadata writeTo(File destination, TransferProgress transferProgress) throws IOException {
+        File parent = destination.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress)) {
+            outputStream.write(content);
+        }
+        return contentDigests == null ? resourceMetadata : resourceMetadata.withContentDigests(contentDigests);
+    }
+
+}
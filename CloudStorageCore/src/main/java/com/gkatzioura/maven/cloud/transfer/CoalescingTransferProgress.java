@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import org.apache.maven.wagon.resource.Resource;
+
+import com.gkatzioura.maven.cloud.listener.TransferListenerContainer;
+
+/**
+ * A {@link TransferProgress} that gathers the transferred bytes and notifies the listeners once {@code bufferSize}
+ * bytes have been gathered, or once {@code intervalMillis} have passed since the previous notification.
+ * The bytes are delivered unchanged, only in fewer and bigger chunks.
+ */
+public class CoalescingTransferProgress implements TransferProgress {
+
+    private final Resource resource;
+    private final int requestType;
+    private final TransferListenerContainer listenerContainer;
+    private final long intervalNanos;
+
+    private final byte[] pending;
+    private int pendingLength;
+    private long lastNotification;
+
+    public CoalescingTransferProgress(Resource resource, int requestType, TransferListenerContainer listenerContainer, int bufferSize, long intervalMillis) {
+        this.resource = resource;
+        this.requestType = requestType;
+        this.listenerContainer = listenerContainer;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.pending = new byte[bufferSize];
+        this.lastNotification = System.nanoTime();
+    }
+
+    @Override
+    public void progress(byte[] buffer, int offset, int length) {
+        while (length > 0) {
+            int copied = Math.min(length, pending.length - pendingLength);
+            System.arraycopy(buffer, offset, pending, pendingLength, copied);
+            pendingLength += copied;
+            offset += copied;
+            length -= copied;
+
+            if (pendingLength == pending.length) {
+                flush();
+            }
+        }
+
+        if (intervalNanos > 0 && System.nanoTime() - lastNotification >= intervalNanos) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (pendingLength == 0) {
+            return;
+        }
+
+        listenerContainer.fireTransferProgress(resource, requestType, pending, pendingLength);
+        pendingLength = 0;
+        lastNotification = System.nanoTime();
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * The digests of a transferred content, in the encodings the providers and checksum files use
+ */
+public class ContentDigests {
+
+    private final long length;
+    private final byte[] md5;
+    private final byte[] sha1;
+    private final byte[] sha256;
+    private final long crc32c;
+
+    public ContentDigests(long length, byte[] md5, byte[] sha1, byte[] sha256, long crc32c) {
+        this.length = length;
+        this.md5 = md5;
+        this.sha1 = sha1;
+        this.sha256 = sha256;
+        this.crc32c = crc32c;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public byte[] getMd5() {
+        return md5.clone();
+    }
+
+    public String getMd5Hex() {
+        return Hashing.hex(md5);
+    }
+
+    /**
+     * @return the MD5 as sent in Content-MD5 headers
+     */
+    public String getMd5Base64() {
+        return Base64.getEncoder().encodeToString(md5);
+    }
+
+    public String getSha1Hex() {
+        return Hashing.hex(sha1);
+    }
+
+    public String getSha256Hex() {
+        return Hashing.hex(sha256);
+    }
+
+    public long getCrc32c() {
+        return crc32c;
+    }
+
+    /**
+     * @return the CRC32C as the big endian base64 Google Cloud Storage reports
+     */
+    public String getCrc32cBase64() {
+        byte[] bytes = {(byte) (crc32c >>> 24), (byte) (crc32c >>> 16), (byte) (crc32c >>> 8), (byte) crc32c};
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * @return whether the MD5 matches the given one, false if it is null
+     */
+    public boolean md5Matches(byte[] otherMd5) {
+        return otherMd5 != null && Arrays.equals(md5, otherMd5);
+    }
+
+}
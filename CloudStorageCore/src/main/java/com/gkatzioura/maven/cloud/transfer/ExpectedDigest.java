@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+
+/**
+ * The checksum a provider keeps for an object, which the downloaded content is compared with: the CRC32C or the MD5
+ * of the whole object. The CRC32C is preferred when both are known, the runtime computes it with a hardware
+ * instruction where available.
+ */
+public final class ExpectedDigest {
+
+    public static final ExpectedDigest NONE = new ExpectedDigest(null, null);
+
+    private static final Pattern MD5_HEX = Pattern.compile("[0-9a-fA-F]{32}");
+
+    private final byte[] md5;
+    private final Long crc32c;
+
+    private ExpectedDigest(byte[] md5, Long crc32c) {
+        this.md5 = md5;
+        this.crc32c = crc32c;
+    }
+
+    /**
+     * @param md5 the MD5 of the object, may be null
+     */
+    public static ExpectedDigest md5(byte[] md5) {
+        return md5 == null || md5.length != 16 ? NONE : new ExpectedDigest(md5.clone(), null);
+    }
+
+    /**
+     * @param eTag an ETag holding the hex MD5 of the object, quoted or not. ETags in any other form, such as the ones
+     *             of multipart uploads, give no expected digest
+     */
+    public static ExpectedDigest md5Hex(String eTag) {
+        if (eTag == null) {
+            return NONE;
+        }
+
+        String hex = eTag.replace("\"", "");
+        if (!MD5_HEX.matcher(hex).matches()) {
+            return NONE;
+        }
+
+        byte[] md5 = new byte[16];
+        for (int i = 0; i < md5.length; i++) {
+            md5[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return new ExpectedDigest(md5, null);
+    }
+
+    /**
+     * @param crc32c the CRC32C of the object as the big endian base64 Google Cloud Storage reports, may be null
+     * @param md5    the base64 MD5 of the object, used if there is no CRC32C, may be null
+     */
+    public static ExpectedDigest base64(String crc32c, String md5) {
+        if (crc32c != null) {
+            byte[] bytes = Base64.getDecoder().decode(crc32c);
+            if (bytes.length == 4) {
+                return new ExpectedDigest(null, ((bytes[0] & 0xFFL) << 24) | ((bytes[1] & 0xFFL) << 16) | ((bytes[2] & 0xFFL) << 8) | (bytes[3] & 0xFFL));
+            }
+        }
+        return md5 == null ? NONE : md5(Base64.getDecoder().decode(md5));
+    }
+
+    /**
+     * @return whether there is a checksum to compare with
+     */
+    public boolean isPresent() {
+        return md5 != null || crc32c != null;
+    }
+
+    /**
+     * @return whether the content has the checksum, false if there is no checksum
+     */
+    public boolean matches(ContentDigests contentDigests) {
+        if (crc32c != null) {
+            return crc32c == contentDigests.getCrc32c();
+        }
+        return contentDigests.md5Matches(md5);
+    }
+
+    /**
+     * @param contentDigests the digests of the downloaded content
+     * @throws DigestMismatchException if the content does not match the checksum
+     */
+    public void verify(ContentDigests contentDigests) throws DigestMismatchException {
+        if (crc32c != null && crc32c != contentDigests.getCrc32c()) {
+            throw new DigestMismatchException(String.format("The CRC32C %08x of the downloaded content does not match the CRC32C %08x of the object", contentDigests.getCrc32c(), crc32c));
+        }
+        if (crc32c == null && md5 != null && !contentDigests.md5Matches(md5)) {
+            throw new DigestMismatchException(String.format("The MD5 %s of the downloaded content does not match the MD5 %s of the object", contentDigests.getMd5Hex(), Hashing.hex(md5)));
+        }
+    }
+
+    /**
+     * @return a digest to compute while downloading the object, null if there is no checksum to compare with
+     */
+    public MultiDigest newMultiDigest() {
+        return isPresent() ? new MultiDigest() : null;
+    }
+
+    /**
+     * @param resourceMetadata the metadata of the downloaded object
+     * @param multiDigest      the digest computed while downloading, null if the download was not verified
+     * @return the metadata along with the verified digests
+     * @throws DigestMismatchException if the content does not match the checksum
+     */
+    public ResourceMetadata verify(ResourceMetadata resourceMetadata, MultiDigest multiDigest) throws DigestMismatchException {
+        if (multiDigest == null) {
+            return resourceMetadata;
+        }
+
+        ContentDigests contentDigests = multiDigest.finish();
+        verify(contentDigests);
+        return resourceMetadata.withContentDigests(contentDigests);
+    }
+
+    /**
+     * Verifies the content written to the file like {@link #verify(ResourceMetadata, MultiDigest)}, deleting the
+     * file on a mismatch
+     */
+    public ResourceMetadata verify(ResourceMetadata resourceMetadata, MultiDigest multiDigest, File file) throws DigestMismatchException {
+        try {
+            return verify(resourceMetadata, multiDigest);
+        } catch (DigestMismatchException e) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException deleteException) {
+                e.addSuppressed(deleteException);
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Checksum;
+
+/**
+ * Computes the MD5, SHA-1, SHA-256 and CRC32C of a content in a single pass, as the bytes are read for the transfer.
+ * CRC32C uses the intrinsic java.util.zip.CRC32C when the runtime has it, and a table based implementation
+ * otherwise.
+ */
+public class MultiDigest {
+
+    private static final Logger LOGGER = Logger.getLogger(MultiDigest.class.getName());
+
+    private static final String CRC32C_CLASS = "java.util.zip.CRC32C";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MessageDigest md5 = messageDigest("MD5");
+    private final MessageDigest sha1 = messageDigest("SHA-1");
+    private final MessageDigest sha256 = messageDigest("SHA-256");
+    private final Checksum crc32c = crc32c();
+
+    private long length;
+
+    public void update(byte[] buffer, int offset, int count) {
+        md5.update(buffer, offset, count);
+        sha1.update(buffer, offset, count);
+        sha256.update(buffer, offset, count);
+        crc32c.update(buffer, offset, count);
+        length += count;
+    }
+
+    /**
+     * Starts over, once the content is read again from the start
+     */
+    public void reset() {
+        md5.reset();
+        sha1.reset();
+        sha256.reset();
+        crc32c.reset();
+        length = 0;
+    }
+
+    /**
+     * @return the digests of the content read since the last reset, the digest is reset afterwards
+     */
+    public ContentDigests finish() {
+        ContentDigests contentDigests = new ContentDigests(length, md5.digest(), sha1.digest(), sha256.digest(), crc32c.getValue());
+        reset();
+        return contentDigests;
+    }
+
+    /**
+     * @return the digests of the content of the file
+     */
+    public static ContentDigests digest(File file) throws IOException {
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(file);
+        return multiDigest.finish();
+    }
+
+    /**
+     * Updates the digest with the content of the file, for a content written out of order
+     */
+    public void update(File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static MessageDigest messageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        }
+    }
+
+    private static Checksum crc32c() {
+        try {
+            return (Checksum) Class.forName(CRC32C_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(Level.FINEST, "java.util.zip.CRC32C is not available, using the table based implementation", e);
+            return new Crc32c();
+        }
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The content of an object downloaded so far, kept in a part file next to a sidecar recording the version (ETag or
+ * generation) of the object. A later download of the same version continues from the end of the part file, a
+ * download of another version starts over.
+ * <p>
+ * The transfer progress receives every byte of the object once: the bytes of the part file when it is resumed for
+ * the first time, then only the bytes past the ones already reported, also when the download is resumed again
+ * after a retry.
+ * <p>
+ * A resumable partial download holds a file lock next to the part file until it is closed, so that two builds on
+ * the same host never write the same part file. A download that finds the part file locked writes to a part file of
+ * its own instead, which is never resumed and is deleted on close.
+ */
+public class PartialDownload implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(PartialDownload.class.getName());
+
+    private static final String VERSION = "version";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path part;
+    private final Path sidecar;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private long reported;
+
+    private PartialDownload(Path part, Path sidecar, FileChannel lockChannel, FileLock lock) {
+        this.part = part;
+        this.sidecar = sidecar;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Locks the part file for the download, falling back to a part file of its own when another download holds it
+     */
+    static PartialDownload open(Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+
+        FileChannel lockChannel = FileChannel.open(directory.resolve(name + ".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock = null;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            LOGGER.log(Level.FINEST, "The part file is locked by another download of this build", e);
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        if (lock != null) {
+            return new PartialDownload(directory.resolve(name + ".part"), directory.resolve(name + ".properties"), lockChannel, lock);
+        }
+
+        lockChannel.close();
+        LOGGER.log(Level.FINER, String.format("The partial download %s is locked by another download, downloading without resuming", name));
+        Path part = Files.createTempFile(directory, name + ".", ".part");
+        return new PartialDownload(part, part.resolveSibling(part.getFileName() + ".properties"), null, null);
+    }
+
+    /**
+     * @return whether the part file is kept for a later download, false when another download holds it
+     */
+    public boolean isResumable() {
+        return lock != null;
+    }
+
+    /**
+     * @return the version of the object the part file holds, null if there is no part file
+     */
+    public String getVersion() {
+        if (!isResumable() || !Files.isRegularFile(part) || !Files.isRegularFile(sidecar)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(sidecar)) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+        return properties.getProperty(VERSION);
+    }
+
+    /**
+     * @return the offset a download of the given version continues from, 0 if the part file holds another version
+     */
+    public long offsetFor(String version) throws IOException {
+        if (version == null || !version.equals(getVersion())) {
+            return 0;
+        }
+        return Files.size(part);
+    }
+
+    /**
+     * Opens the part file for the content of the object from the offset on, the part file is truncated to the
+     * offset and replaced when the offset is 0
+     *
+     * @param version          the version of the object, a part file without a version is never resumed
+     * @param offset           the offset returned by {@link #offsetFor(String)} for the same version
+     * @param transferProgress notified with the bytes written, and with the bytes of the part file not reported yet
+     */
+    public OutputStream open(String version, long offset, TransferProgress transferProgress) throws IOException {
+        return open(version, offset, transferProgress, null);
+    }
+
+    /**
+     * Opens the part file like {@link #open(String, long, TransferProgress)}, computing the digests of the whole
+     * object: the bytes of the part file up to the offset, then the bytes written
+     *
+     * @param multiDigest reset, then updated with the content of the object, may be null
+     */
+    public OutputStream open(String version, long offset, TransferProgress transferProgress, MultiDigest multiDigest) throws IOException {
+        Files.createDirectories(part.getParent());
+
+        if (offset == 0) {
+            Properties properties = new Properties();
+            if (version != null) {
+                properties.setProperty(VERSION, version);
+            }
+            try (OutputStream outputStream = Files.newOutputStream(sidecar)) {
+                properties.store(outputStream, "Version of the object in the part file");
+            }
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(part.toFile(), "rw")) {
+            randomAccessFile.setLength(offset);
+        }
+
+        reportPart(offset, transferProgress);
+        if (multiDigest != null) {
+            digestPart(offset, multiDigest);
+        }
+        return new PartOutputStream(part.toFile(), offset, transferProgress, multiDigest);
+    }
+
+    /**
+     * Moves the completed part file to the destination
+     */
+    public void complete(File destination) throws IOException {
+        Path target = destination.toPath();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(sidecar);
+    }
+
+    /**
+     * Deletes the part file, so that the next download starts over
+     */
+    public void discard() throws IOException {
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(sidecar);
+    }
+
+    /**
+     * Releases the lock of the part file, a part file that is not resumable is deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (!isResumable()) {
+            discard();
+            return;
+        }
+
+        try {
+            lock.release();
+        } finally {
+            lockChannel.close();
+        }
+    }
+
+    private void digestPart(long offset, MultiDigest multiDigest) throws IOException {
+        multiDigest.reset();
+
+        try (InputStream inputStream = Files.newInputStream(part)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            int read;
+            while (position < offset && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, offset - position))) != -1) {
+                multiDigest.update(buffer, 0, read);
+                position += read;
+            }
+        }
+    }
+
+    private void reportPart(long offset, TransferProgress transferProgress) throws IOException {
+        if (reported >= offset) {
+            return;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(part)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long position = 0;
+            int read;
+            while (position < offset && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, offset - position))) != -1) {
+                report(position, buffer, 0, read, transferProgress);
+                position += read;
+            }
+        }
+    }
+
+    private void report(long position, byte[] buffer, int offset, int length, TransferProgress transferProgress) {
+        if (position + length <= reported) {
+            return;
+        }
+
+        int alreadyReported = (int) Math.max(0, reported - position);
+        transferProgress.progress(buffer, offset + alreadyReported, length - alreadyReported);
+        reported = position + length;
+    }
+
+    private final class PartOutputStream extends FileOutputStream {
+
+        private final TransferProgress transferProgress;
+        private final MultiDigest multiDigest;
+        private long position;
+
+        private PartOutputStream(File file, long position, TransferProgress transferProgress, MultiDigest multiDigest) throws IOException {
+            super(file, true);
+            this.position = position;
+            this.transferProgress = transferProgress;
+            this.multiDigest = multiDigest;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            report(position, b, off, len, transferProgress);
+            if (multiDigest != null) {
+                multiDigest.update(b, off, len);
+            }
+            position += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                transferProgress.flush();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutor;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+
+/**
+ * Downloads a large object as byte ranges fetched over concurrent connections. The destination is allocated to the
+ * size of the object up front and every range is written at its position, so the ranges complete in any order.
+ * <p>
+ * Every range is retried on its own. The transfer progress receives each byte exactly once, also when a range is
+ * retried, so the listeners see the exact size of the object; the bytes of different ranges arrive interleaved.
+ * As the ranges are written out of order, the checksum of the object is verified over the assembled file, the same
+ * way as the single stream download verifies it.
+ */
+public class RangedDownloader {
+
+    /**
+     * Reads a range of the object, the provider request is expected to be pinned to the version of the object
+     * whose size was used to split the ranges
+     */
+    public interface RangeReader {
+
+        InputStream open(long offset, long length) throws IOException;
+
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long threshold;
+    private final long partSize;
+    private final int parallelism;
+    private final TransferExecutor transferExecutor;
+
+    /**
+     * @param threshold   the size in bytes from which objects are downloaded in ranges, 0 disables ranged downloads
+     * @param partSize    the size in bytes of a range
+     * @param parallelism the number of ranges downloaded concurrently
+     */
+    public RangedDownloader(long threshold, long partSize, int parallelism) {
+        this(threshold, partSize, parallelism, TransferExecutors.platformThreads());
+    }
+
+    /**
+     * @param transferExecutor the threads the ranges are downloaded on
+     */
+    public RangedDownloader(long threshold, long partSize, int parallelism, TransferExecutor transferExecutor) {
+        this.threshold = threshold;
+        this.partSize = Math.max(1, partSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.transferExecutor = transferExecutor;
+    }
+
+    /**
+     * @return a downloader leaving every object to the single stream download
+     */
+    public static RangedDownloader disabled() {
+        return new RangedDownloader(0, 1, 1);
+    }
+
+    public boolean isEnabled() {
+        return threshold > 0 && parallelism > 1;
+    }
+
+    /**
+     * @return the size in bytes of a range, also the size of the first range a provider opens to learn the size of
+     * the object
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * @return whether an object of this size is downloaded in ranges
+     */
+    public boolean isRanged(long size) {
+        return isEnabled() && size >= threshold && size > partSize;
+    }
+
+    /**
+     * Downloads the object in ranges, then verifies the assembled file against the checksum
+     *
+     * @param resourceMetadata the metadata of the object, whose size splits the ranges
+     * @param expectedDigest   the checksum of the object, {@link ExpectedDigest#NONE} to skip the verification
+     * @return the metadata along with the digests of the file when it was verified
+     * @throws DigestMismatchException if the file does not match the checksum, the file is then deleted
+     */
+    public ResourceMetadata download(RangeReader rangeReader, ResourceMetadata resourceMetadata, ExpectedDigest expectedDigest, File destination, TransferProgress transferProgress, RetryExecutor retryExecutor) throws IOException {
+        download(rangeReader, resourceMetadata.getContentLength(), destination, transferProgress, retryExecutor);
+
+        MultiDigest multiDigest = expectedDigest.newMultiDigest();
+        if (multiDigest != null) {
+            multiDigest.update(destination);
+        }
+        return expectedDigest.verify(resourceMetadata, multiDigest, destination);
+    }
+
+    /**
+     * Downloads the object in ranges, reading the first range from the stream the provider already opened to learn
+     * the size of the object. A retry of the first range opens it again through the range reader.
+     *
+     * @param firstRange the open stream of the first {@link #getPartSize()} bytes, closed by the download
+     */
+    public ResourceMetadata download(InputStream firstRange, RangeReader rangeReader, ResourceMetadata resourceMetadata, ExpectedDigest expectedDigest, File destination, TransferProgress transferProgress, RetryExecutor retryExecutor) throws IOException {
+        AtomicReference<InputStream> opened = new AtomicReference<>(firstRange);
+        RangeReader firstRangeReader = (offset, length) -> {
+            InputStream inputStream = offset == 0 ? opened.getAndSet(null) : null;
+            return inputStream != null ? inputStream : rangeReader.open(offset, length);
+        };
+
+        try {
+            return download(firstRangeReader, resourceMetadata, expectedDigest, destination, transferProgress, retryExecutor);
+        } finally {
+            InputStream unread = opened.getAndSet(null);
+            if (unread != null) {
+                unread.close();
+            }
+        }
+    }
+
+    /**
+     * @param rangeReader      opens the ranges of the object
+     * @param size             the size of the object
+     * @param destination      the file to write, replaced if it exists
+     * @param transferProgress notified with the bytes of every range as they are written
+     * @param retryExecutor    retries the ranges failing with a transient error
+     * @throws IOException if a range could not be downloaded after its retries, the other ranges are then interrupted
+     */
+    public void download(RangeReader rangeReader, long size, File destination, TransferProgress transferProgress, RetryExecutor retryExecutor) throws IOException {
+        int parts = (int) ((size + partSize - 1) / partSize);
+        int workers = Math.min(parallelism, parts);
+        AtomicInteger nextPart = new AtomicInteger();
+        TransferProgress sharedProgress = new SynchronizedTransferProgress(transferProgress);
+
+        File parent = destination.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        ExecutorService executorService = transferExecutor.newExecutor(workers, "cloud-storage-range");
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(destination, "rw")) {
+            randomAccessFile.setLength(size);
+            FileChannel fileChannel = randomAccessFile.getChannel();
+
+            Callable<Void> worker = () -> {
+                int part;
+                while ((part = nextPart.getAndIncrement()) < parts) {
+                    long offset = part * partSize;
+                    downloadRange(rangeReader, fileChannel, offset, Math.min(partSize, size - offset), sharedProgress, retryExecutor);
+                }
+                return null;
+            };
+
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executorService);
+            for (int i = 0; i < workers; i++) {
+                completionService.submit(worker);
+            }
+            for (int i = 0; i < workers; i++) {
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + destination.getAbsolutePath());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Could not download " + destination.getAbsolutePath(), cause);
+        } finally {
+            executorService.shutdownNow();
+            sharedProgress.flush();
+        }
+    }
+
+    private void downloadRange(RangeReader rangeReader, FileChannel fileChannel, long offset, long length, TransferProgress transferProgress, RetryExecutor retryExecutor) throws IOException {
+        long[] reported = {0};
+
+        retryExecutor.execute(Operation.GET, () -> {
+            long position = 0;
+            try (InputStream inputStream = rangeReader.open(offset, length)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while (position < length && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, length - position))) != -1) {
+                    ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
+                    while (byteBuffer.hasRemaining()) {
+                        fileChannel.write(byteBuffer, offset + position + byteBuffer.position());
+                    }
+
+                    if (position + read > reported[0]) {
+                        int alreadyReported = (int) Math.max(0, reported[0] - position);
+                        transferProgress.progress(buffer, alreadyReported, read - alreadyReported);
+                        reported[0] = position + read;
+                    }
+                    position += read;
+                }
+            }
+
+            if (position < length) {
+                throw new EOFException(String.format("Range at %d ended after %d of %d bytes", offset, position, length));
+            }
+            return null;
+        });
+    }
+
+    private static final class SynchronizedTransferProgress implements TransferProgress {
+
+        private final TransferProgress transferProgress;
+
+        private SynchronizedTransferProgress(TransferProgress transferProgress) {
+            this.transferProgress = transferProgress;
+        }
+
+        @Override
+        public synchronized void progress(byte[] buffer, int offset, int length) {
+            transferProgress.progress(buffer, offset, length);
+        }
+
+        @Override
+        public synchronized void flush() {
+            transferProgress.flush();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.gkatzioura.maven.cloud.cache.LocalRepositoryFiles;
+
+/**
+ * Keeps the state of interrupted transfers, so that a later build continues them instead of starting over.
+ * <p>
+ * Downloads are written to a {@link PartialDownload} addressed by the location of the object. Uploads keep the
+ * provider state needed to continue them, such as an S3 multipart upload id, in a properties file addressed by the
+ * location and by the path, size and modification time of the uploaded file, so a changed file is never resumed.
+ * The states are kept by default under the local Maven repository.
+ */
+public class ResumableTransfers {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumableTransfers.class.getName());
+
+    private static final String DEFAULT_DIRECTORY = ".cloud-storage/transfers";
+    private static final String DOWNLOADS_DIRECTORY = "downloads";
+    private static final String UPLOADS_DIRECTORY = "uploads";
+
+    private final Path directory;
+    private final long partSize;
+
+    /**
+     * @param directory the directory keeping the transfer states, null disables resumable transfers
+     * @param partSize  the size in bytes of the parts uploaded separately, files up to this size are uploaded at once
+     */
+    public ResumableTransfers(File directory, long partSize) {
+        this.directory = directory == null ? null : directory.toPath().toAbsolutePath().normalize();
+        this.partSize = partSize;
+    }
+
+    public static ResumableTransfers disabled() {
+        return new ResumableTransfers(null, 0);
+    }
+
+    /**
+     * @return the directory under the local repository, see {@link LocalRepositoryFiles#resolve(String)}
+     */
+    public static File defaultDirectory() {
+        return LocalRepositoryFiles.resolve(DEFAULT_DIRECTORY);
+    }
+
+    public boolean isEnabled() {
+        return directory != null && partSize > 0;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * @return whether the file is large enough to be uploaded in resumable parts
+     */
+    public boolean isResumableUpload(File file) {
+        return isEnabled() && file.length() > partSize;
+    }
+
+    /**
+     * @param location the location of the object, including the repository url
+     * @return the partial download of the object, locked until it is closed
+     */
+    public PartialDownload partialDownload(String location) throws IOException {
+        return PartialDownload.open(directory.resolve(DOWNLOADS_DIRECTORY), Hashing.sha256Hex(location));
+    }
+
+    /**
+     * @return the state saved by an interrupted upload of the file to the location, empty if there is none
+     */
+    public Properties loadUploadState(String location, File file) {
+        try {
+            return LocalRepositoryFiles.load(uploadState(location, file));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read the upload state of %s", location), e);
+            return new Properties();
+        }
+    }
+
+    public void saveUploadState(String location, File file, Properties state) throws IOException {
+        LocalRepositoryFiles.store(uploadState(location, file), state, "Upload of " + file.getAbsolutePath() + " to " + location);
+    }
+
+    public void deleteUploadState(String location, File file) {
+        try {
+            Files.deleteIfExists(uploadState(location, file));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not delete the upload state of %s", location), e);
+        }
+    }
+
+    private Path uploadState(String location, File file) {
+        String key = location + '\n' + file.getAbsolutePath() + '\n' + file.length() + '\n' + file.lastModified();
+        return directory.resolve(UPLOADS_DIRECTORY).resolve(Hashing.sha256Hex(key) + ".properties");
+    }
+
+}
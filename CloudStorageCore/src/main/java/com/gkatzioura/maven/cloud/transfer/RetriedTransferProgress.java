@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+/**
+ * Reports the bytes of a transfer retried from its start once. Every attempt reads the content again through its
+ * own {@link #attempt()}, which only reports the bytes past the ones an earlier attempt reported already, the same
+ * way as a resumed {@link PartialDownload}.
+ */
+public final class RetriedTransferProgress {
+
+    private final TransferProgress transferProgress;
+
+    private long reported;
+
+    public RetriedTransferProgress(TransferProgress transferProgress) {
+        this.transferProgress = transferProgress;
+    }
+
+    /**
+     * @return the progress of an attempt reading the content from its start
+     */
+    public TransferProgress attempt() {
+        return new TransferProgress() {
+
+            private long position;
+
+            @Override
+            public void progress(byte[] buffer, int offset, int length) {
+                report(position, buffer, offset, length);
+                position += length;
+            }
+
+            @Override
+            public void flush() {
+                transferProgress.flush();
+            }
+        };
+    }
+
+    private synchronized void report(long position, byte[] buffer, int offset, int length) {
+        if (position + length <= reported) {
+            return;
+        }
+
+        int alreadyReported = (int) Math.max(0, reported - position);
+        transferProgress.progress(buffer, offset + alreadyReported, length - alreadyReported);
+        reported = position + length;
+    }
+
+}
@@ -16,8 +16,27 @@
 
 package com.gkatzioura.maven.cloud.transfer;
 
+/**
+ * Receives the bytes of a transfer as they are read or written. Implementations are handed the caller's buffer,
+ * they must not keep a reference to it or modify it after the call returns.
+ */
 public interface TransferProgress {
 
-    void progress(byte[] buffer, int length);
+    /**
+     * @param buffer the buffer holding the transferred bytes
+     * @param offset the position of the first transferred byte in the buffer
+     * @param length the number of bytes transferred
+     */
+    void progress(byte[] buffer, int offset, int length);
+
+    default void progress(byte[] buffer, int length) {
+        progress(buffer, 0, length);
+    }
+
+    /**
+     * Called once the transfer stream is closed, implementations that hold back bytes must report them here.
+     */
+    default void flush() {
+    }
 
 }
@@ -18,39 +18,37 @@ package com.gkatzioura.maven.cloud.transfer;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
 public final class TransferProgressFileInputStream extends FileInputStream {
 
     private final TransferProgress transferProgress;
-    private long byteLeft;
-
-
-
+    private final MultiDigest multiDigest;
+    private final byte[] singleByte = new byte[1];
 
     public TransferProgressFileInputStream(File file, TransferProgress transferProgress) throws IOException{
-        super(file);
-        this.transferProgress = transferProgress;
-        resetByteLeft();
+        this(file, transferProgress, null);
     }
 
-    private void resetByteLeft() throws IOException {
-        byteLeft = this.getChannel().size();
-    }
-
-    @Override
-    public synchronized void reset() throws IOException {
-        super.reset();
-        resetByteLeft();
+    /**
+     * @param multiDigest reset, then updated with every byte read, may be null
+     */
+    public TransferProgressFileInputStream(File file, TransferProgress transferProgress, MultiDigest multiDigest) throws IOException{
+        super(file);
+        this.transferProgress = transferProgress;
+        this.multiDigest = multiDigest;
+        if (multiDigest != null) {
+            multiDigest.reset();
+        }
     }
 
     @Override
     public int read() throws IOException {
         int b = super.read();
         if(b != -1){
-            this.transferProgress.progress(new byte[]{(byte) b}, 1);
-            byteLeft--;
+            singleByte[0] = (byte) b;
+            this.transferProgress.progress(singleByte, 0, 1);
+            digest(singleByte, 0, 1);
         }//else we try to read but it was the end of the stream so nothing to report
         return b;
     }
@@ -58,11 +56,9 @@ public final class TransferProgressFileInputStream extends FileInputStream {
     @Override
     public int read(byte b[]) throws IOException {
         int count = super.read(b);
-        if (count != -1) {
-            this.transferProgress.progress(b, b.length);
-            byteLeft -= b.length;
-        }else{//end of the stream
-            this.transferProgress.progress(b, Math.toIntExact(byteLeft));
+        if (count > 0) {
+            this.transferProgress.progress(b, 0, count);
+            digest(b, 0, count);
         }
         return count;
     }
@@ -70,25 +66,25 @@ public final class TransferProgressFileInputStream extends FileInputStream {
     @Override
     public int read(byte b[], int off, int len) throws IOException {
         int count = super.read(b, off, len);
-        if (off == 0) {
-            if (count != -1) {
-                this.transferProgress.progress(b, count);
-                byteLeft -= count;
-            }else{//end of the stream
-                this.transferProgress.progress(b, Math.toIntExact(byteLeft));
-            }
-        } else {
-            if (count != -1) {
-                byte[] bytes = new byte[count];
-                System.arraycopy(b, off, bytes, 0, count);
-                this.transferProgress.progress(bytes, len);
-                byteLeft -= count;
-            }else{//end of the stream
-                byte[] bytes = new byte[Math.toIntExact(byteLeft)];
-                System.arraycopy(b, off, bytes, 0, Math.toIntExact(byteLeft));
-                this.transferProgress.progress(b, Math.toIntExact(byteLeft));
-            }
+        if (count > 0) {
+            this.transferProgress.progress(b, off, count);
+            digest(b, off, count);
         }
         return count;
     }
+
+    private void digest(byte[] b, int off, int count) {
+        if (multiDigest != null) {
+            multiDigest.update(b, off, count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            this.transferProgress.flush();
+        }
+    }
 }
@@ -24,33 +24,59 @@ import java.io.IOException;
 public final class TransferProgressFileOutputStream extends FileOutputStream {
 
     private final TransferProgress transferProgress;
+    private final MultiDigest multiDigest;
+    private final byte[] singleByte = new byte[1];
 
     public TransferProgressFileOutputStream(File file, TransferProgress transferProgress) throws FileNotFoundException {
+        this(file, transferProgress, null);
+    }
+
+    /**
+     * @param multiDigest reset, then updated with every byte written, may be null
+     */
+    public TransferProgressFileOutputStream(File file, TransferProgress transferProgress, MultiDigest multiDigest) throws FileNotFoundException {
         super(file);
         this.transferProgress = transferProgress;
+        this.multiDigest = multiDigest;
+        if (multiDigest != null) {
+            multiDigest.reset();
+        }
     }
 
     @Override
     public void write(int b) throws IOException {
         super.write(b);
-        this.transferProgress.progress(new byte[]{(byte) b}, 1);
+        singleByte[0] = (byte) b;
+        this.transferProgress.progress(singleByte, 0, 1);
+        digest(singleByte, 0, 1);
     }
 
     @Override
     public void write(byte b[]) throws IOException {
         super.write(b);
-        this.transferProgress.progress(b, b.length);
+        this.transferProgress.progress(b, 0, b.length);
+        digest(b, 0, b.length);
     }
 
     @Override
     public void write(byte b[], int off, int len) throws IOException {
         super.write(b, off, len);
-        if (off == 0) {
-            this.transferProgress.progress(b, len);
-        } else {
-            byte[] bytes = new byte[len];
-            System.arraycopy(b, off, bytes, 0, len);
-            this.transferProgress.progress(bytes, len);
+        this.transferProgress.progress(b, off, len);
+        digest(b, off, len);
+    }
+
+    private void digest(byte[] b, int off, int len) {
+        if (multiDigest != null) {
+            multiDigest.update(b, off, len);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            this.transferProgress.flush();
         }
     }
 }
@@ -26,13 +26,28 @@ public class TransferProgressImpl implements TransferProgress {
     private final int requestType;
     private final TransferListenerContainer listenerContainer;
 
+    /**
+     * {@link org.apache.maven.wagon.events.TransferListener}s expect the bytes at the start of the buffer,
+     * chunks with an offset are copied here instead of into a fresh array each time.
+     */
+    private byte[] scratchBuffer = new byte[0];
+
     public TransferProgressImpl(Resource resource, int requestType, TransferListenerContainer listenerContainer) {
         this.resource = resource;
         this.requestType = requestType;
         this.listenerContainer = listenerContainer;
     }
 
-    @Override public void progress(byte[] buffer, int length) {
-        listenerContainer.fireTransferProgress(this.resource, this.requestType, buffer, length);
+    @Override public void progress(byte[] buffer, int offset, int length) {
+        if (offset == 0) {
+            listenerContainer.fireTransferProgress(this.resource, this.requestType, buffer, length);
+            return;
+        }
+
+        if (scratchBuffer.length < length) {
+            scratchBuffer = new byte[Math.max(length, buffer.length)];
+        }
+        System.arraycopy(buffer, offset, scratchBuffer, 0, length);
+        listenerContainer.fireTransferProgress(this.resource, this.requestType, scratchBuffer, length);
     }
 }
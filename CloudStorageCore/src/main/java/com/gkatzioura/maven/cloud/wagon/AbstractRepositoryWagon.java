@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.wagon;
+
+import java.io.File;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.resource.Resource;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.OperationSample;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+/**
+ * Implements the transfers of the wagon on top of the {@link StorageRepository} a subclass connects to, firing the
+ * transfer events, recording the metrics and going through the artifact cache the same way for every provider.
+ */
+public abstract class AbstractRepositoryWagon extends AbstractStorageWagon {
+
+    private static final Logger LOGGER = Logger.getLogger(AbstractRepositoryWagon.class.getName());
+
+    /**
+     * @return the repository the wagon is connected to
+     */
+    protected abstract StorageRepository getStorageRepository();
+
+    @Override
+    public void get(String resourceName, File destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+
+        Resource resource = new Resource(resourceName);
+        transferListenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
+        transferListenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, destination);
+
+        final TransferProgress transferProgress = transferListenerContainer.createTransferProgress(resource, TransferEvent.REQUEST_GET);
+
+        try (OperationSample sample = startOperation(Operation.GET)) {
+            ResourceMetadata cached = isArtifactCacheEnabled() ? getStorageRepository().metadata(resourceName) : null;
+            if (!fetchFromArtifactCache(resourceName, cached, destination, transferProgress)) {
+                ResourceMetadata downloaded = getStorageRepository().copy(resourceName, destination, transferProgress);
+                storeInArtifactCache(resourceName, downloaded, destination);
+                downloaded(resourceName, downloaded);
+            }
+            transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
+            sample.succeeded(destination.length());
+        } catch (Exception e) {
+            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean getIfNewer(String resourceName, File destination, long timeStamp) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+
+        try (OperationSample sample = startOperation(Operation.GET_IF_NEWER)) {
+            if(newResourceAvailable(resourceName, timeStamp)) {
+                get(resourceName, destination);
+                sample.succeeded(destination.length());
+                return true;
+            }
+
+            sample.succeeded(0);
+            return false;
+        }
+    }
+
+    /**
+     * Reports the failure of the lookup, the download reports its own failures
+     */
+    private boolean newResourceAvailable(String resourceName, long timeStamp) throws ResourceDoesNotExistException {
+        try {
+            return getStorageRepository().newResourceAvailable(resourceName, timeStamp);
+        } catch (ResourceDoesNotExistException e) {
+            transferListenerContainer.fireTransferError(new Resource(resourceName), TransferEvent.REQUEST_GET, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(File file, String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+
+        Resource resource = new Resource(resourceName);
+
+        LOGGER.log(Level.FINER, String.format("Uploading file %s to %s", file.getAbsolutePath(), resourceName));
+
+        transferListenerContainer.fireTransferInitiated(resource,TransferEvent.REQUEST_PUT);
+        transferListenerContainer.fireTransferStarted(resource,TransferEvent.REQUEST_PUT, file);
+        final TransferProgress transferProgress = transferListenerContainer.createTransferProgress(resource, TransferEvent.REQUEST_PUT);
+
+        final ContentDigests contentDigests;
+        try (OperationSample sample = startOperation(Operation.PUT)) {
+            ContentDigests identical = getTransferSettings().isSkipIdenticalUploads() ? getStorageRepository().identical(file, resourceName) : null;
+            if (identical != null) {
+                LOGGER.log(Level.FINER, String.format("Skipping %s, the repository holds the same content", resourceName));
+                contentDigests = identical;
+                transferListenerContainer.fireTransferSkipped(resource, TransferEvent.REQUEST_PUT);
+                sample.succeeded(0);
+            } else {
+                contentDigests = getStorageRepository().put(file, resourceName, transferProgress);
+                transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
+                sample.succeeded(file.length());
+            }
+        } catch (TransferFailedException | ResourceDoesNotExistException e) {
+            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
+            throw e;
+        }
+
+        uploaded(resourceName, contentDigests);
+    }
+
+    @Override
+    public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
+        try (OperationSample sample = startOperation(Operation.EXISTS)) {
+            boolean exists = getStorageRepository().exists(resourceName);
+            sample.succeeded(0);
+            return exists;
+        } catch (TransferFailedException e) {
+            transferListenerContainer.fireTransferError(new Resource(resourceName), TransferEvent.REQUEST_GET, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getFileList(String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        try (OperationSample sample = startOperation(Operation.LIST)) {
+            List<String> list = getStorageRepository().list(resourceName);
+            sample.succeeded(0);
+            return list;
+        } catch (Exception e) {
+            transferListenerContainer.fireTransferError(new Resource(resourceName),TransferEvent.REQUEST_GET, e);
+            throw new TransferFailedException("Could not fetch resource", e);
+        }
+    }
+
+    @Override
+    public void disconnect() throws ConnectionException {
+        sessionListenerContainer.fireSessionDisconnecting();
+        getStorageRepository().disconnect();
+        saveMissingResources();
+        sessionListenerContainer.fireSessionLoggedOff();
+        sessionListenerContainer.fireSessionDisconnected();
+    }
+
+}
@@ -16,28 +16,54 @@
 
 package com.gkatzioura.maven.cloud.wagon;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.maven.wagon.ConnectionException;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.Wagon;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.authorization.AuthorizationException;
 import org.apache.maven.wagon.events.SessionListener;
 import org.apache.maven.wagon.events.TransferListener;
 import org.apache.maven.wagon.proxy.ProxyInfo;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
 
+import com.gkatzioura.maven.cloud.cache.MissingResourceCache;
 import com.gkatzioura.maven.cloud.listener.SessionListenerContainer;
 import com.gkatzioura.maven.cloud.listener.SessionListenerContainerImpl;
 import com.gkatzioura.maven.cloud.listener.TransferListenerContainer;
 import com.gkatzioura.maven.cloud.listener.TransferListenerContainerImpl;
 import com.gkatzioura.maven.cloud.resolver.BaseDirectoryResolver;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.OperationSample;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.metrics.TransferMetricsRegistry;
 import com.gkatzioura.maven.cloud.resolver.BucketResolver;
+import com.gkatzioura.maven.cloud.settings.CacheSettings;
+import com.gkatzioura.maven.cloud.settings.ClientSettings;
+import com.gkatzioura.maven.cloud.settings.RequestSettings;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+import com.gkatzioura.maven.cloud.settings.TransferSettings;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 
 public abstract class AbstractStorageWagon implements Wagon {
 
     private static final boolean SUPPORTS_DIRECTORY_COPY = true;
+    private static final String SHA256_SUFFIX = ".sha256";
+    private static final String[] CHECKSUM_SUFFIXES = {".md5", ".sha1", SHA256_SUFFIX, ".sha512", ".asc"};
 
     private int connectionTimeOut = 0;
     private int readConnectionTimeOut = 0;
@@ -52,6 +78,17 @@ public abstract class AbstractStorageWagon implements Wagon {
 
     private boolean interactive;
 
+    private final ClientSettings clientSettings = new ClientSettings();
+    private final CacheSettings cacheSettings = new CacheSettings();
+    private final RequestSettings requestSettings = new RequestSettings();
+    private final TransferSettings transferSettings = new TransferSettings();
+
+    private MissingResourceCache missingResourceCache;
+    private volatile TransferMetrics transferMetrics;
+
+    private final Map<String, ContentDigests> uploadDigests = new ConcurrentHashMap<>();
+    private final Map<String, ContentDigests> downloadDigests = new ConcurrentHashMap<>();
+
     private static final Logger LOGGER = Logger.getLogger(AbstractStorageWagon.class.getName());
 
     public AbstractStorageWagon() {
@@ -66,6 +103,14 @@ public abstract class AbstractStorageWagon implements Wagon {
         return SUPPORTS_DIRECTORY_COPY;
     }
 
+    /**
+     * Uploads every file under the source directory, using up to {@link TransferSettings#getParallelism()} concurrent puts.
+     */
+    @Override
+    public void putDirectory(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        new ParallelDirectoryUploader(this, transferSettings.getParallelism(), transferSettings.createTransferExecutor()).upload(source, destination);
+    }
+
     @Override
     public Repository getRepository() {
         return repository;
@@ -161,4 +206,330 @@ public abstract class AbstractStorageWagon implements Wagon {
         interactive = b;
     }
 
+    public ClientSettings getClientSettings() {
+        return clientSettings;
+    }
+
+    public CacheSettings getCacheSettings() {
+        return cacheSettings;
+    }
+
+    public RequestSettings getRequestSettings() {
+        return requestSettings;
+    }
+
+    public TransferSettings getTransferSettings() {
+        return transferSettings;
+    }
+
+    /*
+     * The options of the settings are also set on the wagon itself, since Maven configures a wagon through the
+     * setters named after the elements of its configuration.
+     */
+
+    public void setParallelism(int parallelism) {
+        transferSettings.setParallelism(parallelism);
+    }
+
+    public void setTransferThreads(String transferThreads) {
+        transferSettings.setTransferThreads(transferThreads);
+    }
+
+    public void setProgressCoalescingBytes(int progressCoalescingBytes) {
+        transferSettings.setProgressCoalescingBytes(progressCoalescingBytes);
+        transferListenerContainer.setProgressCoalescing(transferSettings.getProgressCoalescingBytes(), transferSettings.getProgressCoalescingMillis());
+    }
+
+    public void setProgressCoalescingMillis(long progressCoalescingMillis) {
+        transferSettings.setProgressCoalescingMillis(progressCoalescingMillis);
+        transferListenerContainer.setProgressCoalescing(transferSettings.getProgressCoalescingBytes(), transferSettings.getProgressCoalescingMillis());
+    }
+
+    public void setArtifactCacheDirectory(String artifactCacheDirectory) {
+        cacheSettings.setArtifactCacheDirectory(artifactCacheDirectory);
+    }
+
+    public void setArtifactCacheMaxSize(long artifactCacheMaxSize) {
+        cacheSettings.setArtifactCacheMaxSize(artifactCacheMaxSize);
+    }
+
+    public void setArtifactCacheHardLinks(boolean artifactCacheHardLinks) {
+        cacheSettings.setArtifactCacheHardLinks(artifactCacheHardLinks);
+    }
+
+    public void setMetadataCacheTtl(long metadataCacheTtl) {
+        cacheSettings.setMetadataCacheTtl(metadataCacheTtl);
+    }
+
+    public void setMetadataCacheShared(boolean metadataCacheShared) {
+        cacheSettings.setMetadataCacheShared(metadataCacheShared);
+    }
+
+    public void setMissingResourceCacheTtl(long missingResourceCacheTtl) {
+        cacheSettings.setMissingResourceCacheTtl(missingResourceCacheTtl);
+    }
+
+    public void setMissingResourceCacheSnapshots(boolean missingResourceCacheSnapshots) {
+        cacheSettings.setMissingResourceCacheSnapshots(missingResourceCacheSnapshots);
+    }
+
+    public void setMissingResourceCacheFile(String missingResourceCacheFile) {
+        cacheSettings.setMissingResourceCacheFile(missingResourceCacheFile);
+    }
+
+    public void setRetryAttempts(int retryAttempts) {
+        requestSettings.setRetryAttempts(retryAttempts);
+    }
+
+    public void setRetryBaseDelay(long retryBaseDelay) {
+        requestSettings.setRetryBaseDelay(retryBaseDelay);
+    }
+
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        requestSettings.setRetryMaxDelay(retryMaxDelay);
+    }
+
+    public void setRetryDeadline(long retryDeadline) {
+        requestSettings.setRetryDeadline(retryDeadline);
+    }
+
+    public void setHedging(boolean hedging) {
+        requestSettings.setHedging(hedging);
+    }
+
+    public void setHedgingPercentile(int hedgingPercentile) {
+        requestSettings.setHedgingPercentile(hedgingPercentile);
+    }
+
+    public void setHedgingMinDelay(long hedgingMinDelay) {
+        requestSettings.setHedgingMinDelay(hedgingMinDelay);
+    }
+
+    public void setHedgingBudget(int hedgingBudget) {
+        requestSettings.setHedgingBudget(hedgingBudget);
+    }
+
+    public void setHedgingMaxSize(long hedgingMaxSize) {
+        requestSettings.setHedgingMaxSize(hedgingMaxSize);
+    }
+
+    public void setRangedDownloadThreshold(long rangedDownloadThreshold) {
+        transferSettings.setRangedDownloadThreshold(rangedDownloadThreshold);
+    }
+
+    public void setRangedDownloadPartSize(long rangedDownloadPartSize) {
+        transferSettings.setRangedDownloadPartSize(rangedDownloadPartSize);
+    }
+
+    public void setRangedDownloadParallelism(int rangedDownloadParallelism) {
+        transferSettings.setRangedDownloadParallelism(rangedDownloadParallelism);
+    }
+
+    public void setResumableTransfers(boolean resumableTransfers) {
+        transferSettings.setResumableTransfers(resumableTransfers);
+    }
+
+    public void setResumablePartSize(long resumablePartSize) {
+        transferSettings.setResumablePartSize(resumablePartSize);
+    }
+
+    public void setResumableStateDirectory(String resumableStateDirectory) {
+        transferSettings.setResumableStateDirectory(resumableStateDirectory);
+    }
+
+    public void setSha256Sidecars(boolean sha256Sidecars) {
+        transferSettings.setSha256Sidecars(sha256Sidecars);
+    }
+
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        transferSettings.setVerifyDownloads(verifyDownloads);
+    }
+
+    public void setSkipIdenticalUploads(boolean skipIdenticalUploads) {
+        transferSettings.setSkipIdenticalUploads(skipIdenticalUploads);
+    }
+
+    public void setSharedClients(boolean sharedClients) {
+        clientSettings.setSharedClients(sharedClients);
+    }
+
+    public void setClientIdleTimeout(long clientIdleTimeout) {
+        clientSettings.setClientIdleTimeout(clientIdleTimeout);
+    }
+
+    public void setLazyConnect(boolean lazyConnect) {
+        clientSettings.setLazyConnect(lazyConnect);
+    }
+
+    public void setPrewarmConnections(int prewarmConnections) {
+        clientSettings.setPrewarmConnections(prewarmConnections);
+    }
+
+    public void setResolutionCache(boolean resolutionCache) {
+        cacheSettings.setResolutionCache(resolutionCache);
+    }
+
+    public void setResolutionCacheTtl(long resolutionCacheTtl) {
+        cacheSettings.setResolutionCacheTtl(resolutionCacheTtl);
+    }
+
+    public void setResolutionCacheFile(String resolutionCacheFile) {
+        cacheSettings.setResolutionCacheFile(resolutionCacheFile);
+    }
+
+    /**
+     * @return the digests computed while uploading the resource in this session, null if it was not uploaded
+     */
+    public ContentDigests getUploadDigests(String resourceName) {
+        return uploadDigests.get(resourceName);
+    }
+
+    /**
+     * @return the digests verified while downloading the resource in this session, null if it was not downloaded
+     * or there was no checksum to verify it with
+     */
+    public ContentDigests getDownloadDigests(String resourceName) {
+        return downloadDigests.get(resourceName);
+    }
+
+    /**
+     * Starts a new session: the resources found missing by the previous session are saved, and the storage
+     * repository is given the settings of the wagon along with a new metadata cache.
+     *
+     * @return the settings to connect the storage repository of a new session with
+     */
+    protected StorageSettings createStorageSettings() {
+        saveMissingResources();
+        missingResourceCache = cacheSettings.createMissingResourceCache();
+
+        MetadataCache metadataCache = cacheSettings.createMetadataCache(missingResourceCache);
+        return new StorageSettings(clientSettings, cacheSettings, requestSettings, transferSettings, metadataCache,
+                connectionTimeOut, readConnectionTimeOut, getTransferMetrics());
+    }
+
+    /**
+     * Persists the resources found missing during the session. Failures are logged, they never fail the session.
+     */
+    protected void saveMissingResources() {
+        if (missingResourceCache == null) {
+            return;
+        }
+
+        try {
+            missingResourceCache.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the missing resources", e);
+        }
+    }
+
+    /**
+     * @return the metrics of this wagon type and the connected repository, shared with every other wagon of the JVM
+     * connected to the same repository
+     */
+    public TransferMetrics getTransferMetrics() {
+        String url = repository == null || repository.getUrl() == null ? "" : repository.getUrl();
+
+        TransferMetrics metrics = transferMetrics;
+        if (metrics == null || !metrics.getRepository().equals(url)) {
+            metrics = TransferMetricsRegistry.getInstance().metrics(getClass().getSimpleName(), url);
+            transferMetrics = metrics;
+        }
+        return metrics;
+    }
+
+    /**
+     * Starts timing an operation. The operation is recorded as an error unless it is marked as succeeded before the
+     * sample is closed.
+     */
+    protected OperationSample startOperation(Operation operation) {
+        return getTransferMetrics().start(operation);
+    }
+
+    protected boolean isArtifactCacheEnabled() {
+        return cacheSettings.isArtifactCacheEnabled();
+    }
+
+    /**
+     * Writes the destination from the artifact cache when it holds the version described by the metadata.
+     * Cache failures are logged and reported as a miss, they never fail the transfer.
+     */
+    protected boolean fetchFromArtifactCache(String resourceName, ResourceMetadata resourceMetadata, File destination, TransferProgress transferProgress) {
+        if (!isArtifactCacheEnabled() || resourceMetadata == null) {
+            return false;
+        }
+
+        try {
+            return cacheSettings.artifactCache().fetch(cacheLocation(resourceName), resourceMetadata.getVersion(), destination, transferProgress);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not read %s from the artifact cache", resourceName), e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds a downloaded file to the artifact cache, under the version it was downloaded with.
+     */
+    protected void storeInArtifactCache(String resourceName, ResourceMetadata resourceMetadata, File file) {
+        if (!isArtifactCacheEnabled() || resourceMetadata == null) {
+            return;
+        }
+
+        try {
+            cacheSettings.artifactCache().store(cacheLocation(resourceName), resourceMetadata.getVersion(), file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Could not add %s to the artifact cache", resourceName), e);
+        }
+    }
+
+    /**
+     * Keeps the digests computed while uploading the resource and uploads its SHA-256 sidecar if configured
+     */
+    protected void uploaded(String resourceName, ContentDigests contentDigests) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        if (contentDigests == null) {
+            return;
+        }
+
+        uploadDigests.put(resourceName, contentDigests);
+
+        if (!transferSettings.isSha256Sidecars() || isChecksum(resourceName)) {
+            return;
+        }
+
+        File sidecar = null;
+        try {
+            sidecar = File.createTempFile("cloud-storage", SHA256_SUFFIX);
+            Files.write(sidecar.toPath(), contentDigests.getSha256Hex().getBytes(StandardCharsets.US_ASCII));
+            put(sidecar, resourceName + SHA256_SUFFIX);
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not write the SHA-256 of " + resourceName, e);
+        } finally {
+            if (sidecar != null && !sidecar.delete()) {
+                sidecar.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Keeps the digests verified while downloading the resource
+     */
+    protected void downloaded(String resourceName, ResourceMetadata resourceMetadata) {
+        if (resourceMetadata != null && resourceMetadata.getContentDigests() != null) {
+            downloadDigests.put(resourceName, resourceMetadata.getContentDigests());
+        }
+    }
+
+    private static boolean isChecksum(String resourceName) {
+        for (String suffix : CHECKSUM_SUFFIXES) {
+            if (resourceName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String cacheLocation(String resourceName) {
+        String url = repository == null ? "" : repository.getUrl();
+        return url + "/" + resourceName;
+    }
+
 }
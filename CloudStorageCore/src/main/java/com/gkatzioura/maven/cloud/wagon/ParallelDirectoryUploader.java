@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.wagon;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.maven.wagon.PathUtils;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.Wagon;
+import org.apache.maven.wagon.authorization.AuthorizationException;
+
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutor;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
+
+/**
+ * Uploads the files of a directory tree through {@link Wagon#put(File, String)} using a bounded number of
+ * concurrent transfers, run on the threads of a {@link TransferExecutor}. Every file is a separate put, so the transfer events of each file stay intact.
+ * Failures do not stop the remaining uploads, they are reported together once all the files have been processed.
+ */
+public class ParallelDirectoryUploader {
+
+    private static final Logger LOGGER = Logger.getLogger(ParallelDirectoryUploader.class.getName());
+
+    private final Wagon wagon;
+    private final int parallelism;
+    private final TransferExecutor transferExecutor;
+
+    public ParallelDirectoryUploader(Wagon wagon, int parallelism) {
+        this(wagon, parallelism, TransferExecutors.platformThreads());
+    }
+
+    public ParallelDirectoryUploader(Wagon wagon, int parallelism, TransferExecutor transferExecutor) {
+        this.wagon = wagon;
+        this.parallelism = Math.max(1, parallelism);
+        this.transferExecutor = transferExecutor;
+    }
+
+    public void upload(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        List<File> files = listFiles(source);
+        String prefix = destinationPrefix(destination);
+
+        Queue<UploadFailure> failures = new ConcurrentLinkedQueue<>();
+
+        if (parallelism == 1 || files.size() < 2) {
+            for (File file : files) {
+                upload(file, resourceName(prefix, source, file), failures);
+            }
+        } else {
+            uploadConcurrently(source, prefix, files, failures);
+        }
+
+        reportFailures(files.size(), failures);
+    }
+
+    private void uploadConcurrently(File source, String prefix, List<File> files, Queue<UploadFailure> failures) throws TransferFailedException {
+        ExecutorService executorService = transferExecutor.newExecutor(Math.min(parallelism, files.size()), "cloud-storage-upload");
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                String resourceName = resourceName(prefix, source, file);
+                futures.add(executorService.submit(() -> upload(file, resourceName, failures)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferFailedException("Interrupted while uploading directory " + source.getAbsolutePath(), e);
+        } catch (ExecutionException e) {
+            throw new TransferFailedException("Could not upload directory " + source.getAbsolutePath(), e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void upload(File file, String resourceName, Queue<UploadFailure> failures) {
+        try {
+            wagon.put(file, resourceName);
+        } catch (TransferFailedException | ResourceDoesNotExistException | AuthorizationException | RuntimeException e) {
+            LOGGER.log(Level.FINER, String.format("Could not upload %s to %s", file.getAbsolutePath(), resourceName), e);
+            failures.add(new UploadFailure(resourceName, e));
+        }
+    }
+
+    private void reportFailures(int total, Queue<UploadFailure> failures) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        if (failures.size() == 1) {
+            rethrow(failures.peek().exception);
+        }
+
+        List<String> resourceNames = new ArrayList<>();
+        for (UploadFailure failure : failures) {
+            resourceNames.add(failure.resourceName);
+        }
+
+        TransferFailedException transferFailedException = new TransferFailedException(
+                String.format("Could not upload %d of %d files: %s", failures.size(), total, resourceNames),
+                failures.peek().exception);
+        failures.stream().skip(1).forEach(f -> transferFailedException.addSuppressed(f.exception));
+        throw transferFailedException;
+    }
+
+    private void rethrow(Exception exception) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
+        if (exception instanceof TransferFailedException) {
+            throw (TransferFailedException) exception;
+        } else if (exception instanceof ResourceDoesNotExistException) {
+            throw (ResourceDoesNotExistException) exception;
+        } else if (exception instanceof AuthorizationException) {
+            throw (AuthorizationException) exception;
+        } else {
+            throw (RuntimeException) exception;
+        }
+    }
+
+    private List<File> listFiles(File source) {
+        List<File> files = new ArrayList<>();
+        Deque<File> directories = new ArrayDeque<>();
+        directories.push(source);
+
+        while (!directories.isEmpty()) {
+            File[] children = directories.pop().listFiles();
+            if (children == null) {
+                continue;
+            }
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    directories.push(child);
+                } else {
+                    files.add(child);
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private String destinationPrefix(String destination) {
+        if (destination == null || destination.equals(".")) {
+            return "";
+        }
+
+        String prefix = destination.startsWith("./") ? destination.substring(2) : destination;
+
+        while (prefix.startsWith("/")) {
+            prefix = prefix.substring(1);
+        }
+        while (prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+
+        return prefix;
+    }
+
+    private String resourceName(String prefix, File source, File file) {
+        String relativePath = PathUtils.toRelative(source, file.getAbsolutePath()).replace(File.separatorChar, '/');
+        return prefix.isEmpty() ? relativePath : prefix + "/" + relativePath;
+    }
+
+    private static final class UploadFailure {
+
+        private final String resourceName;
+        private final Exception exception;
+
+        private UploadFailure(String resourceName, Exception exception) {
+            this.resourceName = resourceName;
+            this.exception = exception;
+        }
+    }
+
+}
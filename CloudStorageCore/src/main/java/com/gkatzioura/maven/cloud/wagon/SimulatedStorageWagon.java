@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.wagon;
+
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.apache.maven.wagon.proxy.ProxyInfoProvider;
+import org.apache.maven.wagon.repository.Repository;
+
+import com.gkatzioura.maven.cloud.repository.SimulatedStorageRepository;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
+
+/**
+ * A wagon transferring to a {@link SimulatedStorageRepository}, to benchmark the caches and the parallel transfers
+ * of the wagon offline. The directory of the repository is the one the simulated repository was created with.
+ */
+public class SimulatedStorageWagon extends AbstractRepositoryWagon {
+
+    private final SimulatedStorageRepository simulatedStorageRepository;
+
+    public SimulatedStorageWagon(SimulatedStorageRepository simulatedStorageRepository) {
+        this.simulatedStorageRepository = simulatedStorageRepository;
+    }
+
+    @Override
+    protected StorageRepository getStorageRepository() {
+        return simulatedStorageRepository;
+    }
+
+    @Override
+    public void connect(Repository repository, AuthenticationInfo authenticationInfo, ProxyInfoProvider proxyInfoProvider) {
+        this.repository = repository;
+        this.sessionListenerContainer.fireSessionOpening();
+
+        simulatedStorageRepository.configure(createStorageSettings());
+
+        sessionListenerContainer.fireSessionLoggedIn();
+        sessionListenerContainer.fireSessionOpened();
+    }
+
+}
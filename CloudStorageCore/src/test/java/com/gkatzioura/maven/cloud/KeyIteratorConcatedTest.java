@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyIteratorConcatedTest {
+
+    @Test
+    public void testConcatenatesIterators() {
+        List<Iterator<String>> iterators = new ArrayList<>();
+        iterators.add(Arrays.asList("a", "b").iterator());
+        iterators.add(Collections.<String>emptyIterator());
+        iterators.add(Collections.singletonList("c").iterator());
+
+        List<String> keys = new ArrayList<>();
+        KeyIteratorConcated<String> keyIteratorConcated = new KeyIteratorConcated<>(iterators);
+        while (keyIteratorConcated.hasNext()) {
+            keys.add(keyIteratorConcated.next());
+        }
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), keys);
+        Assert.assertNull(keyIteratorConcated.next());
+    }
+
+    @Test
+    public void testSkipsManyEmptyIteratorsWithoutRecursion() {
+        Iterator<Iterator<String>> iterators = IntStream.range(0, 100_000)
+                .mapToObj(i -> i == 99_999 ? Collections.singletonList("last").iterator() : Collections.<String>emptyIterator())
+                .iterator();
+
+        KeyIteratorConcated<String> keyIteratorConcated = new KeyIteratorConcated<>(iterators);
+
+        Assert.assertTrue(keyIteratorConcated.hasNext());
+        Assert.assertEquals("last", keyIteratorConcated.next());
+        Assert.assertFalse(keyIteratorConcated.hasNext());
+    }
+
+    @Test
+    public void testCreatesIteratorsWhenReached() {
+        List<String> created = new ArrayList<>();
+        Iterator<Iterator<String>> iterators = Arrays.asList("a", "b").stream()
+                .map(prefix -> {
+                    created.add(prefix);
+                    return Collections.singletonList(prefix).iterator();
+                })
+                .iterator();
+
+        KeyIteratorConcated<String> keyIteratorConcated = new KeyIteratorConcated<>(iterators);
+        Assert.assertEquals("a", keyIteratorConcated.next());
+        Assert.assertEquals(Collections.singletonList("a"), created);
+    }
+
+}
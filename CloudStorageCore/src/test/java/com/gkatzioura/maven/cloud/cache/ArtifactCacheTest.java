@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+
+public class ArtifactCacheTest {
+
+    private static final String LOCATION = "s3://bucket/releases/a/b/1.0/b-1.0.jar";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFetchesStoredVersion() throws Exception {
+        ArtifactCache artifactCache = new ArtifactCache(temporaryFolder.newFolder("cache"), 1024, false);
+        artifactCache.store(LOCATION, "etag-1", file("download", new byte[]{1, 2, 3}));
+
+        File destination = new File(temporaryFolder.getRoot(), "repository/b-1.0.jar");
+        RecordingProgress progress = new RecordingProgress();
+
+        Assert.assertTrue(artifactCache.fetch(LOCATION, "etag-1", destination, progress));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, progress.bytes.toByteArray());
+    }
+
+    @Test
+    public void testMissesOtherVersions() throws Exception {
+        ArtifactCache artifactCache = new ArtifactCache(temporaryFolder.newFolder("cache"), 1024, false);
+        artifactCache.store(LOCATION, "etag-1", file("download", new byte[]{1}));
+
+        File destination = new File(temporaryFolder.getRoot(), "b-1.0.jar");
+        Assert.assertFalse(artifactCache.fetch(LOCATION, "etag-2", destination, new RecordingProgress()));
+        Assert.assertFalse(artifactCache.fetch(LOCATION, null, destination, new RecordingProgress()));
+        Assert.assertFalse(destination.exists());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        File directory = temporaryFolder.newFolder("cache");
+        ArtifactCache artifactCache = new ArtifactCache(directory, 20, false);
+
+        artifactCache.store("first", "v", file("first", new byte[10]));
+        artifactCache.store("second", "v", file("second", new byte[10]));
+        backdate(directory, 60_000);
+
+        File destination = new File(temporaryFolder.getRoot(), "read");
+        Assert.assertTrue(artifactCache.fetch("first", "v", destination, new RecordingProgress()));
+
+        artifactCache.store("third", "v", file("third", new byte[10]));
+
+        Assert.assertTrue(artifactCache.fetch("first", "v", destination, new RecordingProgress()));
+        Assert.assertFalse(artifactCache.fetch("second", "v", destination, new RecordingProgress()));
+        Assert.assertTrue(artifactCache.fetch("third", "v", destination, new RecordingProgress()));
+    }
+
+    @Test
+    public void testSharesTheSizeOfTheCacheBetweenInstances() throws Exception {
+        File directory = temporaryFolder.newFolder("cache");
+        ArtifactCache first = new ArtifactCache(directory, 20, false);
+        ArtifactCache second = new ArtifactCache(directory, 20, false);
+
+        first.store("first", "v", file("first", new byte[10]));
+        backdate(directory, 60_000);
+        second.store("second", "v", file("second", new byte[10]));
+        second.store("third", "v", file("third", new byte[10]));
+
+        File destination = new File(temporaryFolder.getRoot(), "read");
+        Assert.assertFalse(second.fetch("first", "v", destination, new RecordingProgress()));
+        Assert.assertTrue(first.fetch("second", "v", destination, new RecordingProgress()));
+        Assert.assertTrue(first.fetch("third", "v", destination, new RecordingProgress()));
+    }
+
+    @Test
+    public void testRecountsTheSizeOfEntriesDeletedOutsideTheCache() throws Exception {
+        File directory = temporaryFolder.newFolder("cache");
+        ArtifactCache artifactCache = new ArtifactCache(directory, 20, false);
+
+        artifactCache.store("first", "v", file("first", new byte[10]));
+        artifactCache.store("second", "v", file("second", new byte[10]));
+        try (Stream<Path> paths = Files.walk(new File(directory, "objects").toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        artifactCache.store("third", "v", file("third", new byte[10]));
+        artifactCache.store("fourth", "v", file("fourth", new byte[10]));
+
+        File destination = new File(temporaryFolder.getRoot(), "read");
+        Assert.assertTrue(artifactCache.fetch("third", "v", destination, new RecordingProgress()));
+        Assert.assertTrue(artifactCache.fetch("fourth", "v", destination, new RecordingProgress()));
+    }
+
+    @Test
+    public void testStoresTheSameEntryFromConcurrentWriters() throws Exception {
+        File directory = temporaryFolder.newFolder("cache");
+        byte[] content = new byte[4 * 1024 * 1024];
+        new Random(1).nextBytes(content);
+        File source = file("download", content);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                String location = LOCATION + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> writers = new ArrayList<>();
+                for (int writer = 0; writer < 2; writer++) {
+                    ArtifactCache artifactCache = new ArtifactCache(directory, Long.MAX_VALUE, false);
+                    writers.add(executorService.submit(() -> {
+                        start.await();
+                        artifactCache.store(location, "etag-1", source);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> writer : writers) {
+                    writer.get(30, TimeUnit.SECONDS);
+                }
+
+                File destination = new File(temporaryFolder.getRoot(), "read");
+                Assert.assertTrue(new ArtifactCache(directory, Long.MAX_VALUE, false).fetch(location, "etag-1", destination, new RecordingProgress()));
+                Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        try (Stream<Path> paths = Files.walk(new File(directory, "objects").toPath())) {
+            Assert.assertFalse(paths.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    public void testHardLinksEntries() throws Exception {
+        ArtifactCache artifactCache = new ArtifactCache(temporaryFolder.newFolder("cache"), 1024, true);
+        artifactCache.store(LOCATION, "etag-1", file("download", new byte[]{4, 5}));
+
+        File destination = new File(temporaryFolder.getRoot(), "b-1.0.jar");
+        RecordingProgress progress = new RecordingProgress();
+
+        Assert.assertTrue(artifactCache.fetch(LOCATION, "etag-1", destination, progress));
+        Assert.assertArrayEquals(new byte[]{4, 5}, Files.readAllBytes(destination.toPath()));
+        Assert.assertArrayEquals(new byte[]{4, 5}, progress.bytes.toByteArray());
+    }
+
+    private File file(String name, byte[] content) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private void backdate(File directory, long millis) throws IOException {
+        FileTime past = FileTime.fromMillis(System.currentTimeMillis() - millis);
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isRegularFile(path)) {
+                    Files.setLastModifiedTime(path, past);
+                }
+            }
+        }
+    }
+
+    private static final class RecordingProgress implements TransferProgress {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void progress(byte[] buffer, int offset, int length) {
+            bytes.write(buffer, offset, length);
+        }
+    }
+
+}
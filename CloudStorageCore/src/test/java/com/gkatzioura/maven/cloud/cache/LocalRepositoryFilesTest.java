@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalRepositoryFilesTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testResolvesUnderMavenRepoLocal() {
+        String localRepository = System.getProperty("maven.repo.local");
+        System.setProperty("maven.repo.local", temporaryFolder.getRoot().getAbsolutePath());
+        try {
+            Assert.assertEquals(new File(temporaryFolder.getRoot(), ".cloud-storage/file"), LocalRepositoryFiles.resolve(".cloud-storage/file"));
+        } finally {
+            if (localRepository == null) {
+                System.clearProperty("maven.repo.local");
+            } else {
+                System.setProperty("maven.repo.local", localRepository);
+            }
+        }
+    }
+
+    @Test
+    public void testUpdatesTheSavedProperties() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("state/file.properties");
+
+        LocalRepositoryFiles.update(file, null, properties -> properties.setProperty("a", "1"));
+        LocalRepositoryFiles.update(file, null, properties -> properties.setProperty("b", "2"));
+
+        Properties properties = LocalRepositoryFiles.load(file);
+        Assert.assertEquals("1", properties.getProperty("a"));
+        Assert.assertEquals("2", properties.getProperty("b"));
+        Assert.assertEquals(0, file.getParent().toFile().list((directory, name) -> name.endsWith(".tmp")).length);
+    }
+
+}
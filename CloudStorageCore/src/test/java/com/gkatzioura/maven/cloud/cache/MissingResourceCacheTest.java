@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+
+public class MissingResourceCacheTest {
+
+    private static final String RELEASE = "s3://bucket/releases/a/b/1.0/b-1.0.pom";
+    private static final String SNAPSHOT = "s3://bucket/snapshots/a/b/1.0-SNAPSHOT/b-1.0-20240101.000000-1.pom";
+    private static final String METADATA = "s3://bucket/releases/a/b/maven-metadata.xml";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testPersistsMissingResources() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "cache/missing.properties");
+
+        MissingResourceCache missingResourceCache = new MissingResourceCache(file, 60_000, false);
+        missingResourceCache.markMissing(RELEASE);
+        Assert.assertTrue(missingResourceCache.isMissing(RELEASE));
+        missingResourceCache.save();
+
+        Assert.assertTrue(new MissingResourceCache(file, 60_000, false).isMissing(RELEASE));
+    }
+
+    @Test
+    public void testExpiresEntries() throws Exception {
+        File file = temporaryFolder.newFile("missing.properties");
+
+        MissingResourceCache missingResourceCache = new MissingResourceCache(file, 1, false);
+        missingResourceCache.markMissing(RELEASE);
+        Thread.sleep(5);
+        Assert.assertFalse(missingResourceCache.isMissing(RELEASE));
+    }
+
+    @Test
+    public void testSkipsSnapshotsUnlessIncluded() throws Exception {
+        File file = temporaryFolder.newFile("missing.properties");
+
+        MissingResourceCache missingResourceCache = new MissingResourceCache(file, 60_000, false);
+        missingResourceCache.markMissing(SNAPSHOT);
+        missingResourceCache.markMissing(METADATA);
+        Assert.assertFalse(missingResourceCache.isMissing(SNAPSHOT));
+        Assert.assertFalse(missingResourceCache.isMissing(METADATA));
+
+        MissingResourceCache includingSnapshots = new MissingResourceCache(file, 60_000, true);
+        includingSnapshots.markMissing(SNAPSHOT);
+        Assert.assertTrue(includingSnapshots.isMissing(SNAPSHOT));
+    }
+
+    @Test
+    public void testMergesConcurrentSaves() throws Exception {
+        File file = temporaryFolder.newFile("missing.properties");
+        String other = "s3://bucket/releases/a/c/1.0/c-1.0.pom";
+
+        MissingResourceCache first = new MissingResourceCache(file, 60_000, false);
+        MissingResourceCache second = new MissingResourceCache(file, 60_000, false);
+        first.markMissing(RELEASE);
+        second.markMissing(other);
+        first.save();
+        second.save();
+
+        MissingResourceCache reloaded = new MissingResourceCache(file, 60_000, false);
+        Assert.assertTrue(reloaded.isMissing(RELEASE));
+        Assert.assertTrue(reloaded.isMissing(other));
+    }
+
+    @Test
+    public void testInvalidationRemovesPersistedEntries() throws Exception {
+        File file = temporaryFolder.newFile("missing.properties");
+
+        MissingResourceCache first = new MissingResourceCache(file, 60_000, false);
+        first.markMissing(RELEASE);
+        first.save();
+
+        MissingResourceCache second = new MissingResourceCache(file, 60_000, false);
+        second.invalidate(RELEASE);
+        second.save();
+
+        Assert.assertFalse(new MissingResourceCache(file, 60_000, false).isMissing(RELEASE));
+    }
+
+    @Test
+    public void testRecordsMissingMetadataLookups() throws Exception {
+        File file = temporaryFolder.newFile("missing.properties");
+        MissingResourceCache missingResourceCache = new MissingResourceCache(file, 60_000, false);
+        MetadataCache metadataCache = new MetadataCache(0, missingResourceCache);
+
+        Assert.assertNull(metadataCache.get(RELEASE, () -> null));
+        Assert.assertTrue(metadataCache.isKnownMissing(RELEASE));
+        Assert.assertNull(metadataCache.get(RELEASE, () -> {
+            throw new AssertionError("Known missing resources are not looked up");
+        }));
+
+        metadataCache.invalidate(RELEASE);
+        Assert.assertFalse(metadataCache.isKnownMissing(RELEASE));
+    }
+
+}
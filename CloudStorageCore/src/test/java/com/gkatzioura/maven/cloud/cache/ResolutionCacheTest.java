@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.cache;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResolutionCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger resolutions = new AtomicInteger();
+
+    @Test
+    public void testResolvesOncePerJvm() {
+        ResolutionCache resolutionCache = new ResolutionCache(new ConcurrentHashMap<>(), null, 0);
+
+        Assert.assertEquals("eu-west-1", resolutionCache.resolve("s3.region", () -> resolve("eu-west-1")));
+        Assert.assertEquals("eu-west-1", resolutionCache.resolve("s3.region", () -> resolve("us-east-1")));
+        Assert.assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    public void testDoesNotRememberUnresolvedValues() {
+        ResolutionCache resolutionCache = new ResolutionCache(new ConcurrentHashMap<>(), null, 0);
+
+        Assert.assertNull(resolutionCache.resolve("gcs.project", () -> resolve(null)));
+        Assert.assertEquals("project", resolutionCache.resolve("gcs.project", () -> resolve("project")));
+        Assert.assertEquals(2, resolutions.get());
+    }
+
+    @Test
+    public void testPersistsResolutionsForTheNextBuilds() {
+        File file = new File(temporaryFolder.getRoot(), "cache/resolutions.properties");
+
+        new ResolutionCache(new ConcurrentHashMap<>(), file, 60_000).resolve("s3.region", () -> resolve("eu-west-1"));
+
+        ResolutionCache nextBuild = new ResolutionCache(new ConcurrentHashMap<>(), file, 60_000);
+        Assert.assertEquals("eu-west-1", nextBuild.resolve("s3.region", () -> resolve("us-east-1")));
+        Assert.assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    public void testResolvesExpiredResolutionsAgain() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "resolutions.properties");
+
+        new ResolutionCache(new ConcurrentHashMap<>(), file, 1).resolve("s3.region", () -> resolve("eu-west-1"));
+        Thread.sleep(5);
+
+        ResolutionCache nextBuild = new ResolutionCache(new ConcurrentHashMap<>(), file, 1);
+        Assert.assertEquals("us-east-1", nextBuild.resolve("s3.region", () -> resolve("us-east-1")));
+    }
+
+    @Test
+    public void testForgetsInvalidatedResolutions() {
+        File file = new File(temporaryFolder.getRoot(), "resolutions.properties");
+        ResolutionCache resolutionCache = new ResolutionCache(new ConcurrentHashMap<>(), file, 60_000);
+        resolutionCache.resolve("s3.credentials.source", () -> resolve("ProfileCredentialsProvider"));
+
+        resolutionCache.invalidate("s3.credentials.source");
+
+        ResolutionCache nextBuild = new ResolutionCache(new ConcurrentHashMap<>(), file, 60_000);
+        Assert.assertEquals("EnvironmentVariableCredentialsProvider",
+                nextBuild.resolve("s3.credentials.source", () -> resolve("EnvironmentVariableCredentialsProvider")));
+    }
+
+    @Test
+    public void testResolvesEveryTimeWhenDisabled() {
+        ResolutionCache resolutionCache = ResolutionCache.disabled();
+
+        resolutionCache.resolve("s3.region", () -> resolve("eu-west-1"));
+        resolutionCache.resolve("s3.region", () -> resolve("eu-west-1"));
+        Assert.assertEquals(2, resolutions.get());
+    }
+
+    private String resolve(String value) {
+        resolutions.incrementAndGet();
+        return value;
+    }
+
+}
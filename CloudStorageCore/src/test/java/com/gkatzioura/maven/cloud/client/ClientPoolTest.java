@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientPoolTest {
+
+    private static final ClientKey KEY = new ClientKey("s3", "user\nsecret", "eu-west-1", null, false, "0/0/3");
+
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Test
+    public void testSharesTheClientOfTheSameKey() {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 0);
+
+        PooledClient<Object> first = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        PooledClient<Object> second = clientPool.acquire(new ClientKey("s3", "user\nsecret", "eu-west-1", null, false, "0/0/3"), this::create, client -> closed.incrementAndGet());
+
+        Assert.assertSame(first.get(), second.get());
+        Assert.assertEquals(1, created.get());
+        Assert.assertTrue(first.isCreated());
+        Assert.assertFalse(second.isCreated());
+
+        first.release();
+        first.release();
+        Assert.assertEquals(0, closed.get());
+
+        second.release();
+        Assert.assertEquals(1, closed.get());
+    }
+
+    @Test
+    public void testDoesNotShareTheClientOfAnotherKey() {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 0);
+
+        PooledClient<Object> first = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        PooledClient<Object> second = clientPool.acquire(new ClientKey("s3", "user\nother", "eu-west-1", null, false, "0/0/3"), this::create, client -> closed.incrementAndGet());
+
+        Assert.assertNotSame(first.get(), second.get());
+        Assert.assertEquals(2, created.get());
+    }
+
+    @Test
+    public void testReusesAnIdleClientBeforeItsTimeout() {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 60_000);
+
+        PooledClient<Object> first = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        Object idle = first.get();
+        first.release();
+
+        PooledClient<Object> second = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+
+        Assert.assertSame(idle, second.get());
+        Assert.assertEquals(1, created.get());
+        Assert.assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void testClosesAnIdleClientAfterItsTimeout() throws InterruptedException {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 10);
+        CountDownLatch closedLatch = new CountDownLatch(1);
+
+        PooledClient<Object> first = clientPool.acquire(KEY, this::create, client -> closedLatch.countDown());
+        first.release();
+
+        Assert.assertTrue(closedLatch.await(10, TimeUnit.SECONDS));
+
+        clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        Assert.assertEquals(2, created.get());
+    }
+
+    @Test(timeout = 10_000)
+    public void testCreatesTheClientOutsideThePoolLock() throws Exception {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 0);
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        ClientFactory<Object, InterruptedException> slow = () -> {
+            creating.countDown();
+            proceed.await();
+            return create();
+        };
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<PooledClient<Object>> first = executorService.submit(() -> clientPool.acquire(KEY, slow, client -> closed.incrementAndGet()));
+            Assert.assertTrue(creating.await(5, TimeUnit.SECONDS));
+            Future<PooledClient<Object>> second = executorService.submit(() -> clientPool.acquire(KEY, slow, client -> closed.incrementAndGet()));
+
+            PooledClient<Object> other = clientPool.acquire(new ClientKey("s3", "user\nother", "eu-west-1", null, false, "0/0/3"), this::create, client -> closed.incrementAndGet());
+            Assert.assertTrue(other.isCreated());
+            Assert.assertFalse(first.isDone());
+
+            proceed.countDown();
+            Assert.assertSame(first.get().get(), second.get().get());
+            Assert.assertEquals(2, created.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCreatesTheClientAgainAfterAFailedCreation() {
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 0);
+
+        try {
+            clientPool.acquire(KEY, () -> {
+                throw new IllegalStateException("no credentials");
+            }, client -> closed.incrementAndGet());
+            Assert.fail("The failure of the factory was not thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("no credentials", e.getMessage());
+        }
+
+        Assert.assertTrue(clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet()).isCreated());
+    }
+
+    @Test
+    public void testCreatesAClientPerAcquisitionWhenDisabled() {
+        ClientPool clientPool = ClientPool.disabled();
+
+        PooledClient<Object> first = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        PooledClient<Object> second = clientPool.acquire(KEY, this::create, client -> closed.incrementAndGet());
+        first.release();
+        second.release();
+
+        Assert.assertNotSame(first.get(), second.get());
+        Assert.assertEquals(0, closed.get());
+    }
+
+    @Test
+    public void testKeyDoesNotExposeTheCredentials() {
+        Assert.assertFalse(KEY.toString().contains("secret"));
+    }
+
+    private Object create() {
+        created.incrementAndGet();
+        return new Object();
+    }
+
+}
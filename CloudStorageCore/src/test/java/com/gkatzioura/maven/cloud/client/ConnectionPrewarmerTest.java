@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConnectionPrewarmerTest {
+
+    @Test
+    public void testSendsTheProbesConcurrently() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        new ConnectionPrewarmer(4).prewarm("endpoint", () -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+        }).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(4, maxInFlight.get());
+    }
+
+    @Test
+    public void testIgnoresFailedProbes() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+
+        new ConnectionPrewarmer(2).prewarm("endpoint", () -> {
+            probes.incrementAndGet();
+            throw new IllegalStateException("404 Not Found");
+        }).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, probes.get());
+    }
+
+    @Test
+    public void testSendsNothingWhenDisabled() throws Exception {
+        AtomicInteger probes = new AtomicInteger();
+
+        ConnectionPrewarmer.disabled().prewarm("endpoint", probes::incrementAndGet).get(10, TimeUnit.SECONDS);
+
+        Assert.assertEquals(0, probes.get());
+    }
+
+}
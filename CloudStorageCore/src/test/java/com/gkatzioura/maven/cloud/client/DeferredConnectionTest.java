@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.client;
+
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.wagon.authentication.AuthenticationException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeferredConnectionTest {
+
+    private static final ClientKey KEY = new ClientKey("gcs", "default", null, null, false, "0/0/true");
+
+    @Test
+    public void testReturnsBeforeTheClientIsConnected() throws Exception {
+        CountDownLatch connecting = new CountDownLatch(1);
+        Object client = new Object();
+
+        DeferredConnection<Object> connection = DeferredConnection.connecting(() -> {
+            await(connecting);
+            return ClientPool.disabled().acquire(KEY, () -> client, closed -> {
+            });
+        });
+        connecting.countDown();
+
+        Assert.assertSame(client, connection.get());
+    }
+
+    @Test
+    public void testReportsTheFailureOnEveryRequest() {
+        AtomicInteger attempts = new AtomicInteger();
+        DeferredConnection<Object> connection = DeferredConnection.connecting(() -> {
+            attempts.incrementAndGet();
+            throw new AuthenticationException("Provide valid credentials");
+        });
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                connection.get();
+                Assert.fail();
+            } catch (AuthenticationException e) {
+                Assert.assertEquals("Provide valid credentials", e.getMessage());
+            }
+        }
+        Assert.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testReleasesTheClientOnceConnected() throws Exception {
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        ClientPool clientPool = new ClientPool(new HashMap<>(), 0);
+
+        DeferredConnection<Object> connection = DeferredConnection.connecting(() -> {
+            await(connecting);
+            return clientPool.acquire(KEY, Object::new, client -> closed.countDown());
+        });
+        connection.release();
+        Assert.assertEquals(1, closed.getCount());
+
+        connecting.countDown();
+        Assert.assertTrue(closed.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
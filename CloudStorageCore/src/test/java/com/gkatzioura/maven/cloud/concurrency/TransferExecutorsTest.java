@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.concurrency;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TransferExecutorsTest {
+
+    @Test
+    public void testSelectsTheConfiguredThreads() {
+        Assert.assertEquals(TransferExecutors.PLATFORM, TransferExecutors.select("platform").getName());
+        Assert.assertEquals(TransferExecutors.PLATFORM, TransferExecutors.select(" Platform ").getName());
+
+        String expected = TransferExecutors.isVirtualThreadsAvailable() ? TransferExecutors.VIRTUAL : TransferExecutors.PLATFORM;
+        Assert.assertEquals(expected, TransferExecutors.select(null).getName());
+        Assert.assertEquals(expected, TransferExecutors.select("auto").getName());
+        Assert.assertEquals(expected, TransferExecutors.select("virtual").getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnknownThreads() {
+        TransferExecutors.select("green");
+    }
+
+    @Test
+    public void testBoundsThePlatformThreads() throws Exception {
+        assertBoundsConcurrency(TransferExecutors.platformThreads());
+    }
+
+    @Test
+    public void testBoundsTheVirtualThreads() throws Exception {
+        Assume.assumeTrue(TransferExecutors.isVirtualThreadsAvailable());
+        assertBoundsConcurrency(TransferExecutors.virtualThreads());
+    }
+
+    @Test
+    public void testRunsSerialTasksOnTheCallingThread() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        try (FanOut<IOException> fanOut = new FanOut<>(TransferExecutors.platformThreads(), 1, "fan-out")) {
+            fanOut.submit(() -> threads.add(Thread.currentThread().getName()));
+            try {
+                fanOut.submit(() -> {
+                    throw new IOException("first");
+                });
+                Assert.fail();
+            } catch (IOException e) {
+                Assert.assertEquals("first", e.getMessage());
+            }
+            fanOut.await();
+        }
+        Assert.assertEquals(Thread.currentThread().getName(), threads.get(0));
+    }
+
+    @Test
+    public void testThrowsTheFirstFailureOfTheConcurrentTasks() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        try (FanOut<IOException> fanOut = new FanOut<>(TransferExecutors.platformThreads(), 4, "fan-out")) {
+            for (int i = 0; i < 10; i++) {
+                int task = i;
+                fanOut.submit(() -> {
+                    if (task == 3 || task == 7) {
+                        throw new IOException("task " + task);
+                    }
+                    completed.incrementAndGet();
+                });
+            }
+            fanOut.await();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("task 3", e.getMessage());
+            Assert.assertEquals("task 7", e.getSuppressed()[0].getMessage());
+            Assert.assertEquals(8, completed.get());
+        }
+    }
+
+    @Test
+    public void testBoundsTheTasksInFlight() throws Exception {
+        AtomicInteger completed = new AtomicInteger();
+        int maxOutstanding = 0;
+        try (FanOut<IOException> fanOut = new FanOut<>(TransferExecutors.platformThreads(), 3, "fan-out")) {
+            for (int i = 1; i <= 30; i++) {
+                fanOut.submit(() -> {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    completed.incrementAndGet();
+                });
+                maxOutstanding = Math.max(maxOutstanding, i - completed.get());
+            }
+            fanOut.await();
+        }
+        Assert.assertTrue("At most 3 tasks in flight, was " + maxOutstanding, maxOutstanding <= 3);
+        Assert.assertEquals(30, completed.get());
+    }
+
+    private void assertBoundsConcurrency(TransferExecutor transferExecutor) throws Exception {
+        ExecutorService executorService = transferExecutor.newExecutor(3, "bounded");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(3);
+        List<Future<?>> futures = new CopyOnWriteArrayList<>();
+
+        try {
+            for (int i = 0; i < 12; i++) {
+                futures.add(executorService.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    started.countDown();
+                    try {
+                        started.await(5, TimeUnit.SECONDS);
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertEquals(3, maxRunning.get());
+    }
+
+}
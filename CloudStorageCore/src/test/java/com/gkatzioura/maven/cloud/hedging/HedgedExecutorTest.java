@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.hedging;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.OperationMetrics;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.metrics.TransferMetricsRegistry;
+
+public class HedgedExecutorTest {
+
+    @Test
+    public void testDisabledExecutorRunsOnTheCallingThread() throws IOException {
+        Thread caller = Thread.currentThread();
+        Assert.assertTrue(HedgedExecutor.disabled().execute(Operation.GET, () -> Thread.currentThread() == caller));
+    }
+
+    @Test
+    public void testDoesNotHedgeBeforeEnoughLatencies() throws IOException {
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(50, 0, 100), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = hedgedExecutor.execute(Operation.EXISTS, () -> {
+            calls.incrementAndGet();
+            sleep(50);
+            return "metadata";
+        });
+
+        Assert.assertEquals("metadata", result);
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testSlowRequestIsHedgedAndTheLoserInterrupted() throws Exception {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("HedgeWagon", "test://hedge/win");
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(95, 5, 100), transferMetrics);
+        warmUp(hedgedExecutor);
+
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        String result = hedgedExecutor.execute(Operation.GET, () -> {
+            if (calls.incrementAndGet() > 1) {
+                return "hedge";
+            }
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "primary";
+        });
+
+        Assert.assertEquals("hedge", result);
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        OperationMetrics get = transferMetrics.get(Operation.GET);
+        Assert.assertEquals(1, get.getHedges());
+        Assert.assertEquals(1, get.getHedgeWins());
+    }
+
+    @Test
+    public void testHedgesAreLimitedByTheBudget() throws IOException {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("HedgeWagon", "test://hedge/budget");
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(95, 5, 5), transferMetrics);
+        warmUp(hedgedExecutor);
+
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            hedgedExecutor.execute(Operation.GET, () -> {
+                calls.incrementAndGet();
+                sleep(50);
+                return "slow";
+            });
+        }
+
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(1, transferMetrics.get(Operation.GET).getHedges());
+    }
+
+    @Test
+    public void testFailedRequestIsAnsweredByTheHedge() throws IOException {
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(95, 5, 100), null);
+        warmUp(hedgedExecutor);
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = hedgedExecutor.execute(Operation.GET, () -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(50);
+                throw new IOException("connection reset");
+            }
+            sleep(100);
+            return "hedge";
+        });
+
+        Assert.assertEquals("hedge", result);
+    }
+
+    @Test(expected = IOException.class)
+    public void testThrowsWhenBothRequestsFail() throws IOException {
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(95, 5, 100), null);
+        warmUp(hedgedExecutor);
+
+        hedgedExecutor.execute(Operation.GET, () -> {
+            sleep(50);
+            throw new IOException("connection reset");
+        });
+    }
+
+    @Test
+    public void testOnlySmallObjectsAreHedged() {
+        HedgedExecutor hedgedExecutor = new HedgedExecutor(new HedgingPolicy(95, 5, 5, 4096), null);
+
+        Assert.assertTrue(hedgedExecutor.isHedged(0));
+        Assert.assertTrue(hedgedExecutor.isHedged(4096));
+        Assert.assertFalse(hedgedExecutor.isHedged(4097));
+        Assert.assertFalse(hedgedExecutor.isHedged(-1));
+        Assert.assertFalse(HedgedExecutor.disabled().isHedged(10));
+    }
+
+    private static void warmUp(HedgedExecutor hedgedExecutor) throws IOException {
+        for (int i = 0; i < 20; i++) {
+            hedgedExecutor.execute(Operation.GET, () -> "fast");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listener;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.resource.Resource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.wagon.StubStorageWagon;
+
+public class TransferListenerContainerImplTest {
+
+    @Test
+    public void testRegistersListenersOnce() {
+        TransferListenerContainerImpl container = new TransferListenerContainerImpl(new StubStorageWagon());
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+
+        container.addTransferListener(first);
+        container.addTransferListener(first);
+        container.addTransferListener(second);
+        container.fireTransferProgress(new Resource("a.jar"), TransferEvent.REQUEST_GET, new byte[1], 1);
+        Assert.assertEquals(1, first.lengths.size());
+        Assert.assertEquals(1, second.lengths.size());
+
+        container.removeTransferListener(first);
+        Assert.assertFalse(container.hasTransferListener(first));
+        Assert.assertTrue(container.hasTransferListener(second));
+        container.fireTransferProgress(new Resource("a.jar"), TransferEvent.REQUEST_GET, new byte[1], 1);
+        Assert.assertEquals(1, first.lengths.size());
+        Assert.assertEquals(2, second.lengths.size());
+    }
+
+    @Test
+    public void testNotifiesEveryChunkByDefault() {
+        TransferListenerContainerImpl container = new TransferListenerContainerImpl(new StubStorageWagon());
+        RecordingListener listener = new RecordingListener();
+        container.addTransferListener(listener);
+
+        TransferProgress transferProgress = container.createTransferProgress(new Resource("a.jar"), TransferEvent.REQUEST_GET);
+        byte[] chunk = new byte[4096];
+        for (int i = 0; i < 10; i++) {
+            transferProgress.progress(chunk, 0, chunk.length);
+        }
+        transferProgress.flush();
+
+        Assert.assertEquals(10, listener.lengths.size());
+    }
+
+    @Test
+    public void testCoalescesByBytesAndDeliversExactContent() {
+        TransferListenerContainerImpl container = new TransferListenerContainerImpl(new StubStorageWagon());
+        container.setProgressCoalescing(10_000, 0);
+        RecordingListener listener = new RecordingListener();
+        container.addTransferListener(listener);
+
+        TransferProgress transferProgress = container.createTransferProgress(new Resource("a.jar"), TransferEvent.REQUEST_GET);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096 + 8];
+        for (int i = 0; i < 25; i++) {
+            for (int j = 0; j < chunk.length; j++) {
+                chunk[j] = (byte) (i + j);
+            }
+            transferProgress.progress(chunk, 8, 4096);
+            expected.write(chunk, 8, 4096);
+        }
+        transferProgress.flush();
+        transferProgress.flush();
+
+        Assert.assertEquals(11, listener.lengths.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(10_000, (int) listener.lengths.get(i));
+        }
+        Assert.assertEquals(25 * 4096 - 100_000, (int) listener.lengths.get(10));
+        Assert.assertArrayEquals(expected.toByteArray(), listener.content.toByteArray());
+    }
+
+    @Test
+    public void testCoalescesByTime() throws InterruptedException {
+        TransferListenerContainerImpl container = new TransferListenerContainerImpl(new StubStorageWagon());
+        container.setProgressCoalescing(0, 20);
+        RecordingListener listener = new RecordingListener();
+        container.addTransferListener(listener);
+
+        TransferProgress transferProgress = container.createTransferProgress(new Resource("a.jar"), TransferEvent.REQUEST_PUT);
+        byte[] chunk = new byte[100];
+        transferProgress.progress(chunk, 0, chunk.length);
+        transferProgress.progress(chunk, 0, chunk.length);
+        Assert.assertTrue(listener.lengths.isEmpty());
+
+        Thread.sleep(30);
+        transferProgress.progress(chunk, 0, chunk.length);
+        Assert.assertEquals(1, listener.lengths.size());
+        Assert.assertEquals(300, (int) listener.lengths.get(0));
+    }
+
+    @Test
+    public void testNotifiesSkippedTransfersAsCompleted() {
+        TransferListenerContainerImpl container = new TransferListenerContainerImpl(new StubStorageWagon());
+        RecordingListener listener = new RecordingListener();
+        container.addTransferListener(listener);
+
+        container.fireTransferSkipped(new Resource("a.jar"), TransferEvent.REQUEST_PUT);
+
+        Assert.assertEquals(1, listener.skipped);
+        Assert.assertEquals(1, listener.completed);
+        Assert.assertTrue(listener.lengths.isEmpty());
+    }
+
+    private static final class RecordingListener implements SkippedTransferListener {
+
+        private final List<Integer> lengths = new ArrayList<>();
+        private int skipped;
+        private int completed;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        @Override
+        public void transferInitiated(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void transferStarted(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void transferProgress(TransferEvent transferEvent, byte[] buffer, int length) {
+            Assert.assertEquals(TransferEvent.TRANSFER_PROGRESS, transferEvent.getEventType());
+            lengths.add(length);
+            content.write(buffer, 0, length);
+        }
+
+        @Override
+        public void transferSkipped(TransferEvent transferEvent) {
+            Assert.assertEquals(0, completed);
+            skipped++;
+        }
+
+        @Override
+        public void transferCompleted(TransferEvent transferEvent) {
+            completed++;
+        }
+
+        @Override
+        public void transferError(TransferEvent transferEvent) {
+        }
+
+        @Override
+        public void debug(String message) {
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PagedKeyIteratorTest {
+
+    @Test
+    public void testFollowsContinuationTokens() {
+        List<String> tokens = new ArrayList<>();
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> {
+            tokens.add(token);
+            if (token == null) {
+                return new KeyPage<>(Arrays.asList("a", "b"), "second");
+            } else if (token.equals("second")) {
+                return new KeyPage<>(Collections.emptyList(), "third");
+            } else {
+                return new KeyPage<>(Collections.singletonList("c"), "");
+            }
+        });
+
+        List<String> keys = new ArrayList<>();
+        iterator.forEachRemaining(keys::add);
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), keys);
+        Assert.assertEquals(Arrays.asList(null, "second", "third"), tokens);
+    }
+
+    @Test
+    public void testFetchesPagesOnDemand() {
+        List<String> tokens = new ArrayList<>();
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> {
+            tokens.add(token);
+            return new KeyPage<>(Collections.singletonList("key"), "next");
+        });
+
+        Assert.assertTrue(tokens.isEmpty());
+        Assert.assertEquals("key", iterator.next());
+        Assert.assertEquals(1, tokens.size());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testFailsPastTheLastKey() {
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> new KeyPage<>(null, null));
+
+        Assert.assertFalse(iterator.hasNext());
+        iterator.next();
+    }
+
+}
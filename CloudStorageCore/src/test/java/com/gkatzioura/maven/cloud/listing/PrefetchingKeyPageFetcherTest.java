@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.listing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefetchingKeyPageFetcherTest {
+
+    @Test
+    public void testHandsOutPagesInListingOrder() {
+        List<String> tokens = Collections.synchronizedList(new ArrayList<>());
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> {
+            tokens.add(token);
+            if (token == null) {
+                return new KeyPage<>(Arrays.asList("a", "b"), "second");
+            } else if (token.equals("second")) {
+                return new KeyPage<>(Collections.emptyList(), "third");
+            } else {
+                return new KeyPage<>(Collections.singletonList("c"), null);
+            }
+        }, 2);
+
+        List<String> keys = new ArrayList<>();
+        iterator.forEachRemaining(keys::add);
+        iterator.close();
+
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), keys);
+        Assert.assertEquals(Arrays.asList(null, "second", "third"), tokens);
+    }
+
+    @Test
+    public void testFetchesAheadUpToTheBound() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+        CountDownLatch blocked = new CountDownLatch(4);
+        PrefetchingKeyPageFetcher<String> fetcher = new PrefetchingKeyPageFetcher<>(token -> {
+            int page = fetched.incrementAndGet();
+            blocked.countDown();
+            return new KeyPage<>(Collections.singletonList("key" + page), "next");
+        }, 2);
+
+        try {
+            Assert.assertEquals(Collections.singletonList("key1"), fetcher.fetch(null).getKeys());
+            Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+            Thread.sleep(100);
+            Assert.assertEquals(4, fetched.get());
+        } finally {
+            fetcher.close();
+        }
+    }
+
+    @Test
+    public void testThrowsTheFailureOfTheFailedPage() {
+        PagedKeyIterator<String> iterator = new PagedKeyIterator<>(token -> {
+            if (token == null) {
+                return new KeyPage<>(Collections.singletonList("a"), "second");
+            }
+            throw new IllegalStateException("listing failed");
+        }, 1);
+
+        try {
+            Assert.assertEquals("a", iterator.next());
+            iterator.hasNext();
+            Assert.fail("The failure of the second page was not thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("listing failed", e.getMessage());
+        } finally {
+            iterator.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testKeepsThrowingTheFailureAfterTheFailedPage() {
+        AtomicInteger requests = new AtomicInteger();
+        PrefetchingKeyPageFetcher<String> fetcher = new PrefetchingKeyPageFetcher<>(token -> {
+            requests.incrementAndGet();
+            throw new IllegalStateException("listing failed");
+        }, 1);
+
+        try {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    fetcher.fetch(null);
+                    Assert.fail("The failure of the page was not thrown");
+                } catch (IllegalStateException e) {
+                    Assert.assertEquals("listing failed", e.getMessage());
+                }
+            }
+            Assert.assertEquals(1, requests.get());
+        } finally {
+            fetcher.close();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testReturnsAnEmptyPageAfterTheLastPage() {
+        PrefetchingKeyPageFetcher<String> fetcher = new PrefetchingKeyPageFetcher<>(token -> new KeyPage<>(Collections.singletonList("a"), null), 1);
+
+        try {
+            Assert.assertEquals(Collections.singletonList("a"), fetcher.fetch(null).getKeys());
+
+            KeyPage<String> pastTheEnd = fetcher.fetch(null);
+            Assert.assertTrue(pastTheEnd.getKeys().isEmpty());
+            Assert.assertTrue(pastTheEnd.isLast());
+        } finally {
+            fetcher.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailsOnceClosed() {
+        PrefetchingKeyPageFetcher<String> fetcher = new PrefetchingKeyPageFetcher<>(token -> new KeyPage<>(null, null), 1);
+        fetcher.close();
+        fetcher.fetch(null);
+    }
+
+}
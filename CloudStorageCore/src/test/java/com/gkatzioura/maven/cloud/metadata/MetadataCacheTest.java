@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metadata;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetadataCacheTest {
+
+    private static final String LOCATION = "s3://bucket/releases/maven-metadata.xml";
+
+    @Test
+    public void testServesFreshEntries() {
+        MetadataCache metadataCache = new MetadataCache(60_000);
+        CountingLoader loader = new CountingLoader(new ResourceMetadata(10, 20, "etag"));
+
+        Assert.assertEquals("etag", metadataCache.get(LOCATION, loader).getVersion());
+        Assert.assertEquals("etag", metadataCache.get(LOCATION, loader).getVersion());
+        Assert.assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void testCachesMissingResources() {
+        MetadataCache metadataCache = new MetadataCache(60_000);
+        CountingLoader loader = new CountingLoader(null);
+
+        Assert.assertNull(metadataCache.get(LOCATION, loader));
+        Assert.assertNull(metadataCache.get(LOCATION, loader));
+        Assert.assertEquals(1, loader.loads.get());
+    }
+
+    @Test
+    public void testExpiresEntries() throws InterruptedException {
+        MetadataCache metadataCache = new MetadataCache(1);
+        CountingLoader loader = new CountingLoader(null);
+
+        metadataCache.get(LOCATION, loader);
+        Thread.sleep(5);
+        metadataCache.get(LOCATION, loader);
+        Assert.assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testInvalidatesEntries() {
+        MetadataCache metadataCache = new MetadataCache(60_000);
+        CountingLoader loader = new CountingLoader(null);
+
+        metadataCache.get(LOCATION, loader);
+        metadataCache.invalidate(LOCATION);
+        metadataCache.get(LOCATION, loader);
+        Assert.assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testDoesNotStoreLoadsRacingAnInvalidation() {
+        MetadataCache metadataCache = new MetadataCache(60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        metadataCache.get(LOCATION, () -> {
+            loads.incrementAndGet();
+            metadataCache.invalidate(LOCATION);
+            return null;
+        });
+        metadataCache.get(LOCATION, () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testDisabledWithoutTtl() {
+        MetadataCache metadataCache = new MetadataCache(0);
+        CountingLoader loader = new CountingLoader(null);
+
+        metadataCache.get(LOCATION, loader);
+        metadataCache.get(LOCATION, loader);
+        Assert.assertEquals(2, loader.loads.get());
+    }
+
+    @Test
+    public void testSharesJvmWideEntries() {
+        String location = LOCATION + "#jvm";
+        CountingLoader loader = new CountingLoader(null);
+
+        MetadataCache.jvmWide(60_000).get(location, loader);
+        MetadataCache.jvmWide(60_000).get(location, loader);
+        new MetadataCache(60_000).get(location, loader);
+        Assert.assertEquals(2, loader.loads.get());
+    }
+
+    private static final class CountingLoader implements MetadataLoader<RuntimeException> {
+
+        private final ResourceMetadata resourceMetadata;
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private CountingLoader(ResourceMetadata resourceMetadata) {
+            this.resourceMetadata = resourceMetadata;
+        }
+
+        @Override
+        public ResourceMetadata load() {
+            loads.incrementAndGet();
+            return resourceMetadata;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TransferMetricsTest {
+
+    @Test
+    public void testReportsPercentilesAsBucketBounds() {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            latencyHistogram.record(TimeUnit.MICROSECONDS.toNanos(1000));
+        }
+        for (int i = 0; i < 10; i++) {
+            latencyHistogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        Assert.assertEquals(100, latencyHistogram.getCount());
+        Assert.assertEquals(1.024, latencyHistogram.getPercentileMillis(50), 0);
+        Assert.assertEquals(1.024, latencyHistogram.getPercentileMillis(90), 0);
+        Assert.assertEquals(131.072, latencyHistogram.getPercentileMillis(99), 0);
+        Assert.assertEquals(100, latencyHistogram.getMaxMillis(), 0);
+        Assert.assertEquals(10.9, latencyHistogram.getMeanMillis(), 0.001);
+    }
+
+    @Test
+    public void testRecordsUnfinishedSamplesAsErrors() {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("TestWagon", "test://samples");
+
+        try (OperationSample sample = transferMetrics.start(Operation.PUT)) {
+            sample.succeeded(128);
+        }
+        try (OperationSample ignored = transferMetrics.start(Operation.PUT)) {
+        }
+
+        OperationMetrics put = transferMetrics.get(Operation.PUT);
+        Assert.assertEquals(2, put.getRequests());
+        Assert.assertEquals(1, put.getErrors());
+        Assert.assertEquals(128, put.getBytes());
+        Assert.assertEquals(0, transferMetrics.get(Operation.GET).getRequests());
+    }
+
+    @Test
+    public void testSharesMetricsPerRepository() {
+        TransferMetricsRegistry registry = TransferMetricsRegistry.getInstance();
+
+        Assert.assertSame(registry.metrics("TestWagon", "test://shared"), registry.metrics("TestWagon", "test://shared"));
+        Assert.assertNotSame(registry.metrics("TestWagon", "test://shared"), registry.metrics("OtherWagon", "test://shared"));
+    }
+
+    @Test
+    public void testExposesMetricsOverJmx() throws Exception {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("TestWagon", "test://jmx/repository");
+        try (OperationSample sample = transferMetrics.start(Operation.GET)) {
+            sample.succeeded(42);
+        }
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = TransferMetricsRegistry.objectName("TestWagon", "test://jmx/repository", Operation.GET);
+
+        Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "Requests"));
+        Assert.assertEquals(42L, mBeanServer.getAttribute(objectName, "Bytes"));
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NetworkConditionsTest {
+
+    @Test
+    public void testWaitsForTheLatency() throws Exception {
+        NetworkConditions networkConditions = new NetworkConditions(50, 0);
+
+        long start = System.nanoTime();
+        networkConditions.request();
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+
+    @Test
+    public void testLimitsTheBandwidth() throws Exception {
+        NetworkConditions networkConditions = new NetworkConditions(0, 64 * 1024);
+
+        long start = System.nanoTime();
+        try (InputStream inputStream = networkConditions.throttle(new ByteArrayInputStream(new byte[16 * 1024]))) {
+            byte[] buffer = new byte[1024];
+            int total = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                total += read;
+            }
+            Assert.assertEquals(16 * 1024, total);
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 240);
+    }
+
+    @Test
+    public void testLeavesTheStreamUnlimited() {
+        InputStream inputStream = new ByteArrayInputStream(new byte[0]);
+        Assert.assertSame(inputStream, NetworkConditions.NONE.throttle(inputStream));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeConditions() {
+        new NetworkConditions(-1, 0);
+    }
+
+}
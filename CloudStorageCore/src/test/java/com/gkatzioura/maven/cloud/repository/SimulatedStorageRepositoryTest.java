@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.events.TransferEvent;
+import org.apache.maven.wagon.observers.AbstractTransferListener;
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.DigestMismatchException;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.wagon.SimulatedStorageWagon;
+
+public class SimulatedStorageRepositoryTest {
+
+    private static final TransferProgress NO_PROGRESS = (buffer, offset, length) -> { };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testInMemoryRoundTrip() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository("releases", NetworkConditions.NONE);
+        assertRoundTrip(repository);
+
+        ResourceMetadata resourceMetadata = repository.metadata("com/example/artifact.pom");
+        Assert.assertTrue(resourceMetadata.getChecksum().isPresent());
+        Assert.assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void testFileSystemRoundTrip() throws Exception {
+        File root = temporaryFolder.newFolder("repository");
+        FileSystemStorageRepository repository = new FileSystemStorageRepository(root.toPath(), "releases", NetworkConditions.NONE);
+        assertRoundTrip(repository);
+
+        Assert.assertTrue(new File(root, "releases/com/example/artifact.pom").isFile());
+        Assert.assertEquals(1, root.toPath().resolve("releases/com/example").toFile().list().length);
+    }
+
+    @Test
+    public void testFindsIdenticalContent() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository(NetworkConditions.NONE);
+        File file = write("artifact.jar", "content");
+
+        Assert.assertNull(repository.identical(file, "artifact.jar"));
+        ContentDigests uploaded = repository.put(file, "artifact.jar", NO_PROGRESS);
+
+        ContentDigests identical = repository.identical(file, "artifact.jar");
+        Assert.assertNotNull(identical);
+        Assert.assertEquals(uploaded.getSha1Hex(), identical.getSha1Hex());
+        Assert.assertNull(repository.identical(write("changed.jar", "changed"), "artifact.jar"));
+    }
+
+    @Test
+    public void testUploadInvalidatesTheMissingResource() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository(NetworkConditions.NONE);
+        repository.setMetadataCache(new MetadataCache(60_000));
+
+        Assert.assertFalse(repository.exists("artifact.pom"));
+        try {
+            repository.copy("artifact.pom", temporaryFolder.newFile(), NO_PROGRESS);
+            Assert.fail("Expected the missing resource to be reported");
+        } catch (ResourceDoesNotExistException e) {
+            Assert.assertEquals("artifact.pom", e.getMessage());
+        }
+
+        repository.put(write("artifact.pom", "<project/>"), "artifact.pom", NO_PROGRESS);
+        Assert.assertTrue(repository.exists("artifact.pom"));
+    }
+
+    @Test
+    public void testVerifiesDownloads() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository(NetworkConditions.NONE) {
+            @Override
+            protected InputStream read(String key) {
+                return new ByteArrayInputStream("corrupted".getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        repository.put(write("artifact.jar", "content"), "artifact.jar", NO_PROGRESS);
+
+        File destination = temporaryFolder.newFile();
+        try {
+            repository.copy("artifact.jar", destination, NO_PROGRESS);
+            Assert.fail("Expected the corrupted download to be detected");
+        } catch (TransferFailedException e) {
+            Assert.assertTrue(e.getCause() instanceof DigestMismatchException);
+            Assert.assertFalse(destination.exists());
+        }
+
+        repository.setVerifyDownloads(false);
+        repository.copy("artifact.jar", destination, NO_PROGRESS);
+        Assert.assertEquals("corrupted", read(destination));
+    }
+
+    @Test
+    public void testWagonTransfersThroughTheRepository() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository(new NetworkConditions(1, 0));
+        SimulatedStorageWagon wagon = new SimulatedStorageWagon(repository);
+        wagon.setSkipIdenticalUploads(true);
+        wagon.connect(new Repository("simulated", "memory://simulated/releases"));
+
+        File file = write("artifact.pom", "<project/>");
+        wagon.put(file, "com/example/artifact.pom");
+        wagon.put(file, "com/example/artifact.pom");
+        Assert.assertEquals(file.length(), wagon.getTransferMetrics().get(Operation.PUT).getBytes());
+
+        File destination = temporaryFolder.newFile();
+        Assert.assertTrue(wagon.resourceExists("com/example/artifact.pom"));
+        Assert.assertFalse(wagon.getIfNewer("com/example/artifact.pom", destination, System.currentTimeMillis() + 60_000));
+        wagon.get("com/example/artifact.pom", destination);
+        Assert.assertEquals("<project/>", read(destination));
+        Assert.assertEquals(Collections.singletonList("com/example/artifact.pom"), wagon.getFileList("com"));
+        wagon.disconnect();
+    }
+
+    @Test
+    public void testWagonReportsAFailedGetIfNewerOnce() throws Exception {
+        InMemoryStorageRepository repository = new InMemoryStorageRepository(NetworkConditions.NONE) {
+            @Override
+            protected InputStream read(String key) {
+                return new ByteArrayInputStream("corrupted".getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        repository.put(write("artifact.pom", "<project/>"), "com/example/artifact.pom", NO_PROGRESS);
+
+        SimulatedStorageWagon wagon = new SimulatedStorageWagon(repository);
+        AtomicInteger errors = new AtomicInteger();
+        wagon.addTransferListener(new AbstractTransferListener() {
+            @Override
+            public void transferError(TransferEvent transferEvent) {
+                errors.incrementAndGet();
+            }
+        });
+        wagon.connect(new Repository("simulated", "memory://simulated/releases"));
+
+        try {
+            wagon.getIfNewer("com/example/artifact.pom", temporaryFolder.newFile(), 0);
+            Assert.fail("Expected the corrupted download to fail");
+        } catch (TransferFailedException e) {
+            Assert.assertEquals(1, errors.get());
+        }
+        wagon.disconnect();
+    }
+
+    private void assertRoundTrip(SimulatedStorageRepository repository) throws Exception {
+        File file = write("artifact.pom", "<project/>");
+
+        Assert.assertFalse(repository.exists("com/example/artifact.pom"));
+        ContentDigests contentDigests = repository.put(file, "com/example/artifact.pom", NO_PROGRESS);
+        Assert.assertEquals(file.length(), contentDigests.getLength());
+        repository.put(file, "com/example/artifact.pom", NO_PROGRESS);
+
+        Assert.assertTrue(repository.exists("com/example/artifact.pom"));
+        Assert.assertTrue(repository.newResourceAvailable("com/example/artifact.pom", 0));
+        Assert.assertEquals(Arrays.asList("com/example/artifact.pom"), repository.list("com"));
+        Assert.assertEquals(Arrays.asList("com/example/artifact.pom"), repository.listAsync(".").get());
+        Assert.assertEquals(Collections.emptyList(), repository.list("co"));
+
+        File destination = temporaryFolder.newFile();
+        ResourceMetadata resourceMetadata = repository.getAsync("com/example/artifact.pom", destination, NO_PROGRESS).get();
+        Assert.assertEquals(file.length(), resourceMetadata.getContentLength());
+        Assert.assertEquals("<project/>", read(destination));
+
+        try {
+            repository.copy("com/example/missing.pom", temporaryFolder.newFile(), NO_PROGRESS);
+            Assert.fail("Expected the missing resource to be reported");
+        } catch (ResourceDoesNotExistException e) {
+            Assert.assertEquals("com/example/missing.pom", e.getMessage());
+        }
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(temporaryFolder.newFolder(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.retry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.OperationMetrics;
+import com.gkatzioura.maven.cloud.metrics.TransferMetrics;
+import com.gkatzioura.maven.cloud.metrics.TransferMetricsRegistry;
+import com.gkatzioura.maven.cloud.settings.RequestSettings;
+
+public class RetryExecutorTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    public void testRetriesTransientErrorsUntilSuccess() throws IOException {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("RetryWagon", "test://retry/success");
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(4, 100, 1000, 0), transferMetrics);
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = retryExecutor.execute(Operation.GET, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("connection reset");
+            }
+            return "content";
+        });
+
+        Assert.assertEquals("content", result);
+        Assert.assertEquals(3, calls.get());
+        Assert.assertEquals(2, sleeps.size());
+
+        OperationMetrics get = transferMetrics.get(Operation.GET);
+        Assert.assertEquals(3, get.getAttempts());
+        Assert.assertEquals(2, get.getRetries());
+        Assert.assertEquals(2, get.getFailedAttempts());
+    }
+
+    @Test
+    public void testDoesNotRetryPermanentErrors() {
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(4, 100, 1000, 0), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retryExecutor.execute(Operation.EXISTS, () -> {
+                calls.incrementAndGet();
+                throw new IllegalArgumentException("access denied");
+            });
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(1, calls.get());
+            Assert.assertTrue(sleeps.isEmpty());
+        }
+    }
+
+    @Test
+    public void testThrowsTheLastErrorOnceAttemptsAreExhausted() {
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(3, 100, 1000, 0), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retryExecutor.execute(Operation.LIST, () -> {
+                throw new IOException("attempt " + calls.incrementAndGet());
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("attempt 3", e.getMessage());
+            Assert.assertEquals(2, sleeps.size());
+        }
+    }
+
+    @Test
+    public void testStopsRetryingAtTheDeadline() {
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(100, 0, 0, 1000), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            retryExecutor.execute(Operation.PUT, () -> {
+                calls.incrementAndGet();
+                clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+                throw new IOException("timed out");
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals(4, calls.get());
+        }
+    }
+
+    @Test
+    public void testRetriesASlowFirstAttemptWithTheDefaultSettings() throws IOException {
+        RetryExecutor retryExecutor = retryExecutor(new RequestSettings().createRetryPolicy(), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = retryExecutor.execute(Operation.PUT, () -> {
+            if (calls.incrementAndGet() == 1) {
+                clock.addAndGet(TimeUnit.MINUTES.toNanos(10));
+                throw new IOException("connection reset");
+            }
+            return "uploaded";
+        });
+
+        Assert.assertEquals("uploaded", result);
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testRetriesFailedFuturesUntilSuccess() throws Exception {
+        TransferMetrics transferMetrics = TransferMetricsRegistry.getInstance().metrics("RetryWagon", "test://retry/async");
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(4, 1, 10, 0), transferMetrics);
+
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> result = retryExecutor.executeAsync(Operation.GET, () -> {
+            CompletableFuture<String> attempt = new CompletableFuture<>();
+            if (calls.incrementAndGet() < 3) {
+                attempt.completeExceptionally(new IOException("connection reset"));
+            } else {
+                attempt.complete("content");
+            }
+            return attempt;
+        });
+
+        Assert.assertEquals("content", result.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(3, calls.get());
+        Assert.assertTrue("the backoff is scheduled, not slept", sleeps.isEmpty());
+        Assert.assertEquals(2, transferMetrics.get(Operation.GET).getRetries());
+    }
+
+    @Test
+    public void testCompletesWithTheUnwrappedPermanentError() throws Exception {
+        RetryExecutor retryExecutor = retryExecutor(new RetryPolicy(4, 1, 10, 0), null);
+
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> result = retryExecutor.executeAsync(Operation.EXISTS, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> {
+                throw new IllegalArgumentException("access denied");
+            });
+        });
+
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+            Assert.assertEquals(1, calls.get());
+        }
+    }
+
+    @Test
+    public void testDrawsBackoffWithinTheExponentialCeiling() {
+        RetryPolicy retryPolicy = new RetryPolicy(10, 100, 1000, 0);
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(retryPolicy.backoffMillis(0) <= 100);
+            Assert.assertTrue(retryPolicy.backoffMillis(2) <= 400);
+            Assert.assertTrue(retryPolicy.backoffMillis(10) <= 1000);
+            Assert.assertTrue(retryPolicy.backoffMillis(40) >= 0);
+        }
+    }
+
+    private RetryExecutor retryExecutor(RetryPolicy retryPolicy, TransferMetrics transferMetrics) {
+        return new RetryExecutor(retryPolicy, e -> e instanceof IOException, transferMetrics, millis -> {
+            sleeps.add(millis);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        }, clock::get);
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BufferedObjectTest {
+
+    @Test
+    public void testReadsContentUpToTheMaximumSize() throws Exception {
+        byte[] content = new byte[20_000];
+        content[19_999] = 7;
+
+        Assert.assertArrayEquals(content, BufferedObject.readContent(new ByteArrayInputStream(content), content.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRefusesContentOverTheMaximumSize() throws Exception {
+        BufferedObject.readContent(new ByteArrayInputStream(new byte[20_001]), 20_000);
+    }
+
+}
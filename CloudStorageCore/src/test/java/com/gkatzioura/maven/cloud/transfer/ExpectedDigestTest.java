@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+
+public class ExpectedDigestTest {
+
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.UTF_8);
+    private static final String MD5_HEX = "25f9e794323b453885f5181f1b624d0b";
+    private static final String MD5_BASE64 = "JfnnlDI7RTiF9RgfG2JNCw==";
+    private static final String CRC32C_BASE64 = "4waSgw==";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOnlyETagsHoldingAnMd5AreExpected() {
+        Assert.assertTrue(ExpectedDigest.md5Hex("\"" + MD5_HEX + "\"").isPresent());
+        Assert.assertFalse(ExpectedDigest.md5Hex("\"" + MD5_HEX + "-2\"").isPresent());
+        Assert.assertFalse(ExpectedDigest.md5Hex(null).isPresent());
+        Assert.assertNull(ExpectedDigest.NONE.newMultiDigest());
+    }
+
+    @Test
+    public void testVerifiesTheMd5OfAnETag() throws Exception {
+        ResourceMetadata resourceMetadata = ExpectedDigest.md5Hex(MD5_HEX).verify(new ResourceMetadata(CONTENT.length, 0, MD5_HEX), digest(CONTENT));
+
+        Assert.assertEquals(MD5_HEX, resourceMetadata.getContentDigests().getMd5Hex());
+    }
+
+    @Test
+    public void testPrefersTheCrc32c() throws Exception {
+        ExpectedDigest expectedDigest = ExpectedDigest.base64(CRC32C_BASE64, "AAAAAAAAAAAAAAAAAAAAAA==");
+
+        expectedDigest.verify(digest(CONTENT).finish());
+    }
+
+    @Test
+    public void testFallsBackToTheMd5() throws Exception {
+        ExpectedDigest.base64(null, MD5_BASE64).verify(digest(CONTENT).finish());
+    }
+
+    @Test
+    public void testDeletesTheFileOnMismatch() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), CONTENT);
+
+        try {
+            ExpectedDigest.base64(CRC32C_BASE64, null).verify(new ResourceMetadata(3, 0, null), digest("123".getBytes(StandardCharsets.UTF_8)), file);
+            Assert.fail("The mismatch was not detected");
+        } catch (DigestMismatchException e) {
+            Assert.assertFalse(file.exists());
+        }
+    }
+
+    @Test
+    public void testNothingIsVerifiedWithoutADigest() throws Exception {
+        ResourceMetadata resourceMetadata = new ResourceMetadata(CONTENT.length, 0, null);
+
+        Assert.assertSame(resourceMetadata, ExpectedDigest.NONE.verify(resourceMetadata, null));
+    }
+
+    @Test
+    public void testDigestsThePartOfAResumedDownload() throws Exception {
+        ResumableTransfers resumableTransfers = new ResumableTransfers(temporaryFolder.getRoot(), 1024);
+        MultiDigest multiDigest = new MultiDigest();
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload("s3://bucket/artifact.jar")) {
+            try (OutputStream outputStream = partialDownload.open(MD5_HEX, 0, (buffer, offset, length) -> { })) {
+                outputStream.write(CONTENT, 0, 4);
+            }
+
+            try (OutputStream outputStream = partialDownload.open(MD5_HEX, partialDownload.offsetFor(MD5_HEX), (buffer, offset, length) -> { }, multiDigest)) {
+                outputStream.write(CONTENT, 4, CONTENT.length - 4);
+            }
+        }
+
+        ExpectedDigest.md5Hex(MD5_HEX).verify(multiDigest.finish());
+    }
+
+    private static MultiDigest digest(byte[] content) {
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(content, 0, content.length);
+        return multiDigest;
+    }
+
+}
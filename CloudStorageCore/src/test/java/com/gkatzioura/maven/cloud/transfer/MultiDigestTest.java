@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MultiDigestTest {
+
+    private static final byte[] CONTENT = "123456789".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testComputesEveryDigestInOnePass() {
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(CONTENT, 0, 4);
+        multiDigest.update(CONTENT, 4, CONTENT.length - 4);
+
+        ContentDigests contentDigests = multiDigest.finish();
+
+        Assert.assertEquals(CONTENT.length, contentDigests.getLength());
+        Assert.assertEquals("25f9e794323b453885f5181f1b624d0b", contentDigests.getMd5Hex());
+        Assert.assertEquals("f7c3bc1d808e04732adf679965ccc34ca7ae3441", contentDigests.getSha1Hex());
+        Assert.assertEquals("15e2b0d3c33891ebb0f1ef609ec419420c20e320ce94c65fbc8c3312448eb225", contentDigests.getSha256Hex());
+        Assert.assertEquals(0xE3069283L, contentDigests.getCrc32c());
+        Assert.assertEquals("4waSgw==", contentDigests.getCrc32cBase64());
+    }
+
+    @Test
+    public void testFallbackCrc32cMatchesTheCheckValue() {
+        Crc32c crc32c = new Crc32c();
+        crc32c.update(CONTENT, 0, CONTENT.length);
+
+        Assert.assertEquals(0xE3069283L, crc32c.getValue());
+    }
+
+    @Test
+    public void testInputStreamRestartsTheDigest() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), CONTENT);
+
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(new byte[16], 0, 16);
+
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, (buffer, offset, length) -> { }, multiDigest)) {
+            byte[] buffer = new byte[4];
+            while (inputStream.read(buffer) != -1) {
+            }
+        }
+
+        ContentDigests contentDigests = multiDigest.finish();
+        Assert.assertEquals(CONTENT.length, contentDigests.getLength());
+        Assert.assertTrue(contentDigests.md5Matches(md5()));
+    }
+
+    private byte[] md5() {
+        MultiDigest multiDigest = new MultiDigest();
+        multiDigest.update(CONTENT, 0, CONTENT.length);
+        return multiDigest.finish().getMd5();
+    }
+
+}
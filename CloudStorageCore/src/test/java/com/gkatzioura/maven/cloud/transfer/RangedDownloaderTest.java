@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+
+public class RangedDownloaderTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testOnlyObjectsFromTheThresholdAreRanged() {
+        RangedDownloader rangedDownloader = new RangedDownloader(1024 * 1024, PART_SIZE, 4);
+
+        Assert.assertTrue(rangedDownloader.isRanged(1024 * 1024));
+        Assert.assertFalse(rangedDownloader.isRanged(1024 * 1024 - 1));
+        Assert.assertFalse(RangedDownloader.disabled().isRanged(Long.MAX_VALUE));
+        Assert.assertFalse(new RangedDownloader(1024, PART_SIZE, 1).isRanged(1024 * 1024));
+    }
+
+    @Test
+    public void testWritesEveryRangeAtItsPosition() throws Exception {
+        byte[] content = content(10 * PART_SIZE + 17);
+        File destination = new File(temporaryFolder.getRoot(), "nested/archive.zip");
+        CountingProgress progress = new CountingProgress();
+
+        new RangedDownloader(1, PART_SIZE, 4).download(reader(content), content.length, destination, progress, RetryExecutor.noRetries());
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(content.length, progress.bytes.get());
+        Assert.assertEquals(1, progress.flushes.get());
+    }
+
+    @Test
+    public void testRetriedRangesAreReportedOnce() throws Exception {
+        byte[] content = content(6 * PART_SIZE);
+        File destination = temporaryFolder.newFile();
+        CountingProgress progress = new CountingProgress();
+        Set<Long> failedOffsets = ConcurrentHashMap.newKeySet();
+
+        RangedDownloader.RangeReader failingOnce = (offset, length) -> {
+            InputStream inputStream = reader(content).open(offset, length);
+            return failedOffsets.add(offset) ? new FailingInputStream(inputStream, length / 2) : inputStream;
+        };
+        RetryExecutor retryExecutor = new RetryExecutor(new RetryPolicy(2, 1, 1, 0), e -> e instanceof IOException, null);
+
+        new RangedDownloader(1, PART_SIZE, 3).download(failingOnce, content.length, destination, progress, retryExecutor);
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(content.length, progress.bytes.get());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFailsWhenARangeExhaustsItsRetries() throws Exception {
+        byte[] content = content(4 * PART_SIZE);
+
+        RangedDownloader.RangeReader failing = (offset, length) -> {
+            InputStream inputStream = reader(content).open(offset, length);
+            return offset == 2 * PART_SIZE ? new FailingInputStream(inputStream, 10) : inputStream;
+        };
+
+        new RangedDownloader(1, PART_SIZE, 2).download(failing, content.length, temporaryFolder.newFile(), new CountingProgress(), RetryExecutor.noRetries());
+    }
+
+    @Test
+    public void testVerifiesTheAssembledFile() throws Exception {
+        byte[] content = content(5 * PART_SIZE + 3);
+        String md5Hex = MultiDigest.digest(writeTo(temporaryFolder.newFile(), content)).getMd5Hex();
+        File destination = temporaryFolder.newFile();
+
+        ResourceMetadata resourceMetadata = new RangedDownloader(1, PART_SIZE, 3).download(reader(content), new ResourceMetadata(content.length, 0, md5Hex),
+                ExpectedDigest.md5Hex(md5Hex), destination, new CountingProgress(), RetryExecutor.noRetries());
+
+        Assert.assertEquals(md5Hex, resourceMetadata.getContentDigests().getMd5Hex());
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    public void testReadsTheFirstRangeFromTheOpenedStream() throws Exception {
+        byte[] content = content(4 * PART_SIZE + 5);
+        File destination = temporaryFolder.newFile();
+        List<Long> openedOffsets = new CopyOnWriteArrayList<>();
+
+        RangedDownloader.RangeReader recording = (offset, length) -> {
+            openedOffsets.add(offset);
+            return reader(content).open(offset, length);
+        };
+
+        new RangedDownloader(1, PART_SIZE, 2).download(new ByteArrayInputStream(content, 0, PART_SIZE), recording, new ResourceMetadata(content.length, 0, null),
+                ExpectedDigest.NONE, destination, new CountingProgress(), RetryExecutor.noRetries());
+
+        Assert.assertArrayEquals(content, Files.readAllBytes(destination.toPath()));
+        Assert.assertFalse(openedOffsets.contains(0L));
+        Assert.assertEquals(4, openedOffsets.size());
+    }
+
+    @Test
+    public void testDeletesTheFileOnADigestMismatch() throws Exception {
+        byte[] content = content(5 * PART_SIZE + 3);
+        byte[] corrupted = content.clone();
+        corrupted[3 * PART_SIZE] ^= 1;
+        String md5Hex = MultiDigest.digest(writeTo(temporaryFolder.newFile(), content)).getMd5Hex();
+        File destination = temporaryFolder.newFile();
+
+        try {
+            new RangedDownloader(1, PART_SIZE, 3).download(reader(corrupted), new ResourceMetadata(content.length, 0, md5Hex),
+                    ExpectedDigest.md5Hex(md5Hex), destination, new CountingProgress(), RetryExecutor.noRetries());
+            Assert.fail("The corrupted range was not detected");
+        } catch (DigestMismatchException e) {
+            Assert.assertFalse(destination.exists());
+        }
+    }
+
+    private static File writeTo(File file, byte[] content) throws IOException {
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static RangedDownloader.RangeReader reader(byte[] content) {
+        return (offset, length) -> new ByteArrayInputStream(content, (int) offset, (int) length);
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private static final class FailingInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private FailingInputStream(InputStream inputStream, long failAfter) {
+            super(inputStream);
+            this.remaining = failAfter;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("connection reset");
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            remaining -= Math.max(0, read);
+            return read;
+        }
+    }
+
+    private static final class CountingProgress implements TransferProgress {
+
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong flushes = new AtomicLong();
+
+        @Override
+        public void progress(byte[] buffer, int offset, int length) {
+            bytes.addAndGet(length);
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResumableTransfersTest {
+
+    private static final String LOCATION = "s3://bucket/com/example/app/1.0/app-1.0.zip";
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ResumableTransfers resumableTransfers;
+
+    @Before
+    public void setUp() {
+        resumableTransfers = new ResumableTransfers(new File(temporaryFolder.getRoot(), "state"), 8);
+    }
+
+    @Test
+    public void testOnlyFilesLargerThanAPartAreUploadedInParts() throws Exception {
+        File small = temporaryFolder.newFile();
+        Files.write(small.toPath(), new byte[8]);
+        File large = temporaryFolder.newFile();
+        Files.write(large.toPath(), new byte[9]);
+
+        Assert.assertFalse(resumableTransfers.isResumableUpload(small));
+        Assert.assertTrue(resumableTransfers.isResumableUpload(large));
+        Assert.assertFalse(ResumableTransfers.disabled().isResumableUpload(large));
+    }
+
+    @Test
+    public void testResumesTheSameVersionFromTheEndOfThePart() throws Exception {
+        interruptedDownload("etag-1", 6);
+
+        RecordingProgress progress = new RecordingProgress();
+        File destination = new File(temporaryFolder.getRoot(), "repository/app-1.0.zip");
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION)) {
+            Assert.assertEquals("etag-1", partialDownload.getVersion());
+            long offset = partialDownload.offsetFor("etag-1");
+            Assert.assertEquals(6, offset);
+
+            try (OutputStream outputStream = partialDownload.open("etag-1", offset, progress)) {
+                outputStream.write(CONTENT, 6, CONTENT.length - 6);
+            }
+            partialDownload.complete(destination);
+        }
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertArrayEquals(CONTENT, progress.bytes.toByteArray());
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION)) {
+            Assert.assertNull(partialDownload.getVersion());
+        }
+    }
+
+    @Test
+    public void testStartsOverWhenTheVersionChanged() throws Exception {
+        interruptedDownload("etag-1", 6);
+
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION)) {
+            Assert.assertEquals(0, partialDownload.offsetFor("etag-2"));
+
+            try (OutputStream outputStream = partialDownload.open("etag-2", 0, new RecordingProgress())) {
+                outputStream.write(CONTENT, 0, 3);
+            }
+            Assert.assertEquals("etag-2", partialDownload.getVersion());
+            Assert.assertEquals(3, partialDownload.offsetFor("etag-2"));
+        }
+    }
+
+    @Test
+    public void testLockedPartIsNotShared() throws Exception {
+        interruptedDownload("etag-1", 6);
+
+        try (PartialDownload locked = resumableTransfers.partialDownload(LOCATION)) {
+            Assert.assertTrue(locked.isResumable());
+
+            File destination = new File(temporaryFolder.getRoot(), "repository/app-1.0.zip");
+            try (PartialDownload concurrent = resumableTransfers.partialDownload(LOCATION)) {
+                Assert.assertFalse(concurrent.isResumable());
+                Assert.assertNull(concurrent.getVersion());
+                Assert.assertEquals(0, concurrent.offsetFor("etag-1"));
+
+                try (OutputStream outputStream = concurrent.open("etag-1", 0, new RecordingProgress())) {
+                    outputStream.write(CONTENT);
+                }
+                concurrent.complete(destination);
+            }
+
+            Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+            Assert.assertEquals(6, locked.offsetFor("etag-1"));
+        }
+
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION)) {
+            Assert.assertTrue(partialDownload.isResumable());
+            Assert.assertEquals(6, partialDownload.offsetFor("etag-1"));
+        }
+    }
+
+    @Test
+    public void testRetriedPartIsReportedOnce() throws Exception {
+        RecordingProgress progress = new RecordingProgress();
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION)) {
+            try (OutputStream outputStream = partialDownload.open("etag-1", 0, progress)) {
+                outputStream.write(CONTENT, 0, 10);
+            }
+            try (OutputStream outputStream = partialDownload.open("etag-1", partialDownload.offsetFor("etag-1"), progress)) {
+                outputStream.write(CONTENT, 10, CONTENT.length - 10);
+            }
+        }
+
+        Assert.assertArrayEquals(CONTENT, progress.bytes.toByteArray());
+    }
+
+    @Test
+    public void testUploadStateIsBoundToTheFile() throws Exception {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), CONTENT);
+
+        Properties state = new Properties();
+        state.setProperty("uploadId", "upload-1");
+        resumableTransfers.saveUploadState(LOCATION, file, state);
+        Assert.assertEquals("upload-1", resumableTransfers.loadUploadState(LOCATION, file).getProperty("uploadId"));
+
+        Files.write(file.toPath(), "changed".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(resumableTransfers.loadUploadState(LOCATION, file).isEmpty());
+
+        resumableTransfers.saveUploadState(LOCATION, file, state);
+        resumableTransfers.deleteUploadState(LOCATION, file);
+        Assert.assertTrue(resumableTransfers.loadUploadState(LOCATION, file).isEmpty());
+    }
+
+    private void interruptedDownload(String version, int length) throws Exception {
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload(LOCATION);
+             OutputStream outputStream = partialDownload.open(version, 0, new RecordingProgress())) {
+            outputStream.write(CONTENT, 0, length);
+        }
+    }
+
+    private static final class RecordingProgress implements TransferProgress {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void progress(byte[] buffer, int offset, int length) {
+            bytes.write(buffer, offset, length);
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransferProgressStreamsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testInputStreamReportsBytesActuallyRead() throws Exception {
+        byte[] content = content(10_000);
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content);
+
+        RecordingProgress progress = new RecordingProgress();
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, progress)) {
+            byte[] buffer = new byte[4096];
+            while (inputStream.read(buffer) != -1) {
+            }
+        }
+
+        Assert.assertArrayEquals(content, progress.bytes.toByteArray());
+    }
+
+    @Test
+    public void testInputStreamReportsOffsetReadsAndSingleBytes() throws Exception {
+        byte[] content = content(5_000);
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content);
+
+        RecordingProgress progress = new RecordingProgress();
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, progress)) {
+            Assert.assertEquals(content[0], (byte) inputStream.read());
+            byte[] buffer = new byte[1024];
+            while (inputStream.read(buffer, 100, 700) != -1) {
+            }
+            Assert.assertEquals(-1, inputStream.read());
+        }
+
+        Assert.assertArrayEquals(content, progress.bytes.toByteArray());
+    }
+
+    @Test
+    public void testOutputStreamReportsWrittenBytes() throws Exception {
+        byte[] content = content(3_000);
+        File file = temporaryFolder.newFile();
+
+        RecordingProgress progress = new RecordingProgress();
+        try (OutputStream outputStream = new TransferProgressFileOutputStream(file, progress)) {
+            outputStream.write(content[0]);
+            outputStream.write(content, 1, 999);
+            outputStream.write(Arrays.copyOfRange(content, 1000, 3000));
+        }
+
+        Assert.assertArrayEquals(content, progress.bytes.toByteArray());
+        Assert.assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    private byte[] content(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static final class RecordingProgress implements TransferProgress {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public void progress(byte[] buffer, int offset, int length) {
+            bytes.write(buffer, offset, length);
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.wagon;
+
+import org.apache.maven.wagon.repository.Repository;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+
+public class AbstractStorageWagonTest {
+
+    @Test
+    public void testPassesTheWagonOptionsToTheStorageSettings() throws Exception {
+        StubStorageWagon wagon = new StubStorageWagon();
+        wagon.setRetryAttempts(2);
+        wagon.setVerifyDownloads(false);
+        wagon.setLazyConnect(true);
+        wagon.setTimeout(1_000);
+        wagon.setReadTimeout(2_000);
+        wagon.connect(new Repository("stub", "stub://bucket"));
+
+        StorageSettings storageSettings = wagon.createStorageSettings();
+        RetryPolicy retryPolicy = storageSettings.createRetryExecutor(e -> true).getRetryPolicy();
+
+        Assert.assertEquals(2, retryPolicy.getMaxAttempts());
+        Assert.assertEquals(0, retryPolicy.getDeadlineMillis());
+        Assert.assertFalse(storageSettings.isVerifyDownloads());
+        Assert.assertTrue(storageSettings.isLazyConnect());
+        Assert.assertEquals(2, wagon.getRequestSettings().getRetryAttempts());
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.wagon;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.wagon.TransferFailedException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelDirectoryUploaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testUploadsWholeTree() throws Exception {
+        File source = createTree();
+
+        RecordingWagon wagon = new RecordingWagon(null);
+        new ParallelDirectoryUploader(wagon, 4).upload(source, ".");
+
+        Set<String> expected = new HashSet<>();
+        expected.add("a.txt");
+        expected.add("nested/b.txt");
+        expected.add("nested/deeper/c.txt");
+        Assert.assertEquals(expected, wagon.uploaded.keySet());
+        Assert.assertTrue(wagon.maxConcurrent.get() <= 4);
+    }
+
+    @Test
+    public void testPrefixesDestination() throws Exception {
+        File source = createTree();
+
+        RecordingWagon wagon = new RecordingWagon(null);
+        new ParallelDirectoryUploader(wagon, 1).upload(source, "./site/");
+
+        Assert.assertTrue(wagon.uploaded.containsKey("site/a.txt"));
+        Assert.assertTrue(wagon.uploaded.containsKey("site/nested/deeper/c.txt"));
+    }
+
+    @Test
+    public void testReportsFailuresTogether() throws Exception {
+        File source = createTree();
+
+        RecordingWagon wagon = new RecordingWagon(".txt");
+        try {
+            new ParallelDirectoryUploader(wagon, 2).upload(source, "");
+            Assert.fail("Expected the failed uploads to be reported");
+        } catch (TransferFailedException e) {
+            Assert.assertEquals(2, e.getSuppressed().length);
+            Assert.assertTrue(e.getMessage().startsWith("Could not upload 3 of 3 files"));
+        }
+        Assert.assertEquals(3, wagon.attempts.get());
+    }
+
+    private File createTree() throws IOException {
+        File root = temporaryFolder.newFolder("site");
+        File deeper = new File(root, "nested/deeper");
+        Assert.assertTrue(deeper.mkdirs());
+        Files.write(new File(root, "a.txt").toPath(), new byte[]{1});
+        Files.write(new File(root, "nested/b.txt").toPath(), new byte[]{2});
+        Files.write(new File(deeper, "c.txt").toPath(), new byte[]{3});
+        return root;
+    }
+
+    private static final class RecordingWagon extends StubStorageWagon {
+
+        private final String failingSuffix;
+        private final ConcurrentHashMap<String, File> uploaded = new ConcurrentHashMap<>();
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        private RecordingWagon(String failingSuffix) {
+            this.failingSuffix = failingSuffix;
+        }
+
+        @Override
+        public void put(File source, String destination) throws TransferFailedException {
+            attempts.incrementAndGet();
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                if (failingSuffix != null && destination.endsWith(failingSuffix)) {
+                    throw new TransferFailedException("Could not upload " + destination);
+                }
+                uploaded.put(destination, source);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+    }
+
+}
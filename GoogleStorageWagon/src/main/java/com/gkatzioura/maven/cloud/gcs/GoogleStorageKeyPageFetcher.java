@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.gcs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gkatzioura.maven.cloud.listing.KeyPage;
+import com.gkatzioura.maven.cloud.listing.KeyPageFetcher;
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+
+/**
+ * Lists the blobs under a prefix one page at a time. Every page request carries the prefix next to the page token.
+ */
+public class GoogleStorageKeyPageFetcher implements KeyPageFetcher<Blob> {
+
+    private final Storage storage;
+    private final String bucket;
+    private final String prefix;
+
+    public GoogleStorageKeyPageFetcher(Storage storage, String bucket, String prefix) {
+        this.storage = storage;
+        this.bucket = bucket;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public KeyPage<Blob> fetch(String continuationToken) {
+        Page<Blob> page = continuationToken == null
+                ? storage.list(bucket, Storage.BlobListOption.prefix(prefix))
+                : storage.list(bucket, Storage.BlobListOption.prefix(prefix), Storage.BlobListOption.pageToken(continuationToken));
+
+        List<Blob> blobs = new ArrayList<>();
+        page.getValues().forEach(blobs::add);
+
+        return new KeyPage<>(blobs, page.getNextPageToken());
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.gcs;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import com.google.cloud.BaseServiceException;
+
+/**
+ * Matches the Google Cloud Storage errors worth retrying: 429 rate limiting, 408 request timeouts, server errors,
+ * the errors the library marks as retryable and failed connections.
+ */
+public class GoogleStorageTransientErrorPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof BaseServiceException) {
+            BaseServiceException baseServiceException = (BaseServiceException) throwable;
+            int code = baseServiceException.getCode();
+            return code == 408 || code == 429 || code >= 500 || baseServiceException.isRetryable()
+                    || baseServiceException.getCause() instanceof IOException;
+        }
+
+        return throwable instanceof IOException;
+    }
+
+}
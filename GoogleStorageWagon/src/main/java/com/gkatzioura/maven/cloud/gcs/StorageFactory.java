@@ -3,11 +3,16 @@ package com.gkatzioura.maven.cloud.gcs;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Locale;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+import com.google.auth.oauth2.ComputeEngineCredentials;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.auth.oauth2.ServiceAccountCredentials;
+import com.google.cloud.ServiceOptions;
+import com.google.cloud.http.HttpTransportOptions;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 
@@ -15,11 +20,25 @@ public class StorageFactory {
 
     private static final Logger LOGGER = Logger.getLogger(StorageFactory.class.getName());
 
+    private static final String PROJECT = "gcs.project";
+    private static final String CREDENTIALS_SOURCE = "gcs.credentials.source";
+    private static final String COMPUTE_ENGINE = "compute-engine";
+    private static final String FILE_PREFIX = "file:";
+
     public Storage createWithKeyFile(String keyPath) throws IOException {
+        return createWithKeyFile(keyPath, 0, 0, true);
+    }
+
+    /**
+     * @param connectTimeout the connection timeout in milliseconds, 0 for the library default
+     * @param readTimeout    the read timeout in milliseconds, 0 for the library default
+     * @param retries        whether the library retries failed requests itself
+     */
+    public Storage createWithKeyFile(String keyPath, int connectTimeout, int readTimeout, boolean retries) throws IOException {
         File credentialsPath = new File(keyPath);
         try(FileInputStream serviceAccountStream = new FileInputStream(credentialsPath)) {
             GoogleCredentials googleCredentials = ServiceAccountCredentials.fromStream(serviceAccountStream);
-            return StorageOptions.newBuilder().setCredentials(googleCredentials).build().getService();
+            return configure(StorageOptions.newBuilder().setCredentials(googleCredentials), connectTimeout, readTimeout, retries).build().getService();
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Could not parse properly service account key file", e);
             throw e;
@@ -29,4 +48,108 @@ public class StorageFactory {
     public Storage createDefault() {
         return StorageOptions.getDefaultInstance().getService();
     }
+
+    /**
+     * @param connectTimeout the connection timeout in milliseconds, 0 for the library default
+     * @param readTimeout    the read timeout in milliseconds, 0 for the library default
+     * @param retries        whether the library retries failed requests itself
+     */
+    public Storage createDefault(int connectTimeout, int readTimeout, boolean retries) {
+        return configure(StorageOptions.newBuilder(), connectTimeout, readTimeout, retries).build().getService();
+    }
+
+    /**
+     * Creates the client with the application default credentials, like {@link #createDefault(int, int, boolean)},
+     * except that the source of the credentials and the default project are remembered in the resolution cache, so
+     * that they are not looked up again, possibly on the metadata server of Compute Engine, on every connection. The
+     * source is the path of the credentials file or Compute Engine, never the credentials themselves.
+     */
+    public Storage createDefault(int connectTimeout, int readTimeout, boolean retries, ResolutionCache resolutionCache) throws IOException {
+        if (!resolutionCache.isEnabled()) {
+            return createDefault(connectTimeout, readTimeout, retries);
+        }
+
+        StorageOptions.Builder builder = StorageOptions.newBuilder().setCredentials(defaultCredentials(resolutionCache));
+        String projectId = resolutionCache.resolve(PROJECT, ServiceOptions::getDefaultProjectId);
+        if (projectId != null) {
+            builder.setProjectId(projectId);
+        }
+        return configure(builder, connectTimeout, readTimeout, retries).build().getService();
+    }
+
+    private GoogleCredentials defaultCredentials(ResolutionCache resolutionCache) throws IOException {
+        GoogleCredentials[] discovered = new GoogleCredentials[1];
+        String source = resolutionCache.resolve(CREDENTIALS_SOURCE, () -> {
+            try {
+                discovered[0] = GoogleCredentials.getApplicationDefault();
+                return sourceOf(discovered[0]);
+            } catch (IOException e) {
+                return null;
+            }
+        });
+
+        if (discovered[0] != null) {
+            return discovered[0];
+        }
+
+        try {
+            if (COMPUTE_ENGINE.equals(source)) {
+                return ComputeEngineCredentials.create();
+            }
+            if (source != null && source.startsWith(FILE_PREFIX)) {
+                try (FileInputStream credentialsStream = new FileInputStream(source.substring(FILE_PREFIX.length()))) {
+                    return GoogleCredentials.fromStream(credentialsStream);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINER, String.format("Could not load the credentials from %s, looking them up again", source), e);
+            resolutionCache.invalidate(CREDENTIALS_SOURCE);
+        }
+        return GoogleCredentials.getApplicationDefault();
+    }
+
+    /**
+     * @return where the application default credentials came from, null if they cannot be loaded directly from there
+     */
+    private static String sourceOf(GoogleCredentials googleCredentials) {
+        if (googleCredentials instanceof ComputeEngineCredentials) {
+            return COMPUTE_ENGINE;
+        }
+
+        String credentialsPath = System.getenv("GOOGLE_APPLICATION_CREDENTIALS");
+        File credentialsFile = credentialsPath != null && !credentialsPath.isEmpty() ? new File(credentialsPath) : wellKnownCredentialsFile();
+        return credentialsFile.isFile() ? FILE_PREFIX + credentialsFile.getAbsolutePath() : null;
+    }
+
+    /**
+     * @return the file gcloud auth application-default login writes, where the library looks for it
+     */
+    private static File wellKnownCredentialsFile() {
+        String cloudConfigPath = System.getenv("CLOUDSDK_CONFIG");
+        File cloudConfigDirectory;
+        if (cloudConfigPath != null) {
+            cloudConfigDirectory = new File(cloudConfigPath);
+        } else if (System.getProperty("os.name", "").toLowerCase(Locale.US).contains("windows")) {
+            cloudConfigDirectory = new File(System.getenv("APPDATA"), "gcloud");
+        } else {
+            cloudConfigDirectory = new File(System.getProperty("user.home", ""), ".config/gcloud");
+        }
+        return new File(cloudConfigDirectory, "application_default_credentials.json");
+    }
+
+    private StorageOptions.Builder configure(StorageOptions.Builder builder, int connectTimeout, int readTimeout, boolean retries) {
+        HttpTransportOptions.Builder transportOptions = HttpTransportOptions.newBuilder();
+        if (connectTimeout > 0) {
+            transportOptions.setConnectTimeout(connectTimeout);
+        }
+        if (readTimeout > 0) {
+            transportOptions.setReadTimeout(readTimeout);
+        }
+        builder.setTransportOptions(transportOptions.build());
+
+        if (!retries) {
+            builder.setRetrySettings(ServiceOptions.getNoRetrySettings());
+        }
+        return builder;
+    }
 }
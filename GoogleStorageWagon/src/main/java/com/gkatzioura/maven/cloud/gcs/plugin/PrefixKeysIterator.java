@@ -1,46 +1,18 @@
 package com.gkatzioura.maven.cloud.gcs.plugin;
 
-import java.util.Iterator;
-import java.util.function.Consumer;
-
+import com.gkatzioura.maven.cloud.gcs.GoogleStorageKeyPageFetcher;
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.Storage;
 
-public class PrefixKeysIterator implements Iterator<Blob> {
-
-    private final Storage storage;
-    private final String bucket;
-    private final String prefix;
-
-    private final Iterator<Blob> tempListing;
+public class PrefixKeysIterator extends PagedKeyIterator<Blob> {
 
     public PrefixKeysIterator(final Storage storage, final String bucket, final String prefix) {
-        this.storage = storage;
-        this.bucket = bucket;
-        this.prefix = prefix;
-        this.tempListing = storage.list(bucket,Storage.BlobListOption.prefix(prefix))
-                                  .iterateAll()
-                                  .iterator();
-    }
-
-    @Override
-    public boolean hasNext() {
-        return tempListing.hasNext();
-    }
-
-    @Override
-    public Blob next() {
-        return tempListing.next();
-    }
-
-    @Override
-    public void remove() {
-        throw new UnsupportedOperationException();
+        this(storage, bucket, prefix, 0);
     }
 
-    @Override
-    public void forEachRemaining(Consumer<? super Blob> action) {
-        throw new UnsupportedOperationException();
+    public PrefixKeysIterator(final Storage storage, final String bucket, final String prefix, final int prefetchPages) {
+        super(new GoogleStorageKeyPageFetcher(storage, bucket, prefix), prefetchPages);
     }
 
 }
@@ -2,11 +2,11 @@ package com.gkatzioura.maven.cloud.gcs.plugin.download;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -16,6 +16,8 @@ import org.apache.maven.plugins.annotations.Parameter;
 
 import com.gkatzioura.maven.cloud.KeyIteratorConcated;
 import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import com.gkatzioura.maven.cloud.gcs.plugin.PrefixKeysIterator;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
@@ -36,6 +38,24 @@ public class GCSDownloadMojo extends AbstractMojo {
     @Parameter(property = "gcs-download.keyPath")
     private String keyPath;
 
+    /**
+     * The number of listing pages requested ahead while the blobs of the current page are downloaded, 0 lists on demand
+     */
+    @Parameter(property = "gcs-download.prefetchPages", defaultValue = "2")
+    private int prefetchPages = 2;
+
+    /**
+     * The number of files downloaded concurrently, 1 downloads them one after the other
+     */
+    @Parameter(property = "gcs-download.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "gcs-download.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     private final StorageFactory storageFactory = new StorageFactory();
     private Storage storage;
 
@@ -59,16 +79,29 @@ public class GCSDownloadMojo extends AbstractMojo {
             return;
         }
 
-        List<Iterator<Blob>> prefixKeyIterators = keys.stream()
-                                                        .map(pi -> new PrefixKeysIterator(storage,bucket,pi))
-                                                        .collect(Collectors.toList());
-
-        Iterator<Blob> keyIteratorConcated = new KeyIteratorConcated(prefixKeyIterators);
-
-        while (keyIteratorConcated.hasNext()) {
-            Blob blob = keyIteratorConcated.next();
-            LOGGER.info("Scheduling blob for download "+blob.getBucket()+" "+blob.getName());
-            downloadFile(blob);
+        List<PrefixKeysIterator> openIterators = new ArrayList<>();
+        Iterator<Iterator<Blob>> prefixKeyIterators = keys.stream()
+                                                        .map(pi -> {
+                                                            PrefixKeysIterator prefixKeysIterator = new PrefixKeysIterator(storage,bucket,pi,prefetchPages);
+                                                            openIterators.add(prefixKeysIterator);
+                                                            return (Iterator<Blob>) prefixKeysIterator;
+                                                        })
+                                                        .iterator();
+
+        Iterator<Blob> keyIteratorConcated = new KeyIteratorConcated<>(prefixKeyIterators);
+
+        try (FanOut<RuntimeException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "gcs-download")) {
+            while (keyIteratorConcated.hasNext()) {
+                Blob blob = keyIteratorConcated.next();
+                LOGGER.info("Scheduling blob for download "+blob.getBucket()+" "+blob.getName());
+                fanOut.submit(() -> downloadFile(blob));
+            }
+            fanOut.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while downloading from bucket " + bucket, e);
+        } finally {
+            openIterators.forEach(PrefixKeysIterator::close);
         }
     }
 
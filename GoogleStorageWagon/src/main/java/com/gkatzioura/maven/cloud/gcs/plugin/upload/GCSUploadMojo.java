@@ -15,6 +15,8 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
@@ -34,6 +36,18 @@ public class GCSUploadMojo extends AbstractMojo {
     @Parameter(property = "gcs-upload.keyPath")
     private String keyPath;
 
+    /**
+     * The number of files uploaded concurrently, 1 uploads them one after the other
+     */
+    @Parameter(property = "gcs-upload.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "gcs-upload.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     private final StorageFactory storageFactory = new StorageFactory();
 
     public GCSUploadMojo() {
@@ -63,8 +77,14 @@ public class GCSUploadMojo extends AbstractMojo {
         if(isDirectory()){
             List<String> filesToUpload = findFilesToUpload(path);
 
-            for(String fileToUpload: filesToUpload) {
-                keyUpload(storage, generateKeyName(fileToUpload), new File(fileToUpload));
+            try (FanOut<MojoExecutionException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "gcs-upload")) {
+                for(String fileToUpload: filesToUpload) {
+                    fanOut.submit(() -> keyUpload(storage, generateKeyName(fileToUpload), new File(fileToUpload)));
+                }
+                fanOut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while uploading " + path, e);
             }
         } else {
             keyUpload(storage, keyIfNull(), new File(path));
@@ -16,31 +16,81 @@
 
 package com.gkatzioura.maven.cloud.gcs.wagon;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 
+import com.gkatzioura.maven.cloud.async.AsyncCalls;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+import com.gkatzioura.maven.cloud.client.ClientKey;
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+import com.gkatzioura.maven.cloud.client.DeferredConnection;
+import com.gkatzioura.maven.cloud.client.PooledClient;
+import com.gkatzioura.maven.cloud.gcs.GoogleStorageKeyPageFetcher;
+import com.gkatzioura.maven.cloud.gcs.GoogleStorageTransientErrorPredicate;
 import com.gkatzioura.maven.cloud.gcs.StorageFactory;
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+import com.gkatzioura.maven.cloud.transfer.BufferedObject;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.DigestMismatchException;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+import com.gkatzioura.maven.cloud.transfer.PartialDownload;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+import com.gkatzioura.maven.cloud.transfer.RetriedTransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
+import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
-import com.google.api.gax.paging.Page;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.RestorableState;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Acl;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 
-public class GoogleStorageRepository {
+/**
+ * The async methods run the blocking methods on an executor, as the SDK has no non-blocking client.
+ */
+public class GoogleStorageRepository implements StorageRepository {
 
     private final String bucket;
     private final String baseDirectory;
@@ -48,8 +98,27 @@ public class GoogleStorageRepository {
     private final StorageFactory storageFactory = new StorageFactory();
     private final Optional<String> keyPath;
     private final PublicReadProperty publicReadProperty;
-
-    private Storage storage;
+    private MetadataCache metadataCache = new MetadataCache(0);
+    private RetryExecutor retryExecutor = RetryExecutor.noRetries();
+    private HedgedExecutor hedgedExecutor = HedgedExecutor.disabled();
+    private RangedDownloader rangedDownloader = RangedDownloader.disabled();
+    private ResumableTransfers resumableTransfers = ResumableTransfers.disabled();
+    private boolean verifyDownloads;
+    private int connectionTimeout;
+    private int readTimeout;
+
+    private DeferredConnection<Storage> connection;
+    private ClientPool clientPool = ClientPool.disabled();
+    private boolean lazyConnect;
+    private ConnectionPrewarmer connectionPrewarmer = ConnectionPrewarmer.disabled();
+    private ResolutionCache resolutionCache = ResolutionCache.disabled();
+    private Executor asyncExecutor = AsyncCalls.defaultExecutor();
+
+    private static final String WRITER_STATE = "writerState";
+    private static final String WRITER_POSITION = "writerPosition";
+
+    private static final GoogleStorageTransientErrorPredicate TRANSIENT_ERRORS = new GoogleStorageTransientErrorPredicate();
+    private static final int MIN_CHUNK_SIZE = 256 * 1024;
 
     private static final Logger LOGGER = Logger.getLogger(GoogleStorageRepository.class.getName());
 
@@ -61,62 +130,306 @@ public class GoogleStorageRepository {
     }
 
     public void connect() throws AuthenticationException {
+        final ClientKey clientKey = clientKey();
+        connection = lazyConnect ? DeferredConnection.connecting(() -> connect(clientKey)) : DeferredConnection.connected(connect(clientKey));
+    }
+
+    /**
+     * Lists a blob of the bucket, so that the credentials are validated
+     */
+    private PooledClient<Storage> connect(ClientKey clientKey) throws AuthenticationException {
+        PooledClient<Storage> pooledClient = null;
         try {
-            storage = createStorage();
+            pooledClient = clientPool.acquire(clientKey, this::createStorage, client -> {
+            });
+            Storage storage = pooledClient.get();
             storage.list(bucket, Storage.BlobListOption.pageSize(1));
+            if (pooledClient.isCreated()) {
+                connectionPrewarmer.prewarm("gs://" + bucket, () -> storage.list(bucket, Storage.BlobListOption.pageSize(1)));
+            }
+            return pooledClient;
         } catch (Exception e) {
+            if (pooledClient != null) {
+                pooledClient.release();
+            }
             LOGGER.log(Level.SEVERE,"Could not establish connection with google cloud",e);
             throw new AuthenticationException("Please configure you google cloud account by logging using gcloud and specify a default project");
         }
     }
 
+    /**
+     * A client that could not be connected in the background fails the request like an error of the library
+     */
+    private Storage storage() {
+        try {
+            return connection.get();
+        } catch (AuthenticationException e) {
+            throw new StorageException(0, "Could not connect to bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The key file is identified by its path and modification time, a key file rewritten gets a new client.
+     */
+    private ClientKey clientKey() {
+        String credentials = "default";
+        if (keyPath.isPresent()) {
+            File keyFile = new File(keyPath.get()).getAbsoluteFile();
+            credentials = "keyfile:" + keyFile.getPath() + ":" + keyFile.lastModified();
+        }
+        boolean libraryRetries = retryExecutor.getRetryPolicy().getMaxAttempts() <= 1;
+        return new ClientKey("gcs", credentials, null, null, false, connectionTimeout + "/" + readTimeout + "/" + libraryRetries);
+    }
+
+    /**
+     * Applies the wagon timeouts. The library retries are disabled when the retry executor retries, so that the
+     * attempts are not multiplied.
+     */
     private final Storage createStorage() throws IOException {
+        boolean libraryRetries = retryExecutor.getRetryPolicy().getMaxAttempts() <= 1;
         if(keyPath.isPresent()) {
-            return storageFactory.createWithKeyFile(keyPath.get());
+            return storageFactory.createWithKeyFile(keyPath.get(), connectionTimeout, readTimeout, libraryRetries);
         } else {
-            return storageFactory.createDefault();
+            return storageFactory.createDefault(connectionTimeout, readTimeout, libraryRetries, resolutionCache);
         }
     }
 
-    public void copy(String resourceName, File destination) throws ResourceDoesNotExistException {
+    /**
+     * @return the metadata of the blob that was downloaded
+     */
+    @Override
+    public ResourceMetadata copy(String resourceName, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException {
 
         final String key = resolveKey(resourceName);
 
         LOGGER.log(Level.FINER,String.format("Downloading key %s from bucket %s into %s",key,bucket ,destination.getAbsolutePath()));
 
-        Blob blob = storage.get(bucket, resolveKey(resourceName));
+        if(metadataCache.isKnownMissing(location(key))) {
+            LOGGER.log(Level.FINER,String.format("Blob %s is known to be missing",key));
+            throw new ResourceDoesNotExistException(key);
+        }
+
+        if(isHedged(resourceName)) {
+            return copyInMemory(key, destination, transferProgress);
+        }
+
+        Blob blob = retryExecutor.execute(Operation.GET, () -> storage().get(bucket, key));
 
         if(blob==null) {
             LOGGER.log(Level.FINER,String.format("Blob %s does not exist",key));
+            metadataCache.put(location(key), null);
             throw new ResourceDoesNotExistException(key);
         }
-        blob.downloadTo(destination.toPath());
+
+        ExpectedDigest expectedDigest = expectedDigest(blob);
+        final ResourceMetadata resourceMetadata;
+        try {
+            if(blob.getSize()!=null && rangedDownloader.isRanged(blob.getSize())) {
+                resourceMetadata = rangedDownloader.download((offset, length) -> openRange(blob, offset, length), toResourceMetadata(blob), expectedDigest, destination, transferProgress, retryExecutor);
+            } else if(resumableTransfers.isEnabled()) {
+                try (PartialDownload partialDownload = resumableTransfers.partialDownload(location(key))) {
+                    String generation = toResourceMetadata(blob).getVersion();
+                    resourceMetadata = retryExecutor.execute(Operation.GET, () -> {
+                        long offset = partialDownload.offsetFor(generation);
+                        MultiDigest multiDigest = expectedDigest.newMultiDigest();
+                        ReadChannel readChannel = blob.reader();
+                        readChannel.seek(offset);
+                        try (InputStream inputStream = Channels.newInputStream(readChannel);
+                             OutputStream outputStream = partialDownload.open(generation, offset, transferProgress, multiDigest)) {
+                            IOUtils.copy(inputStream, outputStream);
+                        }
+
+                        try {
+                            return expectedDigest.verify(toResourceMetadata(blob), multiDigest);
+                        } catch (DigestMismatchException e) {
+                            partialDownload.discard();
+                            throw e;
+                        }
+                    });
+                    partialDownload.complete(destination);
+                }
+            } else {
+                resourceMetadata = retryExecutor.execute(Operation.GET, () -> {
+                    MultiDigest multiDigest = expectedDigest.newMultiDigest();
+                    try (OutputStream outputStream = new TransferProgressFileOutputStream(destination, transferProgress, multiDigest);
+                         InputStream inputStream = Channels.newInputStream(blob.reader())) {
+                        IOUtils.copy(inputStream, outputStream);
+                    }
+                    return expectedDigest.verify(toResourceMetadata(blob), multiDigest, destination);
+                });
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource "+key, e);
+        }
+
+        metadataCache.put(location(key), resourceMetadata);
+        return resourceMetadata;
+    }
+
+    /**
+     * Opens a range of the generation of the blob that was looked up
+     */
+    private InputStream openRange(Blob blob, long offset, long length) throws IOException {
+        ReadChannel readChannel = storage().reader(BlobId.of(bucket, blob.getName(), blob.getGeneration()));
+        readChannel.seek(offset);
+        return new BoundedInputStream(Channels.newInputStream(readChannel), length);
+    }
+
+    private ResourceMetadata copyInMemory(String key, File destination, TransferProgress transferProgress) throws ResourceDoesNotExistException, TransferFailedException {
+        try {
+            BufferedObject bufferedObject = retryExecutor.execute(Operation.GET, () -> hedgedExecutor.execute(Operation.GET, () -> read(key)));
+
+            if(bufferedObject==null) {
+                LOGGER.log(Level.FINER,String.format("Blob %s does not exist",key));
+                metadataCache.put(location(key), null);
+                throw new ResourceDoesNotExistException(key);
+            }
+
+            ResourceMetadata resourceMetadata = bufferedObject.writeTo(destination, transferProgress);
+            metadataCache.put(location(key), resourceMetadata);
+            return resourceMetadata;
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource "+key, e);
+        }
     }
 
+    /**
+     * @return whether the download is hedged, which only applies to blobs small enough to be buffered in memory
+     */
+    private boolean isHedged(String resourceName) throws TransferFailedException {
+        if (!hedgedExecutor.isEnabled()) {
+            return false;
+        }
+
+        ResourceMetadata resourceMetadata = metadata(resourceName);
+        return resourceMetadata != null && hedgedExecutor.isHedged(resourceMetadata.getContentLength());
+    }
+
+    /**
+     * @return the content of the blob, null if the blob does not exist
+     */
+    private BufferedObject read(String key) throws IOException {
+        Blob blob = storage().get(bucket, key);
+        if (blob == null) {
+            return null;
+        }
+
+        if (blob.getSize() == null || blob.getSize() > hedgedExecutor.getMaxObjectSize()) {
+            throw new IOException(String.format("Blob %s is larger than the %d bytes buffered in memory", key, hedgedExecutor.getMaxObjectSize()));
+        }
+        return new BufferedObject(blob.getContent(), toResourceMetadata(blob)).verify(expectedDigest(blob));
+    }
+
+    /**
+     * Composite blobs only have a CRC32C, which is preferred to the MD5 when both are known
+     */
+    private ExpectedDigest expectedDigest(Blob blob) {
+        return verifyDownloads ? toResourceMetadata(blob).getChecksum() : ExpectedDigest.NONE;
+    }
+
+    /**
+     * @return the metadata of the key, null if the key does not exist
+     */
+    @Override
+    public ResourceMetadata metadata(String resourceName) {
+        final String key = resolveKey(resourceName);
+
+        return metadataCache.get(location(key), () -> {
+            Blob blob = retryExecutor.execute(Operation.EXISTS, () -> hedgedExecutor.execute(Operation.EXISTS, () -> storage().get(bucket, key)));
+            return blob == null ? null : toResourceMetadata(blob);
+        });
+    }
+
+    private static ResourceMetadata toResourceMetadata(Blob blob) {
+        long lastModified = blob.getUpdateTime() == null ? 0 : blob.getUpdateTime();
+        long size = blob.getSize() == null ? 0 : blob.getSize();
+        String version = blob.getGeneration() == null ? null : String.valueOf(blob.getGeneration());
+        return new ResourceMetadata(size, lastModified, version, ExpectedDigest.base64(blob.getCrc32c(), blob.getMd5()));
+    }
+
+    @Override
     public boolean newResourceAvailable(String resourceName,long timeStamp) {
 
         final String key = resolveKey(resourceName);
 
         LOGGER.log(Level.FINER,String.format("Checking if new key %s exists",key));
 
-        Blob blob = storage.get(bucket, key);
+        ResourceMetadata resourceMetadata = metadata(resourceName);
 
-        if(blob==null) {
+        if(resourceMetadata==null) {
             return false;
         }
 
-        long updated = blob.getUpdateTime();
-        return updated>timeStamp;
+        return resourceMetadata.getLastModified()>timeStamp;
+    }
+
+    /**
+     * Compares the file with the object at the destination, using the CRC32C, or the MD5, of the blob
+     *
+     * @return the digests of the file if the object has the same content, null otherwise
+     */
+    @Override
+    public ContentDigests identical(File file, String destination) throws TransferFailedException {
+        ResourceMetadata resourceMetadata = metadata(destination);
+        if (resourceMetadata == null || resourceMetadata.getContentLength() != file.length() || !resourceMetadata.getChecksum().isPresent()) {
+            return null;
+        }
+
+        try {
+            ContentDigests contentDigests = MultiDigest.digest(file);
+            return resourceMetadata.getChecksum().matches(contentDigests) ? contentDigests : null;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not read " + file, e);
+        }
     }
 
-    public void put(InputStream inputStream,String destination) throws IOException {
+    /**
+     * Uploads the file, every attempt reading it again from the start. The MD5 and CRC32C Cloud Storage reports for
+     * the blob are then compared with the ones computed while uploading.
+     *
+     * @return the digests of the uploaded content
+     */
+    @Override
+    public ContentDigests put(File file, String destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
         String key = resolveKey(destination);
 
         LOGGER.log(Level.FINER,String.format("Uploading key %s ",key));
 
         BlobInfo blobInfo = applyPublicRead(BlobInfo.newBuilder(bucket,key)).build();
+        MultiDigest multiDigest = new MultiDigest();
+
+        RetriedTransferProgress retriedTransferProgress = new RetriedTransferProgress(transferProgress);
+        try {
+            if (resumableTransfers.isResumableUpload(file)) {
+                retryExecutor.execute(Operation.PUT, () -> {
+                    putResumable(file, blobInfo, retriedTransferProgress, multiDigest);
+                    return null;
+                });
+            } else {
+                retryExecutor.execute(Operation.PUT, () -> {
+                    try (InputStream inputStream = new TransferProgressFileInputStream(file, retriedTransferProgress.attempt(), multiDigest)) {
+                        put(inputStream, blobInfo);
+                    }
+                    return null;
+                });
+            }
 
-        try(WriteChannel writeChannel = storage.writer(blobInfo)) {
+            ContentDigests contentDigests = multiDigest.finish();
+            verify(blobInfo, contentDigests);
+            return contentDigests;
+        } catch (FileNotFoundException e) {
+            throw new ResourceDoesNotExistException("Failed to transfer artifact", e);
+        } catch (IOException e) {
+            throw new TransferFailedException("Failed to transfer artifact", e);
+        } finally {
+            metadataCache.invalidate(location(key));
+        }
+    }
+
+    private void put(InputStream inputStream, BlobInfo blobInfo) throws IOException {
+        try(WriteChannel writeChannel = storage().writer(blobInfo)) {
 
             byte[] buffer = new byte[1024];
             int read;
@@ -127,6 +440,97 @@ public class GoogleStorageRepository {
         }
     }
 
+    /**
+     * Fails if the MD5 or CRC32C stored for the blob differ from the digests of the uploaded file
+     */
+    private void verify(BlobInfo blobInfo, ContentDigests contentDigests) throws IOException {
+        Blob blob = retryExecutor.execute(Operation.EXISTS, () -> storage().get(blobInfo.getBlobId(), Storage.BlobGetOption.fields(Storage.BlobField.MD5HASH, Storage.BlobField.CRC32C)));
+        if (blob == null) {
+            throw new IOException("Blob " + blobInfo.getName() + " does not exist after its upload");
+        }
+
+        boolean md5Mismatch = blob.getMd5() != null && !blob.getMd5().equals(contentDigests.getMd5Base64());
+        boolean crc32cMismatch = blob.getCrc32c() != null && !blob.getCrc32c().equals(contentDigests.getCrc32cBase64());
+        if (md5Mismatch || crc32cMismatch) {
+            throw new IOException(String.format("The checksums of blob %s (MD5 %s, CRC32C %s) do not match the uploaded file (MD5 %s, CRC32C %s)",
+                    blobInfo.getName(), blob.getMd5(), blob.getCrc32c(), contentDigests.getMd5Base64(), contentDigests.getCrc32cBase64()));
+        }
+    }
+
+    /**
+     * Uploads the file through a resumable upload session, saving the state of the writer every chunk. An upload of
+     * the same file continues from the last saved chunk, or starts over once the session has expired.
+     */
+    private void putResumable(File file, BlobInfo blobInfo, RetriedTransferProgress transferProgress, MultiDigest multiDigest) throws IOException {
+        String location = location(blobInfo.getName());
+        int chunkSize = (int) Math.max(MIN_CHUNK_SIZE, resumableTransfers.getPartSize() / MIN_CHUNK_SIZE * MIN_CHUNK_SIZE);
+
+        Properties state = resumableTransfers.loadUploadState(location, file);
+        WriteChannel writeChannel = restoreWriter(state);
+        long position = writeChannel == null ? 0 : Long.parseLong(state.getProperty(WRITER_POSITION));
+        boolean restored = writeChannel != null;
+
+        if (writeChannel == null) {
+            writeChannel = storage().writer(blobInfo);
+            writeChannel.setChunkSize(chunkSize);
+        } else {
+            LOGGER.log(Level.FINER, String.format("Resuming the upload of %s from byte %d", blobInfo.getName(), position));
+        }
+
+        // the stream starts at byte 0 so that the digest covers the whole file, the skipped bytes were reported before
+        // the writer is only closed once the whole file was written, closing it finalizes the upload
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress.attempt(), multiDigest)) {
+            IOUtils.skipFully(inputStream, position);
+
+            byte[] buffer = new byte[MIN_CHUNK_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, chunkSize - position % chunkSize))) != -1) {
+                writeChannel.write(ByteBuffer.wrap(buffer, 0, read));
+                position += read;
+
+                if (position % chunkSize == 0 && position < file.length()) {
+                    state.setProperty(WRITER_STATE, serialize(writeChannel.capture()));
+                    state.setProperty(WRITER_POSITION, Long.toString(position));
+                    resumableTransfers.saveUploadState(location, file, state);
+                }
+            }
+            writeChannel.close();
+        } catch (StorageException e) {
+            if (restored && (e.getCode() == 404 || e.getCode() == 410)) {
+                LOGGER.log(Level.FINER, String.format("The upload session of %s expired, starting over", blobInfo.getName()), e);
+                resumableTransfers.deleteUploadState(location, file);
+                putResumable(file, blobInfo, transferProgress, multiDigest);
+                return;
+            }
+            throw e;
+        }
+
+        resumableTransfers.deleteUploadState(location, file);
+    }
+
+    @SuppressWarnings("unchecked")
+    private WriteChannel restoreWriter(Properties state) {
+        String writerState = state.getProperty(WRITER_STATE);
+        if (writerState == null || state.getProperty(WRITER_POSITION) == null) {
+            return null;
+        }
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(writerState)))) {
+            return ((RestorableState<WriteChannel>) objectInputStream.readObject()).restore();
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not restore the upload session, starting over", e);
+            return null;
+        }
+    }
+
+    private static String serialize(RestorableState<WriteChannel> restorableState) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(restorableState);
+        }
+        return Base64.getEncoder().encodeToString(byteArrayOutputStream.toByteArray());
+    }
+
     private BlobInfo.Builder applyPublicRead(BlobInfo.Builder builder) {
         if(publicReadProperty.get()) {
             Acl acl = Acl.newBuilder(Acl.User.ofAllUsers(), Acl.Role.READER).build();
@@ -138,36 +542,158 @@ public class GoogleStorageRepository {
         }
     }
 
+    @Override
     public List<String> list(String path) {
 
         String key = resolveKey(path);
 
         LOGGER.log(Level.FINER,String.format("Listing files for %s",path));
 
-        Page<Blob> page = storage.list(bucket, Storage.BlobListOption.prefix(key));
-        return totalBlobs(page);
-    }
-
-    private List<String> totalBlobs(Page<Blob> page) {
-
         List<String> blobs = new ArrayList<>();
-        page.getValues().forEach(bv->blobs.add(bv.getName()));
-        if(page.hasNextPage()) {
-            Page<Blob> newPage = storage.list(bucket,Storage.BlobListOption.pageToken(page.getNextPageToken()));
-            blobs.addAll(totalBlobs(newPage));
+        GoogleStorageKeyPageFetcher googleStorageKeyPageFetcher = new GoogleStorageKeyPageFetcher(storage(), bucket, key);
+        Iterator<Blob> iterator = new PagedKeyIterator<>(token -> retryExecutor.execute(Operation.LIST, () -> googleStorageKeyPageFetcher.fetch(token)));
+        while (iterator.hasNext()) {
+            blobs.add(iterator.next().getName());
         }
 
         return blobs;
     }
 
+    @Override
     public boolean exists(String resourceName) {
-        final String key = resolveKey(resourceName);
-        Blob blob = storage.get(bucket, key);
-        return blob.exists();
+        return metadata(resourceName) != null;
+    }
+
+    @Override
+    public CompletableFuture<ResourceMetadata> getAsync(String resourceName, File destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> copy(resourceName, destination, transferProgress), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<ContentDigests> putAsync(File file, String destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> put(file, destination, transferProgress), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String resourceName) {
+        return AsyncCalls.supply(() -> exists(resourceName), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> listAsync(String path) {
+        return AsyncCalls.supply(() -> list(path), asyncExecutor);
+    }
+
+    /**
+     * Sets the helpers of a new session from the settings of the wagon, before connecting
+     */
+    public void configure(StorageSettings storageSettings) {
+        setMetadataCache(storageSettings.getMetadataCache());
+        setRetryExecutor(storageSettings.createRetryExecutor(TRANSIENT_ERRORS));
+        setHedgedExecutor(storageSettings.createHedgedExecutor());
+        setRangedDownloader(storageSettings.createRangedDownloader());
+        setResumableTransfers(storageSettings.createResumableTransfers());
+        setVerifyDownloads(storageSettings.isVerifyDownloads());
+        setClientPool(storageSettings.createClientPool());
+        setConnectionPrewarmer(storageSettings.createConnectionPrewarmer());
+        setResolutionCache(storageSettings.createResolutionCache());
+        setLazyConnect(storageSettings.isLazyConnect());
+        setTimeouts(storageSettings.getConnectionTimeout(), storageSettings.getReadTimeout());
+    }
+
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * @param retryExecutor retries the idempotent requests, set before connecting
+     */
+    public void setRetryExecutor(RetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
+
+    /**
+     * @param hedgedExecutor duplicates the slow lookups and downloads of small files
+     */
+    public void setHedgedExecutor(HedgedExecutor hedgedExecutor) {
+        this.hedgedExecutor = hedgedExecutor;
+    }
+
+    /**
+     * @param rangedDownloader downloads the large blobs in concurrent ranges
+     */
+    public void setRangedDownloader(RangedDownloader rangedDownloader) {
+        this.rangedDownloader = rangedDownloader;
+    }
+
+    /**
+     * @param resumableTransfers keeps the state of interrupted downloads and uploads
+     */
+    public void setResumableTransfers(ResumableTransfers resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+    }
+
+    /**
+     * @param verifyDownloads whether downloads are compared with the CRC32C or MD5 of the blob
+     */
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        this.verifyDownloads = verifyDownloads;
+    }
+
+    /**
+     * @param connectionTimeout the connection timeout in milliseconds, 0 for the library default, set before connecting
+     * @param readTimeout       the read timeout in milliseconds, 0 for the library default, set before connecting
+     */
+    public void setTimeouts(int connectionTimeout, int readTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @param clientPool shares the clients with the other wagons, set before connecting
+     */
+    public void setClientPool(ClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * @param lazyConnect whether the client is connected, and the credentials validated, in the background instead of during connect
+     */
+    public void setLazyConnect(boolean lazyConnect) {
+        this.lazyConnect = lazyConnect;
+    }
+
+    /**
+     * @param connectionPrewarmer opens connections to the endpoint once a new client is connected
+     */
+    public void setConnectionPrewarmer(ConnectionPrewarmer connectionPrewarmer) {
+        this.connectionPrewarmer = connectionPrewarmer;
+    }
+
+    /**
+     * @param resolutionCache remembers the source of the default credentials and the default project, set before connecting
+     */
+    public void setResolutionCache(ResolutionCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * @param asyncExecutor runs the blocking calls behind the async methods
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
     }
 
+    @Override
     public void disconnect() {
-        storage = null;
+        if (connection != null) {
+            connection.release();
+            connection = null;
+        }
+    }
+
+    private String location(String key) {
+        return "gs://" + bucket + "/" + key;
     }
 
     private String resolveKey(String path) {
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.EC2ContainerCredentialsProviderWrapper;
+import com.amazonaws.auth.EnvironmentVariableCredentialsProvider;
+import com.amazonaws.auth.SystemPropertiesCredentialsProvider;
+import com.amazonaws.auth.WebIdentityTokenCredentialsProvider;
+import com.amazonaws.auth.profile.ProfileCredentialsProvider;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+
+/**
+ * The providers of the DefaultAWSCredentialsProviderChain, in the same order, except that the name of the provider
+ * that supplied the credentials is remembered in the resolution cache. The next connections go straight to that
+ * provider, and only walk the chain again if it stops supplying credentials. The credentials themselves are never
+ * cached.
+ */
+public class CachedCredentialsProviderChain implements AWSCredentialsProvider {
+
+    private static final Logger LOGGER = Logger.getLogger(CachedCredentialsProviderChain.class.getName());
+
+    private static final String CREDENTIALS_SOURCE = "s3.credentials.source";
+
+    private final List<AWSCredentialsProvider> providers;
+    private final ResolutionCache resolutionCache;
+
+    private volatile AWSCredentialsProvider lastUsedProvider;
+
+    public CachedCredentialsProviderChain(ResolutionCache resolutionCache) {
+        this(resolutionCache,
+                new EnvironmentVariableCredentialsProvider(),
+                new SystemPropertiesCredentialsProvider(),
+                WebIdentityTokenCredentialsProvider.create(),
+                new ProfileCredentialsProvider(),
+                new EC2ContainerCredentialsProviderWrapper());
+    }
+
+    CachedCredentialsProviderChain(ResolutionCache resolutionCache, AWSCredentialsProvider... providers) {
+        this.resolutionCache = resolutionCache;
+        this.providers = Arrays.asList(providers);
+    }
+
+    @Override
+    public AWSCredentials getCredentials() {
+        AWSCredentialsProvider provider = lastUsedProvider;
+        if (provider == null) {
+            String source = resolutionCache.resolve(CREDENTIALS_SOURCE, this::walk);
+            provider = lastUsedProvider != null ? lastUsedProvider : providers.stream()
+                    .filter(candidate -> nameOf(candidate).equals(source))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        AWSCredentials credentials = provider == null ? null : credentialsOf(provider);
+        if (credentials == null) {
+            resolutionCache.invalidate(CREDENTIALS_SOURCE);
+            String source = walk();
+            if (source == null) {
+                throw new SdkClientException("Unable to load AWS credentials from any provider in the chain");
+            }
+            resolutionCache.resolve(CREDENTIALS_SOURCE, () -> source);
+            return credentialsOf(lastUsedProvider);
+        }
+
+        lastUsedProvider = provider;
+        return credentials;
+    }
+
+    @Override
+    public void refresh() {
+        providers.forEach(AWSCredentialsProvider::refresh);
+    }
+
+    /**
+     * @return the name of the first provider supplying credentials, null if none does
+     */
+    private String walk() {
+        for (AWSCredentialsProvider provider : providers) {
+            if (credentialsOf(provider) != null) {
+                LOGGER.log(Level.FINER, String.format("Loading credentials from %s", nameOf(provider)));
+                lastUsedProvider = provider;
+                return nameOf(provider);
+            }
+        }
+        return null;
+    }
+
+    private static AWSCredentials credentialsOf(AWSCredentialsProvider provider) {
+        try {
+            AWSCredentials credentials = provider.getCredentials();
+            if (credentials != null && credentials.getAWSAccessKeyId() != null && credentials.getAWSSecretKey() != null) {
+                return credentials;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINEST, String.format("Unable to load credentials from %s", nameOf(provider)), e);
+        }
+        return null;
+    }
+
+    private static String nameOf(AWSCredentialsProvider provider) {
+        return provider.getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.regions.AwsRegionProvider;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+
+/**
+ * Remembers the region of a slow provider, such as the instance metadata service which only answers after a timeout
+ * off EC2. A host without a region is remembered as well, since that is the slow case.
+ */
+public class CachedRegionProvider extends AwsRegionProvider {
+
+    private static final String NO_REGION = "";
+
+    private final String name;
+    private final AwsRegionProvider delegate;
+    private final ResolutionCache resolutionCache;
+
+    /**
+     * @param name            the name of the region in the cache
+     * @param delegate        resolves the region
+     * @param resolutionCache remembers the region
+     */
+    public CachedRegionProvider(String name, AwsRegionProvider delegate, ResolutionCache resolutionCache) {
+        this.name = name;
+        this.delegate = delegate;
+        this.resolutionCache = resolutionCache;
+    }
+
+    @Override
+    public String getRegion() throws SdkClientException {
+        String region = resolutionCache.resolve(name, () -> {
+            try {
+                String resolved = delegate.getRegion();
+                return resolved == null ? NO_REGION : resolved;
+            } catch (SdkClientException e) {
+                return NO_REGION;
+            }
+        });
+        return NO_REGION.equals(region) ? null : region;
+    }
+
+}
@@ -24,6 +24,7 @@ import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
 
 public class CredentialsFactory {
 
@@ -42,8 +43,21 @@ public class CredentialsFactory {
      *         {@code authenticationInfo}
      */
     public AWSCredentialsProvider create(AuthenticationInfo authenticationInfo) {
+        return create(authenticationInfo, null);
+    }
+
+    /**
+     * Creates an {@link AWSCredentialsProvider} like {@link #create(AuthenticationInfo)}, remembering which provider
+     * of the default chain supplied the credentials in the resolution cache.
+     *
+     * @param resolutionCache remembers the provider of the default credentials, the
+     *                        {@link DefaultAWSCredentialsProviderChain} is used as it is when null or disabled
+     */
+    public AWSCredentialsProvider create(AuthenticationInfo authenticationInfo, ResolutionCache resolutionCache) {
         if(authenticationInfo==null) {
-            return new DefaultAWSCredentialsProviderChain();
+            return resolutionCache == null || !resolutionCache.isEnabled()
+                    ? new DefaultAWSCredentialsProviderChain()
+                    : new CachedCredentialsProviderChain(resolutionCache);
         } else {
             LOGGER.info("Using static credentials provider");
             return new AWSStaticCredentialsProvider(new BasicAWSCredentials(authenticationInfo.getUserName(),authenticationInfo.getPassword()));
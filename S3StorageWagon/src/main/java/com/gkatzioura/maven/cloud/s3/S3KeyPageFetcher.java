@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.gkatzioura.maven.cloud.listing.KeyPage;
+import com.gkatzioura.maven.cloud.listing.KeyPageFetcher;
+
+/**
+ * Lists the keys under a prefix one page at a time, using the continuation tokens of ListObjectsV2.
+ */
+public class S3KeyPageFetcher implements KeyPageFetcher<String> {
+
+    private final AmazonS3 amazonS3;
+    private final String bucket;
+    private final String prefix;
+
+    public S3KeyPageFetcher(AmazonS3 amazonS3, String bucket, String prefix) {
+        this.amazonS3 = amazonS3;
+        this.bucket = bucket;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public KeyPage<String> fetch(String continuationToken) {
+        ListObjectsV2Result result = amazonS3.listObjectsV2(new ListObjectsV2Request()
+                                                                    .withBucketName(bucket)
+                                                                    .withPrefix(prefix)
+                                                                    .withContinuationToken(continuationToken));
+
+        List<String> keys = new ArrayList<>(result.getObjectSummaries().size());
+        for (S3ObjectSummary objectSummary : result.getObjectSummaries()) {
+            keys.add(objectSummary.getKey());
+        }
+
+        return new KeyPage<>(keys, result.isTruncated() ? result.getNextContinuationToken() : null);
+    }
+
+}
@@ -8,12 +8,15 @@ import com.amazonaws.regions.AwsRegionProviderChain;
 import com.amazonaws.regions.AwsSystemPropertyRegionProvider;
 import com.amazonaws.regions.DefaultAwsRegionProviderChain;
 import com.amazonaws.regions.InstanceMetadataRegionProvider;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
 
 /**
  *
  */
 public class S3StorageRegionProviderChain extends AwsRegionProviderChain {
 
+    private static final String INSTANCE_METADATA_REGION = "s3.region.instance-metadata";
+
     private String providedRegion;
 
     /**
@@ -30,13 +33,24 @@ public class S3StorageRegionProviderChain extends AwsRegionProviderChain {
      * @param providedRegion Specific region to
      */
     public S3StorageRegionProviderChain(final String providedRegion) {
+        this(providedRegion, ResolutionCache.disabled());
+    }
+
+    /**
+     * Creates a region provider chain based on the default AWS region provider chain, remembering the region of the
+     * instance metadata service, the only provider that may wait for a timeout, in the resolution cache.
+     *
+     * @param providedRegion  the region of the Maven settings, may be null
+     * @param resolutionCache remembers the region of the instance metadata service
+     */
+    public S3StorageRegionProviderChain(final String providedRegion, final ResolutionCache resolutionCache) {
         super(new AwsRegionProvider[]{
                 new MavenSettingsRegionProvider(providedRegion),
                 new AwsDefaultEnvRegionProvider(),
                 new AwsEnvVarOverrideRegionProvider(),
                 new AwsSystemPropertyRegionProvider(),
                 new AwsProfileRegionProvider(),
-                new InstanceMetadataRegionProvider()});
+                new CachedRegionProvider(INSTANCE_METADATA_REGION, new InstanceMetadataRegionProvider(), resolutionCache)});
         this.providedRegion = providedRegion;
     }
 
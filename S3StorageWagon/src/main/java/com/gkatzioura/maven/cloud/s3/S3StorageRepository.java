@@ -16,15 +16,30 @@
 
 package com.gkatzioura.maven.cloud.s3;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
 import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.wagon.authentication.AuthenticationException;
@@ -32,29 +47,87 @@ import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.PredefinedClientConfigurations;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
-import com.amazonaws.services.s3.model.ListObjectsRequest;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.HeadBucketRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.gkatzioura.maven.cloud.async.AsyncCalls;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+import com.gkatzioura.maven.cloud.client.ClientFactory;
+import com.gkatzioura.maven.cloud.client.ClientKey;
+import com.gkatzioura.maven.cloud.client.ClientPool;
+import com.gkatzioura.maven.cloud.client.ConnectionPrewarmer;
+import com.gkatzioura.maven.cloud.client.DeferredConnection;
+import com.gkatzioura.maven.cloud.client.PooledClient;
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
+import com.gkatzioura.maven.cloud.metadata.MetadataCache;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.metrics.Operation;
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.settings.StorageSettings;
+import com.gkatzioura.maven.cloud.transfer.BufferedObject;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.DigestMismatchException;
+import com.gkatzioura.maven.cloud.transfer.ExpectedDigest;
+import com.gkatzioura.maven.cloud.transfer.MultiDigest;
+import com.gkatzioura.maven.cloud.transfer.PartialDownload;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+import com.gkatzioura.maven.cloud.transfer.RetriedTransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgress;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressFileInputStream;
 import com.gkatzioura.maven.cloud.transfer.TransferProgressFileOutputStream;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
 
-public class S3StorageRepository {
+/**
+ * The async methods run the blocking methods on an executor, as the SDK has no non-blocking client.
+ */
+public class S3StorageRepository implements StorageRepository {
 
     private final String bucket;
     private final String baseDirectory;
 
     private final KeyResolver keyResolver = new KeyResolver();
 
-    private AmazonS3 amazonS3;
+    private DeferredConnection<AmazonS3> connection;
+    private ClientPool clientPool = ClientPool.disabled();
+    private boolean lazyConnect;
+    private ConnectionPrewarmer connectionPrewarmer = ConnectionPrewarmer.disabled();
+    private ResolutionCache resolutionCache = ResolutionCache.disabled();
+    private Executor asyncExecutor = AsyncCalls.defaultExecutor();
     private PublicReadProperty publicReadProperty;
+    private MetadataCache metadataCache = new MetadataCache(0);
+    private RetryExecutor retryExecutor = RetryExecutor.noRetries();
+    private HedgedExecutor hedgedExecutor = HedgedExecutor.disabled();
+    private RangedDownloader rangedDownloader = RangedDownloader.disabled();
+    private ResumableTransfers resumableTransfers = ResumableTransfers.disabled();
+    private boolean verifyDownloads;
+    private int connectionTimeout;
+    private int readTimeout;
+
+    private static final String UPLOAD_ID = "uploadId";
+    private static final Pattern MULTIPART_ETAG = Pattern.compile("\"?([0-9a-fA-F]{32})-(\\d+)\"?");
+
+    private static final S3TransientErrorPredicate TRANSIENT_ERRORS = new S3TransientErrorPredicate();
 
     private static final Logger LOGGER = Logger.getLogger(S3StorageRepository.class.getName());
 
@@ -84,46 +157,477 @@ public class S3StorageRepository {
 
 
     public void connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) throws AuthenticationException {
-        this.amazonS3 = S3Connect.connect(authenticationInfo, region, endpoint, pathStyle);
+        final ClientConfiguration clientConfiguration = createClientConfiguration();
+        final ClientKey clientKey = new ClientKey("s3",
+                authenticationInfo == null ? null : authenticationInfo.getUserName() + '\n' + authenticationInfo.getPassword(),
+                region,
+                endpoint.isPresent() ? endpoint.get() : null,
+                pathStyle.get(),
+                clientConfiguration.getConnectionTimeout() + "/" + clientConfiguration.getSocketTimeout() + "/" + clientConfiguration.getRetryPolicy().getMaxErrorRetry());
+        final ClientFactory<PooledClient<AmazonS3>, AuthenticationException> connector = () -> {
+            PooledClient<AmazonS3> pooledClient = clientPool.acquire(clientKey,
+                    () -> S3Connect.connect(authenticationInfo, region, endpoint, pathStyle, clientConfiguration, resolutionCache),
+                    AmazonS3::shutdown);
+            if (pooledClient.isCreated()) {
+                connectionPrewarmer.prewarm("s3://" + bucket, () -> pooledClient.get().headBucket(new HeadBucketRequest(bucket)));
+            }
+            return pooledClient;
+        };
+        this.connection = lazyConnect ? DeferredConnection.connecting(connector) : DeferredConnection.connected(connector.create());
+    }
+
+    /**
+     * A client that could not be connected in the background fails the request like a client error of the SDK
+     */
+    private AmazonS3 client() {
+        try {
+            return connection.get();
+        } catch (AuthenticationException e) {
+            throw new SdkClientException("Could not connect to bucket " + bucket + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the wagon timeouts. The SDK retries are disabled when the retry executor retries, so that the
+     * attempts are not multiplied.
+     */
+    private ClientConfiguration createClientConfiguration() {
+        ClientConfiguration clientConfiguration = PredefinedClientConfigurations.defaultConfig();
+        if (connectionTimeout > 0) {
+            clientConfiguration.setConnectionTimeout(connectionTimeout);
+        }
+        if (readTimeout > 0) {
+            clientConfiguration.setSocketTimeout(readTimeout);
+        }
+        if (retryExecutor.getRetryPolicy().getMaxAttempts() > 1) {
+            clientConfiguration.setRetryPolicy(PredefinedRetryPolicies.NO_RETRY_POLICY);
+        }
+        return clientConfiguration;
     }
 
-    public void copy(String resourceName, File destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
+    /**
+     * @return the metadata of the object that was downloaded
+     */
+    @Override
+    public ResourceMetadata copy(String resourceName, File destination, TransferProgress transferProgress) throws TransferFailedException, ResourceDoesNotExistException {
 
         final String key = resolveKey(resourceName);
 
+        if (metadataCache.isKnownMissing(location(key))) {
+            LOGGER.log(Level.FINER,String.format("Key %s is known to be missing",key));
+            throw new ResourceDoesNotExistException("Resource does not exist");
+        }
+
         try {
+            ResourceMetadata resourceMetadata = isHedged(resourceName)
+                    ? retryExecutor.execute(Operation.GET, () -> hedgedExecutor.execute(Operation.GET, () -> read(key))).writeTo(destination, transferProgress)
+                    : download(key, destination, transferProgress);
+            metadataCache.put(location(key), resourceMetadata);
+            return resourceMetadata;
+        } catch (AmazonS3Exception e) {
+            if (!TRANSIENT_ERRORS.test(e)) {
+                if (e.getStatusCode() == 404) {
+                    metadataCache.put(location(key), null);
+                }
+                throw new ResourceDoesNotExistException("Resource does not exist");
+            }
+            LOGGER.log(Level.SEVERE,"Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource "+key);
+        } catch (SdkClientException |IOException e) {
+            LOGGER.log(Level.SEVERE,"Could not transfer file", e);
+            throw new TransferFailedException("Could not download resource "+key);
+        }
+    }
+
+    /**
+     * With ranged downloads enabled the first range of the object is requested up front, its Content-Range tells
+     * the size of the object. Objects fitting in the first range, most poms, checksums and metadata files, are
+     * written from it, large objects continue with the other ranges.
+     */
+    private ResourceMetadata download(String key, File destination, TransferProgress transferProgress) throws IOException {
+        if (rangedDownloader.isEnabled()) {
+            S3Object firstRange = retryExecutor.execute(Operation.GET, () -> openFirstRange(key));
+            if (firstRange != null) {
+                ObjectMetadata objectMetadata = firstRange.getObjectMetadata();
+                if (rangedDownloader.isRanged(objectMetadata.getInstanceLength())) {
+                    String eTag = objectMetadata.getETag();
+                    return rangedDownloader.download(firstRange.getObjectContent(), (offset, length) -> openRange(key, eTag, offset, length), toResourceMetadata(objectMetadata), expectedDigest(objectMetadata), destination, transferProgress, retryExecutor);
+                }
+                if (objectMetadata.getContentLength() == objectMetadata.getInstanceLength()) {
+                    AtomicReference<S3Object> opened = new AtomicReference<>(firstRange);
+                    return retryExecutor.execute(Operation.GET, () -> {
+                        S3Object s3Object = opened.getAndSet(null);
+                        return s3Object != null ? writeTo(s3Object, destination, transferProgress) : downloadStream(key, destination, transferProgress);
+                    });
+                }
+                firstRange.close();
+            }
+        }
+
+        if (resumableTransfers.isEnabled()) {
+            try (PartialDownload partialDownload = resumableTransfers.partialDownload(location(key))) {
+                ResourceMetadata resourceMetadata = retryExecutor.execute(Operation.GET, () -> downloadPart(key, partialDownload, transferProgress));
+                partialDownload.complete(destination);
+                return resourceMetadata;
+            }
+        }
+
+        return retryExecutor.execute(Operation.GET, () -> downloadStream(key, destination, transferProgress));
+    }
+
+    /**
+     * Continues the partial download from its end if the object still has the same ETag, otherwise downloads the
+     * whole object again
+     */
+    private ResourceMetadata downloadPart(String key, PartialDownload partialDownload, TransferProgress transferProgress) throws IOException {
+        String eTag = partialDownload.getVersion();
+        long offset = partialDownload.offsetFor(eTag);
 
-            final S3Object s3Object;
+        S3Object s3Object = null;
+        if (offset > 0) {
             try {
-                s3Object = amazonS3.getObject(bucket, key);
+                s3Object = client().getObject(new GetObjectRequest(bucket, key).withRange(offset).withMatchingETagConstraint(eTag));
             } catch (AmazonS3Exception e) {
-                throw new ResourceDoesNotExistException("Resource does not exist");
+                if (e.getStatusCode() != 416) {
+                    throw e;
+                }
             }
-            destination.getParentFile().mkdirs();//make sure the folder exists or the outputStream will fail.
-            try(OutputStream outputStream = new TransferProgressFileOutputStream(destination,transferProgress);
-                InputStream inputStream = s3Object.getObjectContent()) {
-                IOUtils.copy(inputStream,outputStream);
+        }
+        if (s3Object == null) {
+            offset = 0;
+            s3Object = client().getObject(bucket, key);
+        }
+
+        ExpectedDigest expectedDigest = expectedDigest(s3Object.getObjectMetadata());
+        MultiDigest multiDigest = expectedDigest.newMultiDigest();
+        try (S3Object object = s3Object;
+             InputStream inputStream = object.getObjectContent();
+             OutputStream outputStream = partialDownload.open(object.getObjectMetadata().getETag(), offset, transferProgress, multiDigest)) {
+            IOUtils.copy(inputStream, outputStream);
+        }
+
+        try {
+            return expectedDigest.verify(toResourceMetadata(s3Object.getObjectMetadata()), multiDigest);
+        } catch (DigestMismatchException e) {
+            partialDownload.discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a range of the object, failing if the object no longer has the given ETag
+     */
+    private InputStream openRange(String key, String eTag, long offset, long length) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucket, key)
+                .withRange(offset, offset + length - 1)
+                .withMatchingETagConstraint(eTag);
+
+        S3Object s3Object = client().getObject(getObjectRequest);
+        if (s3Object == null) {
+            throw new SdkClientException("Key " + key + " changed during the download");
+        }
+        return s3Object.getObjectContent();
+    }
+
+    /**
+     * @return the first range of the object, null if the object is empty and has no range to serve
+     */
+    private S3Object openFirstRange(String key) {
+        try {
+            return client().getObject(new GetObjectRequest(bucket, key).withRange(0, rangedDownloader.getPartSize() - 1));
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != 416) {
+                throw e;
             }
-        } catch (AmazonS3Exception |IOException e) {
-            LOGGER.log(Level.SEVERE,"Could not transfer file", e);
-            throw new TransferFailedException("Could not download resource "+key);
+            return null;
+        }
+    }
+
+    private ResourceMetadata downloadStream(String key, File destination, TransferProgress transferProgress) throws IOException {
+        return writeTo(client().getObject(bucket, key), destination, transferProgress);
+    }
+
+    private ResourceMetadata writeTo(S3Object s3Object, File destination, TransferProgress transferProgress) throws IOException {
+        ExpectedDigest expectedDigest = expectedDigest(s3Object.getObjectMetadata());
+        MultiDigest multiDigest = expectedDigest.newMultiDigest();
+        destination.getParentFile().mkdirs();//make sure the folder exists or the outputStream will fail.
+        try(OutputStream outputStream = new TransferProgressFileOutputStream(destination,transferProgress,multiDigest);
+            InputStream inputStream = s3Object.getObjectContent()) {
+            IOUtils.copy(inputStream,outputStream);
         }
+        return expectedDigest.verify(toResourceMetadata(s3Object.getObjectMetadata()), multiDigest, destination);
     }
 
-    public void put(File file, String destination,TransferProgress transferProgress) throws TransferFailedException {
+    /**
+     * @return whether the download is hedged, which only applies to objects small enough to be buffered in memory
+     */
+    private boolean isHedged(String resourceName) throws TransferFailedException {
+        if (!hedgedExecutor.isEnabled()) {
+            return false;
+        }
+
+        ResourceMetadata resourceMetadata = metadata(resourceName);
+        return resourceMetadata != null && hedgedExecutor.isHedged(resourceMetadata.getContentLength());
+    }
+
+    private BufferedObject read(String key) throws IOException {
+        try (S3Object s3Object = client().getObject(bucket, key);
+             InputStream inputStream = s3Object.getObjectContent()) {
+            return new BufferedObject(BufferedObject.readContent(inputStream, hedgedExecutor.getMaxObjectSize()), toResourceMetadata(s3Object.getObjectMetadata()))
+                    .verify(expectedDigest(s3Object.getObjectMetadata()));
+        }
+    }
+
+    private ExpectedDigest expectedDigest(ObjectMetadata objectMetadata) {
+        return verifyDownloads ? checksum(objectMetadata) : ExpectedDigest.NONE;
+    }
+
+    /**
+     * The ETag is the MD5 of the object unless it was uploaded in parts or encrypted with KMS or a customer key
+     */
+    private static ExpectedDigest checksum(ObjectMetadata objectMetadata) {
+        if (objectMetadata.getSSECustomerAlgorithm() != null || SSEAlgorithm.KMS.getAlgorithm().equals(objectMetadata.getSSEAlgorithm())) {
+            return ExpectedDigest.NONE;
+        }
+        return ExpectedDigest.md5Hex(objectMetadata.getETag());
+    }
+
+    /**
+     * @return the metadata of the key, null if the key does not exist
+     */
+    @Override
+    public ResourceMetadata metadata(String resourceName) throws TransferFailedException {
+
+        final String key = resolveKey(resourceName);
+
+        return metadataCache.get(location(key), () -> {
+            try {
+                return toResourceMetadata(retryExecutor.execute(Operation.EXISTS, () -> hedgedExecutor.execute(Operation.EXISTS, () -> client().getObjectMetadata(bucket, key))));
+            } catch (AmazonS3Exception e) {
+                if (e.getStatusCode() == 404) {
+                    return null;
+                }
+                LOGGER.log(Level.FINER,String.format("Could not retrieve the metadata of %s",key),e);
+                throw new TransferFailedException("Could not retrieve the metadata of "+key, e);
+            } catch (SdkClientException e) {
+                LOGGER.log(Level.FINER,String.format("Could not retrieve the metadata of %s",key),e);
+                throw new TransferFailedException("Could not retrieve the metadata of "+key, e);
+            }
+        });
+    }
+
+    private static ResourceMetadata toResourceMetadata(ObjectMetadata objectMetadata) {
+        long lastModified = objectMetadata.getLastModified() == null ? 0 : objectMetadata.getLastModified().getTime();
+        return new ResourceMetadata(objectMetadata.getInstanceLength(), lastModified, objectMetadata.getETag(), checksum(objectMetadata));
+    }
+
+    /**
+     * Compares the file with the object at the destination, using the MD5 held by the ETag. The ETag of an object
+     * uploaded in parts is compared with the one the file would get if uploaded in parts of the resumable part size.
+     *
+     * @return the digests of the file if the object has the same content, null otherwise
+     */
+    @Override
+    public ContentDigests identical(File file, String destination) throws TransferFailedException {
+        ResourceMetadata resourceMetadata = metadata(destination);
+        if (resourceMetadata == null || resourceMetadata.getContentLength() != file.length()) {
+            return null;
+        }
+
+        try {
+            if (resourceMetadata.getChecksum().isPresent()) {
+                ContentDigests contentDigests = MultiDigest.digest(file);
+                return resourceMetadata.getChecksum().matches(contentDigests) ? contentDigests : null;
+            }
+
+            Matcher matcher = MULTIPART_ETAG.matcher(resourceMetadata.getVersion() == null ? "" : resourceMetadata.getVersion());
+            long partSize = resumableTransfers.getPartSize();
+            if (!matcher.matches() || partSize <= 0 || (file.length() + partSize - 1) / partSize != Long.parseLong(matcher.group(2))) {
+                return null;
+            }
+
+            MultiDigest multiDigest = new MultiDigest();
+            return matcher.group(1).equalsIgnoreCase(multipartMd5(file, partSize, multiDigest)) ? multiDigest.finish() : null;
+        } catch (IOException e) {
+            throw new TransferFailedException("Could not read " + file, e);
+        }
+    }
+
+    /**
+     * @return the hex MD5 of the MD5s of the parts, which S3 puts in front of the part count in the ETag
+     */
+    private static String multipartMd5(File file, long partSize, MultiDigest multiDigest) throws IOException {
+        try {
+            MessageDigest partDigest = MessageDigest.getInstance("MD5");
+            MessageDigest eTagDigest = MessageDigest.getInstance("MD5");
+
+            try (InputStream inputStream = new TransferProgressFileInputStream(file, (buffer, offset, length) -> { }, multiDigest)) {
+                byte[] buffer = new byte[64 * 1024];
+                long inPart = 0;
+                int read;
+                while ((read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, partSize - inPart))) != -1) {
+                    partDigest.update(buffer, 0, read);
+                    inPart += read;
+                    if (inPart == partSize) {
+                        eTagDigest.update(partDigest.digest());
+                        inPart = 0;
+                    }
+                }
+                if (inPart > 0) {
+                    eTagDigest.update(partDigest.digest());
+                }
+            }
+
+            return String.format("%032x", new BigInteger(1, eTagDigest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * @return the digests of the uploaded content, computed while it was read
+     */
+    @Override
+    public ContentDigests put(File file, String destination,TransferProgress transferProgress) throws TransferFailedException {
 
         final String key = resolveKey(destination);
+        final MultiDigest multiDigest = new MultiDigest();
 
         try {
-            try(InputStream inputStream = new TransferProgressFileInputStream(file,transferProgress)) {
-                PutObjectRequest putObjectRequest = new PutObjectRequest(bucket,key,inputStream,createContentLengthMetadata(file));
-                applyPublicRead(putObjectRequest);
-                amazonS3.putObject(putObjectRequest);
+            if (resumableTransfers.isResumableUpload(file)) {
+                putMultipart(file, key, transferProgress, multiDigest);
+                return multiDigest.finish();
             }
-        } catch (AmazonS3Exception | IOException e) {
+
+            RetriedTransferProgress retriedTransferProgress = new RetriedTransferProgress(transferProgress);
+            PutObjectResult putObjectResult = retryExecutor.execute(Operation.PUT, () -> {
+                try(InputStream inputStream = new TransferProgressFileInputStream(file,retriedTransferProgress.attempt(),multiDigest)) {
+                    PutObjectRequest putObjectRequest = new PutObjectRequest(bucket,key,inputStream,createContentLengthMetadata(file));
+                    applyPublicRead(putObjectRequest);
+                    return client().putObject(putObjectRequest);
+                }
+            });
+
+            ContentDigests contentDigests = multiDigest.finish();
+            verify(key, contentDigests, putObjectResult);
+            return contentDigests;
+        } catch (SdkClientException | IOException e) {
             LOGGER.log(Level.SEVERE,"Could not transfer file ",e);
             throw new TransferFailedException("Could not transfer file "+file.getName());
+        } finally {
+            metadataCache.invalidate(location(key));
+        }
+    }
+
+    /**
+     * Compares the ETag of a single part upload, the MD5 of the content unless the object is encrypted with KMS or
+     * a customer key, with the MD5 computed while uploading
+     */
+    private void verify(String key, ContentDigests contentDigests, PutObjectResult putObjectResult) throws TransferFailedException {
+        String eTag = putObjectResult.getETag();
+        if (eTag == null || putObjectResult.getSSECustomerAlgorithm() != null || SSEAlgorithm.KMS.getAlgorithm().equals(putObjectResult.getSSEAlgorithm())) {
+            return;
         }
+
+        if (!eTag.replace("\"", "").equalsIgnoreCase(contentDigests.getMd5Hex())) {
+            throw new TransferFailedException(String.format("The ETag %s of %s does not match the MD5 %s of the uploaded file", eTag, key, contentDigests.getMd5Hex()));
+        }
+    }
+
+    /**
+     * Uploads the file in parts, continuing the multipart upload an interrupted transfer of the same file left.
+     * Every part is retried on its own, the upload id is kept until the upload completes.
+     */
+    private void putMultipart(File file, String key, TransferProgress transferProgress, MultiDigest multiDigest) throws IOException {
+        String location = location(key);
+        long partSize = resumableTransfers.getPartSize();
+
+        Properties state = resumableTransfers.loadUploadState(location, file);
+        String uploadId = state.getProperty(UPLOAD_ID);
+        Map<Integer, PartETag> uploadedParts = uploadId == null ? null : uploadedParts(key, uploadId, file.length(), partSize);
+
+        if (uploadedParts == null) {
+            InitiateMultipartUploadRequest initiateRequest = new InitiateMultipartUploadRequest(bucket, key);
+            if (publicReadProperty.get()) {
+                initiateRequest.withCannedACL(CannedAccessControlList.PublicRead);
+            }
+            uploadId = retryExecutor.execute(Operation.PUT, () -> client().initiateMultipartUpload(initiateRequest)).getUploadId();
+            uploadedParts = new TreeMap<>();
+
+            state.setProperty(UPLOAD_ID, uploadId);
+            resumableTransfers.saveUploadState(location, file, state);
+        } else {
+            LOGGER.log(Level.FINER, String.format("Resuming the upload of %s with %d parts uploaded", key, uploadedParts.size()));
+        }
+
+        List<PartETag> partETags = new ArrayList<>();
+        try (InputStream inputStream = new TransferProgressFileInputStream(file, transferProgress, multiDigest)) {
+            byte[] part = new byte[(int) Math.min(partSize, file.length())];
+            int partNumber = 1;
+            for (long offset = 0; offset < file.length(); offset += partSize, partNumber++) {
+                int length = (int) Math.min(partSize, file.length() - offset);
+                IOUtils.readFully(inputStream, part, 0, length);
+
+                PartETag uploaded = uploadedParts.get(partNumber);
+                if (uploaded != null) {
+                    partETags.add(uploaded);
+                    continue;
+                }
+
+                UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                        .withBucketName(bucket)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber)
+                        .withPartSize(length)
+                        .withMD5Digest(md5Base64(part, length));
+                partETags.add(retryExecutor.execute(Operation.PUT, () -> client().uploadPart(uploadPartRequest.withInputStream(new ByteArrayInputStream(part, 0, length)))).getPartETag());
+            }
+        }
+
+        CompleteMultipartUploadRequest completeRequest = new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags);
+        retryExecutor.execute(Operation.PUT, () -> client().completeMultipartUpload(completeRequest));
+        resumableTransfers.deleteUploadState(location, file);
+    }
+
+    private static String md5Base64(byte[] buffer, int length) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            messageDigest.update(buffer, 0, length);
+            return Base64.getEncoder().encodeToString(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    /**
+     * @return the parts of the multipart upload with the expected size, null if the upload no longer exists
+     */
+    private Map<Integer, PartETag> uploadedParts(String key, String uploadId, long fileLength, long partSize) {
+        Map<Integer, PartETag> uploadedParts = new TreeMap<>();
+        ListPartsRequest listPartsRequest = new ListPartsRequest(bucket, key, uploadId);
+
+        try {
+            PartListing partListing;
+            do {
+                partListing = retryExecutor.execute(Operation.LIST, () -> client().listParts(listPartsRequest));
+                for (PartSummary partSummary : partListing.getParts()) {
+                    long offset = (partSummary.getPartNumber() - 1) * partSize;
+                    if (partSummary.getSize() == Math.min(partSize, fileLength - offset)) {
+                        uploadedParts.put(partSummary.getPartNumber(), new PartETag(partSummary.getPartNumber(), partSummary.getETag()));
+                    }
+                }
+                listPartsRequest.setPartNumberMarker(partListing.getNextPartNumberMarker());
+            } while (partListing.isTruncated());
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == 404) {
+                LOGGER.log(Level.FINER, String.format("Multipart upload %s of %s no longer exists", uploadId, key));
+                return null;
+            }
+            throw e;
+        }
+
+        return uploadedParts;
     }
 
     private ObjectMetadata createContentLengthMetadata(File file) {
@@ -132,36 +636,44 @@ public class S3StorageRepository {
         return metadata;
     }
 
+    @Override
     public boolean newResourceAvailable(String resourceName,long timeStamp) throws ResourceDoesNotExistException {
 
         final String key = resolveKey(resourceName);
 
         LOGGER.log(Level.FINER,String.format("Checking if new key %s exists",key));
 
+        final ResourceMetadata resourceMetadata;
         try {
-            ObjectMetadata objectMetadata = amazonS3.getObjectMetadata(bucket, key);
-
-            long updated = objectMetadata.getLastModified().getTime();
-            return updated>timeStamp;
-        } catch (AmazonS3Exception e) {
+            resourceMetadata = metadata(resourceName);
+        } catch (TransferFailedException e) {
             LOGGER.log(Level.SEVERE,String.format("Could not retrieve %s",key),e);
             throw new ResourceDoesNotExistException("Could not retrieve key "+key);
         }
-    }
 
+        if (resourceMetadata == null) {
+            throw new ResourceDoesNotExistException("Could not retrieve key "+key);
+        }
 
-    public List<String> list(String path) {
+        return resourceMetadata.getLastModified()>timeStamp;
+    }
 
-        String key = resolveKey(path);
 
-        ObjectListing objectListing = amazonS3.listObjects(new ListObjectsRequest()
-                    .withBucketName(bucket)
-                    .withPrefix(key));
+    @Override
+    public List<String> list(String path) {
         List<String> objects = new ArrayList<>();
-        retrieveAllObjects(objectListing, objects);
+        keys(path).forEachRemaining(objects::add);
         return objects;
     }
 
+    /**
+     * @return the keys under the path, listed lazily one page at a time
+     */
+    public Iterator<String> keys(String path) {
+        S3KeyPageFetcher s3KeyPageFetcher = new S3KeyPageFetcher(client(), bucket, resolveKey(path));
+        return new PagedKeyIterator<>(token -> retryExecutor.execute(Operation.LIST, () -> s3KeyPageFetcher.fetch(token)));
+    }
+
     private void applyPublicRead(PutObjectRequest putObjectRequest) {
         if(publicReadProperty.get()) {
             LOGGER.info("Public read was set to true");
@@ -169,30 +681,145 @@ public class S3StorageRepository {
         }
     }
 
-    private void retrieveAllObjects(ObjectListing objectListing, List<String> objects) {
+    @Override
+    public boolean exists(String resourceName) {
+        try {
+            return metadata(resourceName) != null;
+        } catch (TransferFailedException e) {
+            return false;
+        }
+    }
 
-        objectListing.getObjectSummaries().forEach( os-> objects.add(os.getKey()));
+    @Override
+    public CompletableFuture<ResourceMetadata> getAsync(String resourceName, File destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> copy(resourceName, destination, transferProgress), asyncExecutor);
+    }
 
-        if(objectListing.isTruncated()) {
-            ObjectListing nextObjectListing = amazonS3.listNextBatchOfObjects(objectListing);
-            retrieveAllObjects(nextObjectListing, objects);
-        }
+    @Override
+    public CompletableFuture<ContentDigests> putAsync(File file, String destination, TransferProgress transferProgress) {
+        return AsyncCalls.supply(() -> put(file, destination, transferProgress), asyncExecutor);
     }
 
-    public boolean exists(String resourceName) {
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String resourceName) {
+        return AsyncCalls.supply(() -> exists(resourceName), asyncExecutor);
+    }
 
-        final String key = resolveKey(resourceName);
+    @Override
+    public CompletableFuture<List<String>> listAsync(String path) {
+        return AsyncCalls.supply(() -> list(path), asyncExecutor);
+    }
 
-        try {
-            amazonS3.getObjectMetadata(bucket, key);
-            return true;
-        } catch (AmazonS3Exception e) {
-            return false;
-        }
+    /**
+     * Sets the helpers of a new session from the settings of the wagon, before connecting
+     */
+    public void configure(StorageSettings storageSettings) {
+        setMetadataCache(storageSettings.getMetadataCache());
+        setRetryExecutor(storageSettings.createRetryExecutor(TRANSIENT_ERRORS));
+        setHedgedExecutor(storageSettings.createHedgedExecutor());
+        setRangedDownloader(storageSettings.createRangedDownloader());
+        setResumableTransfers(storageSettings.createResumableTransfers());
+        setVerifyDownloads(storageSettings.isVerifyDownloads());
+        setClientPool(storageSettings.createClientPool());
+        setConnectionPrewarmer(storageSettings.createConnectionPrewarmer());
+        setResolutionCache(storageSettings.createResolutionCache());
+        setLazyConnect(storageSettings.isLazyConnect());
+        setTimeouts(storageSettings.getConnectionTimeout(), storageSettings.getReadTimeout());
+    }
+
+    public void setMetadataCache(MetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+    }
+
+    /**
+     * @param retryExecutor retries the idempotent requests, set before connecting
+     */
+    public void setRetryExecutor(RetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
+
+    /**
+     * @param hedgedExecutor duplicates the slow lookups and downloads of small files
+     */
+    public void setHedgedExecutor(HedgedExecutor hedgedExecutor) {
+        this.hedgedExecutor = hedgedExecutor;
     }
 
+    /**
+     * @param rangedDownloader downloads the large objects in concurrent ranges
+     */
+    public void setRangedDownloader(RangedDownloader rangedDownloader) {
+        this.rangedDownloader = rangedDownloader;
+    }
+
+    /**
+     * @param resumableTransfers keeps the state of interrupted downloads and uploads
+     */
+    public void setResumableTransfers(ResumableTransfers resumableTransfers) {
+        this.resumableTransfers = resumableTransfers;
+    }
+
+    /**
+     * @param verifyDownloads whether downloads are compared with the MD5 of the object held by its ETag
+     */
+    public void setVerifyDownloads(boolean verifyDownloads) {
+        this.verifyDownloads = verifyDownloads;
+    }
+
+    /**
+     * @param connectionTimeout the connection timeout in milliseconds, 0 for the SDK default, set before connecting
+     * @param readTimeout       the socket read timeout in milliseconds, 0 for the SDK default, set before connecting
+     */
+    public void setTimeouts(int connectionTimeout, int readTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @param clientPool shares the clients with the other wagons, set before connecting
+     */
+    public void setClientPool(ClientPool clientPool) {
+        this.clientPool = clientPool;
+    }
+
+    /**
+     * @param lazyConnect whether the client is connected in the background, instead of during connect
+     */
+    public void setLazyConnect(boolean lazyConnect) {
+        this.lazyConnect = lazyConnect;
+    }
+
+    /**
+     * @param connectionPrewarmer opens connections to the endpoint once a new client is connected
+     */
+    public void setConnectionPrewarmer(ConnectionPrewarmer connectionPrewarmer) {
+        this.connectionPrewarmer = connectionPrewarmer;
+    }
+
+    /**
+     * @param resolutionCache remembers the region of the host and the provider of the default credentials, set before connecting
+     */
+    public void setResolutionCache(ResolutionCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * @param asyncExecutor runs the blocking calls behind the async methods
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    @Override
     public void disconnect() {
-        amazonS3 = null;
+        if (connection != null) {
+            connection.release();
+            connection = null;
+        }
+    }
+
+    private String location(String key) {
+        return "s3://" + bucket + "/" + key;
     }
 
     private String resolveKey(String path) {
@@ -16,36 +16,32 @@
 
 package com.gkatzioura.maven.cloud.s3;
 
-import java.io.File;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import com.gkatzioura.maven.cloud.resolver.KeyResolver;
-import org.apache.commons.io.FileUtils;
 import org.apache.maven.wagon.ConnectionException;
-import org.apache.maven.wagon.PathUtils;
 import org.apache.maven.wagon.ResourceDoesNotExistException;
 import org.apache.maven.wagon.TransferFailedException;
 import org.apache.maven.wagon.authentication.AuthenticationException;
 import org.apache.maven.wagon.authentication.AuthenticationInfo;
 import org.apache.maven.wagon.authorization.AuthorizationException;
-import org.apache.maven.wagon.events.TransferEvent;
 import org.apache.maven.wagon.proxy.ProxyInfoProvider;
 import org.apache.maven.wagon.repository.Repository;
-import org.apache.maven.wagon.resource.Resource;
 
 import com.amazonaws.services.s3.model.AmazonS3Exception;
-import com.gkatzioura.maven.cloud.transfer.TransferProgress;
-import com.gkatzioura.maven.cloud.transfer.TransferProgressImpl;
-import com.gkatzioura.maven.cloud.wagon.AbstractStorageWagon;
+import com.gkatzioura.maven.cloud.metrics.Operation;
+import com.gkatzioura.maven.cloud.metrics.OperationSample;
+import com.gkatzioura.maven.cloud.repository.StorageRepository;
+import com.gkatzioura.maven.cloud.wagon.AbstractRepositoryWagon;
 import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
 
-public class S3StorageWagon extends AbstractStorageWagon {
+public class S3StorageWagon extends AbstractRepositoryWagon {
 
     private S3StorageRepository s3StorageRepository;
     private final KeyResolver keyResolver = new KeyResolver();
@@ -58,82 +54,18 @@ public class S3StorageWagon extends AbstractStorageWagon {
     private String pathStyleEnabled;
 
     @Override
-    public void get(String resourceName, File file) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        Resource resource = new Resource(resourceName);
-        transferListenerContainer.fireTransferInitiated(resource, TransferEvent.REQUEST_GET);
-        transferListenerContainer.fireTransferStarted(resource, TransferEvent.REQUEST_GET, file);
-
-        final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_GET, transferListenerContainer);
-
-        try {
-            s3StorageRepository.copy(resourceName,file,transferProgress);
-            transferListenerContainer.fireTransferCompleted(resource,TransferEvent.REQUEST_GET);
-        } catch (Exception e) {
-            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_GET,e);
-            throw e;
-        }
-    }
-
-    @Override
-    public void put(File file, String resourceName) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        Resource resource = new Resource(resourceName);
-
-        LOGGER.log(Level.FINER, String.format("Uploading file %s to %s", file.getAbsolutePath(), resourceName));
-
-        transferListenerContainer.fireTransferInitiated(resource,TransferEvent.REQUEST_PUT);
-        transferListenerContainer.fireTransferStarted(resource,TransferEvent.REQUEST_PUT, file);
-        final TransferProgress transferProgress = new TransferProgressImpl(resource, TransferEvent.REQUEST_PUT, transferListenerContainer);
-
-        try {
-            s3StorageRepository.put(file, resourceName,transferProgress);
-            transferListenerContainer.fireTransferCompleted(resource, TransferEvent.REQUEST_PUT);
-        } catch (TransferFailedException e) {
-            transferListenerContainer.fireTransferError(resource,TransferEvent.REQUEST_PUT,e);
-            throw e;
-        }
-    }
-
-    @Override
-    public boolean getIfNewer(String resourceName, File file, long timeStamp) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-
-        if(s3StorageRepository.newResourceAvailable(resourceName,timeStamp)) {
-            get(resourceName,file);
-            return true;
-        }
-
-        return false;
-    }
-
-    @Override
-    public void putDirectory(File source, String destination) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        Collection<File> allFiles = FileUtils.listFiles(source, null, true);
-        String relativeDestination = destination;
-        //removes the initial .
-        if (destination != null && destination.startsWith(".")){
-            relativeDestination = destination.length() == 1 ? "" : destination.substring(1);
-        }
-        for (File file : allFiles) {
-            //compute relative path
-            String relativePath = PathUtils.toRelative(source, file.getAbsolutePath());
-            put(file, relativeDestination +"/"+relativePath);
-        }
-    }
-
-    @Override
-    public boolean resourceExists(String resourceName) throws TransferFailedException, AuthorizationException {
-        return s3StorageRepository.exists(resourceName);
+    protected StorageRepository getStorageRepository() {
+        return s3StorageRepository;
     }
 
     @Override
     public List<String> getFileList(String s) throws TransferFailedException, ResourceDoesNotExistException, AuthorizationException {
-        try {
-            List<String> list = s3StorageRepository.list(s);
-            list = convertS3ListToMavenFileList(list, s);
+        try (OperationSample sample = startOperation(Operation.LIST)) {
+            List<String> list = convertS3ListToMavenFileList(s3StorageRepository.keys(s), s);
             if (list.isEmpty()){
                 throw new ResourceDoesNotExistException(s);//expected by maven
             }
+            sample.succeeded(0);
             return list;
         } catch (AmazonS3Exception e) {
             throw new TransferFailedException("Could not fetch objects for prefix "+s);
@@ -142,18 +74,19 @@ public class S3StorageWagon extends AbstractStorageWagon {
 
     //removes the prefix path
     //adds folders files
-    private List<String> convertS3ListToMavenFileList(List<String> list, String path) {
+    private List<String> convertS3ListToMavenFileList(Iterator<String> keys, String path) {
         String prefix = keyResolver.resolve( s3StorageRepository.getBaseDirectory(), path);
         Set<String> folders = new HashSet<>();
-        List<String> result = list.stream().map( key -> {
-            String filePath = key;
+        List<String> result = new ArrayList<>();
+        while (keys.hasNext()) {
+            String filePath = keys.next();
             //removes the prefix from the object path
             if (prefix != null && prefix.length() > 0) {
-                filePath = key.substring(prefix.length() + 1);
+                filePath = filePath.substring(prefix.length() + 1);
             }
             extractFolders(folders, filePath);
-            return filePath;
-        }).collect(Collectors.toList());
+            result.add(filePath);
+        }
         result.addAll(folders);
         return result;
     }
@@ -181,20 +114,13 @@ public class S3StorageWagon extends AbstractStorageWagon {
 
         LOGGER.log(Level.FINER,String.format("Opening connection for bucket %s and directory %s",bucket,directory));
         s3StorageRepository = new S3StorageRepository(bucket, directory, new PublicReadProperty(publicRepository));
+        s3StorageRepository.configure(createStorageSettings());
         s3StorageRepository.connect(authenticationInfo, region, new EndpointProperty(endpoint), new PathStyleEnabledProperty(pathStyleEnabled));
 
         sessionListenerContainer.fireSessionLoggedIn();
         sessionListenerContainer.fireSessionOpened();
     }
 
-    @Override
-    public void disconnect() throws ConnectionException {
-        sessionListenerContainer.fireSessionDisconnecting();
-        s3StorageRepository.disconnect();
-        sessionListenerContainer.fireSessionLoggedOff();
-        sessionListenerContainer.fireSessionDisconnected();
-    }
-
 	public String getRegion() {
 		return region;
 	}
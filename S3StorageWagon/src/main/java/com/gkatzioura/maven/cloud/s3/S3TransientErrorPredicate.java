@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.retry.RetryUtils;
+
+/**
+ * Matches the S3 errors worth retrying: throttling such as 503 SlowDown, server errors, request timeouts and
+ * failed connections.
+ */
+public class S3TransientErrorPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof AmazonServiceException) {
+            AmazonServiceException amazonServiceException = (AmazonServiceException) throwable;
+            return amazonServiceException.getStatusCode() == 429
+                    || amazonServiceException.getStatusCode() >= 500
+                    || RetryUtils.isThrottlingException(amazonServiceException)
+                    || RetryUtils.isRetryableServiceException(amazonServiceException);
+        }
+
+        if (throwable instanceof SdkClientException) {
+            return throwable.getCause() instanceof IOException;
+        }
+
+        return throwable instanceof IOException;
+    }
+
+}
@@ -16,28 +16,20 @@
 
 package com.gkatzioura.maven.cloud.s3.plugin;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.function.Consumer;
-
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.ListObjectsRequest;
-import com.amazonaws.services.s3.model.ObjectListing;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
-
-public class PrefixKeysIterator implements Iterator<String> {
+import com.gkatzioura.maven.cloud.listing.PagedKeyIterator;
+import com.gkatzioura.maven.cloud.s3.S3KeyPageFetcher;
 
-    private AmazonS3 amazonS3;
-    private String prefix;
-    private String bucket;
+public class PrefixKeysIterator extends PagedKeyIterator<String> {
 
-    private ObjectListing tempListing = null;
-    private List<S3ObjectSummary> currentKeys = new ArrayList<>();
+    private final String prefix;
 
     public PrefixKeysIterator(AmazonS3 amazonS3, String bucket, String prefix) {
-        this.amazonS3 = amazonS3;
-        this.bucket = bucket;
+        this(amazonS3, bucket, prefix, 0);
+    }
+
+    public PrefixKeysIterator(AmazonS3 amazonS3, String bucket, String prefix, int prefetchPages) {
+        super(new S3KeyPageFetcher(amazonS3, bucket, prefix), prefetchPages);
         this.prefix = prefix;
     }
 
@@ -45,51 +37,4 @@ public class PrefixKeysIterator implements Iterator<String> {
         return this.prefix;
     }
 
-    @Override
-    public void remove() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override public void forEachRemaining(Consumer<? super String> action) {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public boolean hasNext() {
-        if(currentKeys.size()>0) {
-            return true;
-        }
-
-        fetchKeysIfExist();
-        return currentKeys.size()>0;
-    }
-
-    private void fetchKeysIfExist() {
-        if(tempListing==null) {
-            tempListing = getObjectListing();
-            currentKeys.addAll(tempListing.getObjectSummaries());
-        } else {
-            if(tempListing.isTruncated()) {
-                tempListing = amazonS3.listNextBatchOfObjects(tempListing);
-                currentKeys.addAll(tempListing.getObjectSummaries());
-            }
-        }
-    }
-
-    private ObjectListing getObjectListing() {
-
-        return amazonS3.listObjects(new ListObjectsRequest()
-                                            .withBucketName(bucket)
-                                            .withPrefix(prefix));
-    }
-
-    @Override
-    public String next() {
-        if(!hasNext()) {
-            return null;
-        }
-
-        return currentKeys.remove(0).getKey();
-    }
-
 }
@@ -40,6 +40,8 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import com.gkatzioura.maven.cloud.s3.plugin.PrefixKeysIterator;
 import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
 
@@ -58,6 +60,24 @@ public class S3DownloadMojo extends AbstractMojo {
     @Parameter(property = "s3-download.region")
     private String region;
 
+    /**
+     * The number of listing pages requested ahead while the keys of the current page are downloaded, 0 lists on demand
+     */
+    @Parameter(property = "s3-download.prefetchPages", defaultValue = "2")
+    private int prefetchPages = 2;
+
+    /**
+     * The number of files downloaded concurrently, 1 downloads them one after the other
+     */
+    @Parameter(property = "s3-download.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "s3-download.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     private static final String DIRECTORY_CONTENT_TYPE = "application/x-directory";
 
     private static final Logger LOGGER = Logger.getLogger(S3DownloadMojo.class.getName());
@@ -88,19 +108,32 @@ public class S3DownloadMojo extends AbstractMojo {
         }
 
         List<Iterator<String>> prefixKeysIterators = keys.stream()
-                                                 .map(pi -> pi.endsWith("/") ? new PrefixKeysIterator(amazonS3, bucket, pi) : Arrays.asList(pi).iterator())
+                                                 .map(pi -> pi.endsWith("/") ? new PrefixKeysIterator(amazonS3, bucket, pi, prefetchPages) : Arrays.asList(pi).iterator())
                                                  .collect(Collectors.toList());
 
-        for (Iterator<String> iterator : prefixKeysIterators) {
+        try (FanOut<RuntimeException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "s3-download")) {
+            for (Iterator<String> iterator : prefixKeysIterators) {
 
-            String prefix = null;
-            if (iterator instanceof PrefixKeysIterator) {
-                prefix = ((PrefixKeysIterator) iterator).getPrefix();
-            }
+                String prefix = null;
+                if (iterator instanceof PrefixKeysIterator) {
+                    prefix = ((PrefixKeysIterator) iterator).getPrefix();
+                }
 
-            while (iterator.hasNext()) {
-                String key = iterator.next();
-                downloadFile(amazonS3, prefix, key);
+                while (iterator.hasNext()) {
+                    String key = iterator.next();
+                    String keyPrefix = prefix;
+                    fanOut.submit(() -> downloadFile(amazonS3, keyPrefix, key));
+                }
+            }
+            fanOut.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while downloading from bucket " + bucket, e);
+        } finally {
+            for (Iterator<String> iterator : prefixKeysIterators) {
+                if (iterator instanceof PrefixKeysIterator) {
+                    ((PrefixKeysIterator) iterator).close();
+                }
             }
         }
     }
@@ -37,6 +37,8 @@ import com.amazonaws.services.s3.model.PutObjectRequest;
 
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
+import com.gkatzioura.maven.cloud.concurrency.FanOut;
+import com.gkatzioura.maven.cloud.concurrency.TransferExecutors;
 import com.gkatzioura.maven.cloud.s3.utils.S3Connect;
 
 @Mojo(name = "s3-upload")
@@ -54,6 +56,18 @@ public class S3UploadMojo extends AbstractMojo {
     @Parameter(property = "s3-upload.region")
     private String region;
 
+    /**
+     * The number of files uploaded concurrently, 1 uploads them one after the other
+     */
+    @Parameter(property = "s3-upload.parallelism", defaultValue = "1")
+    private int parallelism = 1;
+
+    /**
+     * The threads the concurrent transfers run on: auto, platform or virtual. Auto uses virtual threads on JDK 21 or later
+     */
+    @Parameter(property = "s3-upload.threads", defaultValue = "auto")
+    private String threads = TransferExecutors.AUTO;
+
     public S3UploadMojo() {
     }
 
@@ -98,8 +112,14 @@ public class S3UploadMojo extends AbstractMojo {
         if(isDirectory()){
             List<String> filesToUpload = findFilesToUpload(path);
 
-            for(String fileToUpload: filesToUpload) {
-                keyUpload(amazonS3, generateKeyName(fileToUpload), new File(fileToUpload));
+            try (FanOut<MojoExecutionException> fanOut = new FanOut<>(TransferExecutors.select(threads), parallelism, "s3-upload")) {
+                for(String fileToUpload: filesToUpload) {
+                    fanOut.submit(() -> keyUpload(amazonS3, generateKeyName(fileToUpload), new File(fileToUpload)));
+                }
+                fanOut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while uploading " + path, e);
             }
         } else {
             keyUpload(amazonS3, keyIfNull(), new File(path));
@@ -8,11 +8,13 @@
  */
 package com.gkatzioura.maven.cloud.s3.utils;
 
+import com.amazonaws.ClientConfiguration;
 import com.amazonaws.SdkClientException;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.gkatzioura.maven.cloud.s3.CredentialsFactory;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
 import com.gkatzioura.maven.cloud.s3.EndpointProperty;
 import com.gkatzioura.maven.cloud.s3.PathStyleEnabledProperty;
 import com.gkatzioura.maven.cloud.s3.S3StorageRegionProviderChain;
@@ -49,9 +51,32 @@ public class S3Connect {
      * @throws AuthenticationException if the passed credentials are invalid for connecting to the intended endpoint/bucket.
      */
     public static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle, null);
+    }
+
+    /**
+     * Connects to the AWS API like {@link #connect(AuthenticationInfo, String, EndpointProperty, PathStyleEnabledProperty)},
+     * using the given client configuration for timeouts and retries.
+     *
+     * @param clientConfiguration The configuration of the HTTP client, the SDK default when {@code null}.
+     */
+    public static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfiguration clientConfiguration) throws AuthenticationException {
+        return connect(authenticationInfo, region, endpoint, pathStyle, clientConfiguration, null);
+    }
+
+    /**
+     * Connects to the AWS API like {@link #connect(AuthenticationInfo, String, EndpointProperty, PathStyleEnabledProperty, ClientConfiguration)},
+     * remembering the region of the instance metadata service and the provider of the default credentials.
+     *
+     * @param resolutionCache Remembers how the region and the credentials were resolved, none when {@code null}.
+     */
+    public static AmazonS3 connect(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ClientConfiguration clientConfiguration, ResolutionCache resolutionCache) throws AuthenticationException {
         AmazonS3ClientBuilder builder = null;
         try {
-            builder = createAmazonS3ClientBuilder(authenticationInfo, region, endpoint, pathStyle);
+            builder = createAmazonS3ClientBuilder(authenticationInfo, region, endpoint, pathStyle, resolutionCache);
+            if (clientConfiguration != null) {
+                builder.setClientConfiguration(clientConfiguration);
+            }
 
             AmazonS3 amazonS3 = builder.build();
 
@@ -77,11 +102,11 @@ public class S3Connect {
         }
     }
 
-    private static AmazonS3ClientBuilder createAmazonS3ClientBuilder(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle) {
-        final S3StorageRegionProviderChain regionProvider = new S3StorageRegionProviderChain(region);
+    private static AmazonS3ClientBuilder createAmazonS3ClientBuilder(AuthenticationInfo authenticationInfo, String region, EndpointProperty endpoint, PathStyleEnabledProperty pathStyle, ResolutionCache resolutionCache) {
+        final S3StorageRegionProviderChain regionProvider = new S3StorageRegionProviderChain(region, resolutionCache == null ? ResolutionCache.disabled() : resolutionCache);
 
         AmazonS3ClientBuilder builder;
-        builder = AmazonS3ClientBuilder.standard().withCredentials(new CredentialsFactory().create(authenticationInfo));
+        builder = AmazonS3ClientBuilder.standard().withCredentials(new CredentialsFactory().create(authenticationInfo, resolutionCache));
 
         if (endpoint.isPresent()){
             builder.setEndpointConfiguration( new AwsClientBuilder.EndpointConfiguration(endpoint.get(), builder.getRegion()));
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.gkatzioura.maven.cloud.cache.ResolutionCache;
+
+public class CachedCredentialsProviderChainTest {
+
+    private final ResolutionCache resolutionCache = ResolutionCache.jvmWide(null, 0);
+
+    @Before
+    public void setUp() {
+        resolutionCache.invalidate("s3.credentials.source");
+    }
+
+    @Test
+    public void testGoesStraightToTheRememberedProvider() {
+        EnvironmentProvider environmentProvider = new EnvironmentProvider(null);
+        ProfileProvider profileProvider = new ProfileProvider(new BasicAWSCredentials("access-key", "secret-key"));
+
+        Assert.assertEquals("access-key", new CachedCredentialsProviderChain(resolutionCache, environmentProvider, profileProvider).getCredentials().getAWSAccessKeyId());
+        Assert.assertEquals(1, environmentProvider.calls.get());
+
+        Assert.assertEquals("access-key", new CachedCredentialsProviderChain(resolutionCache, environmentProvider, profileProvider).getCredentials().getAWSAccessKeyId());
+        Assert.assertEquals(1, environmentProvider.calls.get());
+    }
+
+    @Test
+    public void testWalksTheChainAgainWhenTheRememberedProviderFails() {
+        new CachedCredentialsProviderChain(resolutionCache, new EnvironmentProvider(null), new ProfileProvider(new BasicAWSCredentials("access-key", "secret-key"))).getCredentials();
+
+        EnvironmentProvider environmentProvider = new EnvironmentProvider(new BasicAWSCredentials("environment-key", "secret-key"));
+        AWSCredentials credentials = new CachedCredentialsProviderChain(resolutionCache, environmentProvider, new ProfileProvider(null)).getCredentials();
+
+        Assert.assertEquals("environment-key", credentials.getAWSAccessKeyId());
+    }
+
+    @Test(expected = SdkClientException.class)
+    public void testFailsWithoutAnyCredentials() {
+        new CachedCredentialsProviderChain(resolutionCache, new EnvironmentProvider(null), new ProfileProvider(null)).getCredentials();
+    }
+
+    private static class EnvironmentProvider implements AWSCredentialsProvider {
+
+        private final AWSCredentials credentials;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private EnvironmentProvider(AWSCredentials credentials) {
+            this.credentials = credentials;
+        }
+
+        @Override
+        public AWSCredentials getCredentials() {
+            calls.incrementAndGet();
+            if (credentials == null) {
+                throw new SdkClientException("Unable to load AWS credentials from environment variables");
+            }
+            return credentials;
+        }
+
+        @Override
+        public void refresh() {
+        }
+    }
+
+    private static class ProfileProvider extends EnvironmentProvider {
+
+        private ProfileProvider(AWSCredentials credentials) {
+            super(credentials);
+        }
+    }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2018 Emmanouil Gkatziouras
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gkatzioura.maven.cloud.s3;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.wagon.ResourceDoesNotExistException;
+import org.apache.maven.wagon.TransferFailedException;
+import org.apache.maven.wagon.authentication.AuthenticationInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gkatzioura.maven.cloud.hedging.HedgedExecutor;
+import com.gkatzioura.maven.cloud.hedging.HedgingPolicy;
+import com.gkatzioura.maven.cloud.metadata.ResourceMetadata;
+import com.gkatzioura.maven.cloud.retry.RetryExecutor;
+import com.gkatzioura.maven.cloud.retry.RetryPolicy;
+import com.gkatzioura.maven.cloud.transfer.ContentDigests;
+import com.gkatzioura.maven.cloud.transfer.PartialDownload;
+import com.gkatzioura.maven.cloud.transfer.RangedDownloader;
+import com.gkatzioura.maven.cloud.transfer.ResumableTransfers;
+import com.gkatzioura.maven.cloud.transfer.TransferProgress;
+import com.gkatzioura.maven.cloud.wagon.PublicReadProperty;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the repository against a local stand-in of S3 that fails a number of requests before answering them.
+ * The stand-in serves byte ranges but ignores conditional headers.
+ */
+public class S3StorageRepositoryRetryTest {
+
+    private static final byte[] CONTENT = "artifact content".getBytes(StandardCharsets.UTF_8);
+    private static final String SLOW_DOWN = "<Error><Code>SlowDown</Code><Message>Please reduce your request rate.</Message></Error>";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<Integer> ranges = new CopyOnWriteArrayList<>();
+    private volatile int failures;
+    private volatile int failureStatus = 503;
+    private volatile String eTag = md5Hex(CONTENT);
+
+    private HttpServer httpServer;
+
+    @Before
+    public void setUp() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        httpServer.stop(0);
+    }
+
+    @Test
+    public void testRetriesSlowDownOnDownload() throws Exception {
+        failures = 2;
+        File destination = File.createTempFile("s3-retry", ".jar");
+        destination.deleteOnExit();
+
+        connect(4).copy("artifact.jar", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testRetriesSlowDownOnHedgedDownload() throws Exception {
+        failures = 1;
+        File destination = File.createTempFile("s3-retry", ".pom");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(4);
+        s3StorageRepository.setHedgedExecutor(new HedgedExecutor(new HedgingPolicy(95, 10, 5), null));
+        s3StorageRepository.copy("artifact.pom", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        // the failed and the retried metadata lookup deciding on hedging, then the download
+        Assert.assertEquals(3, requests.get());
+    }
+
+    @Test
+    public void testDownloadsObjectsOverTheHedgingSizeWithoutBuffering() throws Exception {
+        File destination = File.createTempFile("s3-retry", ".pom");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(1);
+        s3StorageRepository.setHedgedExecutor(new HedgedExecutor(new HedgingPolicy(95, 10, 5, CONTENT.length - 1), null));
+        s3StorageRepository.setVerifyDownloads(true);
+        ResourceMetadata resourceMetadata = s3StorageRepository.copy("artifact.pom", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(md5Hex(CONTENT), resourceMetadata.getContentDigests().getMd5Hex());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testDownloadsRangesOfLargeObjects() throws Exception {
+        failures = 1;
+        File destination = File.createTempFile("s3-retry", ".zip");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(4);
+        s3StorageRepository.setRangedDownloader(new RangedDownloader(1, 4, 3));
+        s3StorageRepository.copy("artifact.zip", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        // the failed and the retried first range, whose stream is reused, then the other ranges
+        Assert.assertEquals(1 + CONTENT.length / 4, requests.get());
+    }
+
+    @Test
+    public void testDownloadsObjectsFittingTheFirstRangeWithASingleRequest() throws Exception {
+        File destination = File.createTempFile("s3-retry", ".pom");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(1);
+        s3StorageRepository.setRangedDownloader(new RangedDownloader(1, CONTENT.length, 3));
+        s3StorageRepository.setVerifyDownloads(true);
+        ResourceMetadata resourceMetadata = s3StorageRepository.copy("artifact.pom", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(CONTENT.length, resourceMetadata.getContentLength());
+        Assert.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void testResumesInterruptedDownload() throws Exception {
+        File stateDirectory = Files.createTempDirectory("s3-resume").toFile();
+        ResumableTransfers resumableTransfers = new ResumableTransfers(stateDirectory, 1024);
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload("s3://bucket/artifact.zip");
+             OutputStream outputStream = partialDownload.open("\"" + md5Hex(CONTENT) + "\"", 0, noProgress())) {
+            outputStream.write(CONTENT, 0, 6);
+        }
+
+        File destination = File.createTempFile("s3-retry", ".zip");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(4);
+        s3StorageRepository.setResumableTransfers(resumableTransfers);
+        ResourceMetadata resourceMetadata = s3StorageRepository.copy("artifact.zip", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(CONTENT.length, resourceMetadata.getContentLength());
+        Assert.assertEquals(Collections.singletonList(6), ranges);
+    }
+
+    @Test
+    public void testRestartsResumedDownloadNotMatchingTheETag() throws Exception {
+        File stateDirectory = Files.createTempDirectory("s3-resume").toFile();
+        ResumableTransfers resumableTransfers = new ResumableTransfers(stateDirectory, 1024);
+        try (PartialDownload partialDownload = resumableTransfers.partialDownload("s3://bucket/artifact.zip");
+             OutputStream outputStream = partialDownload.open("\"" + md5Hex(CONTENT) + "\"", 0, noProgress())) {
+            outputStream.write("corrupt".getBytes(StandardCharsets.UTF_8), 0, 6);
+        }
+
+        File destination = File.createTempFile("s3-retry", ".zip");
+        destination.deleteOnExit();
+
+        S3StorageRepository s3StorageRepository = connect(4);
+        s3StorageRepository.setResumableTransfers(resumableTransfers);
+        s3StorageRepository.setVerifyDownloads(true);
+        ResourceMetadata resourceMetadata = s3StorageRepository.copy("artifact.zip", destination, noProgress());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+        Assert.assertEquals(md5Hex(CONTENT), resourceMetadata.getContentDigests().getMd5Hex());
+        Assert.assertEquals(Collections.singletonList(6), ranges);
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testComparesTheMd5OfTheETag() throws Exception {
+        File identical = File.createTempFile("s3-identical", ".jar");
+        identical.deleteOnExit();
+        Files.write(identical.toPath(), CONTENT);
+        File different = File.createTempFile("s3-different", ".jar");
+        different.deleteOnExit();
+        Files.write(different.toPath(), "artifact changed".getBytes(StandardCharsets.UTF_8));
+
+        S3StorageRepository s3StorageRepository = connect(1);
+
+        Assert.assertEquals(md5Hex(CONTENT), s3StorageRepository.identical(identical, "artifact.jar").getMd5Hex());
+        Assert.assertNull(s3StorageRepository.identical(different, "artifact.jar"));
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testComparesTheETagOfObjectsUploadedInParts() throws Exception {
+        ByteArrayOutputStream partMd5s = new ByteArrayOutputStream();
+        for (int offset = 0; offset < CONTENT.length; offset += 5) {
+            partMd5s.write(MessageDigest.getInstance("MD5").digest(Arrays.copyOfRange(CONTENT, offset, Math.min(offset + 5, CONTENT.length))));
+        }
+        eTag = md5Hex(partMd5s.toByteArray()) + "-4";
+
+        File file = File.createTempFile("s3-identical", ".jar");
+        file.deleteOnExit();
+        Files.write(file.toPath(), CONTENT);
+
+        S3StorageRepository s3StorageRepository = connect(1);
+        s3StorageRepository.setResumableTransfers(new ResumableTransfers(Files.createTempDirectory("s3-resume").toFile(), 5));
+        Assert.assertNotNull(s3StorageRepository.identical(file, "artifact.jar"));
+
+        s3StorageRepository.setResumableTransfers(new ResumableTransfers(Files.createTempDirectory("s3-resume").toFile(), 4));
+        Assert.assertNull(s3StorageRepository.identical(file, "artifact.jar"));
+    }
+
+    @Test
+    public void testReportsTheBytesOfARetriedUploadOnce() throws Exception {
+        failures = 1;
+        File file = File.createTempFile("s3-retry", ".jar");
+        file.deleteOnExit();
+        Files.write(file.toPath(), CONTENT);
+        AtomicLong reported = new AtomicLong();
+
+        ContentDigests contentDigests = connect(4).put(file, "artifact.jar", (buffer, offset, length) -> reported.addAndGet(length));
+
+        Assert.assertEquals(md5Hex(CONTENT), contentDigests.getMd5Hex());
+        Assert.assertEquals(CONTENT.length, reported.get());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testRetriesSlowDownOnMetadata() throws Exception {
+        failures = 3;
+
+        Assert.assertTrue(connect(4).exists("artifact.jar"));
+        Assert.assertEquals(4, requests.get());
+    }
+
+    @Test(expected = TransferFailedException.class)
+    public void testFailsOnceAttemptsAreExhausted() throws Exception {
+        failures = 5;
+        File destination = File.createTempFile("s3-retry", ".jar");
+        destination.deleteOnExit();
+
+        try {
+            connect(3).copy("artifact.jar", destination, noProgress());
+        } finally {
+            Assert.assertEquals(3, requests.get());
+        }
+    }
+
+    @Test(expected = ResourceDoesNotExistException.class)
+    public void testDoesNotRetryMissingObjects() throws Exception {
+        failures = 5;
+        failureStatus = 404;
+        File destination = File.createTempFile("s3-retry", ".jar");
+        destination.deleteOnExit();
+
+        try {
+            connect(4).copy("artifact.jar", destination, noProgress());
+        } finally {
+            Assert.assertEquals(1, requests.get());
+        }
+    }
+
+    private S3StorageRepository connect(int attempts) throws Exception {
+        S3StorageRepository s3StorageRepository = new S3StorageRepository("bucket", "", new PublicReadProperty(false));
+        s3StorageRepository.setRetryExecutor(new RetryExecutor(new RetryPolicy(attempts, 1, 5, 0), new S3TransientErrorPredicate(), null));
+        s3StorageRepository.setTimeouts(5000, 5000);
+
+        AuthenticationInfo authenticationInfo = new AuthenticationInfo();
+        authenticationInfo.setUserName("access-key");
+        authenticationInfo.setPassword("secret-key");
+
+        String endpoint = "http://127.0.0.1:" + httpServer.getAddress().getPort();
+        s3StorageRepository.connect(authenticationInfo, "us-east-1", new EndpointProperty(endpoint), new PathStyleEnabledProperty("true"));
+        return s3StorageRepository;
+    }
+
+    private void handle(HttpExchange httpExchange) throws IOException {
+        try {
+            httpExchange.getResponseHeaders().add("Connection", "close");
+            IOUtils.toByteArray(httpExchange.getRequestBody());
+            if (requests.incrementAndGet() <= failures) {
+                byte[] body = failureStatus == 404 ? new byte[0] : SLOW_DOWN.getBytes(StandardCharsets.UTF_8);
+                httpExchange.getResponseHeaders().add("Content-Type", "application/xml");
+                send(httpExchange, failureStatus, body);
+                return;
+            }
+
+            httpExchange.getResponseHeaders().add("ETag", "\"" + eTag + "\"");
+            httpExchange.getResponseHeaders().add("Last-Modified", "Wed, 01 Jan 2020 00:00:00 GMT");
+            httpExchange.getResponseHeaders().add("Content-Type", "application/java-archive");
+
+            String range = httpExchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                int start = Integer.parseInt(bounds[0]);
+                int end = (int) Math.min(Long.parseLong(bounds[1]), CONTENT.length - 1);
+                ranges.add(start);
+                httpExchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + CONTENT.length);
+                send(httpExchange, 206, Arrays.copyOfRange(CONTENT, start, end + 1));
+                return;
+            }
+
+            send(httpExchange, 200, CONTENT);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    private static void send(HttpExchange httpExchange, int status, byte[] body) throws IOException {
+        if ("HEAD".equals(httpExchange.getRequestMethod()) || body.length == 0) {
+            if (body.length > 0) {
+                httpExchange.getResponseHeaders().add("Content-Length", Integer.toString(body.length));
+            }
+            httpExchange.sendResponseHeaders(status, -1);
+            return;
+        }
+
+        httpExchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = httpExchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static String md5Hex(byte[] content) {
+        try {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("MD5").digest(content)) {
+                stringBuilder.append(String.format("%02x", b));
+            }
+            return stringBuilder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TransferProgress noProgress() {
+        return (buffer, offset, length) -> {
+        };
+    }
+
+}